@@ -201,7 +201,83 @@ public class PropertyLoader {
         }
         return properties.getProperty(key, value);
     }
-    
+
+    /**
+     * Getter method for a single integer property.  If the properties
+     * cannot be loaded, the property is not defined, or the property
+     * value is not a valid integer the supplied default is returned.
+     *
+     * @param key The key of the property to look up.
+     * @param value The default value for the key.
+     * @return The integer value of the property, or the default.
+     */
+    public int getIntProperty(String key, int value) {
+        return (int)getLongProperty(key, value);
+    }
+
+    /**
+     * Getter method for a single long property.  If the properties
+     * cannot be loaded, the property is not defined, or the property
+     * value is not a valid long the supplied default is returned.
+     *
+     * @param key The key of the property to look up.
+     * @param value The default value for the key.
+     * @return The long value of the property, or the default.
+     */
+    public long getLongProperty(String key, long value) {
+        long result = value;
+        try {
+            String prop = getProperty(key);
+            if ((prop != null) && (!prop.trim().isEmpty())) {
+                result = Long.parseLong(prop.trim());
+            }
+        }
+        catch (PropertiesNotLoadedException pnle) {
+            LOGGER.warn("Unable to load the properties file.  Using the "
+                    + "default value for property [ "
+                    + key
+                    + " ] => [ "
+                    + value
+                    + " ].");
+        }
+        catch (NumberFormatException nfe) {
+            LOGGER.warn("Value for property [ "
+                    + key
+                    + " ] is not numeric.  Using the default value [ "
+                    + value
+                    + " ].");
+        }
+        return result;
+    }
+
+    /**
+     * Getter method for a single boolean property.  If the properties
+     * cannot be loaded, or the property is not defined the supplied
+     * default is returned.
+     *
+     * @param key The key of the property to look up.
+     * @param value The default value for the key.
+     * @return The boolean value of the property, or the default.
+     */
+    public boolean getBooleanProperty(String key, boolean value) {
+        boolean result = value;
+        try {
+            String prop = getProperty(key);
+            if ((prop != null) && (!prop.trim().isEmpty())) {
+                result = Boolean.parseBoolean(prop.trim());
+            }
+        }
+        catch (PropertiesNotLoadedException pnle) {
+            LOGGER.warn("Unable to load the properties file.  Using the "
+                    + "default value for property [ "
+                    + key
+                    + " ] => [ "
+                    + value
+                    + " ].");
+        }
+        return result;
+    }
+
     /**
      * Setter method for the name of the target properties file.
      *  
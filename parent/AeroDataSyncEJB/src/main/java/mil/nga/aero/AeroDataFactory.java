@@ -32,9 +32,17 @@ public class AeroDataFactory {
      * @return Reference to the JDBCUPGDataStore EJB.
      */
     private AeroDataServiceI getUPGDataService() {
-        return EJBClientUtilities
-                .getInstance()
-                .getUPGDataService();
+        return EJBReferenceCache.getInstance().get(
+                AeroDataType.UPG, 
+                AeroDataServiceI.class, 
+                new EJBReferenceCache.Resolver<AeroDataServiceI>() {
+                    @Override
+                    public AeroDataServiceI resolve() {
+                        return EJBClientUtilities
+                                .getInstance()
+                                .getUPGDataService();
+                    }
+                });
     }
     
     /**
@@ -43,9 +51,17 @@ public class AeroDataFactory {
      * @return Reference to the JDBCJEPPDataService EJB.
      */
     private AeroDataServiceI getJEPPDataService() {
-        return EJBClientUtilities
-                .getInstance()
-                .getJEPPDataService();
+        return EJBReferenceCache.getInstance().get(
+                AeroDataType.JEPP, 
+                AeroDataServiceI.class, 
+                new EJBReferenceCache.Resolver<AeroDataServiceI>() {
+                    @Override
+                    public AeroDataServiceI resolve() {
+                        return EJBClientUtilities
+                                .getInstance()
+                                .getJEPPDataService();
+                    }
+                });
     }
     
     /**
@@ -85,6 +101,20 @@ public class AeroDataFactory {
         return dataService;
     }
     
+    /**
+     * Remove the cached EJB reference associated with the input data type 
+     * so that it will be looked up again on the next call to 
+     * <code>construct()</code>.  Clients should invoke this if the 
+     * reference they obtained turns out to be unusable.
+     * 
+     * @param type The AeroDataType associated with the reference.
+     */
+    public void invalidate(AeroDataType type) {
+        if (type != null) {
+            EJBReferenceCache.getInstance().invalidate(type, AeroDataServiceI.class);
+        }
+    }
+    
     /**
      * Accessor method for the singleton instance of the AeroDataStoreFactory 
      * class.
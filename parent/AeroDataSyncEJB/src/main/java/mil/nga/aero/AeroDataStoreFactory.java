@@ -32,9 +32,17 @@ public class AeroDataStoreFactory {
      * @return Reference to the JDBCUPGDataStore EJB.
      */
     private AeroDataStoreI getUPGDataStore() {
-        return EJBClientUtilities
-                .getInstance()
-                .getJDBCUPGDataService();
+        return EJBReferenceCache.getInstance().get(
+                AeroDataType.UPG, 
+                AeroDataStoreI.class, 
+                new EJBReferenceCache.Resolver<AeroDataStoreI>() {
+                    @Override
+                    public AeroDataStoreI resolve() {
+                        return EJBClientUtilities
+                                .getInstance()
+                                .getJDBCUPGDataService();
+                    }
+                });
     }
     
     /**
@@ -43,9 +51,17 @@ public class AeroDataStoreFactory {
      * @return Reference to the JDBCJEPPDataStore EJB.
      */
     private AeroDataStoreI getJEPPDataStore() {
-        return EJBClientUtilities
-                .getInstance()
-                .getJDBCJEPPDataService();
+        return EJBReferenceCache.getInstance().get(
+                AeroDataType.JEPP, 
+                AeroDataStoreI.class, 
+                new EJBReferenceCache.Resolver<AeroDataStoreI>() {
+                    @Override
+                    public AeroDataStoreI resolve() {
+                        return EJBClientUtilities
+                                .getInstance()
+                                .getJDBCJEPPDataService();
+                    }
+                });
     }
     
     /**
@@ -85,6 +101,20 @@ public class AeroDataStoreFactory {
         return dataStore;
     }
     
+    /**
+     * Remove the cached EJB reference associated with the input data type 
+     * so that it will be looked up again on the next call to 
+     * <code>construct()</code>.  Clients should invoke this if the 
+     * reference they obtained turns out to be unusable.
+     * 
+     * @param type The AeroDataType associated with the reference.
+     */
+    public void invalidate(AeroDataType type) {
+        if (type != null) {
+            EJBReferenceCache.getInstance().invalidate(type, AeroDataStoreI.class);
+        }
+    }
+    
     /**
      * Accessor method for the singleton instance of the AeroDataStoreFactory 
      * class.
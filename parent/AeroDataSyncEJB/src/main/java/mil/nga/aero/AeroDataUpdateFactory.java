@@ -33,9 +33,17 @@ public class AeroDataUpdateFactory {
      * @return Reference to the JDBCUPGDataStore EJB.
      */
     private AeroDataUpdateServiceI getUPGDataUpdateService() {
-        return EJBClientUtilities
-                .getInstance()
-                .getUPGDataUpdateService();
+        return EJBReferenceCache.getInstance().get(
+                AeroDataType.UPG, 
+                AeroDataUpdateServiceI.class, 
+                new EJBReferenceCache.Resolver<AeroDataUpdateServiceI>() {
+                    @Override
+                    public AeroDataUpdateServiceI resolve() {
+                        return EJBClientUtilities
+                                .getInstance()
+                                .getUPGDataUpdateService();
+                    }
+                });
     }
     
     /**
@@ -44,9 +52,17 @@ public class AeroDataUpdateFactory {
      * @return Reference to the JEPPDataUpdateService EJB.
      */
     private AeroDataUpdateServiceI getJEPPDataUpdateService() {
-        return EJBClientUtilities
-                .getInstance()
-                .getJEPPDataUpdateService();
+        return EJBReferenceCache.getInstance().get(
+                AeroDataType.JEPP, 
+                AeroDataUpdateServiceI.class, 
+                new EJBReferenceCache.Resolver<AeroDataUpdateServiceI>() {
+                    @Override
+                    public AeroDataUpdateServiceI resolve() {
+                        return EJBClientUtilities
+                                .getInstance()
+                                .getJEPPDataUpdateService();
+                    }
+                });
     }
     
     /**
@@ -86,6 +102,20 @@ public class AeroDataUpdateFactory {
         return dataStore;
     }
     
+    /**
+     * Remove the cached EJB reference associated with the input data type 
+     * so that it will be looked up again on the next call to 
+     * <code>construct()</code>.  Clients should invoke this if the 
+     * reference they obtained turns out to be unusable.
+     * 
+     * @param type The AeroDataType associated with the reference.
+     */
+    public void invalidate(AeroDataType type) {
+        if (type != null) {
+            EJBReferenceCache.getInstance().invalidate(type, AeroDataUpdateServiceI.class);
+        }
+    }
+    
     /**
      * Accessor method for the singleton instance of the AeroDataStoreFactory 
      * class.
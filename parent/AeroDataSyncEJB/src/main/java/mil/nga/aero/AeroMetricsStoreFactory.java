@@ -32,9 +32,17 @@ public class AeroMetricsStoreFactory {
      * @return Reference to the JDBCUPGDataStore EJB.
      */
     private AeroDataMetricsStoreI getUPGMetricsStore() {
-        return EJBClientUtilities
-                .getInstance()
-                .getJDBCUPGMetricsService();
+        return EJBReferenceCache.getInstance().get(
+                AeroDataType.UPG, 
+                AeroDataMetricsStoreI.class, 
+                new EJBReferenceCache.Resolver<AeroDataMetricsStoreI>() {
+                    @Override
+                    public AeroDataMetricsStoreI resolve() {
+                        return EJBClientUtilities
+                                .getInstance()
+                                .getJDBCUPGMetricsService();
+                    }
+                });
     }
     
     /**
@@ -43,9 +51,17 @@ public class AeroMetricsStoreFactory {
      * @return Reference to the JDBCJEPPDataStore EJB.
      */
     private AeroDataMetricsStoreI getJEPPMetricsStore() {
-        return EJBClientUtilities
-                .getInstance()
-                .getJDBCJEPPMetricsService();
+        return EJBReferenceCache.getInstance().get(
+                AeroDataType.JEPP, 
+                AeroDataMetricsStoreI.class, 
+                new EJBReferenceCache.Resolver<AeroDataMetricsStoreI>() {
+                    @Override
+                    public AeroDataMetricsStoreI resolve() {
+                        return EJBClientUtilities
+                                .getInstance()
+                                .getJDBCJEPPMetricsService();
+                    }
+                });
     }
     
     /**
@@ -85,6 +101,20 @@ public class AeroMetricsStoreFactory {
         return dataStore;
     }
     
+    /**
+     * Remove the cached EJB reference associated with the input data type 
+     * so that it will be looked up again on the next call to 
+     * <code>construct()</code>.  Clients should invoke this if the 
+     * reference they obtained turns out to be unusable.
+     * 
+     * @param type The AeroDataType associated with the reference.
+     */
+    public void invalidate(AeroDataType type) {
+        if (type != null) {
+            EJBReferenceCache.getInstance().invalidate(type, AeroDataMetricsStoreI.class);
+        }
+    }
+    
     /**
      * Accessor method for the singleton instance of the AeroDataStoreFactory 
      * class.
@@ -0,0 +1,79 @@
+package mil.nga.aero;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket used to cap the rate at which product data is downloaded.
+ * Tokens (bytes) accrue at the configured rate up to a burst of one
+ * second's worth.  Callers report the bytes they have just read and are
+ * made to sleep until the bucket can cover them.  A single limiter is
+ * shared by all of the download threads of one data type, so the cap
+ * applies to the aggregate rate of the type rather than to each thread.
+ *
+ * @author L. Craig Carpenter
+ */
+public class BandwidthLimiter {
+
+    /**
+     * Maximum rate in bytes per second.
+     */
+    private final long rate;
+
+    /**
+     * Bytes currently available.  May go negative if a caller reports more
+     * bytes than are available, in which case the caller waits for the
+     * debt to be repaid.
+     */
+    private double available;
+
+    /**
+     * Time (in nanoseconds) the bucket was last refilled.
+     */
+    private long refilled;
+
+    /**
+     * Constructor.
+     *
+     * @param rate Maximum rate in bytes per second (must be greater than
+     * zero).
+     */
+    public BandwidthLimiter(long rate) {
+        this.rate      = Math.max(1, rate);
+        this.available = this.rate;
+        this.refilled  = System.nanoTime();
+    }
+
+    /**
+     * Account for bytes that have been read, blocking until the configured
+     * rate allows them.
+     *
+     * @param bytes The number of bytes read.
+     * @throws InterruptedException Thrown if the calling thread is
+     * interrupted while waiting.
+     */
+    public void acquire(long bytes) throws InterruptedException {
+        if (bytes > 0) {
+            long wait;
+            synchronized (this) {
+                long now = System.nanoTime();
+                available = Math.min(rate,
+                        available + ((now - refilled) * rate / 1.0e9));
+                refilled  = now;
+                available -= bytes;
+                wait = (available < 0) ?
+                        (long)((-available * 1.0e9) / rate) : 0;
+            }
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        }
+    }
+
+    /**
+     * Getter method for the maximum rate.
+     * @return The maximum rate in bytes per second.
+     */
+    public long getRate() {
+        return rate;
+    }
+}
@@ -0,0 +1,447 @@
+package mil.nga.aero;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.PropertyLoader;
+import mil.nga.aero.interfaces.AeroDataConstants;
+import mil.nga.aero.upg.model.UpsertResult;
+
+/**
+ * Class following the Singleton creation pattern that executes a single
+ * SQL statement against a collection of values using JDBC batching.  The
+ * values are split into chunks of <code>jdbc.batch.size</code> and each
+ * chunk is sent to the database in a single round trip and committed in
+ * its own transaction.  A chunk that fails is rolled back and logged, and
+ * processing continues with the next chunk.
+ *
+ * The <code>upsert()</code> method additionally splits the rows written
+ * by a <code>MERGE</code> statement into inserts and updates using the
+ * keys the caller expects to exist (the statement itself does not report
+ * which branch was taken).
+ *
+ * Callers must not be running in a container-managed transaction (i.e.
+ * the calling EJB method must be annotated with
+ * <code>TransactionAttributeType.NOT_SUPPORTED</code>) because the
+ * transactions are demarcated on the connection.
+ *
+ * @author L. Craig Carpenter
+ */
+public class BatchWriter
+        extends PropertyLoader
+        implements AeroDataConstants {
+
+    /**
+     * Set up the LogBack system for use throughout the class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+            BatchWriter.class);
+
+    /**
+     * Private constructor enforcing the singleton design pattern.
+     */
+    private BatchWriter() {
+        super(PROPERTIES_FILE);
+    }
+
+    /**
+     * Callback used to set the statement parameters for a single value.
+     *
+     * @param <T> The type of value.
+     */
+    public interface Binder<T> {
+
+        /**
+         * Set the parameters of the statement for the input value.
+         *
+         * @param stmt The statement.
+         * @param value The value.
+         * @throws SQLException Thrown if the parameters cannot be set.
+         */
+        public void bind(PreparedStatement stmt, T value) throws SQLException;
+    }
+
+    /**
+     * Callback used to extract the primary key from a value.
+     *
+     * @param <T> The type of value.
+     */
+    public interface KeyExtractor<T> {
+
+        /**
+         * Extract the primary key.
+         *
+         * @param value The value.
+         * @return The primary key of the value.
+         */
+        public String getKey(T value);
+    }
+
+    /**
+     * Getter method for the number of statements sent to the database per
+     * round trip.
+     *
+     * @return The batch size.
+     */
+    public int getBatchSize() {
+        return Math.max(1, getIntProperty(
+                JDBC_BATCH_SIZE,
+                DEFAULT_JDBC_BATCH_SIZE));
+    }
+
+    /**
+     * Execute the input SQL once for each of the input values.
+     *
+     * @param datasource The datasource.
+     * @param table Name of the target table (used for logging).
+     * @param sql The SQL statement to execute.
+     * @param values The values.
+     * @param binder Callback used to bind each value to the statement.
+     * @return The number of rows affected by the chunks that were
+     * committed.
+     */
+    public <T> int execute(
+            DataSource    datasource,
+            String        table,
+            String        sql,
+            Collection<T> values,
+            Binder<T>     binder) {
+
+        Connection        conn      = null;
+        PreparedStatement stmt      = null;
+        long              start     = System.currentTimeMillis();
+        int               batchSize = getBatchSize();
+        int               affected  = 0;
+        int               chunks    = 0;
+        int               pending   = 0;
+        int               pendingAt = 0;
+
+        if (datasource == null) {
+            LOGGER.error("DataSource object not injected by the container.  "
+                    + "Batch against table [ "
+                    + table
+                    + " ] not executed.");
+            return 0;
+        }
+        if ((values == null) || (values.size() == 0)) {
+            return 0;
+        }
+
+        try {
+
+            conn = UnitOfWork.acquire(datasource);
+            conn.setAutoCommit(false);
+            stmt = UnitOfWork.prepare(conn, sql);
+
+            int index = 0;
+            for (T value : values) {
+                binder.bind(stmt, value);
+                stmt.addBatch();
+                pending++;
+                index++;
+                if ((pending >= batchSize) || (index == values.size())) {
+                    affected += executeChunk(conn, stmt, table, pendingAt);
+                    chunks++;
+                    pendingAt = index;
+                    pending   = 0;
+                }
+            }
+        }
+        catch (SQLException se) {
+            LOGGER.error("An unexpected SQLException was raised while "
+                    + "preparing a batch against table [ "
+                    + table
+                    + " ].  Error message [ "
+                    + se.getMessage()
+                    + " ].");
+        }
+        finally {
+            try {
+                if (stmt != null) { stmt.close(); }
+            } catch (Exception e) {}
+            try {
+                if (conn != null) {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                }
+            } catch (Exception e) {}
+        }
+
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Batch of [ "
+                    + values.size()
+                    + " ] statements against table [ "
+                    + table
+                    + " ] affected [ "
+                    + affected
+                    + " ] rows in [ "
+                    + chunks
+                    + " ] round trips and [ "
+                    + (System.currentTimeMillis() - start)
+                    + " ] ms.");
+        }
+        return affected;
+    }
+
+    /**
+     * Execute and commit the statements that have been added to the
+     * batch.  If the chunk fails it is rolled back.
+     *
+     * @param conn The connection.
+     * @param stmt The statement containing the batch.
+     * @param table Name of the target table (used for logging).
+     * @param offset Index of the first value in the chunk (used for
+     * logging).
+     * @return The number of rows affected (0 if the chunk failed).
+     */
+    private int executeChunk(
+            Connection        conn,
+            PreparedStatement stmt,
+            String            table,
+            int               offset) {
+        int affected = 0;
+        try {
+            int[] counts = stmt.executeBatch();
+            conn.commit();
+            for (int count : counts) {
+                if (count >= 0) {
+                    affected += count;
+                }
+                else if (count == Statement.SUCCESS_NO_INFO) {
+                    // Some drivers do not report per-statement counts.
+                    affected++;
+                }
+            }
+        }
+        catch (SQLException se) {
+            LOGGER.error("An unexpected SQLException was raised while "
+                    + "executing the batch starting at element [ "
+                    + offset
+                    + " ] against table [ "
+                    + table
+                    + " ].  The chunk will be rolled back.  Error message [ "
+                    + se.getMessage()
+                    + " ].");
+            try { conn.rollback(); } catch (Exception e) {}
+            try { stmt.clearBatch(); } catch (Exception e) {}
+        }
+        return affected;
+    }
+
+    /**
+     * Execute the input <code>MERGE</code> (upsert) SQL once for each of 
+     * the input values.  Because the statement either inserts or updates 
+     * each row it can safely be re-run (e.g. after a partially completed 
+     * synchronization).  Each value written is counted as an update if 
+     * its key is in the set of keys the caller expects to exist and as an 
+     * insert otherwise.
+     *
+     * @param datasource The datasource.
+     * @param table Name of the target table (used for logging).
+     * @param sql The MERGE statement to execute.
+     * @param values The values.
+     * @param binder Callback used to bind each value to the statement.
+     * @param key Callback used to extract the primary key of each value.
+     * @param existing The keys expected to exist in the table (may be 
+     * null if all of the values are new).
+     * @return The number of rows inserted, updated and failed.
+     */
+    public <T> UpsertResult upsert(
+            DataSource      datasource,
+            String          table,
+            String          sql,
+            Collection<T>   values,
+            Binder<T>       binder,
+            KeyExtractor<T> key,
+            Set<String>     existing) {
+
+        Connection        conn      = null;
+        PreparedStatement stmt      = null;
+        long              start     = System.currentTimeMillis();
+        int               batchSize = getBatchSize();
+        long[]            counts    = new long[3];
+        int               chunks    = 0;
+
+        if (existing == null) {
+            existing = Collections.emptySet();
+        }
+        if (datasource == null) {
+            LOGGER.error("DataSource object not injected by the container.  "
+                    + "Upsert against table [ "
+                    + table
+                    + " ] not executed.");
+            counts[2] = (values != null ? values.size() : 0);
+        }
+        else if ((values != null) && (values.size() > 0)) {
+            
+            List<T> chunk = new ArrayList<T>(Math.min(batchSize, values.size()));
+            try {
+
+                conn = UnitOfWork.acquire(datasource);
+                conn.setAutoCommit(false);
+                stmt = UnitOfWork.prepare(conn, sql);
+
+                int index = 0;
+                for (T value : values) {
+                    chunk.add(value);
+                    index++;
+                    if ((chunk.size() >= batchSize) || 
+                            (index == values.size())) {
+                        upsertChunk(conn, stmt, table, chunk, 
+                                binder, key, existing, counts);
+                        chunks++;
+                        chunk.clear();
+                    }
+                }
+            }
+            catch (SQLException se) {
+                LOGGER.error("An unexpected SQLException was raised while "
+                        + "preparing an upsert against table [ "
+                        + table
+                        + " ].  Error message [ "
+                        + se.getMessage()
+                        + " ].");
+                counts[2] += values.size() - (counts[0] + counts[1] + counts[2]);
+            }
+            finally {
+                try {
+                    if (stmt != null) { stmt.close(); }
+                } catch (Exception e) {}
+                try {
+                    if (conn != null) {
+                        conn.setAutoCommit(true);
+                        conn.close();
+                    }
+                } catch (Exception e) {}
+            }
+        }
+
+        UpsertResult result = new UpsertResult.UpsertResultBuilder()
+                .inserted(counts[0])
+                .updated(counts[1])
+                .failed(Math.max(0, counts[2]))
+                .build();
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Upsert of [ "
+                    + (values != null ? values.size() : 0)
+                    + " ] records into table [ "
+                    + table
+                    + " ] completed in [ "
+                    + chunks
+                    + " ] round trips and [ "
+                    + (System.currentTimeMillis() - start)
+                    + " ] ms.  "
+                    + result.toString());
+        }
+        return result;
+    }
+
+    /**
+     * Upsert and commit a single chunk.  If the chunk fails it is rolled 
+     * back and all of its values are counted as failed.
+     *
+     * @param conn The connection.
+     * @param stmt The MERGE statement.
+     * @param table Name of the target table (used for logging).
+     * @param chunk The values in the chunk.
+     * @param binder Callback used to bind each value to the statement.
+     * @param key Callback used to extract the primary key of each value.
+     * @param existing The keys expected to exist in the table.
+     * @param counts Running totals of the rows inserted, updated and 
+     * failed (in that order).
+     */
+    private <T> void upsertChunk(
+            Connection        conn,
+            PreparedStatement stmt,
+            String            table,
+            List<T>           chunk,
+            Binder<T>         binder,
+            KeyExtractor<T>   key,
+            Set<String>       existing,
+            long[]            counts) {
+        try {
+            for (T value : chunk) {
+                binder.bind(stmt, value);
+                stmt.addBatch();
+            }
+            int[] results = stmt.executeBatch();
+            conn.commit();
+            long inserted = 0;
+            long updated  = 0;
+            for (int i = 0; (i < results.length) && (i < chunk.size()); i++) {
+                if ((results[i] > 0) || 
+                        (results[i] == Statement.SUCCESS_NO_INFO)) {
+                    if (existing.contains(key.getKey(chunk.get(i)))) {
+                        updated++;
+                    }
+                    else {
+                        inserted++;
+                    }
+                }
+            }
+            counts[0] += inserted;
+            counts[1] += updated;
+            counts[2] += chunk.size() - (inserted + updated);
+        }
+        catch (SQLException se) {
+            LOGGER.error("An unexpected SQLException was raised while "
+                    + "upserting a chunk of [ "
+                    + chunk.size()
+                    + " ] records into table [ "
+                    + table
+                    + " ].  The chunk will be rolled back.  Error message [ "
+                    + se.getMessage()
+                    + " ].");
+            try { conn.rollback(); } catch (Exception e) {}
+            try { stmt.clearBatch(); } catch (Exception e) {}
+            counts[2] += chunk.size();
+        }
+    }
+
+    /**
+     * Accessor method for the singleton instance of the BatchWriter
+     * class.
+     *
+     * @return The singleton instance of the BatchWriter class.
+     */
+    public static BatchWriter getInstance() {
+        return BatchWriterHolder.getSingleton();
+    }
+
+    /**
+     * Static inner class used to construct the Singleton object.  This class
+     * exploits the fact that classes are not loaded until they are referenced
+     * therefore enforcing thread safety without the performance hit imposed
+     * by the <code>synchronized</code> keyword.
+     *
+     * @author L. Craig Carpenter
+     */
+    public static class BatchWriterHolder {
+
+        /**
+         * Reference to the Singleton instance of the BatchWriter
+         */
+        private static BatchWriter _instance = new BatchWriter();
+
+        /**
+         * Accessor method for the singleton instance of the BatchWriter.
+         * @return The Singleton instance of the BatchWriter.
+         */
+        public static BatchWriter getSingleton() {
+            return _instance;
+        }
+
+    }
+}
@@ -0,0 +1,225 @@
+package mil.nga.aero;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import mil.nga.aero.upg.model.IntermediateUPGData;
+
+/**
+ * Class following the Singleton creation pattern that parses the
+ * JSON-formatted source catalog directly from an input stream.
+ *
+ * The catalog is of the form:
+ * <pre>
+ * { "columns" : [ ... ], "data" : [ [ uuid, icao, date, ... ], ... ] }
+ * </pre>
+ * Previously the entire HTTP response was read into a String, unmarshalled
+ * into a <code>RawUPGData</code> object, and then converted into
+ * <code>IntermediateUPGData</code> objects, resulting in three complete
+ * copies of the catalog in memory.  This class uses the Jackson streaming
+ * API to walk the tokens and hands each row of the <code>data</code>
+ * array to the caller as soon as it has been parsed, so only the
+ * resulting <code>IntermediateUPGData</code> objects are retained.
+ *
+ * @author L. Craig Carpenter
+ */
+public class CatalogParser {
+
+    /**
+     * Set up the LogBack system for use throughout the class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+            CatalogParser.class);
+
+    /**
+     * Name of the JSON field containing the catalog rows.
+     */
+    public static final String DATA_FIELD = "data";
+
+    /**
+     * Number of attributes expected in each catalog row.
+     */
+    public static final int ROW_LENGTH = 7;
+
+    /**
+     * The JsonFactory is thread safe and relatively expensive to construct
+     * so a single instance is shared.
+     */
+    private final JsonFactory factory = new JsonFactory();
+
+    /**
+     * Private constructor enforcing the singleton design pattern.
+     */
+    private CatalogParser() { }
+
+    /**
+     * Callback invoked for each row parsed from the catalog.
+     */
+    public interface RowHandler {
+
+        /**
+         * Process a single catalog row.
+         *
+         * @param row The parsed catalog row.
+         * @throws IOException Thrown if the row cannot be processed (e.g. 
+         * it cannot be written to disk).
+         */
+        public void handle(IntermediateUPGData row) throws IOException;
+    }
+
+    /**
+     * Parse the catalog from the input stream, invoking the handler for
+     * every valid row.  Rows that cannot be converted are logged and
+     * skipped.  The input stream is not closed.
+     *
+     * @param input Stream containing the JSON-formatted catalog.
+     * @param handler Callback invoked for each valid row.
+     * @return The number of rows that were rejected.
+     * @throws IOException Thrown if the stream cannot be read or does not
+     * contain well-formed JSON.
+     */
+    public int parse(InputStream input, RowHandler handler)
+            throws IOException {
+
+        JsonParser parser   = null;
+        int        rejected = 0;
+
+        try {
+            parser = factory.createParser(input);
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Catalog does not start with a JSON "
+                        + "object.");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ((DATA_FIELD.equalsIgnoreCase(field)) &&
+                        (token == JsonToken.START_ARRAY)) {
+                    rejected += parseRows(parser, handler);
+                }
+                else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        finally {
+            if (parser != null) {
+                try { parser.close(); } catch (Exception e) {}
+            }
+        }
+        return rejected;
+    }
+
+    /**
+     * Parse the contents of the <code>data</code> array.  The list used to
+     * hold the attributes of the current row is re-used for every row.
+     *
+     * @param parser Parser positioned on the start of the data array.
+     * @param handler Callback invoked for each valid row.
+     * @return The number of rows that were rejected.
+     * @throws IOException Thrown if the stream cannot be read.
+     */
+    private int parseRows(JsonParser parser, RowHandler handler)
+            throws IOException {
+
+        int          rejected = 0;
+        List<String> row      = new ArrayList<String>(ROW_LENGTH);
+        JsonToken    token    = null;
+
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_ARRAY) {
+                LOGGER.warn("Encountered a catalog row that is not a JSON "
+                        + "array.");
+                parser.skipChildren();
+                rejected++;
+                continue;
+            }
+            row.clear();
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token.isScalarValue()) {
+                    row.add(parser.getValueAsString());
+                }
+                else {
+                    parser.skipChildren();
+                    row.add(null);
+                }
+            }
+            if (row.size() != ROW_LENGTH) {
+                LOGGER.warn("Encountered a JSON array with the incorrect "
+                        + "number of elements.");
+                rejected++;
+                continue;
+            }
+            try {
+                handler.handle(
+                        new IntermediateUPGData.IntermediateUPGDataBuilder()
+                            .attributes(row)
+                            .build());
+            }
+            catch (ParseException pe) {
+                LOGGER.warn("An unexpected ParseException was raised "
+                        + "while attempting to parse the date field "
+                        + "associated with UUID [ "
+                        + row.get(0)
+                        + " ].  Bad date data [ "
+                        + row.get(2)
+                        + " ].");
+                rejected++;
+            }
+            catch (IllegalStateException ile) {
+                LOGGER.warn("Error encountered processing incoming "
+                        + "JSON data.  IllegalStateException "
+                        + "encountered.  Error message [ "
+                        + ile.getMessage()
+                        + " ].");
+                rejected++;
+            }
+        }
+        return rejected;
+    }
+
+    /**
+     * Accessor method for the singleton instance of the CatalogParser
+     * class.
+     *
+     * @return The singleton instance of the CatalogParser class.
+     */
+    public static CatalogParser getInstance() {
+        return CatalogParserHolder.getSingleton();
+    }
+
+    /**
+     * Static inner class used to construct the Singleton object.  This class
+     * exploits the fact that classes are not loaded until they are referenced
+     * therefore enforcing thread safety without the performance hit imposed
+     * by the <code>synchronized</code> keyword.
+     *
+     * @author L. Craig Carpenter
+     */
+    public static class CatalogParserHolder {
+
+        /**
+         * Reference to the Singleton instance of the CatalogParser
+         */
+        private static CatalogParser _instance = new CatalogParser();
+
+        /**
+         * Accessor method for the singleton instance of the CatalogParser.
+         * @return The Singleton instance of the CatalogParser.
+         */
+        public static CatalogParser getSingleton() {
+            return _instance;
+        }
+
+    }
+}
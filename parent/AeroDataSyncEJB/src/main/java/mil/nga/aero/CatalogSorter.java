@@ -0,0 +1,411 @@
+package mil.nga.aero;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.aero.upg.model.IntermediateUPGData;
+
+/**
+ * Class used to sort the source catalog by UUID using bounded memory.
+ * Catalog rows are handed to the sorter as they are parsed.  Once
+ * <code>chunkSize</code> rows have been accumulated they are sorted and
+ * spilled to disk as a sorted run.  When the catalog has been parsed the
+ * runs are merged into a single sorted spool file.  At most
+ * <code>chunkSize</code> rows (plus one row per run during the merge) are
+ * held in memory regardless of the size of the catalog.
+ *
+ * If the catalog contains duplicate UUIDs the last row received wins
+ * (consistent with loading the catalog into a Map).
+ *
+ * Instances are not thread safe.  A new sorter is required for each
+ * catalog.
+ *
+ * @author L. Craig Carpenter
+ */
+public class CatalogSorter implements CatalogParser.RowHandler {
+
+    /**
+     * Set up the LogBack system for use throughout the class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+            CatalogSorter.class);
+
+    /**
+     * Prefix applied to all files created by the sorter.
+     */
+    public static final String SPOOL_PREFIX = "catalog-";
+
+    /**
+     * Size of the buffers used to read and write the spool files.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Orders catalog rows by UUID.
+     */
+    private static final Comparator<IntermediateUPGData> UUID_ORDER =
+            new Comparator<IntermediateUPGData>() {
+                @Override
+                public int compare(
+                        IntermediateUPGData o1,
+                        IntermediateUPGData o2) {
+                    return o1.getUUID().compareTo(o2.getUUID());
+                }
+            };
+
+    private final File                      dir;
+    private final int                       chunkSize;
+    private final List<IntermediateUPGData> buffer;
+    private final List<File>                runs = new ArrayList<File>();
+    private long                            size = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param dir The directory in which the runs and the final spool file
+     * will be created.
+     * @param chunkSize Maximum number of rows sorted in memory.
+     */
+    public CatalogSorter(File dir, int chunkSize) {
+        this.dir       = dir;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.buffer    = new ArrayList<IntermediateUPGData>(
+                Math.min(this.chunkSize, 1024));
+    }
+
+    /**
+     * Add a single catalog row, spilling a sorted run to disk if the
+     * in-memory buffer is full.
+     *
+     * @param row The parsed catalog row.
+     * @throws IOException Thrown if the run cannot be written.
+     */
+    @Override
+    public void handle(IntermediateUPGData row) throws IOException {
+        buffer.add(row);
+        if (buffer.size() >= chunkSize) {
+            spill();
+        }
+    }
+
+    /**
+     * Getter method for the number of distinct products written to the
+     * sorted spool file.  Only valid after <code>finish()</code>.
+     *
+     * @return The number of products in the spool file.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Sort the current buffer and write it to disk as a new run.  The
+     * sort is stable so, of any duplicate UUIDs, the last one received is
+     * the one written.
+     *
+     * @throws IOException Thrown if the run cannot be written.
+     */
+    private void spill() throws IOException {
+
+        File             run = File.createTempFile(SPOOL_PREFIX, ".run", dir);
+        DataOutputStream out = null;
+
+        runs.add(run);
+        Collections.sort(buffer, UUID_ORDER);
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(run), BUFFER_SIZE));
+            for (int i = 0; i < buffer.size(); i++) {
+                if ((i + 1 < buffer.size()) && (buffer.get(i).getUUID()
+                        .equals(buffer.get(i + 1).getUUID()))) {
+                    continue;
+                }
+                write(out, buffer.get(i));
+            }
+        }
+        finally {
+            if (out != null) {
+                try { out.close(); } catch (Exception e) {}
+            }
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Spilled [ "
+                    + buffer.size()
+                    + " ] catalog rows to run [ "
+                    + run.getAbsolutePath()
+                    + " ].");
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Complete the sort.  Any buffered rows are spilled and all of the
+     * runs are merged into a single file sorted by UUID.  The intermediate
+     * runs are deleted.
+     *
+     * @return The sorted spool file.  The caller is responsible for
+     * deleting it.
+     * @throws IOException Thrown if the runs cannot be read or the spool
+     * file cannot be written.
+     */
+    public File finish() throws IOException {
+
+        long start = System.currentTimeMillis();
+
+        if ((buffer.size() > 0) || (runs.size() == 0)) {
+            spill();
+        }
+
+        File             spool   = File.createTempFile(SPOOL_PREFIX, ".spool", dir);
+        DataOutputStream out     = null;
+        List<Cursor>     cursors = new ArrayList<Cursor>(runs.size());
+
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(spool), BUFFER_SIZE));
+
+            // Order the heads of the runs by UUID and then by run so that
+            // rows from later runs are taken last.
+            PriorityQueue<Head> heads = new PriorityQueue<Head>(
+                    Math.max(1, runs.size()),
+                    new Comparator<Head>() {
+                        @Override
+                        public int compare(Head o1, Head o2) {
+                            int cmp = UUID_ORDER.compare(o1.row, o2.row);
+                            if (cmp == 0) {
+                                cmp = Integer.compare(o1.run, o2.run);
+                            }
+                            return cmp;
+                        }
+                    });
+            for (int i = 0; i < runs.size(); i++) {
+                Cursor cursor = open(runs.get(i));
+                cursors.add(cursor);
+                IntermediateUPGData row = cursor.next();
+                if (row != null) {
+                    heads.add(new Head(row, i, cursor));
+                }
+            }
+
+            while (!heads.isEmpty()) {
+                Head head = heads.poll();
+                advance(heads, head);
+                while ((!heads.isEmpty()) &&
+                        (heads.peek().row.getUUID().equals(
+                                head.row.getUUID()))) {
+                    head = heads.poll();
+                    advance(heads, head);
+                }
+                write(out, head.row);
+                size++;
+            }
+        }
+        catch (IOException ioe) {
+            try { out.close(); } catch (Exception e) {}
+            out = null;
+            spool.delete();
+            throw ioe;
+        }
+        finally {
+            if (out != null) {
+                try { out.close(); } catch (Exception e) {}
+            }
+            for (Cursor cursor : cursors) {
+                try { cursor.close(); } catch (Exception e) {}
+            }
+            discard();
+        }
+
+        LOGGER.info("Sorted [ "
+                + size
+                + " ] catalog rows using [ "
+                + cursors.size()
+                + " ] runs in [ "
+                + (System.currentTimeMillis() - start)
+                + " ] ms.");
+        return spool;
+    }
+
+    /**
+     * Delete any runs that have been written.  Used to clean up if the
+     * catalog cannot be parsed.
+     */
+    public void discard() {
+        for (File run : runs) {
+            if (!run.delete()) {
+                LOGGER.warn("Unable to delete catalog run [ "
+                        + run.getAbsolutePath()
+                        + " ].");
+            }
+        }
+        runs.clear();
+        buffer.clear();
+    }
+
+    /**
+     * Replace the input head with the next row from the same run.
+     *
+     * @param heads The current heads of all runs.
+     * @param head The head that was just removed.
+     * @throws IOException Thrown if the run cannot be read.
+     */
+    private void advance(PriorityQueue<Head> heads, Head head)
+            throws IOException {
+        IntermediateUPGData row = head.cursor.next();
+        if (row != null) {
+            heads.add(new Head(row, head.run, head.cursor));
+        }
+    }
+
+    /**
+     * Open a run (or the final spool file) for reading.
+     *
+     * @param file The file to read.
+     * @return A cursor positioned before the first row.
+     * @throws IOException Thrown if the file cannot be opened.
+     */
+    public static Cursor open(File file) throws IOException {
+        return new Cursor(new DataInputStream(new BufferedInputStream(
+                new FileInputStream(file), BUFFER_SIZE)));
+    }
+
+    /**
+     * Write a single row.
+     *
+     * @param out The output stream.
+     * @param row The row to write.
+     * @throws IOException Thrown if the row cannot be written.
+     */
+    private static void write(DataOutputStream out, IntermediateUPGData row)
+            throws IOException {
+        out.writeByte(1);
+        writeString(out, row.getUUID());
+        writeString(out, row.getICAO());
+        out.writeLong(row.getDateLastModifiedMillis());
+        writeString(out, row.getLink());
+        writeString(out, row.getHash());
+        writeString(out, row.getPsuedoName());
+        writeString(out, row.getType());
+    }
+
+    /**
+     * Write a String that may be null.
+     *
+     * @param out The output stream.
+     * @param value The value to write.
+     * @throws IOException Thrown if the value cannot be written.
+     */
+    private static void writeString(DataOutputStream out, String value)
+            throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    /**
+     * Read a String written by <code>writeString()</code>.
+     *
+     * @param in The input stream.
+     * @return The value read.
+     * @throws IOException Thrown if the value cannot be read.
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        String value = null;
+        if (in.readBoolean()) {
+            value = in.readUTF();
+        }
+        return value;
+    }
+
+    /**
+     * Sequential reader for a run or for the final spool file.
+     */
+    public static class Cursor implements Closeable {
+
+        private final DataInputStream in;
+
+        /**
+         * Constructor.
+         * @param in Stream containing the rows.
+         */
+        private Cursor(DataInputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * Read the next row.
+         *
+         * @return The next row, or null if the end of the file has been
+         * reached.
+         * @throws IOException Thrown if the file cannot be read.
+         */
+        public IntermediateUPGData next() throws IOException {
+            if (in.read() < 0) {
+                return null;
+            }
+            try {
+                return new IntermediateUPGData.IntermediateUPGDataBuilder()
+                        .uuid(readString(in))
+                        .icao(readString(in))
+                        .dateLastModified(in.readLong())
+                        .link(readString(in))
+                        .hash(readString(in))
+                        .psuedoName(readString(in))
+                        .type(readString(in))
+                        .build();
+            }
+            catch (IllegalStateException ise) {
+                throw new IOException("Invalid row in catalog spool.  "
+                        + "Error message [ "
+                        + ise.getMessage()
+                        + " ].");
+            }
+        }
+
+        /**
+         * Close the underlying file.
+         */
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * The current row of a single run during the merge.
+     */
+    private static class Head {
+
+        private final IntermediateUPGData row;
+        private final int                 run;
+        private final Cursor              cursor;
+
+        /**
+         * Constructor.
+         * @param row The current row.
+         * @param run The index of the run.
+         * @param cursor The cursor used to read the run.
+         */
+        private Head(IntermediateUPGData row, int run, Cursor cursor) {
+            this.row    = row;
+            this.run    = run;
+            this.cursor = cursor;
+        }
+    }
+}
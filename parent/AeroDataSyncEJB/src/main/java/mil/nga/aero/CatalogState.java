@@ -0,0 +1,202 @@
+package mil.nga.aero;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.aero.upg.model.SourceCatalog;
+
+/**
+ * Class following the Singleton creation pattern that remembers the last
+ * source catalog accepted (i.e. successfully synchronized) for each source
+ * URL.  The HTTP validators are used to issue conditional requests for the
+ * catalog and the fingerprint is used to detect an unchanged catalog when
+ * the provider ignores the conditional request headers.
+ *
+ * The state is held in memory only so the first run after a redeploy
+ * always performs a full synchronization.
+ *
+ * @author L. Craig Carpenter
+ */
+public class CatalogState {
+
+    /**
+     * Set up the LogBack system for use throughout the class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+            CatalogState.class);
+
+    /**
+     * The last accepted catalog keyed by source URL.
+     */
+    private final ConcurrentMap<String, Entry> accepted =
+            new ConcurrentHashMap<String, Entry>();
+
+    /**
+     * Private constructor enforcing the singleton design pattern.
+     */
+    private CatalogState() { }
+
+    /**
+     * Immutable record of a single accepted catalog.
+     */
+    public static class Entry {
+
+        private final String eTag;
+        private final String lastModified;
+        private final String fingerprint;
+        private final long   sourceHoldings;
+        private final long   localHoldings;
+        private final long   acceptedTime;
+
+        /**
+         * Constructor used to set all of the internal members.
+         *
+         * @param catalog The accepted catalog.
+         * @param localHoldings Number of products in the local holdings
+         * after the synchronization.
+         */
+        private Entry(SourceCatalog catalog, long localHoldings) {
+            this.eTag           = catalog.getETag();
+            this.lastModified   = catalog.getLastModified();
+            this.fingerprint    = catalog.getFingerprint();
+            this.sourceHoldings = catalog.getSize();
+            this.localHoldings  = localHoldings;
+            this.acceptedTime   = System.currentTimeMillis();
+        }
+
+        /**
+         * Getter method for the time the catalog was accepted.
+         * @return The time (in milliseconds from the epoch).
+         */
+        public long getAcceptedTime() {
+            return acceptedTime;
+        }
+
+        /**
+         * Getter method for the ETag of the accepted catalog.
+         * @return The ETag (may be null).
+         */
+        public String getETag() {
+            return eTag;
+        }
+
+        /**
+         * Getter method for the fingerprint of the accepted catalog.
+         * @return The fingerprint (may be null).
+         */
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        /**
+         * Getter method for the Last-Modified header of the accepted
+         * catalog.
+         * @return The Last-Modified header (may be null).
+         */
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Getter method for the number of products in the local holdings
+         * when the catalog was accepted.
+         * @return The number of local products.
+         */
+        public long getLocalHoldings() {
+            return localHoldings;
+        }
+
+        /**
+         * Getter method for the number of products in the accepted catalog.
+         * @return The number of source products.
+         */
+        public long getSourceHoldings() {
+            return sourceHoldings;
+        }
+    }
+
+    /**
+     * Record the catalog as accepted.  This should only be invoked once
+     * the full synchronization associated with the catalog has completed.
+     * Catalogs that were not re-downloaded (i.e. <code>304</code>) are 
+     * ignored.
+     *
+     * @param catalog The catalog that was synchronized.
+     * @param localHoldings Number of products in the local holdings after
+     * the synchronization.
+     */
+    public void accept(SourceCatalog catalog, long localHoldings) {
+        if ((catalog != null) && (catalog.isRetrieved())) {
+            accepted.put(catalog.getSource(), new Entry(catalog, localHoldings));
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Accepted catalog [ "
+                        + catalog.toString()
+                        + " ].");
+            }
+        }
+    }
+
+    /**
+     * Retrieve the last accepted catalog for the input source URL.
+     *
+     * @param source The source URL.
+     * @return The last accepted catalog, or null if there is none.
+     */
+    public Entry get(String source) {
+        Entry entry = null;
+        if (source != null) {
+            entry = accepted.get(source);
+        }
+        return entry;
+    }
+
+    /**
+     * Forget the last accepted catalog for the input source URL so that
+     * the next retrieval is unconditional.
+     *
+     * @param source The source URL.
+     */
+    public void invalidate(String source) {
+        if (source != null) {
+            accepted.remove(source);
+        }
+    }
+
+    /**
+     * Accessor method for the singleton instance of the CatalogState
+     * class.
+     *
+     * @return The singleton instance of the CatalogState class.
+     */
+    public static CatalogState getInstance() {
+        return CatalogStateHolder.getSingleton();
+    }
+
+    /**
+     * Static inner class used to construct the Singleton object.  This class
+     * exploits the fact that classes are not loaded until they are referenced
+     * therefore enforcing thread safety without the performance hit imposed
+     * by the <code>synchronized</code> keyword.
+     *
+     * @author L. Craig Carpenter
+     */
+    public static class CatalogStateHolder {
+
+        /**
+         * Reference to the Singleton instance of the CatalogState
+         */
+        private static CatalogState _instance = new CatalogState();
+
+        /**
+         * Accessor method for the singleton instance of the CatalogState.
+         * @return The Singleton instance of the CatalogState.
+         */
+        public static CatalogState getSingleton() {
+            return _instance;
+        }
+
+    }
+}
@@ -1,29 +1,31 @@
 package mil.nga.aero;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Serializable;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.security.DigestInputStream;
+import java.util.HashMap;
+import java.util.Map;
 
 import javax.ejb.LocalBean;
 import javax.ejb.Stateless;
 
+import org.apache.commons.codec.binary.Hex;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.ClientProtocolException;
-import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,8 +38,13 @@ import mil.nga.PropertyLoader;
 import mil.nga.aero.interfaces.AeroDataConstants;
 import mil.nga.aero.upg.exceptions.ErrorCodes;
 import mil.nga.aero.upg.exceptions.UPGDataException;
+import mil.nga.aero.upg.model.IntermediateUPGData;
 import mil.nga.aero.upg.model.RawUPGData;
+import mil.nga.aero.upg.model.SourceCatalog;
+import mil.nga.aero.upg.model.TransferResult;
 import mil.nga.exceptions.PropertiesNotLoadedException;
+import mil.nga.types.AeroDataType;
+import mil.nga.types.HashType;
 
 /**
  * Session Bean implementation class UPGDataService
@@ -50,6 +57,10 @@ import mil.nga.exceptions.PropertiesNotLoadedException;
  * Note: The connection to the data source is over HTTPS so the 
  * application container must be configured to trust the target server 
  * certificate.
+ * 
+ * All requests are issued through the pooled client owned by 
+ * <code>HttpTransport</code>.  The client must not be closed here, but 
+ * every response must be closed so the connection returns to the pool.
  */
 @Stateless
 @LocalBean
@@ -136,30 +147,96 @@ public class DataService
     public boolean getProductFile(
             String source, 
             String destination) throws UPGDataException {
+        return (download(source, destination) != null);
+    }
+    
+    /**
+     * Download the file represented by the source URL to the file system 
+     * location specified by the destination parameter.  The transfer 
+     * statistics (bytes, elapsed time, throughput) are returned to the 
+     * caller.
+     * 
+     * @param source The source URL identifying the location of the file to
+     * download.
+     * @param destination The target on-disk location into which the source 
+     * file will be downloaded.
+     * @return Statistics associated with the transfer, or null if either 
+     * of the input parameters were null or empty.
+     * @throws UPGDataException Thrown if there are errors associated with any 
+     * of the input parameters, or if there are errors during the download 
+     * process.
+     */
+    public TransferResult download(
+            String source, 
+            String destination) throws UPGDataException {
+        return download(source, destination, null);
+    }
+    
+    /**
+     * Download the file represented by the source URL to the file system 
+     * location specified by the destination parameter, calculating the 
+     * requested hash of the content as it is written to disk.  The 
+     * calculated hash is available from the returned transfer statistics.
+     * 
+     * @param source The source URL identifying the location of the file to
+     * download.
+     * @param destination The target on-disk location into which the source 
+     * file will be downloaded.
+     * @param hashType The type of hash to calculate (may be null).
+     * @return Statistics associated with the transfer, or null if either 
+     * of the input parameters were null or empty.
+     * @throws UPGDataException Thrown if there are errors associated with any 
+     * of the input parameters, or if there are errors during the download 
+     * process.
+     */
+    public TransferResult download(
+            String source, 
+            String destination,
+            HashType hashType) throws UPGDataException {
+        return download(source, destination, hashType, null);
+    }
+    
+    /**
+     * Download the file represented by the source URL (see 
+     * <code>download(String, String, HashType)</code>) within the resource 
+     * limits of the input data type.  The download waits for one of the 
+     * connection permits of the data type and the transfer is throttled 
+     * to the bandwidth limit of the data type (see 
+     * <code>ResourceGovernor</code>).
+     * 
+     * @param source The source URL identifying the location of the file to
+     * download.
+     * @param destination The target on-disk location into which the source 
+     * file will be downloaded.
+     * @param hashType The type of hash to calculate (may be null).
+     * @param type The data type being downloaded (may be null in which 
+     * case no limits are applied).
+     * @return Statistics associated with the transfer, or null if either 
+     * of the input parameters were null or empty.
+     * @throws UPGDataException Thrown if there are errors associated with any 
+     * of the input parameters, or if there are errors during the download 
+     * process.
+     */
+    public TransferResult download(
+            String source, 
+            String destination,
+            HashType hashType,
+            AeroDataType type) throws UPGDataException {
         
-        CloseableHttpClient   client     = null;
-        BufferedInputStream   input      = null;
-        BufferedOutputStream  output     = null;
+        CloseableHttpClient   client     = HttpTransport.getInstance().getClient();
+        ResourceGovernor      governor   = ResourceGovernor.getInstance();
+        boolean               permitted  = false;
+        InputStream           input      = null;
         HttpGet               request    = null;
         String                encodedURL = null;
         CloseableHttpResponse response   = null;
-        long                  start      = System.currentTimeMillis();
-        boolean               success    = false;
+        TransferResult        result     = null;
         
         if ((source != null) && (!source.isEmpty())) {
             if ((destination != null) && (!destination.isEmpty())) {
                 
                 try {
                     
-                	// Updated to increase the connection timeout settings.
-                	RequestConfig config = RequestConfig.custom()
-                			.setConnectTimeout(60 * 1000)
-                			.setSocketTimeout(5 * 60 * 1000)
-                			.setConnectionRequestTimeout(5 * 1000)
-                			.build();
-                	client = HttpClientBuilder.create()
-                			.setDefaultRequestConfig(config)
-                			.build();
                     encodedURL = getEncodedURL(source);
                     request = new HttpGet(encodedURL);
                     request.addHeader("User-Agent", DEFAULT_USER_AGENT);
@@ -173,6 +250,8 @@ public class DataService
                                 + " ].");
                     }
                     
+                    governor.acquireConnection(type);
+                    permitted = true;
                     response = client.execute(request);
                     int httpCode = response.getStatusLine().getStatusCode();
                     
@@ -194,26 +273,25 @@ public class DataService
                                     + " ].");
                         }
                         
-                        input = new BufferedInputStream(
-                                response.getEntity().getContent());
-                        output = new BufferedOutputStream(
-                                new FileOutputStream(
-                                        new File(destination)));
-                        
-                        int inByte;
-                        while((inByte = input.read()) != -1) {
-                            output.write(inByte);
-                        }
+                        input = response.getEntity().getContent();
+                        result = DownloadSink.getInstance().transfer(
+                                input, 
+                                destination,
+                                hashType,
+                                governor.getBandwidthLimiter(type));
+                        SyncCoordinator.getInstance().recordBytes(
+                                type, 
+                                result.getBytes());
                         
                         if (LOGGER.isDebugEnabled()) {
                             LOGGER.debug("File [ "
                                     + destination
                                     + " ] downloaded in [ "
-                                    + (System.currentTimeMillis() - start) 
-                                    + " ] ms.");
+                                    + result.getElapsedTime() 
+                                    + " ] ms at [ "
+                                    + String.format("%.2f", result.getThroughput())
+                                    + " ] MB/s.");
                         }
-                        output.flush();
-                        success = true;
                     }
                     else {
                         LOGGER.error("Execute of GET for URL [ "
@@ -221,6 +299,9 @@ public class DataService
                                 + " ] returned a status code of [ "
                                 + httpCode
                                 + " ].");
+                        
+                        // Release the connection back to the pool.
+                        EntityUtils.consumeQuietly(response.getEntity());
                         throw new UPGDataException(
                                 ErrorCodes.INVALID_HTTP_STATUS_CODE);
                     }
@@ -261,18 +342,24 @@ public class DataService
                     throw new UPGDataException(
                             ErrorCodes.IO_EXCEPTION);
                 }
+                catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    LOGGER.error("Interrupted while waiting for a connection "
+                            + "to download URL [ "
+                            + source
+                            + " ].");
+                    throw new UPGDataException(
+                            ErrorCodes.APPLICATION_EXCEPTION);
+                }
                 finally {
                     if (input != null) {
                         try { input.close(); } catch (Exception e) {}
                     }
-                    if (output != null) {
-                        try { output.close(); } catch (Exception e) {}
-                    }
                     if (response != null) {
                         try { response.close(); } catch (Exception e) {}
                     }
-                    if (client != null) {
-                        try { client.close(); } catch (Exception e) {}
+                    if (permitted) {
+                        governor.releaseConnection(type);
                     }
                 }
             }
@@ -288,7 +375,7 @@ public class DataService
                     + "download is null or empty.  No attempt will be "
                     + "made to initiate a download.");
         }
-        return success;
+        return result;
     }
     
     /**
@@ -308,19 +395,10 @@ public class DataService
         CloseableHttpResponse response = null;
         StringBuilder         sb       = new StringBuilder();
         long                  start    = System.currentTimeMillis();
-        CloseableHttpClient   client   = null;
+        CloseableHttpClient   client   = HttpTransport.getInstance().getClient();
         
         try {
             
-        	// Updated to increase the connection timeout settings.
-        	RequestConfig config = RequestConfig.custom()
-        			.setConnectTimeout(60 * 1000)
-        			.setSocketTimeout(5 * 60 * 1000)
-        			.setConnectionRequestTimeout(5 * 1000)
-        			.build();
-        	client = HttpClientBuilder.create()
-        			.setDefaultRequestConfig(config)
-        			.build();
             request.addHeader("User-Agent", DEFAULT_USER_AGENT);
             request.addHeader("Accept", "application/json");
             
@@ -372,6 +450,9 @@ public class DataService
                         + " ] returned a status code of [ "
                         + httpCode
                         + " ].");
+                
+                // Release the connection back to the pool.
+                EntityUtils.consumeQuietly(response.getEntity());
                 throw new UPGDataException(
                         ErrorCodes.INVALID_HTTP_STATUS_CODE);
             }
@@ -409,13 +490,318 @@ public class DataService
             if (response != null) {
                 try { response.close(); } catch (Exception e) {}
             }
-            if (client != null) {
-                try { client.close(); } catch (Exception e) {}
-            }
         }
         return sb.toString();
     }
     
+    /**
+     * Retrieve the value of a response header.
+     * 
+     * @param response The HTTP response.
+     * @param name The name of the header.
+     * @return The value of the header, or null if it was not supplied.
+     */
+    private String getHeader(CloseableHttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        return (header != null ? header.getValue() : null);
+    }
+    
+    /**
+     * Retrieve the source catalog from the target URL, parsing the JSON 
+     * directly from the HTTP response stream.  Unlike 
+     * <code>getRawData()</code> followed by <code>deserialize()</code> and
+     * <code>ProductBuilder.buildMap()</code>, the catalog is never held in 
+     * memory as a String or as raw lists.
+     * 
+     * If <code>catalog.conditional.fetch</code> is enabled (the default) 
+     * and a catalog has previously been accepted for the URL, the request 
+     * carries the <code>If-None-Match</code> and 
+     * <code>If-Modified-Since</code> headers.  A <code>304</code> response, 
+     * or a catalog whose MD5 fingerprint matches the accepted catalog, is 
+     * returned flagged as unchanged.
+     * 
+     * @param targetURL the target URL that will be providing the requested 
+     * JSON data.
+     * @return The source catalog.
+     * @throws UPGDataException Thrown if problems are encountered while 
+     * downloading and processing the source data.
+     */
+    public SourceCatalog getSourceCatalog(String targetURL) 
+            throws UPGDataException {
+        return getSourceCatalog(targetURL, false);
+    }
+    
+    /**
+     * Calculate the directory in which the sorted catalog will be spooled.
+     * 
+     * @return The spool directory.
+     */
+    private File getSpoolDir() {
+        String dir = null;
+        try {
+            dir = getProperty(CATALOG_SPOOL_DIR);
+        }
+        catch (PropertiesNotLoadedException pnle) {
+            LOGGER.warn("Unable to load the properties file.  The catalog "
+                    + "will be spooled to java.io.tmpdir.");
+        }
+        if ((dir == null) || (dir.trim().isEmpty())) {
+            dir = System.getProperty("java.io.tmpdir");
+        }
+        return new File(dir.trim());
+    }
+    
+    /**
+     * Retrieve the source catalog from the target URL (see 
+     * <code>getSourceCatalog(String)</code>).  If <code>sorted</code> is 
+     * true the holdings are not held in memory.  Instead the catalog rows 
+     * are sorted by UUID (spilling to disk as required) and written to a 
+     * spool file.  The caller is responsible for deleting the spool file.
+     * 
+     * @param targetURL the target URL that will be providing the requested 
+     * JSON data.
+     * @param sorted True if the catalog should be spooled to disk sorted 
+     * by UUID.
+     * @return The source catalog.
+     * @throws UPGDataException Thrown if problems are encountered while 
+     * downloading and processing the source data.
+     */
+    public SourceCatalog getSourceCatalog(String targetURL, boolean sorted) 
+            throws UPGDataException {
+        return getSourceCatalog(targetURL, sorted, null);
+    }
+    
+    /**
+     * Retrieve the source catalog from the target URL (see 
+     * <code>getSourceCatalog(String)</code>) handing each row to the 
+     * supplied handler as soon as it is parsed.  The holdings are neither 
+     * held in memory nor spooled to disk, which allows the caller to 
+     * begin processing the catalog while it is still being downloaded.  
+     * The handler is invoked on the calling thread.
+     * 
+     * @param targetURL the target URL that will be providing the requested 
+     * JSON data.
+     * @param sink The handler that will receive each catalog row.
+     * @return The source catalog (without holdings).
+     * @throws UPGDataException Thrown if problems are encountered while 
+     * downloading and processing the source data.
+     */
+    public SourceCatalog getSourceCatalog(
+            String                   targetURL, 
+            CatalogParser.RowHandler sink) throws UPGDataException {
+        return getSourceCatalog(targetURL, false, sink);
+    }
+    
+    /**
+     * Retrieve and parse the source catalog.
+     * 
+     * @param targetURL the target URL that will be providing the requested 
+     * JSON data.
+     * @param sorted True if the catalog should be spooled to disk sorted 
+     * by UUID.
+     * @param sink Optional handler that will receive each catalog row.  If
+     * supplied the holdings are not retained.
+     * @return The source catalog.
+     * @throws UPGDataException Thrown if problems are encountered while 
+     * downloading and processing the source data.
+     */
+    private SourceCatalog getSourceCatalog(
+            String                         targetURL, 
+            boolean                        sorted,
+            final CatalogParser.RowHandler sink) throws UPGDataException {
+        
+        InputStream           input    = null;
+        DigestInputStream     digest   = null;
+        HttpGet               request  = new HttpGet(targetURL);
+        CloseableHttpResponse response = null;
+        long                  start    = System.currentTimeMillis();
+        CloseableHttpClient   client   = HttpTransport.getInstance().getClient();
+        int                   rejected = 0;
+        CatalogState.Entry    previous = null;
+        SourceCatalog         catalog  = null;
+        CatalogSorter         sorter   = null;
+        File                  spool    = null;
+        long                  size     = 0;
+        
+        final Map<String, IntermediateUPGData> holdings = 
+                new HashMap<String, IntermediateUPGData>();
+        final long[]                           streamed = new long[1];
+        CatalogParser.RowHandler handler = new CatalogParser.RowHandler() {
+            @Override
+            public void handle(IntermediateUPGData row) throws IOException {
+                if (sink != null) {
+                    sink.handle(row);
+                    streamed[0]++;
+                }
+                else {
+                    holdings.put(row.getUUID(), row);
+                }
+            }
+        };
+        
+        try {
+            
+            request.addHeader("User-Agent", DEFAULT_USER_AGENT);
+            request.addHeader("Accept", "application/json");
+            if (getBooleanProperty(CATALOG_CONDITIONAL_FETCH, true)) {
+                previous = CatalogState.getInstance().get(targetURL);
+            }
+            if (previous != null) {
+                if (previous.getETag() != null) {
+                    request.addHeader(
+                            HttpHeaders.IF_NONE_MATCH, 
+                            previous.getETag());
+                }
+                if (previous.getLastModified() != null) {
+                    request.addHeader(
+                            HttpHeaders.IF_MODIFIED_SINCE, 
+                            previous.getLastModified());
+                }
+            }
+            
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Executing HTTP GET request for URL [ "
+                        + targetURL
+                        + " ].");
+            }
+            
+            response = client.execute(request);
+            int httpCode = response.getStatusLine().getStatusCode();
+            
+            if ((httpCode == HttpStatus.SC_NOT_MODIFIED) && 
+                    (previous != null)) {
+                
+                LOGGER.info("Catalog at URL [ "
+                        + targetURL
+                        + " ] not modified since the last accepted run.");
+                catalog = new SourceCatalog.SourceCatalogBuilder()
+                        .source(targetURL)
+                        .unchanged(true)
+                        .eTag(previous.getETag())
+                        .lastModified(previous.getLastModified())
+                        .fingerprint(previous.getFingerprint())
+                        .build();
+            }
+            else if (httpCode == HttpStatus.SC_OK) {
+                
+                input = response.getEntity().getContent();
+                digest = new DigestInputStream(
+                        input, 
+                        HashGeneratorService.getInstance().getMessageDigest(
+                                HashType.MD5));
+                if (sorted) {
+                    sorter = new CatalogSorter(
+                            getSpoolDir(), 
+                            getIntProperty(
+                                    CATALOG_SORT_CHUNK_SIZE, 
+                                    DEFAULT_CATALOG_SORT_CHUNK_SIZE));
+                    handler = sorter;
+                }
+                rejected = CatalogParser.getInstance().parse(digest, handler);
+                if (sorter != null) {
+                    spool = sorter.finish();
+                    size  = sorter.getSize();
+                }
+                else if (sink != null) {
+                    size  = streamed[0];
+                }
+                else {
+                    size  = holdings.size();
+                }
+                
+                LOGGER.info("Streamed [ "
+                        + size
+                        + " ] catalog rows ([ "
+                        + rejected
+                        + " ] rejected) from URL [ "
+                        + targetURL
+                        + " ] in [ "
+                        + (System.currentTimeMillis() - start) 
+                        + " ] ms.");
+                
+                String fingerprint = Hex.encodeHexString(
+                        digest.getMessageDigest().digest());
+                boolean unchanged = ((previous != null) && 
+                        (fingerprint.equals(previous.getFingerprint())));
+                if (unchanged) {
+                    LOGGER.info("Catalog at URL [ "
+                            + targetURL
+                            + " ] matches the fingerprint of the last "
+                            + "accepted run.");
+                }
+                catalog = new SourceCatalog.SourceCatalogBuilder()
+                        .source(targetURL)
+                        .holdings(((sorter != null) || (sink != null)) ? 
+                                null : holdings)
+                        .streamed(sink != null)
+                        .spool(spool != null ? spool.getAbsolutePath() : null)
+                        .size(size)
+                        .unchanged(unchanged)
+                        .eTag(getHeader(response, HttpHeaders.ETAG))
+                        .lastModified(getHeader(
+                                response, 
+                                HttpHeaders.LAST_MODIFIED))
+                        .fingerprint(fingerprint)
+                        .rejected(rejected)
+                        .build();
+            }
+            else {
+                LOGGER.error("Execute of GET for URL [ "
+                        + targetURL
+                        + " ] returned a status code of [ "
+                        + httpCode
+                        + " ].");
+                
+                // Release the connection back to the pool.
+                EntityUtils.consumeQuietly(response.getEntity());
+                throw new UPGDataException(
+                        ErrorCodes.INVALID_HTTP_STATUS_CODE);
+            }
+        }
+        catch (JsonParseException jpe) {
+            LOGGER.error("Unable to parse the catalog retrieved from URL [ "
+                    + targetURL
+                    + " ].  Unexpected JsonParseException encountered [ "
+                    + jpe.getMessage()
+                    + " ].");
+            throw new UPGDataException(
+                    ErrorCodes.JSON_PARSER_EXCEPTION);
+        }
+        catch (ClientProtocolException cpe) {
+            LOGGER.error("Unable to execute the HTTP GET request for URL [ "
+                    + targetURL
+                    + " ]. Unexpected ClientProtocolException encountered [ "
+                    + cpe.getMessage()
+                    + " ].");
+            throw new UPGDataException(
+                    ErrorCodes.CLIENT_PROTOCOL_EXCEPTION);
+        }
+        catch (IOException ioe) {
+            LOGGER.error("Unable to execute the HTTP GET request for URL [ "
+                    + targetURL
+                    + " ]. Unexpected IOException encountered [ "
+                    + ioe.getMessage()
+                    + " ].");
+            throw new UPGDataException(
+                    ErrorCodes.IO_EXCEPTION);
+        }
+        finally {
+            if (input != null) {
+                try { input.close(); } catch (Exception e) {}
+            }
+            if (response != null) {
+                try { response.close(); } catch (Exception e) {}
+            }
+            if ((catalog == null) && (sorter != null)) {
+                sorter.discard();
+                if (spool != null) {
+                    spool.delete();
+                }
+            }
+        }
+        return catalog;
+    }
+    
     /**
      * This method converts the JSON data that was retrieved from the 
      * target URL into an object of type UPGData.
@@ -1,33 +1,52 @@
 package mil.nga.aero;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
 
+import javax.annotation.Resource;
+import javax.ejb.Asynchronous;
+import javax.ejb.EJB;
+import javax.ejb.EJBException;
 import javax.ejb.LocalBean;
+import javax.ejb.SessionContext;
 import javax.ejb.Stateless;
+import javax.enterprise.concurrent.ManagedExecutorService;
+import javax.sql.DataSource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import mil.nga.PropertyLoader;
 import mil.nga.aero.interfaces.AeroDataConstants;
-import mil.nga.aero.interfaces.AeroDataMetricsStoreI;
-import mil.nga.aero.interfaces.AeroDataServiceI;
 import mil.nga.aero.interfaces.AeroDataStoreI;
 import mil.nga.aero.interfaces.AeroDataUpdateServiceI;
 import mil.nga.aero.upg.exceptions.ErrorCodes;
 import mil.nga.aero.upg.exceptions.UPGDataException;
 import mil.nga.aero.upg.model.IntermediateUPGData;
 import mil.nga.aero.upg.model.Metrics;
-import mil.nga.aero.upg.model.Metrics.MetricsBuilder;
+import mil.nga.aero.upg.model.SyncPlan;
 import mil.nga.aero.upg.model.RawUPGData;
+import mil.nga.aero.upg.model.SourceCatalog;
+import mil.nga.aero.upg.model.StagedDelta;
 import mil.nga.aero.upg.model.UPGData;
 import mil.nga.aero.upg.model.UPGDataSetOperations;
 import mil.nga.aero.upg.model.ProductBuilder;
+import mil.nga.exceptions.PropertiesNotLoadedException;
 import mil.nga.types.AeroDataType;
-import mil.nga.util.FileUtils;
+import mil.nga.types.DiffEngine;
+import mil.nga.types.DownloadStatus;
 
 /**
  * Session Bean implementation class UPGDataSyncService
@@ -54,40 +73,32 @@ public class DataSyncService
             DataSyncService.class);
     
     /**
-     * The data type to synchronize.  The construction of handles to all
-     * of the required EJBs is based on the value for the data type.
+     * Container-managed executor used to download products concurrently.
      */
-    private AeroDataType type;
+    @Resource
+    private ManagedExecutorService managedExecutor;
     
     /**
-     * Internal handle to the interface responsible for retrieving the 
-     * holdings from the source.
+     * Container-injected session context used to obtain the business 
+     * object through which asynchronous runs are started.
      */
-    private AeroDataServiceI dataService;
+    @Resource
+    private SessionContext sessionContext;
     
     /**
-     * Internal handle to the interface responsible for updating the 
-     * local holdings from the source.
+     * Container-injected datasource used to open the unit of work shared 
+     * by the data store calls made from the synchronization thread.
      */
-    private AeroDataUpdateServiceI dataUpdateService;
+    @Resource(mappedName="java:jboss/datasources/ACES")
+    private DataSource datasource;
     
     /**
-     * Internal handle to the interface responsible for updating the 
-     * local holdings from the source.
+     * Container-injected reference to the DataService session bean.  Used 
+     * by the pipeline engine to stream the catalog rows to a local 
+     * handler (which cannot be passed through the remote interfaces).
      */
-    private AeroDataStoreI dataStoreService;
-    
-    /**
-     * Internal handle to the interface responsible for updating the 
-     * metrics information for the synchronization operation.
-     */
-    private AeroDataMetricsStoreI metricsStoreService;
-    
-    /**
-     * Handle to the MetricsBuilder object used to track metrics associated 
-     * with the synchronization run.
-     */
-    private MetricsBuilder metricsBuilder;
+    @EJB
+    DataService catalogService;
     
     /**
      * Default constructor. 
@@ -97,135 +108,57 @@ public class DataSyncService
     }
     
     /**
-     * Getter method for the AeroDataServiceI interface.
-     * @return Reference to the proper AeroDataServiceI interface.
-     */
-    private AeroDataServiceI getAeroDataService() {
-        if (dataService == null) {
-            dataService = AeroDataFactory.getInstance()
-                    .construct(getType());
-        }
-        return dataService;
-    }
-    
-    /**
-     * Getter method for the AeroDataStoreI interface.
-     * @param type The aeronautical data type to synchronize.
-     * @return Reference to the proper AeroDataStoreI interface.
-     */
-    private AeroDataStoreI getAeroDataStoreService() {
-        if (dataStoreService == null) {
-            dataStoreService = AeroDataStoreFactory.getInstance()
-                .construct(getType());
-        }
-        return dataStoreService;
-    }
-    
-    /**
-     * Getter method for the AeroDataUpdateServiceI interface.
-     * @return Reference to the proper AeroDataUpdateServiceI interface.
-     */
-    private AeroDataUpdateServiceI getAeroDataUpdateService() {
-        if (dataUpdateService == null) {
-            dataUpdateService = AeroDataUpdateFactory.getInstance()
-                .construct(getType());
-        }
-        return dataUpdateService;
-    }
-   
-    /**
-     * Getter method for the AeroDataServiceI interface.
-     * @return Reference to the proper AeroDataServiceI interface.
-     */
-    private AeroDataMetricsStoreI getAeroMetricsService() {
-        if (metricsStoreService == null) {
-            metricsStoreService = AeroMetricsStoreFactory.getInstance()
-                    .construct(getType());
-        }
-        return metricsStoreService;
-    }
-    
-    /**
-     * Getter method for the aero data type to synchronize.
-     * @return The aeronautical data type.
-     */
-    private AeroDataType getType() {
-        return this.type;
-    }
-    
-    /**
-     * This method will return a list of products that exist in the data 
-     * retrieved from the UPG data source but do not exist in the current 
-     * NGA holdings.  These are the products that we need to add to the 
-     * NGA holdings.
-     * 
-     * @param intermediate List of products downloaded from the UPG data 
-     * source. 
-     * @param holdings The NGA holdings.
-     * @return products that need to be added to the NGA holdings.
-     */
-    private List<String> getProductsToAdd(
-            Map<String, IntermediateUPGData> intermediate, 
-            Map<String, UPGData>             holdings) {
-        return UPGDataSetOperations.getInstance()
-                        .subtract(
-                                intermediate.keySet(), 
-                                holdings.keySet());
-    }
-    
-    /**
-     * This method will return a list of products that exist in the NGA  
-     * holdings but no longer exist at the UPG data source.  These are the 
-     * products that we need to remove from local holdings.  
+     * Compare the source holdings against the NGA holdings and calculate 
+     * the products that need to be added, updated and removed.  This is 
+     * done in a single pass over each of the holdings.  We are going to 
+     * assume that the last modified date is accurate.
      * 
      * @param intermediate List of products downloaded from the UPG data 
      * source. 
      * @param holdings The NGA holdings.
-     * @return products that need to be removed from the NGA holdings.
+     * @return The products to add, update and remove.
      */
-    private List<String> getProductsToRemove(
+    private SyncPlan getSyncPlan(
+            SyncRunContext                   ctx,
             Map<String, IntermediateUPGData> intermediate, 
-            Map<String, UPGData>             holdings) {
-        return UPGDataSetOperations.getInstance()
-                    .subtract(
-                            holdings.keySet(),
-                            intermediate.keySet());
+            Map<String, UPGData>             holdings) { 
+        
+        final AeroDataUpdateServiceI updateService = 
+                ctx.getDataUpdateService();
+        SyncPlan plan = UPGDataSetOperations.getInstance().diff(
+                intermediate, 
+                holdings, 
+                new UPGDataSetOperations.UpdateCheck<
+                        IntermediateUPGData, UPGData>() {
+                    @Override
+                    public boolean isUpdateRequired(
+                            IntermediateUPGData source, 
+                            UPGData             local) {
+                        return updateService.isUpdateRequired(source, local);
+                    }
+                });
+        logSyncPlan(ctx, plan);
+        return plan;
     }
     
     /**
-     * This method will return a list of products that exist in the NGA  
-     * holdings but need to be updated.  We are going to assume that the 
-     * last modified date is accurate.    
+     * Log the plan and record the number of downloads avoided in the 
+     * metrics.
      * 
-     * @param intermediate List of products downloaded from the UPG data 
-     * source. 
-     * @param holdings The NGA holdings.
-     * @return products that need to be removed from the NGA holdings.
+     * @param ctx The context of the current synchronization run.
+     * @param plan The products to add, update and remove.
      */
-    private List<String> getProductsToUpdate(
-            Map<String, IntermediateUPGData> intermediate, 
-            Map<String, UPGData>             holdings) { 
+    private void logSyncPlan(SyncRunContext ctx, SyncPlan plan) {
         
-        List<String> products = new ArrayList<String>();
-           List<String> intersection = UPGDataSetOperations.getInstance()
-                    .intersection(
-                            intermediate.keySet(), 
-                            holdings.keySet());
-
-        if ((intersection != null) && (intersection.size() > 0)) {
-            for (String UUID : intersection) {
-                
-                IntermediateUPGData sourceHoldings = intermediate.get(UUID);
-                UPGData             localHoldings  = holdings.get(UUID);
-                
-                if (getAeroDataUpdateService()
-                        .isUpdateRequired(
-                                sourceHoldings, 
-                                localHoldings)) { 
-                    products.add(UUID);
-                }
-
-            }
+        if (plan.getIntersection() > 0) {
+            ctx.getMetrics().downloadsAvoided(plan.getUnchanged());
+            LOGGER.info("[ "
+                    + plan.getProductsToUpdate().size()
+                    + " ] of [ "
+                    + plan.getIntersection()
+                    + " ] existing products require an update.  [ "
+                    + plan.getUnchanged()
+                    + " ] downloads avoided.");
         }
         else {
             LOGGER.warn("The calculation of the intersection between source "
@@ -233,36 +166,47 @@ public class DataSyncService
                     + "elements.  This is only valid if we're completely "
                     + "re-generating the NGA holdings.");
         }
-        return products;
+        LOGGER.info(plan.toString());
     }
     
     
     /**
-     * Ensure that the metrics are initialized before proceeding with the 
-     * synchronization process.
+     * Open the unit of work shared by the data store calls made from the 
+     * synchronization thread.  If a connection cannot be obtained the 
+     * data stores fall back to acquiring a connection per call.
      */
-    private void initializeMetrics() {
-        metricsBuilder = new Metrics.MetricsBuilder();
-        metricsBuilder.initialize();
-        metricsBuilder.executionTime(
-                new java.sql.Date((new java.util.Date()).getTime()));
-        metricsBuilder.hostName(FileUtils.getHostName());
-        metricsBuilder.jvmName(
-                EJBClientUtilities.getInstance().getServerName());
+    private void beginUnitOfWork() {
+        if (datasource != null) {
+            try {
+                UnitOfWork.begin(datasource);
+            }
+            catch (SQLException se) {
+                LOGGER.warn("Unable to open a unit of work for the "
+                        + "synchronization run.  Error message [ "
+                        + se.getMessage()
+                        + " ].");
+            }
+        }
     }
         
     
     /**
-     * Add products to the NGA holdings.  
+     * Add products to the NGA holdings.  The products are handed to a 
+     * bounded download executor so that multiple products can be 
+     * retrieved concurrently.
      * 
-     * @param intermediate List of products downloaded from the UPG data 
-     * source. 
-     * @param intermediate The NGA holdings.
+     * @param ctx The context of the current synchronization run.
+     * @param products List of products to add. 
+     * @param intermediate The source holdings.
      * @return The number of new products added.
+     * @throws UPGDataException Thrown if the thread is interrupted before 
+     * all of the products have been added.
      */
-    public int addProducts(
+    private int addProducts(
+            SyncRunContext ctx,
             List<String> products, 
-            Map<String, IntermediateUPGData> intermediate) {
+            final Map<String, IntermediateUPGData> intermediate) 
+                    throws UPGDataException {
         
         int counter = 0;
         
@@ -271,33 +215,53 @@ public class DataSyncService
             LOGGER.info("Adding [ "
                     + products.size()
                     + " ] products to the local holdings.");
+            ctx.getProgress().plan(products.size());
             
-            for (String uuid : products) {
-                try {
-                    getAeroDataUpdateService().add(intermediate.get(uuid));
-                    counter++;
-                }
-                catch (UPGDataException upde) {
-                    
+            final AeroDataUpdateServiceI updateService = 
+                    ctx.getDataUpdateService();
+            DownloadExecutor executor = getDownloadExecutor(ctx);
+            try {
+                for (final String uuid : products) {
+                    executor.submit(new Callable<DownloadStatus>() {
+                        @Override
+                        public DownloadStatus call() throws Exception {
+                            return updateService.add(intermediate.get(uuid));
+                        }
+                    });
                 }
+                executor.awaitCompletion();
+            }
+            catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                LOGGER.error("Interrupted while adding products to the "
+                        + "local holdings.  " 
+                        + executor.toString());
+                throw new UPGDataException(ErrorCodes.APPLICATION_EXCEPTION);
             }
+            counter = (int)(executor.getSucceeded() + executor.getFailed());
+            ctx.addContentDownloads(executor.getSucceeded());
+            LOGGER.info("Add complete.  " + executor.toString());
         }
         else {
             LOGGER.info("NGA Holdings : No products to add.");
         }
-        metricsBuilder.added(counter);
+        LOGGER.info(HttpTransport.getInstance().getPoolStatsString());
+        ctx.getMetrics().added(counter);
         return counter;
     }
     
     /**
-     * Remove deprecated products from the NGA holdings. 
+     * Remove deprecated products from the NGA holdings.  The database 
+     * records are deleted in batches (see <code>jdbc.batch.size</code>).
      * 
+     * @param ctx The context of the current synchronization run.
      * @param intermediate List of products downloaded from the UPG data 
      * source. 
      * @param intermediate The NGA holdings.
      * @return The number of old products to remove.
      */
-    public int removeProducts(
+    private int removeProducts(
+            SyncRunContext ctx,
             List<String> products, 
             Map<String, UPGData> data) throws UPGDataException {
         
@@ -305,11 +269,15 @@ public class DataSyncService
         
         if ((products != null) && (products.size() > 0)) {
             
+            // Products must not be removed by a partial run.
+            ctx.getProgress().checkCancelled();
             LOGGER.info("Removing [ "
                     + products.size()
                     + " ] products from the local holdings.");
             
             if ((data != null) && (data.size() > 0)) {
+                
+                List<UPGData> retired = new ArrayList<UPGData>(products.size());
                 for (String uuid : products) {
                     
                     LOGGER.info("UUID [ "
@@ -317,29 +285,35 @@ public class DataSyncService
                             + " ] no longer exists in the source "
                             + "holdings and will be removed.");
                     
-                    getAeroDataUpdateService()
-                        .remove(data.get(uuid));
-                    counter++;
+                    retired.add(data.get(uuid));
                 }
+                counter = ctx.getDataUpdateService().remove(retired);
             }
         }
         else {
             LOGGER.info("NGA Holdings : No products to remove.");
         }
-        metricsBuilder.removed(counter);
+        ctx.getMetrics().removed(counter);
         return counter;
     }
         
     /**
-     * Update existing products in the local holdings. 
+     * Update existing products in the local holdings.  The products are 
+     * handed to a bounded download executor so that multiple products can 
+     * be retrieved concurrently.
      * 
-     * @param intermediate List of products downloaded from the UPG data 
-     * source. 
+     * @param ctx The context of the current synchronization run.
+     * @param products List of products to update.
+     * @param data The source holdings. 
+     * @param holdings The local holdings (used to avoid re-downloading 
+     * products whose content has not changed).
      * @return The number of products that have been updated since the last run.
      */
-    public int updateProducts(
+    private int updateProducts(
+            SyncRunContext ctx,
             List<String> products, 
-            Map<String, IntermediateUPGData> data) throws UPGDataException {
+            final Map<String, IntermediateUPGData> data,
+            final Map<String, UPGData> holdings) throws UPGDataException {
         
         int counter = 0;
 
@@ -350,32 +324,844 @@ public class DataSyncService
                     + " ] products in the local holdings.");
             
             if ((data != null) && (data.size() > 0)) {
-                for (String uuid : products) {
-                    
-                    LOGGER.info("UUID [ "
-                            + uuid
-                            + " ] is out of date and will be updated.");
-                    
-                    getAeroDataUpdateService()
-                        .update(data.get(uuid));
-                    counter++;
+                
+                ctx.getProgress().plan(products.size());
+                final AeroDataUpdateServiceI updateService = 
+                        ctx.getDataUpdateService();
+                DownloadExecutor executor = getDownloadExecutor(ctx);
+                try {
+                    for (final String uuid : products) {
+                        
+                        LOGGER.info("UUID [ "
+                                + uuid
+                                + " ] is out of date and will be updated.");
+                        
+                        executor.submit(new Callable<DownloadStatus>() {
+                            @Override
+                            public DownloadStatus call() throws Exception {
+                                return updateService.update(
+                                        data.get(uuid), 
+                                        holdings.get(uuid));
+                            }
+                        });
+                    }
+                    executor.awaitCompletion();
                 }
+                catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    LOGGER.error("Interrupted while updating products in "
+                            + "the local holdings.  " 
+                            + executor.toString());
+                    throw new UPGDataException(
+                            ErrorCodes.APPLICATION_EXCEPTION);
+                }
+                counter = (int)(executor.getSucceeded() 
+                        + executor.getMetadataOnly() 
+                        + executor.getFailed());
+                ctx.addContentDownloads(executor.getSucceeded());
+                ctx.getMetrics().metadataOnlyUpdates(executor.getMetadataOnly());
+                LOGGER.info("Update complete.  " + executor.toString());
             }
         }
         else {
             LOGGER.info("NGA Holdings : No products to update.");
         }
-        metricsBuilder.updated(counter);
+        LOGGER.info(HttpTransport.getInstance().getPoolStatsString());
+        ctx.getMetrics().updated(counter);
         return counter;
     }
     
+    /**
+     * Construct a new bounded download executor sized according to the 
+     * concurrency allowed by the resource limits of the current data 
+     * type.
+     * 
+     * @param ctx The context of the current synchronization run.
+     * @return A new download executor.
+     */
+    private DownloadExecutor getDownloadExecutor(SyncRunContext ctx) {
+        
+        int threads = ctx.getLimits().getDownloadThreads();
+        if (managedExecutor == null) {
+            LOGGER.warn("Application container failed to inject the "
+                    + "managed executor service.  Products will be "
+                    + "downloaded serially.");
+        }
+        return new DownloadExecutor(
+                managedExecutor, 
+                threads, 
+                ctx.getProgress());
+    }
 
     /**
-     * Setter method for the aero data type so synchronize.
-     * @param type
+     * Determine whether or not the source catalog should be parsed 
+     * directly from the HTTP response stream.
+     * 
+     * @return True if the streaming parser should be used.
+     */
+    private boolean isStreamingCatalog() {
+        return getBooleanProperty(CATALOG_STREAMING, true);
+    }
+    
+    /**
+     * Look up the algorithm used to compare the source holdings against 
+     * the local holdings.
+     * 
+     * @return The configured diff engine (MEMORY if not configured).
+     */
+    private DiffEngine getDiffEngine() {
+        String value = null;
+        try {
+            value = getProperty(SYNC_DIFF_ENGINE);
+        }
+        catch (PropertiesNotLoadedException pnle) {
+            LOGGER.warn("Unable to load the properties file.  The default "
+                    + "diff engine will be used.");
+        }
+        return DiffEngine.fromString(value);
+    }
+    
+    /**
+     * Reset the peak usage statistics of the heap memory pools so that 
+     * the peak associated with parsing the catalog can be measured.
+     */
+    private void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+    
+    /**
+     * Calculate the peak heap usage since the last call to 
+     * <code>resetPeakHeap()</code>.  This is JVM-wide so it is an upper 
+     * bound on the memory used to parse the catalog.
+     * 
+     * @return The sum of the peak usage of the heap memory pools in bytes.
+     */
+    private long getPeakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if ((pool.getType() == MemoryType.HEAP) && 
+                    (pool.getPeakUsage() != null)) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+    
+    /**
+     * Retrieve the source catalog from the provider and convert it to 
+     * the intermediate format.  By default the catalog is parsed directly 
+     * from the HTTP response stream (using a conditional request if a 
+     * catalog has previously been accepted).  If 
+     * <code>sync.diff.engine</code> is <code>merge</code> or 
+     * <code>database</code> the parsed catalog is spooled to disk sorted 
+     * by UUID rather than returned in memory.  If 
+     * <code>catalog.streaming</code> is disabled the legacy path (raw 
+     * String, <code>RawUPGData</code>, then <code>buildMap()</code>) is 
+     * used.  The parse time, peak heap usage, and number of rejected rows 
+     * are recorded in the metrics.
+     * 
+     * @param ctx The context of the current synchronization run.
+     * @return The source catalog.
+     * @throws UPGDataException Thrown if the source holdings could not be
+     * retrieved.
+     */
+    private SourceCatalog getSourceCatalog(SyncRunContext ctx) 
+            throws UPGDataException {
+        
+        SourceCatalog catalog = null;
+        long          start   = System.currentTimeMillis();
+        
+        resetPeakHeap();
+        if (ctx.getEngine() != DiffEngine.MEMORY) {
+            catalog = ctx.getDataService().getSortedSourceCatalog();
+        }
+        else if (isStreamingCatalog()) {
+            catalog = ctx.getDataService().getSourceCatalog();
+        }
+        else {
+            
+            // Get the raw product data from the provider.
+            RawUPGData rawData = ctx.getDataService().getRawData();
+            if ((rawData == null) || (rawData.getData().size() == 0)) {
+                LOGGER.error("Unable to obtain the required information on "
+                        + "source holdings for data type [ "
+                        + ctx.getType().getText()
+                        + " ].  Synchronization operation cannot proceed.");
+                throw new UPGDataException(ErrorCodes.NO_DATA_RETRIEVED);
+            }
+            
+            // Convert the raw product data to an intermediate format for 
+            // processing.  The conversion is split across the managed 
+            // executor.
+            ProductBuilder builder = new ProductBuilder(ctx.getType());
+            catalog = new SourceCatalog.SourceCatalogBuilder()
+                    .source(ctx.getType().getText())
+                    .holdings(builder.buildMap(
+                            rawData, 
+                            managedExecutor, 
+                            getIntProperty(
+                                    CATALOG_BUILD_THREADS, 
+                                    Runtime.getRuntime().availableProcessors())))
+                    .rejected(builder.getNumRejected())
+                    .build();
+        }
+        
+        ctx.getMetrics().catalogParseTime(System.currentTimeMillis() - start);
+        ctx.getMetrics().catalogPeakHeap(getPeakHeap());
+        
+        if ((catalog == null) || ((!catalog.isUnchanged()) && 
+                (catalog.getSize() == 0))) {
+            deleteSpool(catalog);
+            LOGGER.error("Unable to obtain the required information on "
+                    + "source holdings for data type [ "
+                    + ctx.getType().getText()
+                    + " ].  Synchronization operation cannot proceed.");
+            throw new UPGDataException(ErrorCodes.NO_DATA_RETRIEVED);
+        }
+        ctx.getMetrics().catalogRejected(catalog.getNumRejected());
+        LOGGER.info(catalog.toString());
+        return catalog;
+    }
+    
+    /**
+     * Determine whether the synchronization can be skipped because the 
+     * catalog is unchanged.  A full synchronization is still performed if 
+     * there are failed downloads to retry, or if the last full 
+     * synchronization is older than <code>catalog.full.sync.interval.ms</code>
+     * (so that files removed from the holdings are eventually detected).
+     * 
+     * @param ctx The context of the current synchronization run.
+     * @param catalog The source catalog (flagged as unchanged).
+     * @return True if the synchronization can be skipped.
+     */
+    private boolean isSyncSkippable(
+            SyncRunContext ctx, 
+            SourceCatalog  catalog) {
+        
+        CatalogState.Entry previous = 
+                CatalogState.getInstance().get(catalog.getSource());
+        
+        if (previous == null) {
+            return false;
+        }
+        if ((System.currentTimeMillis() - previous.getAcceptedTime()) > 
+                getLongProperty(
+                        CATALOG_FULL_SYNC_INTERVAL, 
+                        DEFAULT_CATALOG_FULL_SYNC_INTERVAL)) {
+            LOGGER.info("Catalog for type [ "
+                    + ctx.getType().getText()
+                    + " ] is unchanged but the full synchronization "
+                    + "interval has expired.");
+            return false;
+        }
+        if (ctx.getDataStoreService().getNumFailedDownloads() > 0) {
+            LOGGER.info("Catalog for type [ "
+                    + ctx.getType().getText()
+                    + " ] is unchanged but there are failed downloads to "
+                    + "retry.");
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Build, log and store the metrics associated with the current run.
+     * 
+     * @param ctx The context of the current synchronization run.
+     */
+    private void storeMetrics(SyncRunContext ctx) {
+        try {
+            
+            // Update and store the metrics data.  A run short-circuited 
+            // by an unchanged catalog can complete within a millisecond.
+            ctx.getMetrics().contentDownloads(ctx.getContentDownloads());
+            long[] retries = RetryLane.getInstance().drain(ctx.getType());
+            ctx.getMetrics().retryAttempts(retries[0]);
+            ctx.getMetrics().retryRecoveries(retries[1]);
+            UnitOfWork.Counters jdbc = ctx.getJDBCCounters();
+            ctx.getMetrics().connectionsAcquired(jdbc.getConnectionsAcquired());
+            ctx.getMetrics().poolWaitTime(jdbc.getPoolWaitTime());
+            ctx.getMetrics().statementsPrepared(jdbc.getStatementsPrepared());
+            ctx.getMetrics().statementsReused(jdbc.getStatementsReused());
+            ctx.getMetrics().elapsedTime(Math.max(
+                    1, 
+                    System.currentTimeMillis() - ctx.getStartTime()));
+            Metrics metrics = ctx.getMetrics().build();
+            ctx.getProgress().setResult(metrics);
+            LOGGER.info("Synchronization for data type [ "
+                    + ctx.getType().getText()
+                    + " ] complete.  Metrics => [ "
+                    + metrics.toString()
+                    + " ].");
+            ctx.getMetricsStoreService().insert(metrics);
+            LOGGER.info(EJBReferenceCache.getInstance().toString());
+            
+        }
+        catch (IllegalStateException ise) {
+            LOGGER.error("Unexpected IllegalStateException raised while "
+                    + "constructing the Metrics object.  Error message [ " 
+                    + ise.getMessage()
+                    + " ].");
+        }
+    }
+    
+    /**
+     * Delete the spool file associated with the input catalog (if any).
+     * 
+     * @param catalog The source catalog.
+     */
+    private void deleteSpool(SourceCatalog catalog) {
+        if ((catalog != null) && (catalog.getSpool() != null)) {
+            File spool = new File(catalog.getSpool());
+            if ((spool.exists()) && (!spool.delete())) {
+                LOGGER.warn("Unable to delete catalog spool file [ "
+                        + catalog.getSpool()
+                        + " ].");
+            }
+        }
+    }
+    
+    /**
+     * Synchronize the local holdings with a source catalog that is held 
+     * in memory.  Both holdings are loaded into memory and compared with 
+     * a hash join.  The local holdings are read with a lean snapshot 
+     * query that selects only the columns needed by the comparison.
+     * 
+     * @param ctx The context of the current synchronization run.
+     * @param catalog The source catalog.
+     * @return The number of products in the local holdings.
+     * @throws UPGDataException Thrown if the local holdings could not be 
+     * retrieved.
+     */
+    private long synchronizeInMemory(
+            SyncRunContext ctx, 
+            SourceCatalog  catalog) throws UPGDataException {
+        
+        Map<String, IntermediateUPGData> intermediate = catalog.getHoldings();
+                
+        // Get a snapshot of the current local holdings.
+        long start = System.currentTimeMillis();
+        Map<String, UPGData> localHoldings = 
+                ctx.getDataStoreService().getSyncSnapshot(getIntProperty(
+                        SYNC_SNAPSHOT_FETCH_SIZE, 
+                        DEFAULT_SYNC_SNAPSHOT_FETCH_SIZE));
+        ctx.getMetrics().holdingsScanTime(System.currentTimeMillis() - start);
+        if ((localHoldings != null) && 
+                        (localHoldings.size() > 0)) {
+            
+            // Update metrics.
+            ctx.getMetrics().sourceHoldings(intermediate.entrySet().size());
+            ctx.getMetrics().localHoldings(localHoldings.size());
+            
+            SyncPlan plan = getSyncPlan(ctx, intermediate, localHoldings);
+            
+            addProducts(
+                    ctx,
+                    plan.getProductsToAdd(),
+                    intermediate);
+                    
+            updateProducts(
+                    ctx,
+                    plan.getProductsToUpdate(),
+                    intermediate,
+                    localHoldings);
+            
+            removeProducts(
+                    ctx,
+                    plan.getProductsToRemove(),
+                    localHoldings);
+        }
+        else {
+            
+            LOGGER.error("Unable to retrieve the local "
+                    + "holdings for type [ "
+                    + ctx.getType().getText()
+                    + " ] from the target data store.");
+            throw new UPGDataException(
+                    ErrorCodes.DATA_SOURCE_EXCEPTION);
+        }
+        return localHoldings.size();
+    }
+    
+    /**
+     * Synchronize the local holdings with a source catalog that has been 
+     * spooled to disk sorted by UUID.  The spool file and the local 
+     * holdings (read a page at a time in UUID order) are walked in step 
+     * (a merge join) and each add, update, or remove is issued as soon 
+     * as it is identified.  Neither set of holdings is ever held in 
+     * memory in its entirety.
+     * 
+     * @param ctx The context of the current synchronization run.
+     * @param catalog The source catalog.
+     * @return The number of products in the local holdings.
+     * @throws UPGDataException Thrown if the spool file or the local 
+     * holdings could not be read.
+     */
+    private long synchronizeSorted(
+            SyncRunContext ctx, 
+            SourceCatalog  catalog) throws UPGDataException {
+        
+        final AeroDataUpdateServiceI updateService = 
+                ctx.getDataUpdateService();
+        CatalogSorter.Cursor source    = null;
+        HoldingsCursor       holdings  = new HoldingsCursor(
+                ctx.getDataStoreService(), 
+                getIntProperty(SYNC_DIFF_PAGE_SIZE, DEFAULT_SYNC_DIFF_PAGE_SIZE));
+        DownloadExecutor     executor  = getDownloadExecutor(ctx);
+        int                  batchSize = Math.max(1, getIntProperty(
+                JDBC_BATCH_SIZE, DEFAULT_JDBC_BATCH_SIZE));
+        List<UPGData>        retired   = new ArrayList<UPGData>();
+        long                 added     = 0;
+        long                 updated   = 0;
+        long                 removed   = 0;
+        long                 unchanged = 0;
+        
+        ctx.getMetrics().sourceHoldings(catalog.getSize());
+        
+        try {
+            
+            source = CatalogSorter.open(new File(catalog.getSpool()));
+            IntermediateUPGData sourceProduct = source.next();
+            UPGData             localProduct  = holdings.next();
+            
+            if (localProduct == null) {
+                LOGGER.error("Unable to retrieve the local "
+                        + "holdings for type [ "
+                        + ctx.getType().getText()
+                        + " ] from the target data store.");
+                throw new UPGDataException(
+                        ErrorCodes.DATA_SOURCE_EXCEPTION);
+            }
+            
+            while (((sourceProduct != null) || (localProduct != null)) && 
+                    (!ctx.getProgress().isCancelled())) {
+                
+                int cmp;
+                if (sourceProduct == null) {
+                    cmp = 1;
+                }
+                else if (localProduct == null) {
+                    cmp = -1;
+                }
+                else {
+                    cmp = sourceProduct.getUUID().compareTo(
+                            localProduct.getUUID());
+                }
+                
+                if (cmp < 0) {
+                    
+                    // Product only exists in the source holdings.
+                    final IntermediateUPGData product = sourceProduct;
+                    ctx.getProgress().plan(1);
+                    executor.submit(new Callable<DownloadStatus>() {
+                        @Override
+                        public DownloadStatus call() throws Exception {
+                            return updateService.add(product);
+                        }
+                    });
+                    added++;
+                    sourceProduct = source.next();
+                }
+                else if (cmp > 0) {
+                    
+                    // Product no longer exists in the source holdings.
+                    LOGGER.info("UUID [ "
+                            + localProduct.getUUID()
+                            + " ] no longer exists in the source "
+                            + "holdings and will be removed.");
+                    retired.add(localProduct);
+                    if (retired.size() >= batchSize) {
+                        removed += updateService.remove(retired);
+                        retired.clear();
+                    }
+                    localProduct = holdings.next();
+                }
+                else {
+                    if (updateService.isUpdateRequired(
+                            sourceProduct, localProduct)) {
+                        
+                        LOGGER.info("UUID [ "
+                                + localProduct.getUUID()
+                                + " ] is out of date and will be updated.");
+                        
+                        final IntermediateUPGData product = sourceProduct;
+                        final UPGData             local   = localProduct;
+                        ctx.getProgress().plan(1);
+                        executor.submit(new Callable<DownloadStatus>() {
+                            @Override
+                            public DownloadStatus call() throws Exception {
+                                return updateService.update(product, local);
+                            }
+                        });
+                        updated++;
+                    }
+                    else {
+                        unchanged++;
+                    }
+                    sourceProduct = source.next();
+                    localProduct  = holdings.next();
+                }
+            }
+            if ((retired.size() > 0) && (!ctx.getProgress().isCancelled())) {
+                removed += updateService.remove(retired);
+                retired.clear();
+            }
+            executor.awaitCompletion();
+            ctx.getProgress().checkCancelled();
+        }
+        catch (IOException ioe) {
+            LOGGER.error("Unable to read the sorted catalog [ "
+                    + catalog.getSpool()
+                    + " ].  Unexpected IOException encountered [ "
+                    + ioe.getMessage()
+                    + " ].");
+            throw new UPGDataException(ErrorCodes.IO_EXCEPTION);
+        }
+        catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            LOGGER.error("Interrupted while synchronizing the local "
+                    + "holdings.");
+            throw new UPGDataException(ErrorCodes.APPLICATION_EXCEPTION);
+        }
+        finally {
+            if (source != null) {
+                try { source.close(); } catch (Exception e) {}
+            }
+        }
+        
+        LOGGER.info("Streaming diff complete.  Added [ "
+                + added
+                + " ], updated [ "
+                + updated
+                + " ], removed [ "
+                + removed
+                + " ], unchanged [ "
+                + unchanged
+                + " ].  "
+                + executor.toString());
+        LOGGER.info(HttpTransport.getInstance().getPoolStatsString());
+        
+        ctx.addContentDownloads(executor.getSucceeded());
+        ctx.getMetrics().localHoldings(holdings.getCount());
+        ctx.getMetrics().added(added);
+        ctx.getMetrics().updated(updated);
+        ctx.getMetrics().removed(removed);
+        ctx.getMetrics().metadataOnlyUpdates(executor.getMetadataOnly());
+        ctx.getMetrics().downloadsAvoided(unchanged);
+        return holdings.getCount();
+    }
+    
+    /**
+     * Synchronize the local holdings with a source catalog that has been 
+     * spooled to disk by loading the catalog into the staging table and 
+     * letting the database calculate the differences (see 
+     * <code>AeroDataStoreI.getStagedDelta()</code>).  Only the products 
+     * that differ are returned to the application server.  The database 
+     * cannot check for missing on-disk files, so products whose files 
+     * have been removed are only detected by the other engines.
+     * 
+     * @param ctx The context of the current synchronization run.
+     * @param catalog The source catalog.
+     * @return The number of products in the local holdings.
+     * @throws UPGDataException Thrown if the catalog could not be staged 
+     * or the differences could not be calculated.
+     */
+    private long synchronizeDatabase(
+            SyncRunContext ctx, 
+            SourceCatalog  catalog) throws UPGDataException {
+        
+        AeroDataStoreI       store     = ctx.getDataStoreService();
+        CatalogSorter.Cursor source    = null;
+        int                  batchSize = Math.max(1, getIntProperty(
+                SYNC_DIFF_PAGE_SIZE, DEFAULT_SYNC_DIFF_PAGE_SIZE));
+        List<IntermediateUPGData> batch = 
+                new ArrayList<IntermediateUPGData>(batchSize);
+        long                 staged    = 0;
+        long                 local     = store.getNumProducts();
+        long                 start     = System.currentTimeMillis();
+        StagedDelta          delta     = null;
+        
+        if (local == 0) {
+            LOGGER.error("Unable to retrieve the local "
+                    + "holdings for type [ "
+                    + ctx.getType().getText()
+                    + " ] from the target data store.");
+            throw new UPGDataException(
+                    ErrorCodes.DATA_SOURCE_EXCEPTION);
+        }
+        ctx.getMetrics().sourceHoldings(catalog.getSize());
+        ctx.getMetrics().localHoldings(local);
+        
+        try {
+            
+            store.clearStaging();
+            source = CatalogSorter.open(new File(catalog.getSpool()));
+            IntermediateUPGData product = null;
+            while ((product = source.next()) != null) {
+                batch.add(product);
+                if (batch.size() >= batchSize) {
+                    staged += stage(ctx, store, batch);
+                }
+            }
+            if (batch.size() > 0) {
+                staged += stage(ctx, store, batch);
+            }
+            
+            LOGGER.info("Staged [ "
+                    + staged
+                    + " ] catalog products in [ "
+                    + (System.currentTimeMillis() - start)
+                    + " ] ms.");
+            
+            delta = store.getStagedDelta();
+            if (delta == null) {
+                LOGGER.error("Unable to calculate the differences between "
+                        + "the staged catalog and the local holdings for "
+                        + "type [ "
+                        + ctx.getType().getText()
+                        + " ].");
+                throw new UPGDataException(
+                        ErrorCodes.DATA_SOURCE_EXCEPTION);
+            }
+        }
+        catch (IOException ioe) {
+            LOGGER.error("Unable to read the sorted catalog [ "
+                    + catalog.getSpool()
+                    + " ].  Unexpected IOException encountered [ "
+                    + ioe.getMessage()
+                    + " ].");
+            throw new UPGDataException(ErrorCodes.IO_EXCEPTION);
+        }
+        finally {
+            if (source != null) {
+                try { source.close(); } catch (Exception e) {}
+            }
+            store.clearStaging();
+        }
+        
+        LOGGER.info(delta.toString());
+        SyncPlan plan = delta.getPlan();
+        logSyncPlan(ctx, plan);
+        
+        addProducts(
+                ctx,
+                plan.getProductsToAdd(),
+                delta.getAdditions());
+        
+        updateProducts(
+                ctx,
+                plan.getProductsToUpdate(),
+                delta.getUpdateSource(),
+                delta.getUpdateLocal());
+        
+        removeProducts(
+                ctx,
+                plan.getProductsToRemove(),
+                delta.getRemovals());
+        
+        return local;
+    }
+    
+    /**
+     * Load a batch of catalog products into the staging table and clear 
+     * the batch.
+     * 
+     * @param store The data store.
+     * @param batch The products to stage.
+     * @return The number of products staged.
+     * @throws UPGDataException Thrown if the batch could not be staged.
+     */
+    private int stage(
+            SyncRunContext            ctx,
+            AeroDataStoreI            store, 
+            List<IntermediateUPGData> batch) throws UPGDataException {
+        int staged = store.stageData(batch);
+        if (staged != batch.size()) {
+            LOGGER.error("Unable to stage [ "
+                    + batch.size()
+                    + " ] catalog products for type [ "
+                    + ctx.getType().getText()
+                    + " ].");
+            throw new UPGDataException(ErrorCodes.DATA_SOURCE_EXCEPTION);
+        }
+        batch.clear();
+        return staged;
+    }
+    
+    /**
+     * Record a "no-change" run.  Nothing has been published since the 
+     * last accepted run so the metrics of that run are carried forward.
+     * 
+     * @param ctx The context of the current synchronization run.
+     * @param catalog The source catalog (flagged as unchanged).
+     */
+    private void recordSkippedRun(
+            SyncRunContext ctx, 
+            SourceCatalog  catalog) {
+        CatalogState.Entry previous = 
+                CatalogState.getInstance().get(catalog.getSource());
+        LOGGER.info("Catalog for type [ "
+                + ctx.getType().getText()
+                + " ] is unchanged.  Synchronization skipped.");
+        ctx.getMetrics().catalogUnchanged(true);
+        ctx.getMetrics().sourceHoldings(previous.getSourceHoldings());
+        ctx.getMetrics().localHoldings(previous.getLocalHoldings());
+        ctx.getMetrics().failedDownloads(0);
+        storeMetrics(ctx);
+    }
+    
+    /**
+     * Look up the URL of the source catalog for the current data type.
+     * 
+     * @param ctx The context of the current synchronization run.
+     * @return The catalog URL.
+     * @throws UPGDataException Thrown if the URL is not defined.
+     */
+    private String getCatalogURL(SyncRunContext ctx) throws UPGDataException {
+        String url = null;
+        try {
+            url = getProperty(ctx.getType() == AeroDataType.JEPP ? 
+                    JEPP_TARGET_URL : UPG_TARGET_URL);
+        }
+        catch (PropertiesNotLoadedException pnle) {
+            LOGGER.error("Unable to load the properties file.  "
+                    + "Synchronization operation cannot proceed.");
+            throw new UPGDataException(ErrorCodes.PROPERTIES_NOT_LOADED);
+        }
+        if ((url == null) || (url.isEmpty())) {
+            LOGGER.error("Unable to retrieve the target URL associated "
+                    + "with type [ "
+                    + ctx.getType().getText()
+                    + " ].  This is an issue with the properties file.");
+            throw new UPGDataException(ErrorCodes.PROPERTIES_NOT_DEFINED);
+        }
+        return url;
+    }
+    
+    /**
+     * Run a single pass of the staged synchronization pipeline (see 
+     * <code>SyncPipeline</code>).  The catalog is streamed on a managed 
+     * executor thread while the snapshot of the local holdings is read on 
+     * the calling thread, and downloads begin as soon as the first new or 
+     * changed product has been parsed.
+     * 
+     * @param ctx The context of the current synchronization run.
+     * @return The completed pipeline.
+     * @throws UPGDataException Thrown if the catalog or the local holdings 
+     * could not be retrieved.
+     */
+    private SyncPipeline runPipeline(SyncRunContext ctx) 
+            throws UPGDataException {
+        
+        final String     url      = getCatalogURL(ctx);
+        DownloadExecutor executor = getDownloadExecutor(ctx);
+        SyncPipeline     pipeline = new SyncPipeline(
+                ctx.getDataUpdateService(),
+                ctx.getDataStoreService(),
+                executor,
+                managedExecutor,
+                ctx.getProgress(),
+                getIntProperty(
+                        SYNC_PIPELINE_QUEUE_SIZE, 
+                        DEFAULT_SYNC_PIPELINE_QUEUE_SIZE),
+                getIntProperty(JDBC_BATCH_SIZE, DEFAULT_JDBC_BATCH_SIZE));
+        long             start    = System.currentTimeMillis();
+        
+        resetPeakHeap();
+        pipeline.start(new SyncPipeline.Source() {
+            @Override
+            public SourceCatalog fetch(CatalogParser.RowHandler handler) 
+                    throws UPGDataException {
+                return catalogService.getSourceCatalog(url, handler);
+            }
+        });
+        
+        // Read the local holdings while the catalog is being downloaded.
+        long scan = System.currentTimeMillis();
+        Map<String, UPGData> localHoldings = null;
+        try {
+            localHoldings = ctx.getDataStoreService().getSyncSnapshot(
+                    getIntProperty(
+                            SYNC_SNAPSHOT_FETCH_SIZE, 
+                            DEFAULT_SYNC_SNAPSHOT_FETCH_SIZE));
+        }
+        finally {
+            if ((localHoldings == null) || (localHoldings.size() == 0)) {
+                pipeline.cancel();
+            }
+        }
+        ctx.getMetrics().holdingsScanTime(System.currentTimeMillis() - scan);
+        if ((localHoldings == null) || (localHoldings.size() == 0)) {
+            LOGGER.error("Unable to retrieve the local "
+                    + "holdings for type [ "
+                    + ctx.getType().getText()
+                    + " ] from the target data store.");
+            throw new UPGDataException(ErrorCodes.DATA_SOURCE_EXCEPTION);
+        }
+        pipeline.run(localHoldings);
+        
+        SourceCatalog catalog = pipeline.getCatalog();
+        LOGGER.info(catalog.toString());
+        LOGGER.info(HttpTransport.getInstance().getPoolStatsString());
+        
+        ctx.getMetrics().catalogParseTime(System.currentTimeMillis() - start);
+        ctx.getMetrics().catalogPeakHeap(getPeakHeap());
+        ctx.getMetrics().catalogRejected(catalog.getNumRejected());
+        ctx.getMetrics().sourceHoldings(catalog.getSize());
+        ctx.getMetrics().localHoldings(pipeline.getLocalHoldings());
+        ctx.getMetrics().added(pipeline.getAdded());
+        ctx.getMetrics().updated(pipeline.getUpdated());
+        ctx.getMetrics().removed(pipeline.getRemoved());
+        ctx.getMetrics().metadataOnlyUpdates(executor.getMetadataOnly());
+        ctx.getMetrics().downloadsAvoided(pipeline.getUnchanged());
+        ctx.addContentDownloads(executor.getSucceeded());
+        return pipeline;
+    }
+    
+    /**
+     * Synchronize the local holdings using the staged pipeline.  The 
+     * catalog is streamed, diffed, downloaded and persisted concurrently 
+     * rather than one phase at a time.  If the provider reports that the 
+     * catalog is unchanged the run is skipped (or repeated unconditionally 
+     * if a full synchronization is due).
+     * 
+     * @param ctx The context of the current synchronization run.
+     * @throws UPGDataException Thrown if the catalog or the local holdings 
+     * could not be retrieved.
      */
-    private void setType(AeroDataType type) {
-        this.type = type;
+    private void synchronizePipelined(SyncRunContext ctx) 
+            throws UPGDataException {
+        
+        SyncPipeline  pipeline = runPipeline(ctx);
+        SourceCatalog catalog  = pipeline.getCatalog();
+        
+        if ((catalog.isUnchanged()) && (!catalog.isRetrieved())) {
+            if (isSyncSkippable(ctx, catalog)) {
+                recordSkippedRun(ctx, catalog);
+                return;
+            }
+            
+            // The provider returned 304 but a full synchronization is 
+            // required, so retrieve the catalog unconditionally.
+            CatalogState.getInstance().invalidate(catalog.getSource());
+            pipeline = runPipeline(ctx);
+            catalog  = pipeline.getCatalog();
+        }
+        
+        ctx.getMetrics().failedDownloads(
+                ctx.getDataStoreService().getNumFailedDownloads());
+        storeMetrics(ctx);
+        
+        // Remember the catalog so the next run can be short-circuited 
+        // if nothing changes (never for a partial run).
+        ctx.getProgress().checkCancelled();
+        CatalogState.getInstance().accept(
+                catalog, 
+                pipeline.getLocalHoldings());
     }
     
     /**
@@ -386,44 +1172,498 @@ public class DataSyncService
      * @throws UPGDataException Thrown for a variety of reasons.
      */
     public void synchronize(AeroDataType type) throws UPGDataException {
+        synchronize(type, "unspecified");
+    }
+    
+    /**
+     * Synchronize the input data type.  The run is registered with the 
+     * <code>SyncCoordinator</code> so that only one run is active per data 
+     * type.  If a run is already active the trigger is skipped or queued 
+     * (see <code>sync.overlap.policy</code>) and this method returns 
+     * immediately.  If a trigger is queued while this run is active the 
+     * queued run is executed on the calling thread once this run 
+     * finishes, even if this run failed.
+     * 
+     * All of the state associated with a run is held in a 
+     * <code>SyncRunContext</code> rather than in the bean, so different 
+     * data types may be synchronized concurrently.
+     * 
+     * @param type The data type that we are synchronizing.
+     * @param trigger Description of what started the run (e.g. timer).
+     * @return True if the run was executed, false if a run was already 
+     * active for the data type.
+     * @throws UPGDataException Thrown for a variety of reasons (including 
+     * cancellation of the run).
+     */
+    public boolean synchronize(AeroDataType type, String trigger) 
+            throws UPGDataException {
         
-        long                             startTime = System.currentTimeMillis();
-        RawUPGData                       rawData   = null;
-        Metrics                          metrics   = null;
-        Map<String, IntermediateUPGData> intermediate = null;
-        Map<String, UPGData>             localHoldings  = null;
+        if (type == null) {
+            LOGGER.error("Null data type requested.  Synchronization "
+                    + "operation cannot proceed.");
+            throw new UPGDataException(ErrorCodes.APPLICATION_EXCEPTION);
+        }
         
-        // Save the type for use throughout the synchronization process.
-        setType(type);
-        LOGGER.info("Beginning data synchronization process for type [ "
-                + getType()
+        SyncProgress progress = 
+                SyncCoordinator.getInstance().begin(type, trigger);
+        if (progress == null) {
+            return false;
+        }
+        execute(progress);
+        return true;
+    }
+    
+    /**
+     * Perform a pass of the retry lane for the input data type: re-attempt 
+     * the products that previously failed to download without retrieving 
+     * the source catalog.  The pass is registered with the 
+     * <code>SyncCoordinator</code> like a full synchronization.  It is 
+     * skipped if a synchronization of the data type is active and is 
+     * cancelled if one is triggered while it runs.  The synchronization 
+     * queued behind a cancelled pass is started asynchronously (see 
+     * <code>executeAsync()</code>) rather than on the calling thread, so 
+     * the retry timer is never tied up by a full synchronization.
+     * 
+     * @param type The data type whose failed products will be re-tried.
+     * @return True if the pass was executed, false if a run was already 
+     * active for the data type.
+     * @throws UPGDataException Thrown for a variety of reasons.
+     */
+    public boolean retryFailed(AeroDataType type) throws UPGDataException {
+        return synchronize(type, SyncProgress.RETRY_TRIGGER);
+    }
+    
+    /**
+     * Start an asynchronous synchronization of the input data type.  The 
+     * run is registered with the <code>SyncCoordinator</code> and handed 
+     * to <code>executeAsync()</code> through the business object of this 
+     * bean, so this method returns immediately.  The caller may poll the 
+     * returned progress (or look it up by job ID) for the status and 
+     * final metrics.
+     * 
+     * @param type The data type to synchronize.
+     * @param trigger Description of what started the run (e.g. rest).
+     * @return The progress of the new run, the progress of the queued run 
+     * if a run was already active and the trigger was queued, or null if 
+     * a run was already active and the trigger was skipped.
+     * @throws UPGDataException Thrown if the data type is null or the 
+     * container refused the asynchronous invocation.
+     */
+    public SyncProgress submit(AeroDataType type, String trigger) 
+            throws UPGDataException {
+        
+        if (type == null) {
+            LOGGER.error("Null data type requested.  Synchronization "
+                    + "operation cannot proceed.");
+            throw new UPGDataException(ErrorCodes.APPLICATION_EXCEPTION);
+        }
+        if (sessionContext == null) {
+            LOGGER.error("Container failed to inject the session context.  "
+                    + "Asynchronous synchronization cannot proceed.");
+            throw new UPGDataException(ErrorCodes.APPLICATION_EXCEPTION);
+        }
+        
+        SyncProgress progress = 
+                SyncCoordinator.getInstance().begin(type, trigger);
+        if (progress == null) {
+            return SyncCoordinator.getInstance().getQueued(type);
+        }
+        try {
+            dispatch(progress);
+        }
+        catch (UPGDataException ude) {
+            reject(progress, ude.getMessageText());
+            throw ude;
+        }
+        LOGGER.info("Synchronization job [ "
+                + progress.getJobId()
+                + " ] submitted for type [ "
+                + type.getText()
                 + " ].");
+        return progress;
+    }
+    
+    /**
+     * Fail a registered run that could not be dispatched, along with 
+     * anything queued behind it in the meantime.
+     * 
+     * @param progress The progress of the rejected run.
+     * @param message The reason the run was rejected.
+     */
+    private void reject(SyncProgress progress, String message) {
+        SyncProgress next = progress;
+        while (next != null) {
+            next.fail(message);
+            next = SyncCoordinator.getInstance().finish(next);
+        }
+    }
+    
+    /**
+     * Hand a registered run to <code>executeAsync()</code>.  The call must 
+     * go through the business object of the bean (rather than 
+     * <code>this</code>) for the container to honour the 
+     * <code>@Asynchronous</code> annotation.
+     * 
+     * @param progress The progress of the registered run.
+     * @throws UPGDataException Thrown if the container refused the 
+     * asynchronous invocation.
+     */
+    private void dispatch(SyncProgress progress) throws UPGDataException {
+        if (sessionContext == null) {
+            LOGGER.error("Container failed to inject the session context.  "
+                    + "Synchronization job [ "
+                    + progress.getJobId()
+                    + " ] cannot proceed.");
+            throw new UPGDataException(ErrorCodes.APPLICATION_EXCEPTION);
+        }
+        try {
+            sessionContext
+                    .getBusinessObject(DataSyncService.class)
+                    .executeAsync(progress);
+        }
+        catch (IllegalStateException ise) {
+            LOGGER.error("Unable to obtain the business object of the "
+                    + "DataSyncService.  Synchronization job [ "
+                    + progress.getJobId()
+                    + " ] cannot proceed.  Error message [ "
+                    + ise.getMessage()
+                    + " ].");
+            throw new UPGDataException(ErrorCodes.APPLICATION_EXCEPTION);
+        }
+        catch (EJBException ee) {
+            LOGGER.error("Container rejected synchronization job [ "
+                    + progress.getJobId()
+                    + " ].  Error message [ "
+                    + ee.getMessage()
+                    + " ].");
+            throw new UPGDataException(ErrorCodes.APPLICATION_EXCEPTION);
+        }
+    }
+    
+    /**
+     * Execute a registered run (and any run queued behind it) on a thread 
+     * of the container's asynchronous invocation pool.  The run executes 
+     * within a normal EJB invocation of a pooled bean instance and does 
+     * not occupy a thread of the managed executor, which remains 
+     * available to the parse and download tasks of the run.  This method 
+     * is only intended to be called by <code>submit()</code>.
+     * 
+     * @param progress The progress of a run already registered with the 
+     * <code>SyncCoordinator</code>.
+     */
+    @Asynchronous
+    public void executeAsync(SyncProgress progress) {
+        try {
+            execute(progress);
+        }
+        catch (UPGDataException ude) {
+            LOGGER.error("Synchronization job [ "
+                    + progress.getJobId()
+                    + " ] failed.  Error message [ "
+                    + ude.getMessageText()
+                    + " ].");
+        }
+        catch (RuntimeException re) {
+            LOGGER.error("Unexpected exception raised by "
+                    + "synchronization job [ "
+                    + progress.getJobId()
+                    + " ].  Error message [ "
+                    + re.getMessage()
+                    + " ].", re);
+        }
+    }
+    
+    /**
+     * Execute a registered run followed by any run queued for the same 
+     * data type while it was active.  Failures are recorded in the 
+     * progress of the run.  A failure does not prevent the queued run 
+     * from executing; the first failure is re-thrown once nothing 
+     * remains queued.  A run queued behind a retry pass is dispatched to 
+     * <code>executeAsync()</code> instead of being executed here, as the 
+     * caller of a retry pass (i.e. the retry timer) must not be held for 
+     * the duration of a full synchronization.
+     * 
+     * @param progress The progress of the registered run.
+     * @throws UPGDataException Thrown for a variety of reasons (including 
+     * cancellation of the run).
+     */
+    private void execute(SyncProgress progress) throws UPGDataException {
+        
+        UPGDataException failure = null;
+        RuntimeException error   = null;
+        
+        while (progress != null) {
+            
+            // All of the state associated with this run is held in the 
+            // context so that concurrent runs do not interfere.
+            SyncRunContext ctx = new SyncRunContext(
+                    progress.getType(), 
+                    getDiffEngine(), 
+                    ResourceGovernor.getInstance().getLimits(
+                            progress.getType()),
+                    progress);
+            
+            // Record the JDBC activity of this run (and of the download 
+            // threads working on it) in the counters of the run.
+            UnitOfWork.Counters previous = 
+                    UnitOfWork.bind(ctx.getJDBCCounters());
+            try {
+                if (progress.isRetry()) {
+                    retryFailed(ctx);
+                }
+                else {
+                    synchronize(ctx);
+                }
+            }
+            catch (UPGDataException ude) {
+                progress.fail(ude.getMessageText());
+                if ((failure == null) && (error == null)) {
+                    failure = ude;
+                }
+            }
+            catch (RuntimeException re) {
+                progress.fail(re.toString());
+                if ((failure == null) && (error == null)) {
+                    error = re;
+                }
+            }
+            finally {
+                UnitOfWork.bind(previous);
+                boolean retry = progress.isRetry();
+                progress = SyncCoordinator.getInstance().finish(progress);
+                if (retry && (progress != null)) {
+                    handOff(progress);
+                    progress = null;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+    
+    /**
+     * Dispatch a run that was queued behind a retry pass to 
+     * <code>executeAsync()</code>.  If the container refuses the 
+     * invocation the run is failed (it is not executed on the thread of 
+     * the retry pass).
+     * 
+     * @param progress The progress of the queued run (already registered 
+     * as the active run).
+     */
+    private void handOff(SyncProgress progress) {
+        try {
+            dispatch(progress);
+            LOGGER.info("Synchronization job [ "
+                    + progress.getJobId()
+                    + " ] queued behind a retry pass dispatched for type [ "
+                    + progress.getType().getText()
+                    + " ].");
+        }
+        catch (UPGDataException ude) {
+            reject(progress, ude.getMessageText());
+        }
+    }
+    
+    /**
+     * Perform a single pass of the retry lane.  The failed records are 
+     * read a page at a time through the <code>SUCCESS_DL</code> index and 
+     * each product whose backoff delay has expired is re-tried by the 
+     * download threads.  Each failure doubles the delay before the 
+     * product is next re-tried (see <code>RetryLane</code>).  If the pass 
+     * is cancelled no further products are submitted and the pass returns 
+     * normally.
+     * 
+     * @param ctx The context of the current synchronization run.
+     * @throws UPGDataException Thrown if the required object handles 
+     * cannot be obtained, a page of the failed records cannot be read, or
+     * the pass is interrupted.
+     */
+    private void retryFailed(SyncRunContext ctx) throws UPGDataException {
+        
+        final RetryLane              lane          = RetryLane.getInstance();
+        final AeroDataType           type          = ctx.getType();
+        final AeroDataUpdateServiceI updateService = 
+                ctx.getDataUpdateService();
+        final AeroDataStoreI         store         = 
+                ctx.getDataStoreService();
+        final AtomicLong             attempts      = new AtomicLong(0);
+        final AtomicLong             recoveries    = new AtomicLong(0);
+        Set<String>                  failed        = new HashSet<String>();
+        long                         deferred      = 0;
+        boolean                      complete      = false;
+        
+        if ((updateService == null) || (store == null)) {
+            LOGGER.error("Unable to obtain the required object handles.  "
+                    + "Retry pass cannot proceed.");
+            throw new UPGDataException(ErrorCodes.APPLICATION_EXCEPTION);
+        }
+        
+        LOGGER.info("Beginning retry pass for data type [ "
+                + type.getText()
+                + " ].  [ "
+                + lane.getScheduled(type)
+                + " ] products awaiting retry.");
+        ctx.getProgress().setPhase("retrying");
+        
+        DownloadExecutor executor = getDownloadExecutor(ctx);
+        beginUnitOfWork();
+        try {
+            long          now  = System.currentTimeMillis();
+            List<UPGData> page = store.getFailedData(
+                    null, 
+                    lane.getPageSize());
+            while ((page != null) && 
+                    (!page.isEmpty()) && 
+                    (!ctx.getProgress().isCancelled())) {
+                for (final UPGData product : page) {
+                    failed.add(product.getUUID());
+                    if (!lane.isDue(type, product.getUUID(), now)) {
+                        continue;
+                    }
+                    if (!updateService.isRetryable(product)) {
+                        lane.defer(type, product.getUUID());
+                        deferred++;
+                        continue;
+                    }
+                    ctx.getProgress().plan(1);
+                    executor.submit(new Callable<DownloadStatus>() {
+                        @Override
+                        public DownloadStatus call() throws Exception {
+                            DownloadStatus status = DownloadStatus.FAILED;
+                            try {
+                                status = updateService.retry(product);
+                            }
+                            finally {
+                                attempts.incrementAndGet();
+                                if (status == DownloadStatus.SUCCESS) {
+                                    recoveries.incrementAndGet();
+                                    lane.recordRecovery(
+                                            type, 
+                                            product.getUUID());
+                                }
+                                else {
+                                    lane.recordFailure(
+                                            type, 
+                                            product.getUUID());
+                                }
+                            }
+                            return status;
+                        }
+                    });
+                }
+                if (page.size() < lane.getPageSize()) {
+                    break;
+                }
+                page = store.getFailedData(
+                        page.get(page.size() - 1).getUUID(), 
+                        lane.getPageSize());
+            }
+            executor.awaitCompletion();
+            if (page == null) {
+                LOGGER.error("Unable to read a page of the failed records "
+                        + "of type [ "
+                        + type.getText()
+                        + " ].  Retry pass aborted.");
+                throw new UPGDataException(ErrorCodes.DATA_SOURCE_EXCEPTION);
+            }
+            complete = !ctx.getProgress().isCancelled();
+        }
+        catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            LOGGER.error("Interrupted while re-trying failed products.  "
+                    + executor.toString());
+            throw new UPGDataException(ErrorCodes.APPLICATION_EXCEPTION);
+        }
+        finally {
+            UnitOfWork.end();
+        }
+        
+        // The complete list of failed products is only known if every 
+        // page was read (i.e. the pass was not cancelled, interrupted or 
+        // cut short by a database error).
+        if (complete) {
+            lane.retain(type, failed);
+        }
+        ctx.addContentDownloads(recoveries.get());
         
-        initializeMetrics();
+        try {
+            Metrics metrics = ctx.getMetrics()
+                    .retryAttempts(attempts.get())
+                    .retryRecoveries(recoveries.get())
+                    .contentDownloads(ctx.getContentDownloads())
+                    .failedDownloads(failed.size() - recoveries.get())
+                    .elapsedTime(Math.max(
+                            1, 
+                            System.currentTimeMillis() - ctx.getStartTime()))
+                    .build();
+            ctx.getProgress().setResult(metrics);
+            LOGGER.info("Retry pass for data type [ "
+                    + type.getText()
+                    + " ] complete.  [ "
+                    + deferred
+                    + " ] products deferred to the next full "
+                    + "synchronization.  "
+                    + executor.toString()
+                    + "  Metrics => [ "
+                    + metrics.toString()
+                    + " ].");
+        }
+        catch (IllegalStateException ise) {
+            LOGGER.error("Unexpected IllegalStateException raised while "
+                    + "constructing the Metrics object.  Error message [ " 
+                    + ise.getMessage()
+                    + " ].");
+        }
+    }
+    
+    /**
+     * Perform a single synchronization run.
+     * 
+     * @param ctx The context of the current synchronization run.
+     * @throws UPGDataException Thrown for a variety of reasons.
+     */
+    private void synchronize(SyncRunContext ctx) throws UPGDataException {
+        
+        SourceCatalog catalog       = null;
+        long          localHoldings = 0;
+        
+        LOGGER.info("Beginning data synchronization process for type [ "
+                + ctx.getType()
+                + " ] (trigger [ "
+                + ctx.getProgress().getTrigger()
+                + " ]).");
+        LOGGER.info("Using the [ "
+                + ctx.getEngine().getText()
+                + " ] diff engine.  "
+                + ctx.getLimits().toString());
 
         // Make sure we can look up all of the required object handles.
-        if (getAeroDataUpdateService() == null) {
+        if (ctx.getDataUpdateService() == null) {
             LOGGER.error("Unable to obtain a reference to [ " 
                     + "AeroDataUpdateServiceI"
                     + " ].  Synchronization operation cannot "
                     + "proceed.");
             throw new UPGDataException(ErrorCodes.APPLICATION_EXCEPTION);           
         }
-        if (getAeroMetricsService() == null) {
+        if (ctx.getMetricsStoreService() == null) {
             LOGGER.error("Unable to obtain a reference to [ " 
                     + "AeroDataMetricsServiceI"
                     + " ].  Synchronization operation cannot "
                     + "proceed.");
             throw new UPGDataException(ErrorCodes.APPLICATION_EXCEPTION);            
         }
-        if (getAeroDataService() == null) {
+        if (ctx.getDataService() == null) {
             LOGGER.error("Unable to obtain a reference to [ " 
                     + "AeroDataServiceI"
                     + " ].  Synchronization operation cannot "
                     + "proceed.");
             throw new UPGDataException(ErrorCodes.APPLICATION_EXCEPTION);
         }
-        if (getAeroDataStoreService() == null) {
+        if (ctx.getDataStoreService() == null) {
             LOGGER.error("Unable to obtain a reference to [ " 
                     + "AeroDataStoreServiceI"
                     + " ].  Synchronization operation cannot "
@@ -431,91 +1671,62 @@ public class DataSyncService
             throw new UPGDataException(ErrorCodes.APPLICATION_EXCEPTION);
         }
             
-        // Get the raw product data from the provider.
-        rawData = getAeroDataService().getRawData();
-        if ((rawData != null) && 
-                (rawData.getData().size() > 0)) { 
-                    
-            // Convert the raw product data to an intermediate format for 
-            // processing.
-            intermediate = new ProductBuilder(getType()).buildMap(rawData); 
-            if ((intermediate != null) && 
-                    (intermediate.entrySet().size() > 0)) { 
-                
-                // Get the current local holdings.
-                localHoldings = getAeroDataStoreService().getData();
-                if ((localHoldings != null) && 
-                                (localHoldings.size() > 0)) {
-                    
-                    // Update metrics.
-                    metricsBuilder.sourceHoldings(intermediate.entrySet().size());
-                    metricsBuilder.localHoldings(localHoldings.size());
-                    
-                    addProducts(
-                            getProductsToAdd(
-                                    intermediate, 
-                                    localHoldings),
-                            intermediate);
-                            
-                    updateProducts(
-                            getProductsToUpdate(
-                                    intermediate, 
-                                    localHoldings),
-                            intermediate);
-                    
-                    removeProducts(
-                            getProductsToRemove(
-                                    intermediate, 
-                                    localHoldings),
-                            localHoldings);
+        if (ctx.getEngine() == DiffEngine.PIPELINE) {
+            ctx.getProgress().setPhase("pipeline");
+            beginUnitOfWork();
+            try {
+                synchronizePipelined(ctx);
+            }
+            finally {
+                UnitOfWork.end();
+            }
+            return;
+        }
+        
+        // Get the current source holdings from the provider.
+        ctx.getProgress().setPhase("retrieving catalog");
+        catalog = getSourceCatalog(ctx);
+        beginUnitOfWork();
+        try {
+            if (catalog.isUnchanged()) {
+                if (isSyncSkippable(ctx, catalog)) {
+                    recordSkippedRun(ctx, catalog);
+                    return;
                 }
-                else {
+                if (!catalog.isRetrieved()) {
                     
-                    LOGGER.error("Unable to retrieve the local "
-                            + "holdings for type [ "
-                            + type.getText()
-                            + " ] from the target data store.");
-                    throw new UPGDataException(
-                            ErrorCodes.DATA_SOURCE_EXCEPTION);
+                    // The provider returned 304 but a full synchronization 
+                    // is required, so retrieve the catalog unconditionally.
+                    CatalogState.getInstance().invalidate(catalog.getSource());
+                    catalog = getSourceCatalog(ctx);
                 }
             }
-            else {
-                LOGGER.error("Unable to convert raw data to its "
-                        + "intermediate format for type [ "
-                        + type.getText()
-                        + " ].");
-                throw new UPGDataException(
-                        ErrorCodes.APPLICATION_EXCEPTION);
-            }        
-        }
-        else {
-            LOGGER.error("Unable to obtain the required information on "
-                    + "source holdings for data type [ "
-                    + type.getText()
-                    + " ].  Synchronization operation cannot proceed.");
-            throw new UPGDataException(ErrorCodes.NO_DATA_RETRIEVED);
-        }
-
-        try {
             
-            // Update and store the metrics data.
-            metricsBuilder.failedDownloads(
-                    getAeroDataStoreService().getNumFailedDownloads());
-            metricsBuilder.elapsedTime(System.currentTimeMillis() - startTime);
-            metrics = metricsBuilder.build();
-            LOGGER.info("Synchronization for data type [ "
-                    + type.getText()
-                    + " ] complete.  Metrics => [ "
-                    + metrics.toString()
-                    + " ].");
-            getAeroMetricsService().insert(metrics);
+            ctx.getProgress().setPhase("synchronizing");
+            if ((catalog.getSpool() != null) && 
+                    (ctx.getEngine() == DiffEngine.DATABASE)) {
+                localHoldings = synchronizeDatabase(ctx, catalog);
+            }
+            else if (catalog.getSpool() != null) {
+                localHoldings = synchronizeSorted(ctx, catalog);
+            }
+            else {
+                localHoldings = synchronizeInMemory(ctx, catalog);
+            }
+    
+            ctx.getMetrics().failedDownloads(
+                    ctx.getDataStoreService().getNumFailedDownloads());
+            ctx.getProgress().setPhase("storing metrics");
+            storeMetrics(ctx);
             
+            // Remember the catalog so the next run can be short-circuited 
+            // if nothing changes (never for a partial run).
+            ctx.getProgress().checkCancelled();
+            CatalogState.getInstance().accept(catalog, localHoldings);
         }
-        catch (IllegalStateException ise) {
-            LOGGER.error("Unexpected IllegalStateException raised while "
-                    + "constructing the Metrics object.  Error message [ " 
-                    + ise.getMessage()
-                    + " ].");
+        finally {
+            UnitOfWork.end();
+            deleteSpool(catalog);
         }
     } 
 }
@@ -3,8 +3,13 @@ package mil.nga.aero;
 import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 import javax.ejb.EJB;
+import javax.ejb.NoSuchEJBException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,8 +21,12 @@ import mil.nga.aero.upg.exceptions.ErrorCodes;
 import mil.nga.aero.upg.exceptions.UPGDataException;
 import mil.nga.aero.upg.model.IntermediateUPGData;
 import mil.nga.aero.upg.model.ProductBuilder;
+import mil.nga.aero.upg.model.RetrievedProduct;
+import mil.nga.aero.upg.model.TransferResult;
 import mil.nga.aero.upg.model.UPGData;
+import mil.nga.aero.upg.model.UpsertResult;
 import mil.nga.types.AeroDataType;
+import mil.nga.types.DownloadStatus;
 import mil.nga.types.HashType;
 import mil.nga.util.FileUtils;
 
@@ -52,6 +61,38 @@ public abstract class DataUpdateService
         super(PROPERTIES_FILE);
     }
     
+    /**
+     * Persist the input product with an idempotent upsert.  Because the 
+     * same statement is used for both new and changed products, a product 
+     * that was persisted by a previous (interrupted) run is simply 
+     * overwritten rather than causing a constraint violation.
+     * 
+     * @param data The product to persist.
+     * @param expectExisting True if the product is expected to already 
+     * exist in the local holdings (i.e. it is being updated).
+     * @throws UPGDataException Thrown if the data store cannot be located 
+     * or the record could not be written.
+     */
+    private void persist(UPGData data, boolean expectExisting) 
+            throws UPGDataException {
+        try {
+            UpsertResult result = getAeroDataStore().upsertData(
+                    data, 
+                    expectExisting);
+            if (result.getFailed() > 0) {
+                LOGGER.error("Unable to persist product with UUID [ "
+                        + data.getUUID()
+                        + " ].");
+                throw new UPGDataException(ErrorCodes.DATA_SOURCE_EXCEPTION);
+            }
+        }
+        catch (NoSuchEJBException nsee) {
+            // The cached reference is no longer valid.
+            AeroDataStoreFactory.getInstance().invalidate(getDataType());
+            throw nsee;
+        }
+    }
+    
     /**
      * Simple method to determine whether or not the input file exists.
      * 
@@ -93,6 +134,28 @@ public abstract class DataUpdateService
         return dataService;
     }
     
+    /**
+     * Obtain a reference to the data store associated with the data type.
+     * The reference is cached by the factory so this does not result in a 
+     * JNDI lookup for every product.
+     * 
+     * @return Reference to the data store.
+     * @throws UPGDataException Thrown if the reference could not be 
+     * obtained.
+     */
+    protected AeroDataStoreI getAeroDataStore() throws UPGDataException {
+        AeroDataStoreI dataStore = 
+                AeroDataStoreFactory.getInstance().construct(getDataType());
+        if (dataStore == null) {
+            LOGGER.error("Unable to obtain a reference to the data store "
+                    + "for type [ "
+                    + getDataType().getText()
+                    + " ].");
+            throw new UPGDataException(ErrorCodes.APPLICATION_EXCEPTION);
+        }
+        return dataStore;
+    }
+    
     /**
      * This method calculates the final destination directory where the 
      * updated UPG data record will reside. The temp file will be moved to 
@@ -175,12 +238,17 @@ public abstract class DataUpdateService
             String hash,
             String sourceFile) throws UPGDataException {
         
-        boolean success = false;
+        boolean        success  = false;
+        TransferResult transfer = null;
+        Path           staging  = null;
             
         try {
             
-            String tmpDestination = getTempDestination (
-                    icao, type, filename);
+            // Each download gets its own working directory so concurrent 
+            // downloads cannot interfere with one another.
+            staging = StagingArea.getInstance().allocate(getDataType());
+            String tmpDestination = StagingArea.getInstance().getStagedFile(
+                    staging, filename);
             String finalDestination = getFinalDestinationFilename (
                     icao, type, filename);
             
@@ -192,9 +260,20 @@ public abstract class DataUpdateService
             	try {
             		
 	                // Retrieve the target UPG file from Leidos 
-	                success = getDataService().getProductFile(
+	                // The MD5 hash is calculated while the file is written 
+	                // so the file does not need to be re-read to validate it.
+	                transfer = getDataService().download(
 	                        sourceFile, 
-	                        tmpDestination);
+	                        tmpDestination,
+	                        HashType.MD5,
+	                        getDataType());
+	                success = (transfer != null);
+	                if ((success) && (LOGGER.isDebugEnabled())) {
+	                    LOGGER.debug("Product [ "
+	                            + uuid
+	                            + " ] transferred.  "
+	                            + transfer.toString());
+	                }
                 
             	}
             	catch (UPGDataException ude) { 
@@ -211,10 +290,10 @@ public abstract class DataUpdateService
                 if (success) {
                     
                     // Check to ensure the hashes match.
-                    if (HashGeneratorService.getInstance().checkHash(
-                                tmpDestination,
+                    if (HashGeneratorService.getInstance().compareHash(
+                                transfer.getHash(),
                                 hash,
-                                HashType.MD5)) {
+                                tmpDestination)) {
                         
                         if (LOGGER.isDebugEnabled()) {
                             LOGGER.debug("Successfully downloaded and "
@@ -227,21 +306,30 @@ public abstract class DataUpdateService
                                     + " ].");
                         }
                         
-                        // Move the file from it's temporary location to
-                        // it's final destination.
-                        FileUtils.move(tmpDestination, finalDestination);
-
+                        // Set the permissions before publishing so readers 
+                        // never see the file with the wrong permissions.
                         if (!FileUtils.setPosixFilePermissions(
-                        		finalDestination, 
+                        		tmpDestination, 
                         		DEFAULT_FILE_PERMISSIONS)) {
                         	LOGGER.warn("Unable to set the file permissions "
                         			+ "on target file [ "
-                        			+ finalDestination
+                        			+ tmpDestination
                         			+ " ]");
                         }
                         
-                        // Get rid of the temporary destination directory
-                        removeTempDestination(icao);
+                        // Publish the file by moving it from it's temporary 
+                        // location to it's final destination.  If staged 
+                        // on the same file system this is an atomic rename.
+                        if ((!FileUtils.atomicMove(
+                                tmpDestination, 
+                                finalDestination)) && 
+                                (LOGGER.isDebugEnabled())) {
+                            LOGGER.debug("Atomic move not supported.  File "
+                                    + "[ "
+                                    + finalDestination
+                                    + " ] was copied to it's final "
+                                    + "destination.");
+                        }
                         
                     }
                     else {
@@ -267,13 +355,9 @@ public abstract class DataUpdateService
                                 + " ], SOURCE HASH => [ "
                                 + hash
                                 + " ], expected hash => [ "
-                                + HashGeneratorService.getInstance()
-                                	.getHash(tmpDestination, HashType.MD5)
+                                + transfer.getHash()
                                 + " ].  "
                                 + "REASON: Hash values do not match.");
-                        
-                        // Still need to get rid of the temporary directory.
-                        removeTempDestination(icao);
                     }
                 }
                 else {
@@ -317,45 +401,12 @@ public abstract class DataUpdateService
                     + " ].");
             throw new UPGDataException(ErrorCodes.FILESYSTEM_EXCEPTION);
         }
-        return success;
-    }
-    
-    /**
-     * This method calculates the temporary download location.  Once the file
-     * is downloaded and validated, it will be moved to the final destination 
-     * directory.  This method is used by both the data add and update 
-     * processes.
-     * 
-     * @param data The "raw" UPG data record.
-     * @return The temporary download location for the data.
-     */
-    public String getTempDestination(
-            String icao,
-            String type,
-            String filename) throws IOException {
-        
-        StringBuilder sb = new StringBuilder();
-        
-        sb.append(System.getProperty("java.io.tmpdir"));
-        sb.append(File.separator);
-        sb.append(getDataType().getText());
-        FileUtils.mkdir(sb.toString());
-        sb.append(File.separator);
-        sb.append(icao.trim());
-        FileUtils.mkdir(sb.toString());
-        sb.append(File.separator);
-        sb.append(type.trim());
-        FileUtils.mkdir(sb.toString());
-        sb.append(File.separator);
-        sb.append(filename.trim());
-        
-        if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug("Temporary download location [ "
-                    + sb.toString()
-                    + " ].");
+        finally {
+            // Get rid of this download's working directory (and anything 
+            // left in it).
+            StagingArea.getInstance().release(staging);
         }
-        
-        return sb.toString();
+        return success;
     }
     
     /**
@@ -377,9 +428,14 @@ public abstract class DataUpdateService
             removeFromFilesystem(data); 
 
             // Delete the associated database record.
-            AeroDataStoreI dataStore = 
-                    AeroDataStoreFactory.getInstance().construct(getDataType());
-            dataStore.deleteData(data.getUUID());
+            try {
+                getAeroDataStore().deleteData(data.getUUID());
+            }
+            catch (NoSuchEJBException nsee) {
+                // The cached reference is no longer valid.
+                AeroDataStoreFactory.getInstance().invalidate(getDataType());
+                throw nsee;
+            }
             
         }
         else {
@@ -388,6 +444,73 @@ public abstract class DataUpdateService
         }
     }
     
+    /**
+     * Remove a set of products from the local file system and then delete 
+     * the associated database records in batches.
+     * 
+     * @param data The products to remove.
+     * @return The number of database records deleted.
+     */
+    public int remove(Collection<UPGData> data) throws UPGDataException {
+        
+        int deleted = 0;
+        
+        if ((data != null) && (data.size() > 0)) {
+            
+            List<String> uuids = new ArrayList<String>(data.size());
+            for (UPGData product : data) {
+                if (product != null) {
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("Removing the following product from "
+                                + "the local repository [ "
+                                + product.toString()
+                                + " ].");
+                    }
+                    removeFromFilesystem(product);
+                    uuids.add(product.getUUID());
+                }
+            }
+            
+            // Delete the associated database records.
+            try {
+                deleted = getAeroDataStore().deleteData(uuids);
+            }
+            catch (NoSuchEJBException nsee) {
+                // The cached reference is no longer valid.
+                AeroDataStoreFactory.getInstance().invalidate(getDataType());
+                throw nsee;
+            }
+            
+            if (deleted != uuids.size()) {
+                LOGGER.warn("Expected to delete [ "
+                        + uuids.size()
+                        + " ] database records for type [ "
+                        + getDataType().getText()
+                        + " ] but [ "
+                        + deleted
+                        + " ] were deleted.");
+            }
+        }
+        else {
+            LOGGER.warn("The input list of products to remove was null or "
+                    + "empty.  Nothing to process.");
+        }
+        return deleted;
+    }
+    
+    /**
+     * Determine whether the source last modified timestamp is newer than 
+     * the local one.  A missing local timestamp (<code>NO_DATE</code>) is 
+     * always considered out of date.
+     * 
+     * @param source The last modified time of the source holdings.
+     * @param local The last modified time of the local holdings.
+     * @return True if the source timestamp is newer.
+     */
+    private boolean isNewer(long source, long local) {
+        return (source != UPGData.NO_DATE) && (source > local);
+    }
+    
     /**
      * Method to determine whether or not the local holdings need to be
      * updated with the source holdings.
@@ -462,9 +585,14 @@ public abstract class DataUpdateService
             }
             
             // If the last modified date of the source holdings is newer
-            // than the local holdings the data should be updated.
-            else if (intermediate.getDateLastModified()
-                    .after(localHoldings.getDateLastModified())) {
+            // than the local holdings the data should be updated.  The 
+            // comparison is made on the full timestamp (the local value 
+            // is round-tripped through the store at second precision) so 
+            // that products modified at any time other than midnight are 
+            // not re-downloaded on every run.
+            else if (isNewer(
+                    intermediate.getDateLastModifiedMillis(), 
+                    localHoldings.getDateLastModifiedMillis())) {
                 
                 if (LOGGER.isDebugEnabled()) {
                     LOGGER.debug("Source holdings for data type [ "
@@ -495,34 +623,6 @@ public abstract class DataUpdateService
         return update;
     }
     
-    /**
-     * This method calculates the temporary download location.  Once the file
-     * is downloaded and validated, it will be moved to the final destination 
-     * directory.
-     * 
-     * @param type The aero data type
-     * @param icao The ICAO associated with the target file.
-     * @return The temporary download location for the data.
-     */
-    public void removeTempDestination(String icao) throws IOException {
-        
-        StringBuilder sb = new StringBuilder();
-        
-        sb.append(System.getProperty("java.io.tmpdir"));
-        sb.append(File.separator);
-        sb.append(getDataType().getText());
-        sb.append(File.separator);
-        sb.append(icao.trim());
-        
-        if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug("Removing temporary download location [ "
-                    + sb.toString()
-                    + " ].");
-        }
-
-        FileUtils.delete(sb.toString());
-    }
-    
     /**
      * Remove a given product from the file system.
      * 
@@ -581,57 +681,193 @@ public abstract class DataUpdateService
      * file system.  
      * 
      * @param product The product to add to the file system.
+     * @return The outcome of the product download.
      * @throws UPGDataException Thrown if exceptions are encountered while 
      * adding the target product to the file system.
      */
-    public void add(IntermediateUPGData product) throws UPGDataException {
+    public DownloadStatus add(IntermediateUPGData product) 
+            throws UPGDataException {
+        
+        DownloadStatus status = DownloadStatus.FAILED;
         
         if (product != null)  { 
-            
             LOGGER.info("Adding [ "
                     + product.getUUID()
                     + " ] UUID of type [ "
                     + getDataType().getText()
                     + " ] to local holdings.");
+        }
+        RetrievedProduct retrieved = retrieve(product, null, false);
+        if (retrieved != null) {
             
-            UPGData finalData = 
-                    (new ProductBuilder(getDataType())).build(product);
-            
-            // Retrieve the product from the source.
-            if (getProduct(
-                    finalData.getUUID(), 
-                    finalData.getICAO(),
-                    finalData.getType(),
-                    finalData.getFilename(),
-                    product.getHash(),
-                    product.getLink())) { 
-                
-                finalData.setDownloadSuccess(1);
-            }
-            else {
-                
-                // Setting the download flag to zero will result in a retry on 
-                // the next product update iteration.
-                LOGGER.warn("Product download failed.  Setting download flag "
-                        + "to [ 0 ] for UUID [ "
-                        + finalData.getUUID()
-                        + " ].");
-                finalData.setDownloadSuccess(0);
-            }
-
             // Persist the new information
-            AeroDataStoreI dataStore = 
-                    AeroDataStoreFactory.getInstance().construct(getDataType());
-            dataStore.insertData(finalData);    
-            
+            persist(retrieved.getData(), false);
+            status = retrieved.getStatus();
         }
-        else {
-            
+        return status;
+    }
+    
+    /**
+     * Re-attempt the download of a product that previously failed using 
+     * the source link and hash held in its local holdings record (i.e. 
+     * without the source catalog).  Used by the retry lane.  If the 
+     * download succeeds the download failed flag of the record is cleared.
+     * 
+     * @param failed The local holdings record of the failed product.
+     * @return The outcome of the retry.  FAILED is returned without 
+     * attempting the download if the record does not hold the source link 
+     * and hash required to validate it, in which case the product is left 
+     * for the next full synchronization.
+     * @throws UPGDataException Thrown if exceptions are encountered while 
+     * adding the target product to the file system, or if the record 
+     * cannot be updated (the retry lane then counts the retry as failed).
+     */
+    public DownloadStatus retry(UPGData failed) throws UPGDataException {
+        
+        DownloadStatus status = DownloadStatus.FAILED;
+        
+        if (failed == null) {
+            LOGGER.warn("Input product object for type [ "
+                    + getDataType().getText()
+                    + " ] is null.  No action taken.");
+            return status;
+        }
+        if (!isRetryable(failed)) {
+            LOGGER.warn("Local holdings record for UUID [ "
+                    + failed.getUUID()
+                    + " ] does not contain the source link and hash.  "
+                    + "Download will be re-tried by the next full "
+                    + "synchronization.");
+            return status;
+        }
+        
+        LOGGER.info("Retrying download of [ "
+                + failed.getUUID()
+                + " ] UUID of type [ "
+                + getDataType().getText()
+                + " ].");
+        if (getProduct(
+                failed.getUUID(), 
+                failed.getICAO(),
+                failed.getType(),
+                failed.getFilename(),
+                failed.getHash(),
+                failed.getSourceLink())) {
+            failed.setDownloadSuccess(1);
+            persist(failed, true);
+            status = DownloadStatus.SUCCESS;
+        }
+        return status;
+    }
+    
+    /**
+     * Determine whether a failed product can be re-tried from its local 
+     * holdings record alone.  The UPG holdings do not store the source 
+     * hash, so UPG products can only be re-tried by a full 
+     * synchronization.
+     * 
+     * @param failed The local holdings record of the failed product.
+     * @return True if the record holds the source link and hash.
+     */
+    public boolean isRetryable(UPGData failed) {
+        return (failed != null) && 
+                (failed.getSourceLink() != null) && 
+                (!failed.getSourceLink().trim().isEmpty()) && 
+                (failed.getHash() != null) && 
+                (!failed.getHash().trim().isEmpty());
+    }
+    
+    /**
+     * Retrieve the product from the source holdings without persisting 
+     * the result.  Used by the synchronization pipeline, which writes the 
+     * retrieved products to the data store in batches.  If a local 
+     * holdings record is supplied the product is treated as an update 
+     * (i.e. only the metadata is refreshed if the content is unchanged).
+     * 
+     * @param product The product to retrieve.
+     * @param localHolding The current local holdings record for the product
+     * (null if the product is new).
+     * @return The record to persist and the outcome of the retrieval, or 
+     * null if the input product was null.
+     * @throws UPGDataException Thrown if exceptions are encountered while 
+     * adding the target product to the file system.
+     */
+    public RetrievedProduct retrieve(
+            IntermediateUPGData product, 
+            UPGData             localHolding) throws UPGDataException {
+        return retrieve(product, localHolding, (localHolding != null));
+    }
+    
+    /**
+     * Retrieve the product from the source holdings and build the record 
+     * that will be persisted.  The download success flag of the record 
+     * reflects the outcome of the retrieval.
+     * 
+     * @param product The product to retrieve.
+     * @param localHolding The current local holdings record for the product
+     * (may be null).
+     * @param update True if the product already exists, in which case the 
+     * download is skipped if the content on disk is unchanged.
+     * @return The record to persist and the outcome of the retrieval, or 
+     * null if the input product was null.
+     * @throws UPGDataException Thrown if exceptions are encountered while 
+     * adding the target product to the file system.
+     */
+    private RetrievedProduct retrieve(
+            IntermediateUPGData product, 
+            UPGData             localHolding,
+            boolean             update) throws UPGDataException {
+        
+        DownloadStatus status = DownloadStatus.FAILED;
+        
+        if (product == null) {
             LOGGER.warn("Input product object for type [ "
                     + getDataType().getText()
                     + " ] is null.  No action taken.");
+            return null;
+        }
+        
+        UPGData finalData = 
+                (new ProductBuilder(getDataType())).build(product);
+        
+        if (update && isContentUnchanged(
+                product.getHash(), 
+                finalData, 
+                localHolding)) {
+            
+            LOGGER.info("Content of UUID [ "
+                    + finalData.getUUID()
+                    + " ] is unchanged.  Updating metadata only.");
+            finalData.setDownloadSuccess(1);
+            status = DownloadStatus.METADATA_ONLY;
+        }
+        
+        // Retrieve the product from the source.
+        else if (getProduct(
+                finalData.getUUID(), 
+                finalData.getICAO(),
+                finalData.getType(),
+                finalData.getFilename(),
+                product.getHash(),
+                product.getLink())) { 
+            finalData.setDownloadSuccess(1);
+            status = DownloadStatus.SUCCESS;
+        }
+        else {
             
+            // Setting the download flag to zero will result in a retry on 
+            // the next product update iteration.
+            LOGGER.warn("Product download failed.  Setting download flag "
+                    + "to [ 0 ] for UUID [ "
+                    + finalData.getUUID()
+                    + " ].");
+            finalData.setDownloadSuccess(0);
         }
+        return new RetrievedProduct.RetrievedProductBuilder()
+                .data(finalData)
+                .status(status)
+                .existing(update)
+                .build();
     }
     
     /**
@@ -652,51 +888,115 @@ public abstract class DataUpdateService
      */
     public abstract AeroDataType getDataType();
     
+    /**
+     * Determine whether the content of the source product is identical to
+     * the file already held on disk.  If the local holdings record carries 
+     * a hash (i.e. JEPP data) and refers to the same file, the stored hash 
+     * is trusted.  Otherwise the hash of the on-disk file is calculated, 
+     * which is still considerably cheaper than downloading the product.
+     * 
+     * @param sourceHash The hash supplied by the source holdings.
+     * @param finalData The product as it will be stored locally.
+     * @param localHolding The current local holdings record (may be null).
+     * @return True if the file on disk matches the source content.
+     */
+    private boolean isContentUnchanged(
+            String  sourceHash,
+            UPGData finalData, 
+            UPGData localHolding) {
+        
+        boolean unchanged = false;
+        
+        if ((sourceHash == null) || (sourceHash.isEmpty())) {
+            return false;
+        }
+        try {
+            String destination = getFinalDestinationFilename(
+                    finalData.getICAO(), 
+                    finalData.getType(), 
+                    finalData.getFilename());
+            
+            if (fileExists(destination)) {
+                if ((localHolding != null) && 
+                        (localHolding.getDownloadSuccess() == 1) && 
+                        (localHolding.getHash() != null) && 
+                        (!localHolding.getHash().isEmpty()) && 
+                        (destination.equals(getFinalDestinationFilename(
+                                localHolding.getICAO(), 
+                                localHolding.getType(), 
+                                localHolding.getFilename())))) {
+                    unchanged = sourceHash.trim().equalsIgnoreCase(
+                            localHolding.getHash().trim());
+                }
+                else {
+                    unchanged = HashGeneratorService.getInstance().compareHash(
+                            HashGeneratorService.getInstance().getHash(
+                                    destination, 
+                                    HashType.MD5), 
+                            sourceHash, 
+                            destination);
+                }
+            }
+        }
+        catch (IOException ioe) {
+            LOGGER.warn("Unexpected IOException raised while checking the "
+                    + "local content for UUID [ "
+                    + finalData.getUUID()
+                    + " ].  Product will be downloaded.  Error message [ "
+                    + ioe.getMessage()
+                    + " ].");
+            unchanged = false;
+        }
+        catch (UPGDataException ude) {
+            LOGGER.warn("Unable to determine the on-disk location for UUID [ "
+                    + finalData.getUUID()
+                    + " ].  Product will be downloaded.  Error code [ "
+                    + ude.getErrorCode()
+                    + " ].");
+            unchanged = false;
+        }
+        return unchanged;
+    }
+    
     /**
      * Update the product that already exists on the local system.  
      * 
      * @param product The product to add to the file system.
+     * @return The outcome of the product download.
      * @throws UPGDataException Thrown if exceptions are encountered while 
      * adding the target product to the file system.
      */
-    public void update(IntermediateUPGData product) 
+    public DownloadStatus update(IntermediateUPGData product) 
             throws UPGDataException {
+        return update(product, null);
+    }
+    
+    /**
+     * Update the product that already exists on the local system.  If the 
+     * source hash matches the content already on disk the product is not 
+     * downloaded and only the metadata (date, pseudonym, links, etc.) is 
+     * updated.
+     * 
+     * @param product The product to add to the file system.
+     * @param localHolding The current local holdings record for the product
+     * (may be null).
+     * @return The outcome of the product update.
+     * @throws UPGDataException Thrown if exceptions are encountered while 
+     * adding the target product to the file system.
+     */
+    public DownloadStatus update(
+            IntermediateUPGData product, 
+            UPGData             localHolding) throws UPGDataException {
         
-        if (product != null) {
+        DownloadStatus   status    = DownloadStatus.FAILED;
+        RetrievedProduct retrieved = retrieve(product, localHolding, true);
         
-            UPGData finalData = 
-                    (new ProductBuilder(getDataType())).build(product);
+        if (retrieved != null) {
             
-            // Retrieve the product from the source.
-            if (getProduct(
-                    finalData.getUUID(), 
-                    finalData.getICAO(),
-                    finalData.getType(),
-                    finalData.getFilename(),
-                    product.getHash(),
-                    product.getLink())) { 
-                finalData.setDownloadSuccess(1);
-            }
-            else {
-                
-                // Setting the download flag to zero will result in a retry on 
-                // the next product update iteration.
-                LOGGER.warn("Product download failed.  Setting download flag "
-                        + "to [ 0 ] for UUID [ "
-                        + finalData.getUUID()
-                        + " ].");
-                finalData.setDownloadSuccess(0);
-            }
-
             // Persist the new information
-            AeroDataStoreI dataStore = 
-                    AeroDataStoreFactory.getInstance().construct(getDataType());
-            dataStore.updateData(finalData);
-        }
-        else {
-            LOGGER.warn("Input product object for type [ "
-                    + getDataType().getText()
-                    + " ] is null.  No action taken.");
+            persist(retrieved.getData(), true);
+            status = retrieved.getStatus();
         }
+        return status;
     }
 }
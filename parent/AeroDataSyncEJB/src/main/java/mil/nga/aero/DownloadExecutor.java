@@ -0,0 +1,364 @@
+package mil.nga.aero;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.types.DownloadStatus;
+
+/**
+ * Bounded engine used to fan product downloads out to a fixed number of
+ * concurrent workers.  Back-pressure is applied to the submitting thread
+ * so that no more than the configured number of products are in flight
+ * at any one time, and completed tasks are harvested as new ones are
+ * submitted so results do not accumulate for the entire run.
+ *
+ * If no executor is available (or the configured concurrency is 1) the
+ * tasks are simply executed on the calling thread.
+ *
+ * The JDBC counters bound to the constructing thread (see
+ * <code>UnitOfWork.bind()</code>) are bound to the worker threads while
+ * they run the tasks, so the JDBC activity of the downloads is recorded
+ * against the synchronization run that submitted them.
+ *
+ * Note: Instances of this class are intended to be used by a single
+ * submitting thread (i.e. the thread running the synchronization).
+ *
+ * @author L. Craig Carpenter
+ */
+public class DownloadExecutor {
+
+    /**
+     * Set up the LogBack system for use throughout the class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+            DownloadExecutor.class);
+
+    /**
+     * Completion service wrapping the container-managed executor.  This
+     * will be null if the tasks are to be executed serially.
+     */
+    private final CompletionService<DownloadStatus> completionService;
+
+    /**
+     * Permits limiting the number of tasks in flight.
+     */
+    private final Semaphore permits;
+
+    /**
+     * The maximum number of concurrent tasks.
+     */
+    private final int threads;
+
+    /**
+     * Number of submitted tasks that have not yet been harvested.
+     */
+    private int outstanding = 0;
+
+    /**
+     * Number of products successfully downloaded.
+     */
+    private long succeeded = 0;
+
+    /**
+     * Number of products whose content was unchanged and therefore only 
+     * required a metadata update.
+     */
+    private long metadataOnly = 0;
+
+    /**
+     * Number of products that failed to download.
+     */
+    private long failed = 0;
+
+    /**
+     * Number of tasks that raised an exception.
+     */
+    private long errors = 0;
+
+    /**
+     * Number of tasks not started because the run was cancelled.
+     */
+    private long cancelled = 0;
+
+    /**
+     * Progress of the synchronization run (may be null).
+     */
+    private final SyncProgress progress;
+
+    /**
+     * JDBC counters of the synchronization run (may be null).
+     */
+    private final UnitOfWork.Counters counters;
+
+    /**
+     * Constructor used to set the executor and the maximum number of
+     * concurrent tasks.
+     *
+     * @param executor The executor service that will run the tasks (may be
+     * null).
+     * @param threads The maximum number of concurrent tasks.
+     */
+    public DownloadExecutor(ExecutorService executor, int threads) {
+        this(executor, threads, null);
+    }
+
+    /**
+     * Constructor used to set the executor, the maximum number of
+     * concurrent tasks and the progress of the synchronization run.  The
+     * outcome of each task is recorded against the progress, and no new
+     * tasks are started once the run has been cancelled.
+     *
+     * @param executor The executor service that will run the tasks (may be
+     * null).
+     * @param threads The maximum number of concurrent tasks.
+     * @param progress The progress of the synchronization run (may be
+     * null).
+     */
+    public DownloadExecutor(
+            ExecutorService executor,
+            int             threads,
+            SyncProgress    progress) {
+        this.progress = progress;
+        this.counters = UnitOfWork.getCounters();
+        this.threads = Math.max(1, threads);
+        this.permits = new Semaphore(this.threads);
+        if ((executor != null) && (this.threads > 1)) {
+            completionService =
+                    new ExecutorCompletionService<DownloadStatus>(executor);
+        }
+        else {
+            completionService = null;
+        }
+    }
+
+    /**
+     * Submit a task for execution.  If the maximum number of tasks are
+     * already in flight this method will block until one completes.  Tasks
+     * submitted after the run has been cancelled are discarded.
+     *
+     * @param task The task to execute.
+     * @throws InterruptedException Thrown if the submitting thread is
+     * interrupted while waiting for a free worker.
+     */
+    public void submit(final Callable<DownloadStatus> task)
+            throws InterruptedException {
+
+        if ((progress != null) && (progress.isCancelled())) {
+            cancelled++;
+            return;
+        }
+        if (completionService == null) {
+            record(runInline(task));
+        }
+        else {
+            permits.acquire();
+            try {
+                completionService.submit(new Callable<DownloadStatus>() {
+                    @Override
+                    public DownloadStatus call() throws Exception {
+                        UnitOfWork.Counters previous = 
+                                UnitOfWork.bind(counters);
+                        try {
+                            return task.call();
+                        }
+                        finally {
+                            UnitOfWork.bind(previous);
+                            permits.release();
+                        }
+                    }
+                });
+                outstanding++;
+            }
+            catch (RejectedExecutionException ree) {
+                permits.release();
+                LOGGER.warn("Executor rejected the download task.  Task "
+                        + "will be executed on the calling thread.");
+                record(runInline(task));
+            }
+            harvest();
+        }
+    }
+
+    /**
+     * Block until all submitted tasks have completed.
+     *
+     * @throws InterruptedException Thrown if the calling thread is
+     * interrupted while waiting for the tasks to complete.
+     */
+    public void awaitCompletion() throws InterruptedException {
+        if (completionService != null) {
+            while (outstanding > 0) {
+                collect(completionService.take());
+            }
+        }
+    }
+
+    /**
+     * Collect the results of any tasks that have already completed without
+     * blocking.
+     */
+    private void harvest() {
+        Future<DownloadStatus> future = null;
+        while ((future = completionService.poll()) != null) {
+            collect(future);
+        }
+    }
+
+    /**
+     * Record the result of a completed task.
+     *
+     * @param future The completed task.
+     */
+    private void collect(Future<DownloadStatus> future) {
+        outstanding--;
+        try {
+            record(future.get());
+        }
+        catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            errors++;
+        }
+        catch (ExecutionException ee) {
+            LOGGER.error("Unexpected exception raised by download task.  "
+                    + "Exception message [ "
+                    + (ee.getCause() != null ?
+                            ee.getCause().getMessage() : ee.getMessage())
+                    + " ].");
+            errors++;
+        }
+    }
+
+    /**
+     * Execute the task on the calling thread.
+     *
+     * @param task The task to execute.
+     * @return The outcome of the task, or null if the task raised an
+     * exception.
+     */
+    private DownloadStatus runInline(Callable<DownloadStatus> task) {
+        DownloadStatus status = null;
+        try {
+            status = task.call();
+        }
+        catch (Exception e) {
+            LOGGER.error("Unexpected exception raised by download task.  "
+                    + "Exception message [ "
+                    + e.getMessage()
+                    + " ].");
+        }
+        return status;
+    }
+
+    /**
+     * Update the counters with the outcome of a single task.
+     *
+     * @param status The outcome of the task.
+     */
+    private void record(DownloadStatus status) {
+        if (progress != null) {
+            progress.record(status);
+        }
+        if (status == null) {
+            errors++;
+        }
+        else if (status == DownloadStatus.SUCCESS) {
+            succeeded++;
+        }
+        else if (status == DownloadStatus.METADATA_ONLY) {
+            metadataOnly++;
+        }
+        else {
+            failed++;
+        }
+    }
+
+    /**
+     * Getter method for the number of tasks not started because the run
+     * was cancelled.
+     * @return The number of cancelled tasks.
+     */
+    public long getCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Getter method for the number of tasks that raised an exception.
+     * @return The number of tasks that raised an exception.
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Getter method for the number of failed downloads.
+     * @return The number of products that failed to download.
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Getter method for the number of metadata-only updates.
+     * @return The number of products that did not need to be downloaded.
+     */
+    public long getMetadataOnly() {
+        return metadataOnly;
+    }
+
+    /**
+     * Getter method for the number of successful downloads.
+     * @return The number of products successfully downloaded.
+     */
+    public long getSucceeded() {
+        return succeeded;
+    }
+
+    /**
+     * Getter method for the number of tasks currently executing (or 
+     * waiting for a worker thread).
+     * @return The number of tasks in flight.
+     */
+    public int getInFlight() {
+        return (completionService == null ? 0 : 
+                threads - permits.availablePermits());
+    }
+
+    /**
+     * Getter method for the maximum number of concurrent tasks.
+     * @return The maximum number of concurrent tasks.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Convert to a human-readable String.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("DownloadExecutor : Threads => [ ");
+        sb.append(getThreads());
+        sb.append(" ], Succeeded => [ ");
+        sb.append(getSucceeded());
+        sb.append(" ], Metadata Only => [ ");
+        sb.append(getMetadataOnly());
+        sb.append(" ], Failed => [ ");
+        sb.append(getFailed());
+        sb.append(" ], Errors => [ ");
+        sb.append(getErrors());
+        sb.append(" ], Cancelled => [ ");
+        sb.append(getCancelled());
+        sb.append(" ].");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,280 @@
+package mil.nga.aero;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.codec.binary.Hex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.PropertyLoader;
+import mil.nga.aero.interfaces.AeroDataConstants;
+import mil.nga.aero.upg.model.TransferResult;
+import mil.nga.types.HashType;
+
+/**
+ * Class following the Singleton creation pattern responsible for writing
+ * the contents of a downloaded product to the local file system.  The
+ * content is read from the HTTP stream in bulk into a pooled heap buffer
+ * and written to the target file through a <code>FileChannel</code>,
+ * rather than the byte-at-a-time copy previously used.  A hash of the 
+ * content can be calculated in the same pass so downloaded files do not 
+ * need to be re-read in order to validate them.
+ *
+ * Heap buffers are used deliberately.  The HTTP stream and the
+ * <code>MessageDigest</code> both operate on byte arrays, so a direct
+ * buffer would add a copy in each direction (and wrapping the stream in
+ * a channel limits each read to 8 KB regardless of the buffer size).
+ *
+ * The buffer size and the number of idle buffers retained are
+ * configurable through the following properties:
+ * <ul>
+ * <li>download.buffer.size</li>
+ * <li>download.buffer.pool.size</li>
+ * </ul>
+ *
+ * @author L. Craig Carpenter
+ */
+public class DownloadSink
+        extends PropertyLoader
+        implements AeroDataConstants {
+
+    /**
+     * Set up the LogBack system for use throughout the class
+     */
+    static final Logger LOGGER = LoggerFactory.getLogger(
+            DownloadSink.class);
+
+    /**
+     * Idle buffers available for re-use.
+     */
+    private final ConcurrentLinkedQueue<byte[]> pool =
+            new ConcurrentLinkedQueue<byte[]>();
+
+    /**
+     * Number of buffers currently held in the pool.
+     */
+    private final AtomicInteger pooled = new AtomicInteger(0);
+
+    /**
+     * The size of each buffer.
+     */
+    private final int bufferSize;
+
+    /**
+     * The maximum number of idle buffers retained in the pool.
+     */
+    private final int maxPooled;
+
+    /**
+     * Private constructor enforcing the singleton design pattern.
+     */
+    private DownloadSink() {
+        super(PROPERTIES_FILE);
+        bufferSize = Math.max(1024, getIntProperty(
+                DOWNLOAD_BUFFER_SIZE,
+                DEFAULT_DOWNLOAD_BUFFER_SIZE));
+        maxPooled  = Math.max(0, getIntProperty(
+                DOWNLOAD_BUFFER_POOL_SIZE,
+                DEFAULT_DOWNLOAD_BUFFER_POOL_SIZE));
+        LOGGER.info("Download sink initialized.  Buffer size [ "
+                + bufferSize
+                + " ] bytes, max pooled buffers [ "
+                + maxPooled
+                + " ].");
+    }
+
+    /**
+     * Obtain a buffer from the pool, allocating a new one if the pool is
+     * empty.
+     *
+     * @return A buffer.
+     */
+    private byte[] acquire() {
+        byte[] buffer = pool.poll();
+        if (buffer != null) {
+            pooled.decrementAndGet();
+        }
+        else {
+            buffer = new byte[bufferSize];
+        }
+        return buffer;
+    }
+
+    /**
+     * Return a buffer to the pool.  If the pool is already full the
+     * buffer is simply discarded.
+     *
+     * @param buffer The buffer to return.
+     */
+    private void release(byte[] buffer) {
+        if (buffer != null) {
+            if (pooled.incrementAndGet() <= maxPooled) {
+                pool.offer(buffer);
+            }
+            else {
+                pooled.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Copy the entire contents of the input stream to the target file.
+     * The target file is created if it does not exist and truncated if it
+     * does.  The caller is responsible for closing the input stream.
+     *
+     * @param input The stream containing the product data.
+     * @param destination The on-disk location of the target file.
+     * @return Statistics associated with the transfer.
+     * @throws IOException Thrown if there are errors reading from the
+     * input stream or writing to the target file.
+     */
+    public TransferResult transfer(InputStream input, String destination)
+            throws IOException {
+        return transfer(input, destination, null);
+    }
+
+    /**
+     * Copy the entire contents of the input stream to the target file,
+     * calculating the requested hash over the bytes as they are written.
+     * The hash is therefore available as soon as the transfer completes
+     * without having to re-read the file from disk.  The target file is
+     * created if it does not exist and truncated if it does.  The caller
+     * is responsible for closing the input stream.
+     *
+     * @param input The stream containing the product data.
+     * @param destination The on-disk location of the target file.
+     * @param hashType The type of hash to calculate (may be null in which
+     * case no hash is calculated).
+     * @return Statistics associated with the transfer.
+     * @throws IOException Thrown if there are errors reading from the
+     * input stream or writing to the target file.
+     */
+    public TransferResult transfer(
+            InputStream input,
+            String destination,
+            HashType hashType) throws IOException {
+        return transfer(input, destination, hashType, null);
+    }
+
+    /**
+     * Copy the entire contents of the input stream to the target file
+     * (see <code>transfer(InputStream, String, HashType)</code>), reporting
+     * each read to the supplied bandwidth limiter so that the aggregate
+     * download rate of the data type stays within its configured limit.
+     *
+     * @param input The stream containing the product data.
+     * @param destination The on-disk location of the target file.
+     * @param hashType The type of hash to calculate (may be null in which
+     * case no hash is calculated).
+     * @param limiter The bandwidth limiter (may be null in which case the
+     * transfer is not throttled).
+     * @return Statistics associated with the transfer.
+     * @throws IOException Thrown if there are errors reading from the
+     * input stream or writing to the target file, or if the calling
+     * thread is interrupted while throttled.
+     */
+    public TransferResult transfer(
+            InputStream input,
+            String destination,
+            HashType hashType,
+            BandwidthLimiter limiter) throws IOException {
+
+        FileChannel   target = null;
+        byte[]        buffer = acquire();
+        MessageDigest digest = null;
+        long          bytes  = 0;
+        long          start  = System.currentTimeMillis();
+
+        if (hashType != null) {
+            digest = HashGeneratorService.getInstance()
+                    .getMessageDigest(hashType);
+        }
+
+        try {
+            target = FileChannel.open(
+                    Paths.get(destination),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                if (limiter != null) {
+                    try {
+                        limiter.acquire(read);
+                    }
+                    catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted while "
+                                + "throttling the transfer to [ "
+                                + destination
+                                + " ].");
+                    }
+                }
+                if (digest != null) {
+                    digest.update(buffer, 0, read);
+                }
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                while (chunk.hasRemaining()) {
+                    bytes += target.write(chunk);
+                }
+            }
+        }
+        finally {
+            if (target != null) {
+                try { target.close(); } catch (Exception e) {}
+            }
+            release(buffer);
+        }
+
+        TransferResult result = new TransferResult.TransferResultBuilder()
+                .destination(destination)
+                .bytes(bytes)
+                .elapsedTime(System.currentTimeMillis() - start)
+                .hash(digest == null ? null : Hex.encodeHexString(digest.digest()))
+                .build();
+        return result;
+    }
+
+    /**
+     * Accessor method for the singleton instance of the DownloadSink
+     * class.
+     *
+     * @return The singleton instance of the DownloadSink class.
+     */
+    public static DownloadSink getInstance() {
+        return DownloadSinkHolder.getSingleton();
+    }
+
+    /**
+     * Static inner class used to construct the Singleton object.  This class
+     * exploits the fact that classes are not loaded until they are referenced
+     * therefore enforcing thread safety without the performance hit imposed
+     * by the <code>synchronized</code> keyword.
+     *
+     * @author L. Craig Carpenter
+     */
+    public static class DownloadSinkHolder {
+
+        /**
+         * Reference to the Singleton instance of the DownloadSink
+         */
+        private static DownloadSink _instance = new DownloadSink();
+
+        /**
+         * Accessor method for the singleton instance of the DownloadSink.
+         * @return The Singleton instance of the DownloadSink.
+         */
+        public static DownloadSink getSingleton() {
+            return _instance;
+        }
+
+    }
+}
@@ -0,0 +1,220 @@
+package mil.nga.aero;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.types.AeroDataType;
+
+/**
+ * Class following the Singleton creation pattern that caches the EJB
+ * proxies resolved by the factory classes.  Previously every call to a
+ * factory <code>construct()</code> method (i.e. once for every product
+ * processed) resulted in a JNDI lookup.  With this cache in place the
+ * lookup happens once per deployment for each combination of data type
+ * and interface.
+ *
+ * Lookups that fail (i.e. return null) are never cached, and clients that
+ * find a cached proxy to be unusable can remove it with
+ * <code>invalidate()</code> so that it is resolved again on the next call.
+ *
+ * @author L. Craig Carpenter
+ */
+public class EJBReferenceCache {
+
+    /**
+     * Set up the LogBack system for use throughout the class
+     */
+    static final Logger LOGGER = LoggerFactory.getLogger(
+            EJBReferenceCache.class);
+
+    /**
+     * The cached proxies keyed by data type and interface.
+     */
+    private final ConcurrentMap<String, Object> cache =
+            new ConcurrentHashMap<String, Object>();
+
+    /**
+     * Number of requests satisfied from the cache.
+     */
+    private final AtomicLong hits = new AtomicLong(0);
+
+    /**
+     * Number of requests that required a JNDI lookup.
+     */
+    private final AtomicLong misses = new AtomicLong(0);
+
+    /**
+     * Number of JNDI lookups that failed to return a reference.
+     */
+    private final AtomicLong failures = new AtomicLong(0);
+
+    /**
+     * Private constructor enforcing the singleton design pattern.
+     */
+    private EJBReferenceCache() { }
+
+    /**
+     * Callback used to resolve an EJB reference on a cache miss.
+     *
+     * @param <T> The interface type of the EJB.
+     */
+    public interface Resolver<T> {
+
+        /**
+         * Resolve the EJB reference (typically via JNDI).
+         *
+         * @return The EJB reference, or null if it could not be resolved.
+         */
+        public T resolve();
+    }
+
+    /**
+     * Construct the cache key for the input data type and interface.
+     *
+     * @param type The aero data type.
+     * @param interfaceClazz The EJB interface.
+     * @return The cache key.
+     */
+    private String getKey(AeroDataType type, Class<?> interfaceClazz) {
+        return type.getText() + "!" + interfaceClazz.getName();
+    }
+
+    /**
+     * Retrieve the EJB reference for the input data type and interface,
+     * resolving (and caching) it if it has not previously been resolved.
+     *
+     * @param type The aero data type.
+     * @param interfaceClazz The EJB interface.
+     * @param resolver Callback used to resolve the reference on a miss.
+     * @return The EJB reference, or null if it could not be resolved.
+     */
+    public <T> T get(
+            AeroDataType type,
+            Class<T> interfaceClazz,
+            Resolver<T> resolver) {
+
+        String key = getKey(type, interfaceClazz);
+        Object ejb = cache.get(key);
+
+        if (ejb != null) {
+            hits.incrementAndGet();
+        }
+        else {
+            misses.incrementAndGet();
+            ejb = resolver.resolve();
+            if (ejb != null) {
+                cache.put(key, ejb);
+                LOGGER.info("Cached EJB reference for [ "
+                        + key
+                        + " ].");
+            }
+            else {
+                failures.incrementAndGet();
+                invalidate(type, interfaceClazz);
+            }
+        }
+        return interfaceClazz.cast(ejb);
+    }
+
+    /**
+     * Remove the cached reference for the input data type and interface.
+     *
+     * @param type The aero data type.
+     * @param interfaceClazz The EJB interface.
+     */
+    public void invalidate(AeroDataType type, Class<?> interfaceClazz) {
+        if (cache.remove(getKey(type, interfaceClazz)) != null) {
+            LOGGER.warn("Invalidated cached EJB reference for [ "
+                    + getKey(type, interfaceClazz)
+                    + " ].");
+        }
+    }
+
+    /**
+     * Remove all cached references.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Getter method for the number of failed lookups.
+     * @return The number of lookups that failed.
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * Getter method for the number of cache hits.
+     * @return The number of requests satisfied from the cache.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Getter method for the number of cache misses.
+     * @return The number of requests that required a JNDI lookup.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Convert to a human-readable String.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("EJB reference cache : Cached => [ ");
+        sb.append(cache.size());
+        sb.append(" ], Hits => [ ");
+        sb.append(getHits());
+        sb.append(" ], Misses => [ ");
+        sb.append(getMisses());
+        sb.append(" ], Failures => [ ");
+        sb.append(getFailures());
+        sb.append(" ].");
+        return sb.toString();
+    }
+
+    /**
+     * Accessor method for the singleton instance of the EJBReferenceCache
+     * class.
+     *
+     * @return The singleton instance of the EJBReferenceCache class.
+     */
+    public static EJBReferenceCache getInstance() {
+        return EJBReferenceCacheHolder.getSingleton();
+    }
+
+    /**
+     * Static inner class used to construct the Singleton object.  This class
+     * exploits the fact that classes are not loaded until they are referenced
+     * therefore enforcing thread safety without the performance hit imposed
+     * by the <code>synchronized</code> keyword.
+     *
+     * @author L. Craig Carpenter
+     */
+    public static class EJBReferenceCacheHolder {
+
+        /**
+         * Reference to the Singleton instance of the EJBReferenceCache
+         */
+        private static EJBReferenceCache _instance = new EJBReferenceCache();
+
+        /**
+         * Accessor method for the singleton instance of the EJBReferenceCache.
+         * @return The Singleton instance of the EJBReferenceCache.
+         */
+        public static EJBReferenceCache getSingleton() {
+            return _instance;
+        }
+
+    }
+}
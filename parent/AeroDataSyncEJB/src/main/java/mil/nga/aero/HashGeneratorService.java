@@ -5,9 +5,12 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.security.MessageDigest;
 
 import mil.nga.types.HashType;
 
+import org.apache.commons.codec.digest.DigestUtils;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,9 +48,22 @@ public class HashGeneratorService {
      * @return True if the hashes match, false otherwise.
      */
     public boolean checkHash(String file, String hash, HashType hashType) {
+        return compareHash(getHash(file, HashType.MD5), hash, file);
+    }
+    
+    /**
+     * Compare a hash that has already been calculated (e.g. while the file 
+     * was being downloaded) against the known hash.  This avoids re-reading
+     * the file from disk.
+     * 
+     * @param newHash The calculated hash.
+     * @param hash The known hash.
+     * @param file The file associated with the hash (used for logging).
+     * @return True if the hashes match, false otherwise.
+     */
+    public boolean compareHash(String newHash, String hash, String file) {
         
-        boolean valid   = false;
-        String  newHash = getHash(file, HashType.MD5);
+        boolean valid = false;
         
         if ((newHash != null) && (!newHash.isEmpty())) {
             if (newHash.equalsIgnoreCase(hash)) {
@@ -77,6 +93,39 @@ public class HashGeneratorService {
         return valid;
     }
     
+    /**
+     * Construct a new <code>MessageDigest</code> object for the requested 
+     * hash type.  This allows clients to calculate a hash incrementally 
+     * (e.g. while the data is streamed to disk) rather than re-reading an 
+     * existing file.
+     * 
+     * @param hashType The type of hash to create.
+     * @return A new MessageDigest for the requested hash type.
+     */
+    public MessageDigest getMessageDigest(HashType hashType) {
+        
+        MessageDigest digest = null;
+        
+        switch (hashType) {
+            case MD5 : 
+                digest = DigestUtils.getMd5Digest();
+                break;
+            case SHA1:
+                digest = DigestUtils.getSha1Digest();
+                break;
+            case SHA256:
+                digest = DigestUtils.getSha256Digest();
+                break;
+            case SHA384:
+                digest = DigestUtils.getSha384Digest();
+                break;
+            case SHA512:
+                digest = DigestUtils.getSha512Digest();
+                break;
+        }
+        return digest;
+    }
+    
     /**
      * Construct the hexadecimal-based hash of the input file.  If the input
      * file doesn't exist, or errors are encountered during hash generation the 
@@ -0,0 +1,105 @@
+package mil.nga.aero;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.aero.interfaces.AeroDataStoreI;
+import mil.nga.aero.upg.exceptions.ErrorCodes;
+import mil.nga.aero.upg.exceptions.UPGDataException;
+import mil.nga.aero.upg.model.UPGData;
+
+/**
+ * Sequential reader for the local holdings in UUID order.  The holdings
+ * are retrieved from the data store one page at a time (keyset
+ * pagination) so only a single page is held in memory.  The data store
+ * interfaces are remote, so a page is the closest equivalent of a JDBC
+ * cursor that can be exposed to the synchronization process.
+ *
+ * @author L. Craig Carpenter
+ */
+public class HoldingsCursor {
+
+    /**
+     * Set up the LogBack system for use throughout the class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+            HoldingsCursor.class);
+
+    private final AeroDataStoreI store;
+    private final int            pageSize;
+    private List<UPGData>        page;
+    private int                  index    = 0;
+    private String               lastUUID = null;
+    private boolean              last     = false;
+    private long                 count    = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param store The data store containing the local holdings.
+     * @param pageSize The number of records to retrieve per page.
+     */
+    public HoldingsCursor(AeroDataStoreI store, int pageSize) {
+        this.store    = store;
+        this.pageSize = Math.max(1, pageSize);
+    }
+
+    /**
+     * Getter method for the number of records read so far.
+     * @return The number of records read.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Read the next record.
+     *
+     * @return The next record, or null once all records have been read.
+     * @throws UPGDataException Thrown if a page cannot be read from the
+     * data store or the records are not in ascending UUID order.
+     */
+    public UPGData next() throws UPGDataException {
+
+        if ((page == null) || (index >= page.size())) {
+            if (last) {
+                return null;
+            }
+            page  = store.getData(lastUUID, pageSize);
+            index = 0;
+            if (page == null) {
+                
+                // A failed read must abort the run.  Treating it as the 
+                // end of the holdings would classify every remaining 
+                // catalog row as an addition.
+                LOGGER.error("Unable to read the page of local holdings "
+                        + "following UUID [ "
+                        + lastUUID
+                        + " ].  Synchronization cannot proceed.");
+                throw new UPGDataException(ErrorCodes.DATA_SOURCE_EXCEPTION);
+            }
+            if (page.size() < pageSize) {
+                last = true;
+            }
+            if (page.size() == 0) {
+                return null;
+            }
+        }
+
+        UPGData record = page.get(index++);
+        if ((lastUUID != null) && (record.getUUID().compareTo(lastUUID) <= 0)) {
+            LOGGER.error("Local holdings are not ordered by UUID.  UUID [ "
+                    + record.getUUID()
+                    + " ] received after UUID [ "
+                    + lastUUID
+                    + " ].  Check that the database uses a binary sort "
+                    + "order.");
+            throw new UPGDataException(ErrorCodes.DATA_SOURCE_EXCEPTION);
+        }
+        lastUUID = record.getUUID();
+        count++;
+        return record;
+    }
+}
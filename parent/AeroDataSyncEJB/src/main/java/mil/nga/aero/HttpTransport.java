@@ -0,0 +1,253 @@
+package mil.nga.aero;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.PropertyLoader;
+import mil.nga.aero.interfaces.AeroDataConstants;
+
+/**
+ * Class following the Singleton creation pattern that owns the single,
+ * long-lived HTTP client shared by the entire application.  Previously a
+ * new <code>CloseableHttpClient</code> was constructed (and closed) for
+ * every file downloaded which meant that a synchronization run of tens of
+ * thousands of products paid for a TCP and TLS handshake for every file.
+ * This class backs the client with a pooled connection manager so
+ * connections to the data source are kept alive and re-used.
+ *
+ * The pool limits and keep-alive period are configurable through the
+ * following properties:
+ * <ul>
+ * <li>http.pool.max.total</li>
+ * <li>http.pool.max.per.route</li>
+ * <li>http.keep.alive.ms</li>
+ * </ul>
+ *
+ * Note: Clients must NOT close the client returned by this class.  They
+ * must however close the <code>CloseableHttpResponse</code> in order to
+ * return the underlying connection to the pool.
+ *
+ * @author L. Craig Carpenter
+ */
+public class HttpTransport
+        extends PropertyLoader
+        implements AeroDataConstants {
+
+    /**
+     * Set up the LogBack system for use throughout the class
+     */
+    static final Logger LOGGER = LoggerFactory.getLogger(
+            HttpTransport.class);
+
+    /**
+     * Connect timeout (in milliseconds).
+     */
+    private static final int CONNECT_TIMEOUT = 60 * 1000;
+
+    /**
+     * Socket read timeout (in milliseconds).
+     */
+    private static final int SOCKET_TIMEOUT = 5 * 60 * 1000;
+
+    /**
+     * Amount of time (in milliseconds) to wait for a connection to become
+     * available in the pool.
+     */
+    private static final int CONNECTION_REQUEST_TIMEOUT = 5 * 1000;
+
+    /**
+     * Pooled connections that have been idle longer than this period (in
+     * milliseconds) are validated before they are re-used.
+     */
+    private static final int VALIDATE_AFTER_INACTIVITY = 2 * 1000;
+
+    /**
+     * The pooled connection manager backing the shared client.
+     */
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    /**
+     * The shared HTTP client.
+     */
+    private final CloseableHttpClient client;
+
+    /**
+     * Private constructor enforcing the singleton design pattern.
+     */
+    private HttpTransport() {
+
+        super(PROPERTIES_FILE);
+
+        int  maxTotal    = getIntProperty(
+                HTTP_MAX_TOTAL_CONNECTIONS,
+                DEFAULT_MAX_TOTAL_CONNECTIONS);
+        int  maxPerRoute = getIntProperty(
+                HTTP_MAX_CONNECTIONS_PER_ROUTE,
+                DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+        long keepAlive   = getLongProperty(
+                HTTP_KEEP_ALIVE_MILLIS,
+                DEFAULT_KEEP_ALIVE_MILLIS);
+
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY);
+
+        RequestConfig config = RequestConfig.custom()
+                .setConnectTimeout(CONNECT_TIMEOUT)
+                .setSocketTimeout(SOCKET_TIMEOUT)
+                .setConnectionRequestTimeout(CONNECTION_REQUEST_TIMEOUT)
+                .build();
+
+        client = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(config)
+                .setKeepAliveStrategy(getKeepAliveStrategy(keepAlive))
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAlive, TimeUnit.MILLISECONDS)
+                .build();
+
+        LOGGER.info("Shared HTTP transport initialized.  Max total "
+                + "connections [ "
+                + maxTotal
+                + " ], max connections per route [ "
+                + maxPerRoute
+                + " ], keep-alive [ "
+                + keepAlive
+                + " ] ms.");
+    }
+
+    /**
+     * Construct a keep-alive strategy that honors the Keep-Alive header
+     * supplied by the server, falling back to the configured keep-alive
+     * period if the server does not supply one.
+     *
+     * @param keepAlive The default keep-alive period in milliseconds.
+     * @return The keep-alive strategy.
+     */
+    private ConnectionKeepAliveStrategy getKeepAliveStrategy(
+            final long keepAlive) {
+        return new ConnectionKeepAliveStrategy() {
+            @Override
+            public long getKeepAliveDuration(
+                    HttpResponse response,
+                    HttpContext context) {
+                long duration = DefaultConnectionKeepAliveStrategy.INSTANCE
+                        .getKeepAliveDuration(response, context);
+                return (duration > 0) ? duration : keepAlive;
+            }
+        };
+    }
+
+    /**
+     * Getter method for the shared HTTP client.  Callers must not close
+     * the client.
+     *
+     * @return The shared HTTP client.
+     */
+    public CloseableHttpClient getClient() {
+        return client;
+    }
+
+    /**
+     * Getter method for the total statistics associated with the
+     * connection pool.
+     *
+     * @return The current connection pool statistics.
+     */
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    /**
+     * Construct a String representation of the current state of the
+     * connection pool (total and per-route) suitable for logging.
+     *
+     * @return Printable version of the connection pool statistics.
+     */
+    public String getPoolStatsString() {
+
+        StringBuilder sb    = new StringBuilder();
+        PoolStats     total = getPoolStats();
+
+        sb.append("HTTP connection pool: leased [ ");
+        sb.append(total.getLeased());
+        sb.append(" ], pending [ ");
+        sb.append(total.getPending());
+        sb.append(" ], available [ ");
+        sb.append(total.getAvailable());
+        sb.append(" ], max [ ");
+        sb.append(total.getMax());
+        sb.append(" ].");
+        for (HttpRoute route : connectionManager.getRoutes()) {
+            PoolStats stats = connectionManager.getStats(route);
+            sb.append("  Route [ ");
+            sb.append(route.getTargetHost());
+            sb.append(" ] leased [ ");
+            sb.append(stats.getLeased());
+            sb.append(" ], pending [ ");
+            sb.append(stats.getPending());
+            sb.append(" ], available [ ");
+            sb.append(stats.getAvailable());
+            sb.append(" ].");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Release all resources held by the shared client.  This should only be
+     * called when the application is being shut down.
+     */
+    public void shutdown() {
+        LOGGER.info("Shutting down the shared HTTP transport.");
+        try { client.close(); } catch (Exception e) {}
+        connectionManager.shutdown();
+    }
+
+    /**
+     * Accessor method for the singleton instance of the HttpTransport
+     * class.
+     *
+     * @return The singleton instance of the HttpTransport class.
+     */
+    public static HttpTransport getInstance() {
+        return HttpTransportHolder.getSingleton();
+    }
+
+    /**
+     * Static inner class used to construct the Singleton object.  This class
+     * exploits the fact that classes are not loaded until they are referenced
+     * therefore enforcing thread safety without the performance hit imposed
+     * by the <code>synchronized</code> keyword.
+     *
+     * @author L. Craig Carpenter
+     */
+    public static class HttpTransportHolder {
+
+        /**
+         * Reference to the Singleton instance of the HttpTransport
+         */
+        private static HttpTransport _instance = new HttpTransport();
+
+        /**
+         * Accessor method for the singleton instance of the HttpTransport.
+         * @return The Singleton instance of the HttpTransport.
+         */
+        public static HttpTransport getSingleton() {
+            return _instance;
+        }
+
+    }
+}
@@ -0,0 +1,50 @@
+package mil.nga.aero;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Singleton EJB that is created when the application is deployed and
+ * destroyed when it is undeployed.  At startup it removes download 
+ * staging directories orphaned by a previous crash.  At shutdown it is 
+ * responsible for releasing application-wide resources (e.g. the pooled 
+ * HTTP connections) that would otherwise survive a redeploy of the 
+ * application.
+ *
+ * @author L. Craig Carpenter
+ */
+@Singleton
+@Startup
+public class LifecycleService {
+
+    /**
+     * Set up the LogBack system for use throughout the class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+            LifecycleService.class);
+
+    /**
+     * Remove any orphaned download staging directories.
+     */
+    @PostConstruct
+    public void startup() {
+        LOGGER.info("AeroDataSync application starting.  Sweeping the "
+                + "download staging area.");
+        StagingArea.getInstance().sweep();
+    }
+
+    /**
+     * Release the application-wide resources.
+     */
+    @PreDestroy
+    public void shutdown() {
+        LOGGER.info("AeroDataSync application shutting down.  Releasing "
+                + "shared resources.");
+        HttpTransport.getInstance().shutdown();
+    }
+}
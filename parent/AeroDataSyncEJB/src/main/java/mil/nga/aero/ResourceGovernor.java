@@ -0,0 +1,226 @@
+package mil.nga.aero;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.PropertyLoader;
+import mil.nga.aero.interfaces.AeroDataConstants;
+import mil.nga.aero.upg.model.ResourceLimits;
+import mil.nga.types.AeroDataType;
+
+/**
+ * Singleton class that owns the resources each data type may consume
+ * while it is being synchronized.  The limits are read from the
+ * properties file once, when the class is first used:
+ *
+ * <pre>
+ *   &lt;TYPE&gt;.download.threads  - products downloaded concurrently.
+ *   &lt;TYPE&gt;.max.connections   - HTTP connections used to download
+ *                               products concurrently (defaults to the
+ *                               number of download threads).
+ *   &lt;TYPE&gt;.bandwidth.limit   - aggregate download rate in bytes per
+ *                               second (0 for unlimited).
+ * </pre>
+ *
+ * Because every data type has its own connection permits and its own
+ * bandwidth bucket, a large UPG synchronization cannot starve a JEPP
+ * synchronization running at the same time (or vice versa).
+ *
+ * @author L. Craig Carpenter
+ */
+public class ResourceGovernor
+        extends PropertyLoader
+        implements AeroDataConstants {
+
+    /**
+     * Set up the LogBack system for use throughout the class
+     */
+    static final Logger LOGGER = LoggerFactory.getLogger(
+            ResourceGovernor.class);
+
+    /**
+     * The limits configured for each data type.
+     */
+    private final Map<AeroDataType, ResourceLimits> limits =
+            new EnumMap<AeroDataType, ResourceLimits>(AeroDataType.class);
+
+    /**
+     * HTTP connection permits available to each data type.
+     */
+    private final Map<AeroDataType, Semaphore> connections =
+            new EnumMap<AeroDataType, Semaphore>(AeroDataType.class);
+
+    /**
+     * Bandwidth bucket for each data type (absent if not limited).
+     */
+    private final Map<AeroDataType, BandwidthLimiter> bandwidth =
+            new EnumMap<AeroDataType, BandwidthLimiter>(AeroDataType.class);
+
+    /**
+     * Private constructor enforcing the singleton design pattern.
+     */
+    private ResourceGovernor() {
+
+        super(PROPERTIES_FILE);
+
+        int total = 0;
+        for (AeroDataType type : AeroDataType.values()) {
+            ResourceLimits value = load(type);
+            limits.put(type, value);
+            connections.put(type,
+                    new Semaphore(value.getMaxConnections(), true));
+            if (value.getBandwidth() > 0) {
+                bandwidth.put(type,
+                        new BandwidthLimiter(value.getBandwidth()));
+            }
+            total += value.getMaxConnections();
+            LOGGER.info(value.toString());
+        }
+
+        int poolSize = getIntProperty(
+                HTTP_MAX_TOTAL_CONNECTIONS,
+                DEFAULT_MAX_TOTAL_CONNECTIONS);
+        if (total > poolSize) {
+            LOGGER.warn("The per-type connection limits total [ "
+                    + total
+                    + " ] but the shared HTTP pool only holds [ "
+                    + poolSize
+                    + " ] connections.  Concurrent synchronizations may "
+                    + "wait on the pool.");
+        }
+    }
+
+    /**
+     * Read the limits for the input data type from the properties file.
+     *
+     * @param type The data type.
+     * @return The configured limits.
+     */
+    private ResourceLimits load(AeroDataType type) {
+
+        String threadsProp     = UPG_DOWNLOAD_THREADS;
+        String connectionsProp = UPG_MAX_CONNECTIONS;
+        String bandwidthProp   = UPG_BANDWIDTH_LIMIT;
+        if (type == AeroDataType.JEPP) {
+            threadsProp     = JEPP_DOWNLOAD_THREADS;
+            connectionsProp = JEPP_MAX_CONNECTIONS;
+            bandwidthProp   = JEPP_BANDWIDTH_LIMIT;
+        }
+
+        int threads = Math.max(1,
+                getIntProperty(threadsProp, DEFAULT_DOWNLOAD_THREADS));
+        return new ResourceLimits.ResourceLimitsBuilder()
+                .type(type)
+                .downloadThreads(threads)
+                .maxConnections(Math.max(1,
+                        getIntProperty(connectionsProp, threads)))
+                .bandwidth(Math.max(0,
+                        getLongProperty(bandwidthProp,
+                                DEFAULT_BANDWIDTH_LIMIT)))
+                .build();
+    }
+
+    /**
+     * Block until an HTTP connection permit is available for the input
+     * data type.  Every successful call must be matched by a call to
+     * <code>releaseConnection()</code>.
+     *
+     * @param type The data type.
+     * @throws InterruptedException Thrown if the calling thread is
+     * interrupted while waiting.
+     */
+    public void acquireConnection(AeroDataType type)
+            throws InterruptedException {
+        if (type != null) {
+            connections.get(type).acquire();
+        }
+    }
+
+    /**
+     * Return an HTTP connection permit obtained from
+     * <code>acquireConnection()</code>.
+     *
+     * @param type The data type.
+     */
+    public void releaseConnection(AeroDataType type) {
+        if (type != null) {
+            connections.get(type).release();
+        }
+    }
+
+    /**
+     * Getter method for the bandwidth bucket of the input data type.
+     *
+     * @param type The data type.
+     * @return The bandwidth limiter, or null if the download rate is not
+     * limited.
+     */
+    public BandwidthLimiter getBandwidthLimiter(AeroDataType type) {
+        if (type == null) {
+            return null;
+        }
+        return bandwidth.get(type);
+    }
+
+    /**
+     * Getter method for the limits configured for the input data type.
+     *
+     * @param type The data type.
+     * @return The configured limits.
+     */
+    public ResourceLimits getLimits(AeroDataType type) {
+        return limits.get(type);
+    }
+
+    /**
+     * Getter method for the number of HTTP connection permits currently
+     * held by the input data type.
+     *
+     * @param type The data type.
+     * @return The number of connections in use.
+     */
+    public int getConnectionsInUse(AeroDataType type) {
+        return limits.get(type).getMaxConnections()
+                - connections.get(type).availablePermits();
+    }
+
+    /**
+     * Accessor method for the singleton instance of the ResourceGovernor
+     * class.
+     *
+     * @return The singleton instance of the ResourceGovernor class.
+     */
+    public static ResourceGovernor getInstance() {
+        return ResourceGovernorHolder.getSingleton();
+    }
+
+    /**
+     * Static inner class used to construct the Singleton object.  This class
+     * exploits the fact that classes are not loaded until they are referenced
+     * therefore enforcing thread safety without the performance hit imposed
+     * by the <code>synchronized</code> keyword.
+     *
+     * @author L. Craig Carpenter
+     */
+    public static class ResourceGovernorHolder {
+
+        /**
+         * Reference to the Singleton instance of the ResourceGovernor
+         */
+        private static ResourceGovernor _instance = new ResourceGovernor();
+
+        /**
+         * Accessor method for the singleton instance of the
+         * ResourceGovernor.
+         * @return The Singleton instance of the ResourceGovernor.
+         */
+        public static ResourceGovernor getSingleton() {
+            return _instance;
+        }
+
+    }
+}
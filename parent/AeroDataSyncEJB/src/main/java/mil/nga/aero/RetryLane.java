@@ -0,0 +1,315 @@
+package mil.nga.aero;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.PropertyLoader;
+import mil.nga.aero.interfaces.AeroDataConstants;
+import mil.nga.types.AeroDataType;
+
+/**
+ * Singleton class holding the state of the retry lane.  The retry lane
+ * periodically re-attempts the products that failed to download (i.e.
+ * <code>SUCCESS_DL = 0</code>) without retrieving or comparing the source
+ * catalog.  Each product is re-tried with exponential backoff: the first
+ * retry is made after <code>retry.backoff.initial.ms</code> and the delay
+ * doubles after each further failure up to
+ * <code>retry.backoff.max.ms</code>.
+ *
+ * A product enters the schedule the first time the lane sees it failed
+ * (i.e. its first retry is made <code>retry.backoff.initial.ms</code>
+ * after it is first seen, not on the next pass).  The schedule is held in
+ * memory only, so after a restart every failed product waits for the
+ * initial delay again.
+ *
+ * The lane also counts the retry attempts and recoveries for each data
+ * type.  The counters are drained into the metrics of the next full
+ * synchronization of the type.
+ *
+ * @author L. Craig Carpenter
+ */
+public class RetryLane
+        extends PropertyLoader
+        implements AeroDataConstants {
+
+    /**
+     * Set up the LogBack system for use throughout the class
+     */
+    static final Logger LOGGER = LoggerFactory.getLogger(
+            RetryLane.class);
+
+    /**
+     * Delay before the first retry of a product.
+     */
+    private final long initialBackoff;
+
+    /**
+     * Maximum delay between retries of a product.
+     */
+    private final long maxBackoff;
+
+    /**
+     * Interval between passes of the retry lane.
+     */
+    private final long interval;
+
+    /**
+     * Number of failed records read per page.
+     */
+    private final int pageSize;
+
+    /**
+     * The backoff state of each failed product keyed by UUID.
+     */
+    private final Map<AeroDataType, Map<String, Backoff>> schedule =
+            new EnumMap<AeroDataType, Map<String, Backoff>>(
+                    AeroDataType.class);
+
+    /**
+     * Retry attempts made since the counters were last drained.
+     */
+    private final Map<AeroDataType, AtomicLong> attempts =
+            new EnumMap<AeroDataType, AtomicLong>(AeroDataType.class);
+
+    /**
+     * Retry recoveries made since the counters were last drained.
+     */
+    private final Map<AeroDataType, AtomicLong> recoveries =
+            new EnumMap<AeroDataType, AtomicLong>(AeroDataType.class);
+
+    /**
+     * Private constructor enforcing the singleton design pattern.
+     */
+    private RetryLane() {
+
+        super(PROPERTIES_FILE);
+
+        initialBackoff = Math.max(1, getLongProperty(
+                RETRY_BACKOFF_INITIAL,
+                DEFAULT_RETRY_BACKOFF_INITIAL));
+        maxBackoff = Math.max(initialBackoff, getLongProperty(
+                RETRY_BACKOFF_MAX,
+                DEFAULT_RETRY_BACKOFF_MAX));
+        interval = Math.max(60000, getLongProperty(
+                RETRY_INTERVAL,
+                DEFAULT_RETRY_INTERVAL));
+        pageSize = Math.max(1, getIntProperty(
+                RETRY_PAGE_SIZE,
+                DEFAULT_RETRY_PAGE_SIZE));
+        for (AeroDataType type : AeroDataType.values()) {
+            schedule.put(type, new ConcurrentHashMap<String, Backoff>());
+            attempts.put(type, new AtomicLong(0));
+            recoveries.put(type, new AtomicLong(0));
+        }
+        LOGGER.info("Retry lane initial backoff [ "
+                + initialBackoff
+                + " ] ms, maximum backoff [ "
+                + maxBackoff
+                + " ] ms, pass interval [ "
+                + interval
+                + " ] ms, page size [ "
+                + pageSize
+                + " ].");
+    }
+
+    /**
+     * Calculate the delay before the next retry of a product.
+     *
+     * @param failures The number of consecutive retries that have failed.
+     * @return The delay in milliseconds.
+     */
+    private long getDelay(int failures) {
+        long delay = initialBackoff;
+        for (int i = 1; (i < failures) && (delay < maxBackoff); i++) {
+            delay = delay * 2;
+        }
+        return Math.min(delay, maxBackoff);
+    }
+
+    /**
+     * Postpone a product that cannot be re-tried by the retry lane (e.g.
+     * its record does not hold the source hash) for the maximum delay so
+     * that it is not considered on every pass.  The deferral is not
+     * counted as an attempt.
+     *
+     * @param type The data type.
+     * @param uuid The UUID of the product.
+     */
+    public void defer(AeroDataType type, String uuid) {
+        schedule.get(type).put(uuid, new Backoff(
+                0,
+                System.currentTimeMillis() + maxBackoff));
+    }
+
+    /**
+     * Drain the retry counters of the input data type.
+     *
+     * @param type The data type.
+     * @return The retry attempts and recoveries (in that order) made since
+     * the counters were last drained.
+     */
+    public long[] drain(AeroDataType type) {
+        return new long[] {
+                attempts.get(type).getAndSet(0),
+                recoveries.get(type).getAndSet(0) };
+    }
+
+    /**
+     * Determine whether the backoff delay of a failed product has expired.
+     * A product not yet in the schedule is added to it (counting the 
+     * failure that made it eligible) and is not due until the initial 
+     * delay has elapsed.
+     *
+     * @param type The data type.
+     * @param uuid The UUID of the product.
+     * @param now The current time in milliseconds.
+     * @return True if the product should be re-tried.
+     */
+    public boolean isDue(AeroDataType type, String uuid, long now) {
+        Backoff backoff = schedule.get(type).get(uuid);
+        if (backoff == null) {
+            schedule.get(type).putIfAbsent(uuid, new Backoff(
+                    1,
+                    now + getDelay(1)));
+            return false;
+        }
+        return now >= backoff.nextAttempt;
+    }
+
+    /**
+     * Record a failed retry.  The delay before the next retry of the
+     * product is doubled (the failure that added the product to the
+     * schedule counts as the first).
+     *
+     * @param type The data type.
+     * @param uuid The UUID of the product.
+     */
+    public void recordFailure(AeroDataType type, String uuid) {
+        attempts.get(type).incrementAndGet();
+        Backoff previous = schedule.get(type).get(uuid);
+        int failures = (previous == null ? 1 : previous.failures + 1);
+        schedule.get(type).put(uuid, new Backoff(
+                failures,
+                System.currentTimeMillis() + getDelay(failures)));
+    }
+
+    /**
+     * Record a successful retry.  The product is removed from the
+     * schedule.
+     *
+     * @param type The data type.
+     * @param uuid The UUID of the product.
+     */
+    public void recordRecovery(AeroDataType type, String uuid) {
+        attempts.get(type).incrementAndGet();
+        recoveries.get(type).incrementAndGet();
+        schedule.get(type).remove(uuid);
+    }
+
+    /**
+     * Discard the schedule of any product that is no longer failed (e.g.
+     * it was recovered or removed by a full synchronization).
+     *
+     * @param type The data type.
+     * @param failed The UUIDs of the products currently failed.
+     */
+    public void retain(AeroDataType type, Set<String> failed) {
+        schedule.get(type).keySet().retainAll(failed);
+    }
+
+    /**
+     * Getter method for the interval between passes of the retry lane.
+     * @return The interval in milliseconds.
+     */
+    public long getInterval() {
+        return interval;
+    }
+
+    /**
+     * Getter method for the number of failed records read per page.
+     * @return The page size.
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Getter method for the number of products of the input data type
+     * waiting for a retry.
+     *
+     * @param type The data type.
+     * @return The number of products scheduled.
+     */
+    public int getScheduled(AeroDataType type) {
+        return schedule.get(type).size();
+    }
+
+    /**
+     * Accessor method for the singleton instance of the RetryLane
+     * class.
+     *
+     * @return The singleton instance of the RetryLane class.
+     */
+    public static RetryLane getInstance() {
+        return RetryLaneHolder.getSingleton();
+    }
+
+    /**
+     * Immutable backoff state of a single product.
+     */
+    private static class Backoff {
+
+        /**
+         * The number of consecutive retries that have failed.
+         */
+        private final int failures;
+
+        /**
+         * The earliest time (in milliseconds) of the next retry.
+         */
+        private final long nextAttempt;
+
+        /**
+         * Constructor.
+         *
+         * @param failures The number of consecutive failed retries.
+         * @param nextAttempt The earliest time of the next retry.
+         */
+        private Backoff(int failures, long nextAttempt) {
+            this.failures    = failures;
+            this.nextAttempt = nextAttempt;
+        }
+    }
+
+    /**
+     * Static inner class used to construct the Singleton object.  This class
+     * exploits the fact that classes are not loaded until they are referenced
+     * therefore enforcing thread safety without the performance hit imposed
+     * by the <code>synchronized</code> keyword.
+     *
+     * @author L. Craig Carpenter
+     */
+    public static class RetryLaneHolder {
+
+        /**
+         * Reference to the Singleton instance of the RetryLane
+         */
+        private static RetryLane _instance = new RetryLane();
+
+        /**
+         * Accessor method for the singleton instance of the
+         * RetryLane.
+         * @return The Singleton instance of the RetryLane.
+         */
+        public static RetryLane getSingleton() {
+            return _instance;
+        }
+
+    }
+}
@@ -0,0 +1,329 @@
+package mil.nga.aero;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.PropertyLoader;
+import mil.nga.aero.interfaces.AeroDataConstants;
+import mil.nga.exceptions.PropertiesNotLoadedException;
+import mil.nga.types.AeroDataType;
+import mil.nga.util.FileUtils;
+
+/**
+ * Class following the Singleton creation pattern that manages the
+ * temporary locations into which products are downloaded prior to being
+ * validated and moved to their final destination.
+ *
+ * Each download is allocated its own uniquely named working directory so
+ * that concurrent downloads (including multiple products associated with
+ * the same ICAO) can never interfere with one another, and cleanup only
+ * ever removes the artifacts associated with a single download.  Working
+ * directories orphaned by a crashed or restarted server are removed by
+ * <code>sweep()</code> which is invoked at application startup.
+ *
+ * By default the working directories are created under 
+ * <code>java.io.tmpdir</code>.  On hosts where that is a different file 
+ * system from the holdings, setting <code>staging.in.holdings</code> 
+ * stages downloads in a hidden <code>.staging</code> directory inside the 
+ * holdings volume so they can be published with an atomic rename.
+ *
+ * @author L. Craig Carpenter
+ */
+public class StagingArea
+        extends PropertyLoader
+        implements AeroDataConstants {
+
+    /**
+     * Set up the LogBack system for use throughout the class
+     */
+    static final Logger LOGGER = LoggerFactory.getLogger(
+            StagingArea.class);
+
+    /**
+     * Prefix applied to each per-download working directory.
+     */
+    public static final String STAGING_PREFIX = "dl-";
+
+    /**
+     * Private constructor enforcing the singleton design pattern.
+     */
+    private StagingArea() {
+        super(PROPERTIES_FILE);
+    }
+
+    /**
+     * Determine whether or not downloads are to be staged inside the 
+     * holdings volume.
+     *
+     * @return True if staging inside the holdings volume.
+     */
+    public boolean isStagingInHoldings() {
+        return getBooleanProperty(STAGING_IN_HOLDINGS, false);
+    }
+
+    /**
+     * Look up the holdings directory configured for the input data type.
+     *
+     * @param type The aero data type.
+     * @return The holdings directory, or null if it is not defined.
+     */
+    private String getDownloadDir(AeroDataType type) {
+        String dir = null;
+        try {
+            if (type == AeroDataType.JEPP) {
+                dir = getProperty(JEPP_DOWNLOAD_DIR);
+            }
+            else {
+                dir = getProperty(UPG_DOWNLOAD_DIR);
+            }
+        }
+        catch (PropertiesNotLoadedException pnle) {
+            LOGGER.warn("Unable to load the properties file.  Cannot "
+                    + "determine the holdings directory for type [ "
+                    + type.getText()
+                    + " ].");
+        }
+        if ((dir != null) && (dir.trim().isEmpty())) {
+            dir = null;
+        }
+        return dir;
+    }
+
+    /**
+     * Calculate the staging root located under 
+     * <code>java.io.tmpdir</code> for the input data type.
+     *
+     * @param type The aero data type.
+     * @return The temporary staging root.
+     */
+    private Path getTempStagingRoot(AeroDataType type) {
+        return Paths.get(
+                System.getProperty("java.io.tmpdir"),
+                type.getText());
+    }
+
+    /**
+     * Calculate the staging root located inside the holdings volume for
+     * the input data type.
+     *
+     * @param type The aero data type.
+     * @return The holdings staging root, or null if the holdings directory
+     * is not defined.
+     */
+    private Path getHoldingsStagingRoot(AeroDataType type) {
+        Path   root = null;
+        String dir  = getDownloadDir(type);
+        if (dir != null) {
+            root = Paths.get(dir.trim(), HOLDINGS_STAGING_DIR);
+        }
+        return root;
+    }
+
+    /**
+     * Calculate (and create if necessary) the root directory under which
+     * the per-download working directories for the input data type will
+     * be created.  If <code>staging.in.holdings</code> is set this is a 
+     * hidden directory inside the holdings volume so that validated files 
+     * can be published with an atomic rename.  Otherwise it is located 
+     * under <code>java.io.tmpdir</code>.
+     *
+     * @param type The aero data type.
+     * @return The staging root for the data type.
+     * @throws IOException Thrown if the directory cannot be created.
+     */
+    public Path getStagingRoot(AeroDataType type) throws IOException {
+        Path root = null;
+        if (isStagingInHoldings()) {
+            root = getHoldingsStagingRoot(type);
+            if (root == null) {
+                LOGGER.warn("Holdings directory not defined for type [ "
+                        + type.getText()
+                        + " ].  Staging under java.io.tmpdir.");
+            }
+        }
+        if (root == null) {
+            root = getTempStagingRoot(type);
+        }
+        Files.createDirectories(root);
+        return root;
+    }
+
+    /**
+     * Allocate a new, uniquely named working directory for a single
+     * download.
+     *
+     * @param type The aero data type being downloaded.
+     * @return The newly created working directory.
+     * @throws IOException Thrown if the directory cannot be created.
+     */
+    public Path allocate(AeroDataType type) throws IOException {
+        Path dir = Files.createTempDirectory(
+                getStagingRoot(type),
+                STAGING_PREFIX);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Allocated staging directory [ "
+                    + dir.toString()
+                    + " ].");
+        }
+        return dir;
+    }
+
+    /**
+     * Calculate the full path to a file within a working directory.  The 
+     * <code>.part</code> suffix identifies the file as incomplete until it 
+     * is published.
+     *
+     * @param dir The working directory allocated for the download.
+     * @param filename The name of the file.
+     * @return The full path to the staged file.
+     */
+    public String getStagedFile(Path dir, String filename) {
+        return dir.resolve(filename.trim() + PARTIAL_FILE_SUFFIX).toString();
+    }
+
+    /**
+     * Remove a working directory and anything left inside it.  Errors are
+     * logged but not propagated as the startup sweep will eventually remove
+     * anything left behind.
+     *
+     * @param dir The working directory to remove (may be null).
+     */
+    public void release(Path dir) {
+        if ((dir != null) && (Files.exists(dir))) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Removing staging directory [ "
+                        + dir.toString()
+                        + " ].");
+            }
+            try {
+                FileUtils.delete(dir.toFile());
+            }
+            catch (IOException ioe) {
+                LOGGER.warn("Unable to remove staging directory [ "
+                        + dir.toString()
+                        + " ].  Exception message [ "
+                        + ioe.getMessage()
+                        + " ].");
+            }
+        }
+    }
+
+    /**
+     * Remove everything found in the staging roots (both under 
+     * <code>java.io.tmpdir</code> and inside the holdings volume) for all 
+     * data types that has not been modified within the configured minimum 
+     * age (<code>staging.sweep.min.age.ms</code>).  This is intended to be
+     * invoked at application startup to clean up working directories
+     * orphaned by a crash, including any directories left behind by the
+     * legacy per-ICAO staging layout.  The minimum age protects downloads
+     * in progress on another server instance sharing the same host.
+     */
+    public void sweep() {
+        long cutoff = System.currentTimeMillis() - getLongProperty(
+                STAGING_SWEEP_MIN_AGE,
+                DEFAULT_STAGING_SWEEP_MIN_AGE);
+        for (AeroDataType type : AeroDataType.values()) {
+            sweep(type, getTempStagingRoot(type), cutoff);
+            sweep(type, getHoldingsStagingRoot(type), cutoff);
+        }
+    }
+
+    /**
+     * Remove everything found in a single staging root that has not been
+     * modified since the cutoff time.
+     *
+     * @param type The aero data type (used for logging).
+     * @param root The staging root to sweep (may be null).
+     * @param cutoff Entries modified after this time are left alone.
+     */
+    private void sweep(AeroDataType type, Path root, long cutoff) {
+
+        int                   removed = 0;
+        DirectoryStream<Path> stream  = null;
+
+        if ((root == null) || (!Files.isDirectory(root))) {
+            return;
+        }
+        try {
+            stream = Files.newDirectoryStream(root);
+            for (Path orphan : stream) {
+                File file = orphan.toFile();
+                if (file.lastModified() > cutoff) {
+                    continue;
+                }
+                try {
+                    FileUtils.delete(file);
+                    removed++;
+                }
+                catch (IOException ioe) {
+                    LOGGER.warn("Unable to remove orphaned staging "
+                            + "file [ "
+                            + orphan.toString()
+                            + " ].");
+                }
+            }
+        }
+        catch (IOException ioe) {
+            LOGGER.warn("Unexpected IOException raised while sweeping "
+                    + "the staging area [ "
+                    + root.toString()
+                    + " ].  Exception message [ "
+                    + ioe.getMessage()
+                    + " ].");
+        }
+        finally {
+            if (stream != null) {
+                try { stream.close(); } catch (Exception e) {}
+            }
+        }
+        LOGGER.info("Removed [ "
+                + removed
+                + " ] orphaned staging entries for type [ "
+                + type.getText()
+                + " ] from [ "
+                + root.toString()
+                + " ].");
+    }
+
+    /**
+     * Accessor method for the singleton instance of the StagingArea
+     * class.
+     *
+     * @return The singleton instance of the StagingArea class.
+     */
+    public static StagingArea getInstance() {
+        return StagingAreaHolder.getSingleton();
+    }
+
+    /**
+     * Static inner class used to construct the Singleton object.  This class
+     * exploits the fact that classes are not loaded until they are referenced
+     * therefore enforcing thread safety without the performance hit imposed
+     * by the <code>synchronized</code> keyword.
+     *
+     * @author L. Craig Carpenter
+     */
+    public static class StagingAreaHolder {
+
+        /**
+         * Reference to the Singleton instance of the StagingArea
+         */
+        private static StagingArea _instance = new StagingArea();
+
+        /**
+         * Accessor method for the singleton instance of the StagingArea.
+         * @return The Singleton instance of the StagingArea.
+         */
+        public static StagingArea getSingleton() {
+            return _instance;
+        }
+
+    }
+}
@@ -0,0 +1,398 @@
+package mil.nga.aero;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.PropertyLoader;
+import mil.nga.aero.interfaces.AeroDataConstants;
+import mil.nga.exceptions.PropertiesNotLoadedException;
+import mil.nga.types.AeroDataType;
+import mil.nga.types.OverlapPolicy;
+
+/**
+ * Singleton class ensuring that no more than one synchronization run is
+ * active for each data type.  Both the scheduled timers and the REST
+ * interface start runs through <code>DataSyncService.synchronize()</code>,
+ * which registers the run here first.  If a run is already active the
+ * new trigger is either ignored or queued depending on
+ * <code>sync.overlap.policy</code>.  At most one run is queued per data
+ * type; further triggers are folded into it.  The queued run starts as
+ * soon as the active run finishes (whether or not it succeeded) and is
+ * only discarded if the data type is explicitly cancelled.
+ *
+ * Passes of the retry lane (see <code>RetryLane</code>) are registered
+ * like any other run but never wait: a retry pass is skipped if a run is
+ * active, and a full synchronization triggered during a retry pass
+ * cancels the pass and is queued behind it regardless of the policy.
+ *
+ * The coordinator also holds the live progress of each active run (and
+ * the final progress of the last completed run) so that it can be
+ * reported or cancelled over REST.  Every run (including a queued run)
+ * is assigned a job ID when it is registered, and the most recent jobs
+ * are retained so that their status and metrics can be retrieved by ID
+ * after they finish.
+ *
+ * @author L. Craig Carpenter
+ */
+public class SyncCoordinator
+        extends PropertyLoader
+        implements AeroDataConstants {
+
+    /**
+     * Set up the LogBack system for use throughout the class
+     */
+    static final Logger LOGGER = LoggerFactory.getLogger(
+            SyncCoordinator.class);
+
+    /**
+     * The active run for each data type.
+     */
+    private final Map<AeroDataType, SyncProgress> active =
+            new EnumMap<AeroDataType, SyncProgress>(AeroDataType.class);
+
+    /**
+     * The most recently completed run for each data type.
+     */
+    private final Map<AeroDataType, SyncProgress> last =
+            new EnumMap<AeroDataType, SyncProgress>(AeroDataType.class);
+
+    /**
+     * The queued run for each data type (if any).
+     */
+    private final Map<AeroDataType, SyncProgress> queued =
+            new EnumMap<AeroDataType, SyncProgress>(AeroDataType.class);
+
+    /**
+     * The number of jobs retained for retrieval by job ID.
+     */
+    private static final int MAX_JOB_HISTORY = 100;
+
+    /**
+     * The most recent jobs keyed by job ID (oldest first).
+     */
+    private final Map<String, SyncProgress> jobs =
+            new LinkedHashMap<String, SyncProgress>() {
+
+                /**
+                 * Eclipse-generated serialVersionUID
+                 */
+                private static final long serialVersionUID =
+                        -3182736465410988247L;
+
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<String, SyncProgress> eldest) {
+                    return size() > MAX_JOB_HISTORY;
+                }
+            };
+
+    /**
+     * Private constructor enforcing the singleton design pattern.
+     */
+    private SyncCoordinator() {
+        super(PROPERTIES_FILE);
+    }
+
+    /**
+     * Look up the policy applied to overlapping triggers.
+     *
+     * @return The configured policy (SKIP if not configured).
+     */
+    private OverlapPolicy getOverlapPolicy() {
+        String value = null;
+        try {
+            value = getProperty(SYNC_OVERLAP_POLICY);
+        }
+        catch (PropertiesNotLoadedException pnle) {
+            LOGGER.warn("Unable to load the properties file.  Overlapping "
+                    + "synchronization triggers will be skipped.");
+        }
+        return OverlapPolicy.fromString(value);
+    }
+
+    /**
+     * Register a new run for the input data type.
+     *
+     * @param type The data type to synchronize.
+     * @param trigger Description of what started the run.
+     * @return The progress of the new run, or null if a run is already
+     * active for the data type (in which case the trigger has been skipped
+     * or queued, see <code>getQueued()</code>).
+     */
+    public synchronized SyncProgress begin(AeroDataType type, String trigger) {
+
+        SyncProgress current = active.get(type);
+        if (current != null) {
+            if (SyncProgress.RETRY_TRIGGER.equals(trigger)) {
+                LOGGER.info("Synchronization of type [ "
+                        + type.getText()
+                        + " ] in progress.  Retry pass skipped.");
+            }
+            else if (current.isRetry()) {
+                
+                // A full synchronization takes precedence over the retry 
+                // lane (it re-tries the failed products itself).
+                current.cancel();
+                queue(type, trigger);
+                LOGGER.info("Retry pass of type [ "
+                        + type.getText()
+                        + " ] cancelled.  Trigger [ "
+                        + trigger
+                        + " ] queued as job [ "
+                        + queued.get(type).getJobId()
+                        + " ].");
+            }
+            else if (getOverlapPolicy() == OverlapPolicy.QUEUE) {
+                queue(type, trigger);
+                LOGGER.info("Synchronization of type [ "
+                        + type.getText()
+                        + " ] already in progress.  Trigger [ "
+                        + trigger
+                        + " ] queued as job [ "
+                        + queued.get(type).getJobId()
+                        + " ].  "
+                        + current.toString());
+            }
+            else {
+                LOGGER.warn("Synchronization of type [ "
+                        + type.getText()
+                        + " ] already in progress.  Trigger [ "
+                        + trigger
+                        + " ] skipped.  "
+                        + current.toString());
+            }
+            return null;
+        }
+        current = new SyncProgress(type, trigger);
+        active.put(type, current);
+        jobs.put(current.getJobId(), current);
+        return current;
+    }
+
+    /**
+     * Queue a run of the input data type (unless one is already queued).
+     *
+     * @param type The data type.
+     * @param trigger Description of what started the run.
+     */
+    private void queue(AeroDataType type, String trigger) {
+        if (!queued.containsKey(type)) {
+            SyncProgress next = new SyncProgress(type, trigger);
+            next.setPhase("queued");
+            queued.put(type, next);
+            jobs.put(next.getJobId(), next);
+        }
+    }
+
+    /**
+     * Record that a run has finished.  If a run was queued for the same
+     * data type while it was active the queued run is registered and
+     * returned.  The outcome of the finished run does not matter: the
+     * queued trigger arrived after it started so it still has to be
+     * honoured.
+     *
+     * @param progress The progress of the finished run.
+     * @return The progress of the queued run that the caller must now
+     * execute, or null if nothing is queued.
+     */
+    public synchronized SyncProgress finish(SyncProgress progress) {
+
+        AeroDataType type = progress.getType();
+        progress.finish();
+        last.put(type, progress);
+        active.remove(type);
+
+        SyncProgress next = queued.remove(type);
+        if (next != null) {
+            next.start();
+            active.put(type, next);
+            LOGGER.info("Starting queued synchronization of type [ "
+                    + type.getText()
+                    + " ] (job [ "
+                    + next.getJobId()
+                    + " ]).");
+        }
+        return next;
+    }
+
+    /**
+     * Request that the active run for the input data type be cancelled.
+     * Any queued run is discarded.
+     *
+     * @param type The data type.
+     * @return True if a run was active.
+     */
+    public synchronized boolean cancel(AeroDataType type) {
+        SyncProgress next = queued.remove(type);
+        if (next != null) {
+            discard(next);
+        }
+        SyncProgress current = active.get(type);
+        if (current != null) {
+            LOGGER.info("Cancellation requested for synchronization of "
+                    + "type [ "
+                    + type.getText()
+                    + " ].");
+            current.cancel();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Mark a queued run that will never be executed as cancelled.
+     *
+     * @param next The progress of the queued run.
+     */
+    private void discard(SyncProgress next) {
+        next.cancel();
+        next.finish();
+        LOGGER.warn("Queued synchronization job [ "
+                + next.getJobId()
+                + " ] of type [ "
+                + next.getType().getText()
+                + " ] discarded.");
+    }
+
+    /**
+     * Record bytes written by a download of the input data type against
+     * the active run (if any).
+     *
+     * @param type The data type (may be null).
+     * @param bytes The number of bytes written.
+     */
+    public void recordBytes(AeroDataType type, long bytes) {
+        if (type != null) {
+            SyncProgress current = getProgress(type);
+            if (current != null) {
+                current.addBytes(bytes);
+            }
+        }
+    }
+
+    /**
+     * Look up a run by job ID.  Only the most recent jobs are retained.
+     *
+     * @param jobId The job ID.
+     * @return The progress of the job (null if unknown).
+     */
+    public synchronized SyncProgress getJob(String jobId) {
+        if (jobId == null) {
+            return null;
+        }
+        return jobs.get(jobId.trim());
+    }
+
+    /**
+     * Getter method for the most recently completed run.
+     *
+     * @param type The data type.
+     * @return The progress of the last run (null if none has completed).
+     */
+    public synchronized SyncProgress getLastRun(AeroDataType type) {
+        return last.get(type);
+    }
+
+    /**
+     * Getter method for the active run.
+     *
+     * @param type The data type.
+     * @return The progress of the active run (null if none is active).
+     */
+    public synchronized SyncProgress getProgress(AeroDataType type) {
+        return active.get(type);
+    }
+
+    /**
+     * Getter method for the queued run.
+     *
+     * @param type The data type.
+     * @return The progress of the queued run (null if none is queued).
+     */
+    public synchronized SyncProgress getQueued(AeroDataType type) {
+        return queued.get(type);
+    }
+
+    /**
+     * Determine whether a run is queued for the input data type.
+     *
+     * @param type The data type.
+     * @return True if a run is queued.
+     */
+    public synchronized boolean isQueued(AeroDataType type) {
+        return queued.containsKey(type);
+    }
+
+    /**
+     * Construct a String representation of the state of every data type.
+     *
+     * @return The status of the active, queued and last runs.
+     */
+    public synchronized String getStatusString() {
+        StringBuilder sb = new StringBuilder();
+        for (AeroDataType type : AeroDataType.values()) {
+            sb.append("Type [ ");
+            sb.append(type.getText());
+            sb.append(" ] : ");
+            SyncProgress current = active.get(type);
+            if (current != null) {
+                sb.append("Active => ");
+                sb.append(current.toString());
+                if (queued.containsKey(type)) {
+                    sb.append("  Queued => ");
+                    sb.append(queued.get(type).toString());
+                }
+            }
+            else {
+                sb.append("Idle.");
+            }
+            SyncProgress previous = last.get(type);
+            if (previous != null) {
+                sb.append("  Last run => ");
+                sb.append(previous.toString());
+            }
+            sb.append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Accessor method for the singleton instance of the SyncCoordinator
+     * class.
+     *
+     * @return The singleton instance of the SyncCoordinator class.
+     */
+    public static SyncCoordinator getInstance() {
+        return SyncCoordinatorHolder.getSingleton();
+    }
+
+    /**
+     * Static inner class used to construct the Singleton object.  This class
+     * exploits the fact that classes are not loaded until they are referenced
+     * therefore enforcing thread safety without the performance hit imposed
+     * by the <code>synchronized</code> keyword.
+     *
+     * @author L. Craig Carpenter
+     */
+    public static class SyncCoordinatorHolder {
+
+        /**
+         * Reference to the Singleton instance of the SyncCoordinator
+         */
+        private static SyncCoordinator _instance = new SyncCoordinator();
+
+        /**
+         * Accessor method for the singleton instance of the
+         * SyncCoordinator.
+         * @return The Singleton instance of the SyncCoordinator.
+         */
+        public static SyncCoordinator getSingleton() {
+            return _instance;
+        }
+
+    }
+}
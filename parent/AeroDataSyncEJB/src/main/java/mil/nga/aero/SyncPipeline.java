@@ -0,0 +1,758 @@
+package mil.nga.aero;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.aero.interfaces.AeroDataStoreI;
+import mil.nga.aero.interfaces.AeroDataUpdateServiceI;
+import mil.nga.aero.upg.exceptions.ErrorCodes;
+import mil.nga.aero.upg.exceptions.UPGDataException;
+import mil.nga.aero.upg.model.IntermediateUPGData;
+import mil.nga.aero.upg.model.RetrievedProduct;
+import mil.nga.aero.upg.model.SourceCatalog;
+import mil.nga.aero.upg.model.UPGData;
+import mil.nga.aero.upg.model.UpsertResult;
+import mil.nga.types.DownloadStatus;
+
+/**
+ * Class implementing a staged synchronization pipeline.  Rather than
+ * running each phase of the synchronization to completion before the
+ * next begins, the stages are connected by bounded queues so that they
+ * overlap:
+ *
+ * <pre>
+ *   parse    - The catalog is streamed from the provider on a worker
+ *              thread and each row is placed on the parse queue.
+ *   diff     - Each row is compared against a snapshot of the local
+ *              holdings.  New and out-of-date products are handed to the
+ *              download stage immediately.
+ *   download - Products are retrieved (and verified) concurrently by a
+ *              DownloadExecutor.  The results are placed on the persist
+ *              queue.
+ *   persist  - Retrieved products are written to the data store in
+ *              batches using an idempotent upsert.
+ * </pre>
+ *
+ * The diff and persist stages run on the calling thread.  Products that
+ * remain in the local snapshot once the catalog has been consumed no
+ * longer exist in the source holdings and are removed.  Removals are
+ * only issued if the catalog was retrieved and parsed in its entirety.
+ *
+ * If no executor is available the catalog is parsed on the calling
+ * thread and each row is diffed as soon as it is parsed.
+ *
+ * Note: Instances of this class are intended to be used for a single
+ * synchronization run.
+ *
+ * @author L. Craig Carpenter
+ */
+public class SyncPipeline {
+
+    /**
+     * Set up the LogBack system for use throughout the class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+            SyncPipeline.class);
+
+    /**
+     * Time (in milliseconds) the diff stage waits for a row before
+     * checking whether the parse stage has completed.
+     */
+    private static final long POLL_INTERVAL = 250;
+
+    /**
+     * Interval (in milliseconds) between progress reports.
+     */
+    private static final long PROGRESS_INTERVAL = 30000;
+
+    /**
+     * Callback used to retrieve the source catalog.  Implementations must
+     * hand each row to the supplied handler as it is parsed.
+     */
+    public interface Source {
+
+        /**
+         * Retrieve the source catalog.
+         *
+         * @param handler The handler that will receive each catalog row.
+         * @return The source catalog (without holdings).
+         * @throws UPGDataException Thrown if the catalog cannot be
+         * retrieved or parsed.
+         */
+        public SourceCatalog fetch(CatalogParser.RowHandler handler)
+                throws UPGDataException;
+    }
+
+    /**
+     * Class holding the statistics associated with a single stage of the
+     * pipeline.
+     */
+    public static class Stage {
+
+        private final    String     name;
+        private final    int        capacity;
+        private final    AtomicLong processed = new AtomicLong(0);
+        private volatile int        depth     = 0;
+        private volatile int        peakDepth = 0;
+        private volatile long       started   = 0;
+        private volatile long       finished  = 0;
+
+        /**
+         * Constructor.
+         *
+         * @param name Name of the stage.
+         * @param capacity Capacity of the queue feeding the stage.
+         */
+        private Stage(String name, int capacity) {
+            this.name     = name;
+            this.capacity = capacity;
+        }
+
+        /**
+         * Getter method for the capacity of the queue feeding the stage.
+         * @return The capacity.
+         */
+        public int getCapacity() {
+            return capacity;
+        }
+
+        /**
+         * Getter method for the current depth of the queue feeding the
+         * stage.
+         * @return The current depth.
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Getter method for the time the stage has been running.
+         * @return The elapsed time in milliseconds.
+         */
+        public long getElapsedTime() {
+            if (started == 0) {
+                return 0;
+            }
+            return (finished != 0 ? finished : System.currentTimeMillis())
+                    - started;
+        }
+
+        /**
+         * Getter method for the name of the stage.
+         * @return The name of the stage.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Getter method for the maximum depth observed for the queue
+         * feeding the stage.
+         * @return The peak depth.
+         */
+        public int getPeakDepth() {
+            return peakDepth;
+        }
+
+        /**
+         * Getter method for the number of items processed by the stage.
+         * @return The number of items processed.
+         */
+        public long getProcessed() {
+            return processed.get();
+        }
+
+        /**
+         * Getter method for the throughput of the stage.
+         * @return The number of items processed per second.
+         */
+        public double getThroughput() {
+            long elapsed = getElapsedTime();
+            if (elapsed <= 0) {
+                return 0.0;
+            }
+            return (getProcessed() * 1000.0) / elapsed;
+        }
+
+        /**
+         * Record the current depth of the queue feeding the stage.
+         * @param value The current depth.
+         */
+        private void depth(int value) {
+            depth = value;
+            if (value > peakDepth) {
+                peakDepth = value;
+            }
+        }
+
+        /**
+         * Record that the stage has finished.
+         */
+        private void finish() {
+            if ((started != 0) && (finished == 0)) {
+                finished = System.currentTimeMillis();
+            }
+        }
+
+        /**
+         * Record that items have been processed by the stage.
+         * @param count The number of items processed.
+         */
+        private void processed(long count) {
+            processed.addAndGet(count);
+        }
+
+        /**
+         * Record that the stage has started.
+         */
+        private void start() {
+            if (started == 0) {
+                started = System.currentTimeMillis();
+            }
+        }
+
+        /**
+         * Convert to a human-readable String.
+         */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(getName());
+            sb.append(" : Processed => [ ");
+            sb.append(getProcessed());
+            sb.append(" ], Depth => [ ");
+            sb.append(getDepth());
+            sb.append(" / ");
+            sb.append(getCapacity());
+            sb.append(" ], Peak Depth => [ ");
+            sb.append(getPeakDepth());
+            sb.append(" ], Throughput => [ ");
+            sb.append(String.format("%.1f", getThroughput()));
+            sb.append(" /s ]");
+            return sb.toString();
+        }
+    }
+
+    private final AeroDataUpdateServiceI            updateService;
+    private final AeroDataStoreI                    store;
+    private final DownloadExecutor                  downloads;
+    private final ExecutorService                   executor;
+    private final SyncProgress                      progress;
+    private final int                               batchSize;
+    private final BlockingQueue<IntermediateUPGData> parsed;
+    private final BlockingQueue<RetrievedProduct>   retrieved;
+    private final List<RetrievedProduct>            pending;
+    private final Stage                             parseStage;
+    private final Stage                             diffStage;
+    private final Stage                             downloadStage;
+    private final Stage                             persistStage;
+    private       Source                            source;
+    private       Map<String, UPGData>              snapshot;
+    private       boolean                           inline        = false;
+    private volatile boolean                        parseComplete = false;
+    private volatile boolean                        cancelled     = false;
+    private volatile SourceCatalog                  catalog;
+    private volatile UPGDataException               parseError;
+    private       long                              localHoldings = 0;
+    private       long                              added         = 0;
+    private       long                              updated       = 0;
+    private       long                              unchanged     = 0;
+    private       long                              removed       = 0;
+    private       long                              persistFailed = 0;
+    private       long                              lastProgress  = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param updateService The service used to retrieve and remove
+     * products.
+     * @param store The data store into which retrieved products are
+     * written.
+     * @param downloads The executor used to retrieve products concurrently.
+     * @param executor The executor used to run the parse stage (may be
+     * null).
+     * @param progress The progress of the synchronization run (may be
+     * null).  If the run is cancelled the catalog is abandoned and no
+     * products are removed.
+     * @param queueSize The capacity of the queues between stages.
+     * @param batchSize The number of products written to the data store
+     * per round trip.
+     */
+    public SyncPipeline(
+            AeroDataUpdateServiceI updateService,
+            AeroDataStoreI         store,
+            DownloadExecutor       downloads,
+            ExecutorService        executor,
+            SyncProgress           progress,
+            int                    queueSize,
+            int                    batchSize) {
+
+        int capacity = Math.max(1, queueSize);
+
+        this.updateService = updateService;
+        this.store         = store;
+        this.downloads     = downloads;
+        this.executor      = executor;
+        this.progress      = progress;
+        this.batchSize     = Math.max(1, batchSize);
+        this.parsed        = new ArrayBlockingQueue<IntermediateUPGData>(
+                capacity);
+
+        // The persist queue is drained before every product is handed to
+        // the download stage, so it can never hold more results than there
+        // are downloads in flight (plus the one being submitted).  Sizing
+        // it accordingly guarantees that a download task never blocks
+        // while the diff stage is waiting for a free worker.
+        int persistCapacity = Math.max(capacity, downloads.getThreads() + 1);
+        this.retrieved     = new ArrayBlockingQueue<RetrievedProduct>(
+                persistCapacity);
+        this.pending       = new ArrayList<RetrievedProduct>(this.batchSize);
+        this.parseStage    = new Stage("parse", capacity);
+        this.diffStage     = new Stage("diff", 0);
+        this.downloadStage = new Stage("download", downloads.getThreads());
+        this.persistStage  = new Stage("persist", persistCapacity);
+    }
+
+    /**
+     * Start the parse stage.  The catalog is streamed on a worker thread
+     * so that the caller can load the local holdings while the catalog is
+     * being downloaded.
+     *
+     * @param source The callback used to retrieve the source catalog.
+     */
+    public void start(Source source) {
+
+        this.source = source;
+        lastProgress = System.currentTimeMillis();
+        if (executor != null) {
+            try {
+                executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        parse();
+                    }
+                });
+                return;
+            }
+            catch (RejectedExecutionException ree) {
+                LOGGER.warn("Executor rejected the parse stage.  The "
+                        + "catalog will be parsed on the calling thread.");
+            }
+        }
+        else {
+            LOGGER.warn("No executor available.  The catalog will be "
+                    + "parsed on the calling thread.");
+        }
+        inline = true;
+    }
+
+    /**
+     * Run the diff, download and persist stages on the calling thread
+     * until the catalog has been consumed and all of the retrieved
+     * products have been written.  Then remove the products that no longer
+     * exist in the source holdings.
+     *
+     * @param holdings A snapshot of the local holdings keyed by UUID.  The
+     * map is consumed by this method.
+     * @throws UPGDataException Thrown if the catalog could not be
+     * retrieved or the pipeline was interrupted.
+     */
+    public void run(Map<String, UPGData> holdings) throws UPGDataException {
+
+        snapshot      = holdings;
+        localHoldings = holdings.size();
+        diffStage.start();
+        downloadStage.start();
+        persistStage.start();
+
+        boolean finished = false;
+        try {
+            if (inline) {
+                parse();
+            }
+            else {
+                while (true) {
+                    IntermediateUPGData row = parsed.poll(
+                            POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                    parseStage.depth(parsed.size());
+                    if (row != null) {
+                        diff(row);
+                    }
+                    else if (parseComplete && parsed.isEmpty()) {
+                        break;
+                    }
+                    else {
+                        persist(false);
+                    }
+                    report();
+                }
+            }
+            diffStage.finish();
+            downloads.awaitCompletion();
+            finished = true;
+        }
+        catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            LOGGER.error("Synchronization pipeline interrupted.  "
+                    + toString());
+            throw new UPGDataException(ErrorCodes.APPLICATION_EXCEPTION);
+        }
+        finally {
+            
+            // Any abnormal exit (including a RuntimeException raised by 
+            // the diff or persist stages) must stop the parse stage, 
+            // otherwise the parse worker blocks on the full queue while 
+            // holding an executor thread and the catalog connection.
+            if (!finished) {
+                cancel();
+            }
+            diffStage.finish();
+            downloadStage.finish();
+            persist(true);
+            persistStage.finish();
+        }
+
+        if (progress != null) {
+            progress.checkCancelled();
+        }
+        if (parseError != null) {
+            LOGGER.error("Catalog could not be retrieved.  Products will "
+                    + "not be removed from the local holdings.");
+            throw parseError;
+        }
+        if ((catalog != null) && (catalog.isRetrieved())) {
+            if (catalog.getSize() == 0) {
+                LOGGER.error("Catalog contained no products.  Products "
+                        + "will not be removed from the local holdings.");
+                throw new UPGDataException(ErrorCodes.NO_DATA_RETRIEVED);
+            }
+            remove();
+        }
+        LOGGER.info(toString());
+    }
+
+    /**
+     * Stop the parse stage.  Rows that have already been queued are
+     * discarded.  A parse worker blocked on the full queue notices the
+     * cancellation within <code>POLL_INTERVAL</code> and abandons the
+     * catalog.
+     */
+    public void cancel() {
+        cancelled = true;
+        parsed.clear();
+    }
+
+    /**
+     * Stream the catalog into the parse queue (or directly into the diff
+     * stage if the pipeline is running inline).
+     */
+    private void parse() {
+
+        parseStage.start();
+        CatalogParser.RowHandler handler = new CatalogParser.RowHandler() {
+            @Override
+            public void handle(IntermediateUPGData row) throws IOException {
+                if (cancelled) {
+                    throw new IOException("Synchronization pipeline "
+                            + "cancelled.");
+                }
+                parseStage.processed(1);
+                if (inline) {
+                    diff(row);
+                    report();
+                }
+                else {
+                    try {
+                        
+                        // Offer with a timeout (rather than put) so that a 
+                        // cancelled pipeline always releases the worker.
+                        while (!parsed.offer(
+                                row, 
+                                POLL_INTERVAL, 
+                                TimeUnit.MILLISECONDS)) {
+                            if (cancelled) {
+                                throw new IOException("Synchronization "
+                                        + "pipeline cancelled.");
+                            }
+                        }
+                    }
+                    catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted while queuing "
+                                + "catalog row.");
+                    }
+                    parseStage.depth(parsed.size());
+                }
+            }
+        };
+        try {
+            catalog = source.fetch(handler);
+        }
+        catch (UPGDataException ude) {
+            parseError = ude;
+        }
+        catch (RuntimeException re) {
+            LOGGER.error("Unexpected exception raised while parsing the "
+                    + "catalog.  Exception message [ "
+                    + re.getMessage()
+                    + " ].");
+            parseError = new UPGDataException(
+                    ErrorCodes.APPLICATION_EXCEPTION);
+        }
+        finally {
+            parseStage.finish();
+            parseComplete = true;
+        }
+    }
+
+    /**
+     * Compare a single catalog row against the local snapshot and hand it
+     * to the download stage if it is new or out of date.
+     *
+     * @param row The catalog row.
+     */
+    private void diff(IntermediateUPGData row) {
+
+        if ((progress != null) && (progress.isCancelled())) {
+            cancel();
+            return;
+        }
+        diffStage.processed(1);
+        UPGData local = snapshot.remove(row.getUUID());
+        if (local == null) {
+            added++;
+            download(row, null);
+        }
+        else if (updateService.isUpdateRequired(row, local)) {
+            updated++;
+            download(row, local);
+        }
+        else {
+            unchanged++;
+        }
+    }
+
+    /**
+     * Hand a product to the download stage.  Blocks if the maximum number
+     * of downloads are already in flight.
+     *
+     * @param product The product to retrieve.
+     * @param local The local holdings record (null if the product is new).
+     */
+    private void download(
+            final IntermediateUPGData product,
+            final UPGData             local) {
+
+        // Drain the persist queue first (see the constructor).
+        persist(false);
+        if (progress != null) {
+            progress.plan(1);
+        }
+        try {
+            downloads.submit(new Callable<DownloadStatus>() {
+                @Override
+                public DownloadStatus call() throws Exception {
+                    RetrievedProduct result =
+                            updateService.retrieve(product, local);
+                    downloadStage.processed(1);
+                    if (result == null) {
+                        return null;
+                    }
+                    retrieved.put(result);
+                    return result.getStatus();
+                }
+            });
+        }
+        catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            cancel();
+        }
+        downloadStage.depth(downloads.getInFlight());
+    }
+
+    /**
+     * Move retrieved products from the persist queue to the pending batch
+     * and write the batch once it is full (or if forced).
+     *
+     * @param force True if all retrieved products must be written.
+     */
+    private void persist(boolean force) {
+
+        persistStage.depth(retrieved.size());
+        retrieved.drainTo(pending);
+        if ((pending.size() >= batchSize) ||
+                (force && (pending.size() > 0))) {
+
+            List<UPGData> batch    = new ArrayList<UPGData>(pending.size());
+            Set<String>   existing = new HashSet<String>();
+            for (RetrievedProduct product : pending) {
+                batch.add(product.getData());
+                if (product.isExisting()) {
+                    existing.add(product.getData().getUUID());
+                }
+            }
+            UpsertResult result = store.upsertData(batch, existing);
+            persistFailed += result.getFailed();
+            persistStage.processed(batch.size());
+            pending.clear();
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Persisted batch of [ "
+                        + batch.size()
+                        + " ] products.  "
+                        + result.toString());
+            }
+        }
+    }
+
+    /**
+     * Remove the products remaining in the local snapshot (i.e. those that
+     * were not found in the catalog).  The removals are issued in batches.
+     *
+     * @throws UPGDataException Thrown if the products cannot be removed.
+     */
+    private void remove() throws UPGDataException {
+
+        if (snapshot.size() > 0) {
+            LOGGER.info("Removing [ "
+                    + snapshot.size()
+                    + " ] products from the local holdings.");
+            List<UPGData> retired = new ArrayList<UPGData>(batchSize);
+            for (UPGData local : snapshot.values()) {
+                retired.add(local);
+                if (retired.size() >= batchSize) {
+                    updateService.remove(retired);
+                    removed += retired.size();
+                    retired.clear();
+                }
+            }
+            if (retired.size() > 0) {
+                updateService.remove(retired);
+                removed += retired.size();
+            }
+            snapshot.clear();
+        }
+    }
+
+    /**
+     * Log the state of the pipeline if the progress interval has expired.
+     */
+    private void report() {
+        long now = System.currentTimeMillis();
+        if ((now - lastProgress) >= PROGRESS_INTERVAL) {
+            lastProgress = now;
+            LOGGER.info("Pipeline progress.  " + toString());
+        }
+    }
+
+    /**
+     * Getter method for the number of products added.
+     * @return The number of products added.
+     */
+    public long getAdded() {
+        return added;
+    }
+
+    /**
+     * Getter method for the source catalog.
+     * @return The source catalog (null if it could not be retrieved).
+     */
+    public SourceCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Getter method for the number of products in the local holdings at
+     * the start of the run.
+     * @return The number of products in the local holdings.
+     */
+    public long getLocalHoldings() {
+        return localHoldings;
+    }
+
+    /**
+     * Getter method for the number of retrieved products that could not
+     * be written to the data store.
+     * @return The number of products not written.
+     */
+    public long getPersistFailed() {
+        return persistFailed;
+    }
+
+    /**
+     * Getter method for the number of products removed.
+     * @return The number of products removed.
+     */
+    public long getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Getter method for the statistics associated with each stage.
+     * @return The parse, diff, download and persist stages (in that
+     * order).
+     */
+    public List<Stage> getStages() {
+        return Arrays.asList(parseStage, diffStage, downloadStage, persistStage);
+    }
+
+    /**
+     * Getter method for the number of products that were unchanged.
+     * @return The number of unchanged products.
+     */
+    public long getUnchanged() {
+        return unchanged;
+    }
+
+    /**
+     * Getter method for the number of products updated.
+     * @return The number of products updated.
+     */
+    public long getUpdated() {
+        return updated;
+    }
+
+    /**
+     * Convert to a human-readable String.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("SyncPipeline : Added => [ ");
+        sb.append(getAdded());
+        sb.append(" ], Updated => [ ");
+        sb.append(getUpdated());
+        sb.append(" ], Unchanged => [ ");
+        sb.append(getUnchanged());
+        sb.append(" ], Removed => [ ");
+        sb.append(getRemoved());
+        sb.append(" ], Persist Failed => [ ");
+        sb.append(getPersistFailed());
+        sb.append(" ], Stages => [ ");
+        List<Stage> stages = getStages();
+        for (int i = 0; i < stages.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append("{ ");
+            sb.append(stages.get(i).toString());
+            sb.append(" }");
+        }
+        sb.append(" ].");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,380 @@
+package mil.nga.aero;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import mil.nga.aero.upg.exceptions.ErrorCodes;
+import mil.nga.aero.upg.exceptions.UPGDataException;
+import mil.nga.aero.upg.model.Metrics;
+import mil.nga.types.AeroDataType;
+import mil.nga.types.DownloadStatus;
+import mil.nga.util.DateUtils;
+
+/**
+ * Class used to track the live progress of a single synchronization run
+ * and to request that it be cancelled.  The synchronization thread
+ * records the number of products it plans to download, the download
+ * threads record each product as it completes, and the bytes transferred
+ * are recorded as each file is written.  Any thread (e.g. a REST call)
+ * may read the progress or call <code>cancel()</code>.
+ *
+ * Each run is identified by a job ID so that a caller that started the
+ * run asynchronously can poll its status and, once it has finished,
+ * retrieve the resulting metrics.
+ *
+ * Cancellation is cooperative: once cancelled no further downloads are
+ * started, downloads already in flight are allowed to finish, and the run
+ * stops at the next checkpoint without removing products or accepting
+ * the catalog.
+ *
+ * @author L. Craig Carpenter
+ */
+public class SyncProgress {
+
+    /**
+     * Trigger identifying a pass of the retry lane (rather than a full
+     * synchronization).
+     */
+    public static final String RETRY_TRIGGER = "retry";
+
+    private final    String       jobId;
+    private final    AeroDataType type;
+    private final    String       trigger;
+    private volatile long         startTime;
+    private final    AtomicLong   planned       = new AtomicLong(0);
+    private final    AtomicLong   completed     = new AtomicLong(0);
+    private final    AtomicLong   failed        = new AtomicLong(0);
+    private final    AtomicLong   bytes         = new AtomicLong(0);
+    private volatile String       phase         = "starting";
+    private volatile long         downloadStart = 0;
+    private volatile long         finishTime    = 0;
+    private volatile boolean      cancelled     = false;
+    private volatile String       error;
+    private volatile Metrics      result;
+
+    /**
+     * Constructor.  A new job ID is generated for the run.
+     *
+     * @param type The data type being synchronized.
+     * @param trigger Description of what started the run (e.g. timer).
+     */
+    public SyncProgress(AeroDataType type, String trigger) {
+        this.jobId     = UUID.randomUUID().toString();
+        this.type      = type;
+        this.trigger   = trigger;
+        this.startTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Record bytes written to the local file system.
+     * @param count The number of bytes.
+     */
+    public void addBytes(long count) {
+        bytes.addAndGet(count);
+    }
+
+    /**
+     * Request that the run stop at the next checkpoint.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Throw if the run has been cancelled or the calling thread has been
+     * interrupted.  Called by the synchronization thread before any step
+     * that must not be performed by a partial run (e.g. removing products
+     * or accepting the catalog).
+     *
+     * @throws UPGDataException Thrown if the run has been cancelled or
+     * interrupted.
+     */
+    public void checkCancelled() throws UPGDataException {
+        if (cancelled) {
+            throw new UPGDataException(ErrorCodes.SYNC_CANCELLED);
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new UPGDataException(ErrorCodes.APPLICATION_EXCEPTION);
+        }
+    }
+
+    /**
+     * Record the reason the run failed.
+     * @param message Description of the error.
+     */
+    public void fail(String message) {
+        error = message;
+    }
+
+    /**
+     * Record that the run has finished.
+     */
+    public void finish() {
+        if (finishTime == 0) {
+            finishTime = System.currentTimeMillis();
+            if (cancelled) {
+                phase = "cancelled";
+            }
+            else if (error != null) {
+                phase = "failed";
+            }
+            else {
+                phase = "finished";
+            }
+        }
+    }
+
+    /**
+     * Record products that will be downloaded.
+     * @param count The number of products.
+     */
+    public void plan(long count) {
+        if (count > 0) {
+            if (downloadStart == 0) {
+                downloadStart = System.currentTimeMillis();
+            }
+            planned.addAndGet(count);
+        }
+    }
+
+    /**
+     * Record the outcome of a single download.
+     * @param status The outcome (null if the download raised an exception).
+     */
+    public void record(DownloadStatus status) {
+        completed.incrementAndGet();
+        if ((status != DownloadStatus.SUCCESS) &&
+                (status != DownloadStatus.METADATA_ONLY)) {
+            failed.incrementAndGet();
+        }
+    }
+
+    /**
+     * Setter method for the metrics produced by the run.
+     * @param value The metrics stored for the run.
+     */
+    public void setResult(Metrics value) {
+        result = value;
+    }
+
+    /**
+     * Record that a queued run is starting.  The start time of a queued
+     * run is reset so that the elapsed time does not include the time
+     * spent waiting for the previous run.
+     */
+    public void start() {
+        startTime = System.currentTimeMillis();
+        phase     = "starting";
+    }
+
+    /**
+     * Setter method for the current phase of the run.
+     * @param value Short description of the phase.
+     */
+    public void setPhase(String value) {
+        phase = value;
+    }
+
+    /**
+     * Getter method for the number of bytes written.
+     * @return The number of bytes written.
+     */
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    /**
+     * Getter method for the number of products whose download has
+     * completed (successfully or not).
+     * @return The number of products completed.
+     */
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    /**
+     * Getter method for the time the run has been executing.
+     * @return The elapsed time in milliseconds.
+     */
+    public long getElapsedTime() {
+        return (finishTime != 0 ? finishTime : System.currentTimeMillis())
+                - startTime;
+    }
+
+    /**
+     * Estimate the time required to download the remaining products based
+     * on the rate achieved so far.  For the streaming engines the number
+     * of products still to be identified is unknown, so the estimate only
+     * covers the products identified so far.
+     *
+     * @return The estimated time remaining in milliseconds, or -1 if no
+     * estimate is available yet.
+     */
+    public long getETA() {
+        long done = getCompleted();
+        if ((finishTime != 0) || (downloadStart == 0)) {
+            return (finishTime != 0 ? 0 : -1);
+        }
+        if (done == 0) {
+            return -1;
+        }
+        long elapsed = System.currentTimeMillis() - downloadStart;
+        return (elapsed * getRemaining()) / done;
+    }
+
+    /**
+     * Getter method for the reason the run failed.
+     * @return Description of the error (null if the run did not fail).
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Getter method for the number of downloads that failed.
+     * @return The number of failed downloads.
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Getter method for the time the run finished.
+     * @return The finish time in milliseconds (0 if still running).
+     */
+    public long getFinishTime() {
+        return finishTime;
+    }
+
+    /**
+     * Getter method for the job ID of the run.
+     * @return The job ID.
+     */
+    public String getJobId() {
+        return jobId;
+    }
+
+    /**
+     * Getter method for the current phase of the run.
+     * @return Short description of the phase.
+     */
+    public String getPhase() {
+        return phase;
+    }
+
+    /**
+     * Getter method for the number of products planned for download.
+     * @return The number of products planned.
+     */
+    public long getPlanned() {
+        return planned.get();
+    }
+
+    /**
+     * Getter method for the number of products still to be downloaded.
+     * @return The number of products remaining.
+     */
+    public long getRemaining() {
+        return Math.max(0, getPlanned() - getCompleted());
+    }
+
+    /**
+     * Getter method for the metrics produced by the run.  Excluded from
+     * the JSON form of the progress as it is retrieved separately.
+     * @return The metrics (null until the run has stored them).
+     */
+    @JsonIgnore
+    public Metrics getResult() {
+        return result;
+    }
+
+    /**
+     * Getter method for the time the run started.
+     * @return The start time in milliseconds.
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Getter method for the description of what started the run.
+     * @return The trigger.
+     */
+    public String getTrigger() {
+        return trigger;
+    }
+
+    /**
+     * Getter method for the data type being synchronized.
+     * @return The data type.
+     */
+    public AeroDataType getType() {
+        return type;
+    }
+
+    /**
+     * Determine whether the run has been cancelled.
+     * @return True if cancellation has been requested.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Determine whether the run is a pass of the retry lane.
+     * @return True if the run only re-tries failed products.
+     */
+    public boolean isRetry() {
+        return RETRY_TRIGGER.equals(trigger);
+    }
+
+    /**
+     * Determine whether the run has finished (successfully or not).
+     * @return True if the run has finished.
+     */
+    public boolean isFinished() {
+        return finishTime != 0;
+    }
+
+    /**
+     * Convert to a human-readable String.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("SyncProgress : Job ID => [ ");
+        sb.append(getJobId());
+        sb.append(" ], Type => [ ");
+        sb.append(getType().getText());
+        sb.append(" ], Trigger => [ ");
+        sb.append(getTrigger());
+        sb.append(" ], Started => [ ");
+        sb.append(DateUtils.format(new Date(getStartTime())));
+        sb.append(" ], Phase => [ ");
+        sb.append(getPhase());
+        sb.append(" ], Completed => [ ");
+        sb.append(getCompleted());
+        sb.append(" ], Remaining => [ ");
+        sb.append(getRemaining());
+        sb.append(" ], Failed => [ ");
+        sb.append(getFailed());
+        sb.append(" ], Bytes => [ ");
+        sb.append(getBytes());
+        sb.append(" ], Elapsed => [ ");
+        sb.append(getElapsedTime());
+        sb.append(" ] ms, ETA => [ ");
+        long eta = getETA();
+        sb.append(eta < 0 ? "unknown" : Long.toString(eta) + " ms");
+        sb.append(" ], Cancelled => [ ");
+        sb.append(isCancelled());
+        if (getError() != null) {
+            sb.append(" ], Error => [ ");
+            sb.append(getError());
+        }
+        sb.append(" ].");
+        return sb.toString();
+    }
+}
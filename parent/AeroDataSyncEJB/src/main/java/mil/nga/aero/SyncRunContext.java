@@ -0,0 +1,212 @@
+package mil.nga.aero;
+
+import mil.nga.aero.interfaces.AeroDataMetricsStoreI;
+import mil.nga.aero.interfaces.AeroDataServiceI;
+import mil.nga.aero.interfaces.AeroDataStoreI;
+import mil.nga.aero.interfaces.AeroDataUpdateServiceI;
+import mil.nga.aero.upg.model.Metrics;
+import mil.nga.aero.upg.model.Metrics.MetricsBuilder;
+import mil.nga.aero.upg.model.ResourceLimits;
+import mil.nga.types.AeroDataType;
+import mil.nga.types.DiffEngine;
+import mil.nga.util.FileUtils;
+
+/**
+ * Class holding all of the state associated with a single synchronization
+ * run: the data type, the diff engine and resource limits in effect, the
+ * metrics being accumulated, the live progress, and the handles to the
+ * services of the data type.  <code>DataSyncService</code> is stateless,
+ * so a new context is created by each call to <code>synchronize()</code>
+ * and passed to the methods that need it.  Nothing is shared between runs, which allows
+ * the UPG and JEPP synchronizations to execute concurrently.
+ *
+ * Note: A context is confined to the thread that runs the
+ * synchronization and is not thread-safe.
+ *
+ * @author L. Craig Carpenter
+ */
+public class SyncRunContext {
+
+    private final AeroDataType           type;
+    private final DiffEngine             engine;
+    private final ResourceLimits         limits;
+    private final SyncProgress           progress;
+    private final long                   startTime;
+    private final MetricsBuilder         metrics;
+    private final UnitOfWork.Counters    jdbcCounters;
+    private       long                   contentDownloads = 0;
+    private       AeroDataServiceI       dataService;
+    private       AeroDataUpdateServiceI dataUpdateService;
+    private       AeroDataStoreI         dataStoreService;
+    private       AeroDataMetricsStoreI  metricsStoreService;
+
+    /**
+     * Constructor.  Initializes the metrics for the run.
+     *
+     * @param type The data type to synchronize.
+     * @param engine The algorithm used to compare the holdings.
+     * @param limits The resources the run may consume.
+     * @param progress The live progress of the run.
+     */
+    public SyncRunContext(
+            AeroDataType   type,
+            DiffEngine     engine,
+            ResourceLimits limits,
+            SyncProgress   progress) {
+
+        this.type         = type;
+        this.engine       = engine;
+        this.limits       = limits;
+        this.progress     = progress;
+        this.startTime    = System.currentTimeMillis();
+        this.jdbcCounters = new UnitOfWork.Counters();
+        this.metrics      = new Metrics.MetricsBuilder();
+        metrics.initialize();
+        metrics.executionTime(
+                new java.sql.Date((new java.util.Date()).getTime()));
+        metrics.hostName(FileUtils.getHostName());
+        metrics.jvmName(
+                EJBClientUtilities.getInstance().getServerName());
+    }
+
+    /**
+     * Record products whose content was downloaded.
+     * @param count The number of content downloads.
+     */
+    public void addContentDownloads(long count) {
+        contentDownloads += count;
+    }
+
+    /**
+     * Getter method for the number of products whose content was actually
+     * downloaded (i.e. added or updated) during the run.
+     * @return The number of content downloads.
+     */
+    public long getContentDownloads() {
+        return contentDownloads;
+    }
+
+    /**
+     * Getter method for the AeroDataServiceI interface of the data type.
+     * @return Reference to the proper AeroDataServiceI interface.
+     */
+    public AeroDataServiceI getDataService() {
+        if (dataService == null) {
+            dataService = AeroDataFactory.getInstance().construct(type);
+        }
+        return dataService;
+    }
+
+    /**
+     * Getter method for the AeroDataStoreI interface of the data type.
+     * @return Reference to the proper AeroDataStoreI interface.
+     */
+    public AeroDataStoreI getDataStoreService() {
+        if (dataStoreService == null) {
+            dataStoreService = AeroDataStoreFactory.getInstance()
+                    .construct(type);
+        }
+        return dataStoreService;
+    }
+
+    /**
+     * Getter method for the AeroDataUpdateServiceI interface of the data
+     * type.
+     * @return Reference to the proper AeroDataUpdateServiceI interface.
+     */
+    public AeroDataUpdateServiceI getDataUpdateService() {
+        if (dataUpdateService == null) {
+            dataUpdateService = AeroDataUpdateFactory.getInstance()
+                    .construct(type);
+        }
+        return dataUpdateService;
+    }
+
+    /**
+     * Getter method for the algorithm used to compare the holdings.
+     * @return The diff engine.
+     */
+    public DiffEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Getter method for the JDBC activity of the run.  The counters are
+     * bound (see <code>UnitOfWork.bind()</code>) to the synchronization
+     * thread and to the download threads while they work on the run.
+     * @return The JDBC counters of the run.
+     */
+    public UnitOfWork.Counters getJDBCCounters() {
+        return jdbcCounters;
+    }
+
+    /**
+     * Getter method for the resources the run may consume.
+     * @return The resource limits.
+     */
+    public ResourceLimits getLimits() {
+        return limits;
+    }
+
+    /**
+     * Getter method for the metrics being accumulated for the run.
+     * @return The metrics builder.
+     */
+    public MetricsBuilder getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Getter method for the AeroDataMetricsStoreI interface of the data
+     * type.
+     * @return Reference to the proper AeroDataMetricsStoreI interface.
+     */
+    public AeroDataMetricsStoreI getMetricsStoreService() {
+        if (metricsStoreService == null) {
+            metricsStoreService = AeroMetricsStoreFactory.getInstance()
+                    .construct(type);
+        }
+        return metricsStoreService;
+    }
+
+    /**
+     * Getter method for the live progress of the run.
+     * @return The progress (registered with the SyncCoordinator).
+     */
+    public SyncProgress getProgress() {
+        return progress;
+    }
+
+    /**
+     * Getter method for the time the run started.
+     * @return The start time in milliseconds.
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Getter method for the data type being synchronized.
+     * @return The data type.
+     */
+    public AeroDataType getType() {
+        return type;
+    }
+
+    /**
+     * Convert to a human-readable String.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("SyncRunContext : Type => [ ");
+        sb.append(getType().getText());
+        sb.append(" ], Engine => [ ");
+        sb.append(getEngine().getText());
+        sb.append(" ], Start Time => [ ");
+        sb.append(getStartTime());
+        sb.append(" ], ");
+        sb.append(getLimits().toString());
+        return sb.toString();
+    }
+}
@@ -0,0 +1,336 @@
+package mil.nga.aero;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Class used to share a single database connection, and the statements
+ * prepared against it, between all of the JDBC calls made by one thread
+ * over the course of a synchronization run (or one batch of it).
+ *
+ * The unit of work is bound to the calling thread by <code>begin()</code>
+ * and released by <code>end()</code>.  Calls may be nested; the connection
+ * is only closed when the outermost unit of work ends.  The JDBC data
+ * stores obtain their connections and statements through the static
+ * <code>getConnection()</code> and <code>prepare()</code> methods and
+ * return them through <code>release()</code>.  If no unit of work is bound
+ * to the current thread these methods fall back to acquiring (and
+ * closing) a pooled connection per call, exactly as before.
+ *
+ * Statements prepared against the shared connection are cached by SQL
+ * text for the life of the unit of work.  Callers must therefore set all
+ * parameters each time a statement is used and must close any
+ * <code>ResultSet</code> before the same SQL is prepared again.
+ *
+ * The connections acquired, the time spent waiting on the connection
+ * pool and the statements prepared and reused are recorded in the
+ * <code>Counters</code> bound to the current thread (if any) by
+ * <code>bind()</code>.  Each synchronization run binds its own counters
+ * to the threads doing its work, so the values reported in the metrics of
+ * concurrent runs do not overlap.
+ *
+ * Callers that demarcate their own transactions on the connection (i.e.
+ * <code>BatchWriter</code>) must not use the shared connection and should
+ * call <code>acquire()</code> instead.
+ *
+ * @author L. Craig Carpenter
+ */
+public class UnitOfWork {
+
+    /**
+     * Set up the LogBack system for use throughout the class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+            UnitOfWork.class);
+
+    /**
+     * The unit of work bound to the current thread (if any).
+     */
+    private static final ThreadLocal<UnitOfWork> CURRENT =
+            new ThreadLocal<UnitOfWork>();
+
+    /**
+     * The counters bound to the current thread (if any).
+     */
+    private static final ThreadLocal<Counters> COUNTERS =
+            new ThreadLocal<Counters>();
+
+    private final Connection                     conn;
+    private final Map<String, PreparedStatement> statements =
+            new HashMap<String, PreparedStatement>();
+    private       int                            depth      = 1;
+    private       long                           prepared   = 0;
+    private       long                           reused     = 0;
+
+    /**
+     * Private constructor.  Use <code>begin()</code>.
+     *
+     * @param conn The connection shared by the unit of work.
+     */
+    private UnitOfWork(Connection conn) {
+        this.conn = conn;
+    }
+
+    /**
+     * Begin a unit of work on the current thread.  If one is already
+     * active the existing unit of work is joined.
+     *
+     * @param datasource The datasource from which the connection will be
+     * acquired.
+     * @throws SQLException Thrown if a connection cannot be acquired.
+     */
+    public static void begin(DataSource datasource) throws SQLException {
+        UnitOfWork current = CURRENT.get();
+        if (current != null) {
+            current.depth++;
+        }
+        else {
+            CURRENT.set(new UnitOfWork(acquire(datasource)));
+        }
+    }
+
+    /**
+     * End the unit of work bound to the current thread.  When the
+     * outermost unit of work ends the cached statements and the
+     * connection are closed.
+     */
+    public static void end() {
+        UnitOfWork current = CURRENT.get();
+        if (current != null) {
+            current.depth--;
+            if (current.depth <= 0) {
+                CURRENT.remove();
+                current.close();
+            }
+        }
+    }
+
+    /**
+     * Bind the input counters to the current thread.  All subsequent JDBC
+     * activity on the thread is recorded in them.  Callers must restore
+     * the previous binding when they are done:
+     *
+     * <pre>
+     *   Counters previous = UnitOfWork.bind(counters);
+     *   try { ... } finally { UnitOfWork.bind(previous); }
+     * </pre>
+     *
+     * @param counters The counters to bind (null to unbind).
+     * @return The counters previously bound to the thread (may be null).
+     */
+    public static Counters bind(Counters counters) {
+        Counters previous = COUNTERS.get();
+        if (counters == null) {
+            COUNTERS.remove();
+        }
+        else {
+            COUNTERS.set(counters);
+        }
+        return previous;
+    }
+
+    /**
+     * Getter method for the counters bound to the current thread.
+     * @return The bound counters (null if none are bound).
+     */
+    public static Counters getCounters() {
+        return COUNTERS.get();
+    }
+
+    /**
+     * Determine whether a unit of work is bound to the current thread.
+     * @return True if a unit of work is active.
+     */
+    public static boolean isActive() {
+        return (CURRENT.get() != null);
+    }
+
+    /**
+     * Acquire a connection directly from the input datasource, recording
+     * the time spent waiting on the pool.  The caller is responsible for
+     * closing the connection.
+     *
+     * @param datasource The datasource.
+     * @return A pooled connection.
+     * @throws SQLException Thrown if a connection cannot be acquired.
+     */
+    public static Connection acquire(DataSource datasource)
+            throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return datasource.getConnection();
+        }
+        finally {
+            Counters counters = COUNTERS.get();
+            if (counters != null) {
+                counters.poolWaitNanos.addAndGet(System.nanoTime() - start);
+                counters.connectionsAcquired.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Obtain a connection.  If a unit of work is bound to the current
+     * thread its connection is returned, otherwise a connection is
+     * acquired from the input datasource.
+     *
+     * @param datasource The datasource.
+     * @return A connection that must be returned with
+     * <code>release()</code>.
+     * @throws SQLException Thrown if a connection cannot be acquired.
+     */
+    public static Connection getConnection(DataSource datasource)
+            throws SQLException {
+        UnitOfWork current = CURRENT.get();
+        if (current != null) {
+            return current.conn;
+        }
+        return acquire(datasource);
+    }
+
+    /**
+     * Prepare the input SQL.  If the connection belongs to the unit of
+     * work bound to the current thread a cached statement is returned
+     * when available.
+     *
+     * @param conn The connection obtained from <code>getConnection()</code>.
+     * @param sql The SQL to prepare.
+     * @return A prepared statement that must be returned with
+     * <code>release()</code>.
+     * @throws SQLException Thrown if the statement cannot be prepared.
+     */
+    public static PreparedStatement prepare(Connection conn, String sql)
+            throws SQLException {
+        UnitOfWork current  = CURRENT.get();
+        Counters   counters = COUNTERS.get();
+        if ((current != null) && (current.conn == conn)) {
+            PreparedStatement stmt = current.statements.get(sql);
+            if (stmt != null) {
+                stmt.clearParameters();
+                stmt.clearBatch();
+                current.reused++;
+                if (counters != null) {
+                    counters.statementsReused.incrementAndGet();
+                }
+                return stmt;
+            }
+            stmt = conn.prepareStatement(sql);
+            current.statements.put(sql, stmt);
+            current.prepared++;
+            if (counters != null) {
+                counters.statementsPrepared.incrementAndGet();
+            }
+            return stmt;
+        }
+        if (counters != null) {
+            counters.statementsPrepared.incrementAndGet();
+        }
+        return conn.prepareStatement(sql);
+    }
+
+    /**
+     * Return a statement obtained from <code>prepare()</code>.  Statements
+     * cached by the current unit of work are left open.
+     *
+     * @param stmt The statement (may be null).
+     */
+    public static void release(Statement stmt) {
+        if (stmt != null) {
+            UnitOfWork current = CURRENT.get();
+            if ((current == null) ||
+                    (!current.statements.containsValue(stmt))) {
+                try { stmt.close(); } catch (Exception e) {}
+            }
+        }
+    }
+
+    /**
+     * Return a connection obtained from <code>getConnection()</code>.  The
+     * connection belonging to the current unit of work is left open.
+     *
+     * @param conn The connection (may be null).
+     */
+    public static void release(Connection conn) {
+        if (conn != null) {
+            UnitOfWork current = CURRENT.get();
+            if ((current == null) || (current.conn != conn)) {
+                try { conn.close(); } catch (Exception e) {}
+            }
+        }
+    }
+
+    /**
+     * Close the cached statements and the connection.
+     */
+    private void close() {
+        for (PreparedStatement stmt : statements.values()) {
+            try { stmt.close(); } catch (Exception e) {}
+        }
+        try { conn.close(); } catch (Exception e) {}
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Unit of work complete.  Statements prepared [ "
+                    + prepared
+                    + " ], statements reused [ "
+                    + reused
+                    + " ].");
+        }
+        statements.clear();
+    }
+
+    /**
+     * JDBC activity recorded for a single synchronization run.  The
+     * counters are updated by every thread to which they are bound, so
+     * they are thread-safe.
+     */
+    public static class Counters {
+
+        private final AtomicLong connectionsAcquired = new AtomicLong(0);
+        private final AtomicLong poolWaitNanos       = new AtomicLong(0);
+        private final AtomicLong statementsPrepared  = new AtomicLong(0);
+        private final AtomicLong statementsReused    = new AtomicLong(0);
+
+        /**
+         * Getter method for the number of connections acquired from the
+         * pool.
+         * @return The number of connections acquired.
+         */
+        public long getConnectionsAcquired() {
+            return connectionsAcquired.get();
+        }
+
+        /**
+         * Getter method for the time spent waiting on the connection pool.
+         * @return The pool wait time in milliseconds.
+         */
+        public long getPoolWaitTime() {
+            return poolWaitNanos.get() / 1000000L;
+        }
+
+        /**
+         * Getter method for the number of statements prepared.
+         * @return The number of statements prepared.
+         */
+        public long getStatementsPrepared() {
+            return statementsPrepared.get();
+        }
+
+        /**
+         * Getter method for the number of statements served from a unit
+         * of work cache.
+         * @return The number of statements reused.
+         */
+        public long getStatementsReused() {
+            return statementsReused.get();
+        }
+    }
+}
@@ -28,6 +28,22 @@ public interface AeroDataConstants {
      */
     public static String UPG_BASE_URL = "UPG.base.URL";
     
+    /**
+     * Number of UPG products downloaded concurrently.
+     */
+    public static final String UPG_DOWNLOAD_THREADS = "UPG.download.threads";
+    
+    /**
+     * Maximum number of HTTP connections used to download UPG products.
+     */
+    public static final String UPG_MAX_CONNECTIONS = "UPG.max.connections";
+    
+    /**
+     * Maximum aggregate rate (bytes per second) at which UPG products are 
+     * downloaded.
+     */
+    public static final String UPG_BANDWIDTH_LIMIT = "UPG.bandwidth.limit";
+    
     /**
      * The target URL from which to retrieve the JSON-formatted UPG data.
      */
@@ -43,11 +59,285 @@ public interface AeroDataConstants {
      */
     public static String JEPP_BASE_URL = "JEPP.base.URL";
     
+    /**
+     * Number of JEPP products downloaded concurrently.
+     */
+    public static final String JEPP_DOWNLOAD_THREADS = "JEPP.download.threads";
+    
+    /**
+     * Maximum number of HTTP connections used to download JEPP products.
+     */
+    public static final String JEPP_MAX_CONNECTIONS = "JEPP.max.connections";
+    
+    /**
+     * Maximum aggregate rate (bytes per second) at which JEPP products are 
+     * downloaded.
+     */
+    public static final String JEPP_BANDWIDTH_LIMIT = "JEPP.bandwidth.limit";
+    
+    /**
+     * Default number of products downloaded concurrently.
+     */
+    public static final int DEFAULT_DOWNLOAD_THREADS = 4;
+    
+    /**
+     * Default download rate limit (0 for unlimited).
+     */
+    public static final long DEFAULT_BANDWIDTH_LIMIT = 0;
+    
+    /**
+     * Flag indicating that the source catalog should be parsed directly 
+     * from the HTTP response stream rather than being read into memory 
+     * first.
+     */
+    public static final String CATALOG_STREAMING = "catalog.streaming";
+    
+    /**
+     * Number of threads used to convert the source catalog when it is not
+     * streamed.  Defaults to the number of available processors.
+     */
+    public static final String CATALOG_BUILD_THREADS = "catalog.build.threads";
+    
+    /**
+     * Flag indicating that the catalog should be requested with the 
+     * validators of the last accepted catalog (i.e. a conditional GET).
+     */
+    public static final String CATALOG_CONDITIONAL_FETCH = 
+            "catalog.conditional.fetch";
+    
+    /**
+     * Maximum amount of time (in milliseconds) a synchronization may be 
+     * skipped because the catalog is unchanged.  Once exceeded a full 
+     * synchronization is performed so that missing files are detected.
+     */
+    public static final String CATALOG_FULL_SYNC_INTERVAL = 
+            "catalog.full.sync.interval.ms";
+    
+    /**
+     * Default maximum amount of time a synchronization may be skipped.
+     */
+    public static final long DEFAULT_CATALOG_FULL_SYNC_INTERVAL = 
+            24 * 60 * 60 * 1000;
+    
+    /**
+     * Algorithm used to compare the source holdings against the local 
+     * holdings (<code>memory</code>, <code>merge</code>, 
+     * <code>database</code> or <code>pipeline</code>).
+     * @see mil.nga.types.DiffEngine
+     */
+    public static final String SYNC_DIFF_ENGINE = "sync.diff.engine";
+    
+    /**
+     * Number of records exchanged with the data store per call by the 
+     * <code>merge</code> (holdings read per page) and <code>database</code> 
+     * (catalog rows staged per batch) engines.
+     */
+    public static final String SYNC_DIFF_PAGE_SIZE = "sync.diff.page.size";
+    
+    /**
+     * Default number of records exchanged with the data store per call.
+     */
+    public static final int DEFAULT_SYNC_DIFF_PAGE_SIZE = 1000;
+    
+    /**
+     * JDBC fetch size used when the <code>memory</code> engine reads the 
+     * snapshot of the local holdings.
+     */
+    public static final String SYNC_SNAPSHOT_FETCH_SIZE = 
+            "sync.snapshot.fetch.size";
+    
+    /**
+     * Default JDBC fetch size used when reading the holdings snapshot.
+     */
+    public static final int DEFAULT_SYNC_SNAPSHOT_FETCH_SIZE = 5000;
+    
+    /**
+     * Capacity of the queues between the stages of the 
+     * <code>pipeline</code> engine.
+     */
+    public static final String SYNC_PIPELINE_QUEUE_SIZE = 
+            "sync.pipeline.queue.size";
+    
+    /**
+     * Default capacity of the queues between pipeline stages.
+     */
+    public static final int DEFAULT_SYNC_PIPELINE_QUEUE_SIZE = 10000;
+    
+    /**
+     * Action taken when a synchronization is triggered for a data type 
+     * that is already being synchronized (<code>skip</code> or 
+     * <code>queue</code>).
+     * @see mil.nga.types.OverlapPolicy
+     */
+    public static final String SYNC_OVERLAP_POLICY = "sync.overlap.policy";
+    
+    /**
+     * Delay (in milliseconds) before a product that failed to download is 
+     * first re-tried by the retry lane.  The delay doubles with each 
+     * further failure.
+     */
+    public static final String RETRY_BACKOFF_INITIAL = 
+            "retry.backoff.initial.ms";
+    
+    /**
+     * Default initial retry delay (5 minutes).
+     */
+    public static final long DEFAULT_RETRY_BACKOFF_INITIAL = 5 * 60 * 1000;
+    
+    /**
+     * Maximum delay (in milliseconds) between retries of a single product.
+     */
+    public static final String RETRY_BACKOFF_MAX = "retry.backoff.max.ms";
+    
+    /**
+     * Default maximum retry delay (4 hours, the interval of the full 
+     * synchronization).
+     */
+    public static final long DEFAULT_RETRY_BACKOFF_MAX = 4 * 60 * 60 * 1000;
+    
+    /**
+     * Interval (in milliseconds) between passes of the retry lane.
+     */
+    public static final String RETRY_INTERVAL = "retry.interval.ms";
+    
+    /**
+     * Default interval between passes of the retry lane (15 minutes).
+     */
+    public static final long DEFAULT_RETRY_INTERVAL = 15 * 60 * 1000;
+    
+    /**
+     * Number of failed records read per page by the retry lane.
+     */
+    public static final String RETRY_PAGE_SIZE = "retry.page.size";
+    
+    /**
+     * Default number of failed records read per page.
+     */
+    public static final int DEFAULT_RETRY_PAGE_SIZE = 500;
+    
+    /**
+     * Maximum number of catalog rows sorted in memory before they are 
+     * spilled to disk.
+     */
+    public static final String CATALOG_SORT_CHUNK_SIZE = 
+            "catalog.sort.chunk.size";
+    
+    /**
+     * Default maximum number of catalog rows sorted in memory.
+     */
+    public static final int DEFAULT_CATALOG_SORT_CHUNK_SIZE = 50000;
+    
+    /**
+     * Number of statements sent to the database per round trip (and 
+     * committed per transaction) by the batch insert, update and delete 
+     * operations.
+     */
+    public static final String JDBC_BATCH_SIZE = "jdbc.batch.size";
+    
+    /**
+     * Default number of statements per batch.
+     */
+    public static final int DEFAULT_JDBC_BATCH_SIZE = 500;
+    
+    /**
+     * Directory used to hold the sorted catalog (and intermediate sort 
+     * runs).  Defaults to <code>java.io.tmpdir</code>.
+     */
+    public static final String CATALOG_SPOOL_DIR = "catalog.spool.dir";
+    
+    /**
+     * Minimum age (in milliseconds) of an entry in the staging area before 
+     * it is considered orphaned and removed at startup.
+     */
+    public static final String STAGING_SWEEP_MIN_AGE = 
+            "staging.sweep.min.age.ms";
+    
+    /**
+     * Default minimum age of orphaned staging entries.
+     */
+    public static final long DEFAULT_STAGING_SWEEP_MIN_AGE = 60 * 60 * 1000;
+    
+    /**
+     * Flag indicating that downloads should be staged inside the holdings
+     * volume (i.e. <code>&lt;download.dir&gt;/.staging</code>) rather than
+     * under <code>java.io.tmpdir</code>.  This allows validated files to be 
+     * published with an atomic rename rather than a copy and delete.
+     */
+    public static final String STAGING_IN_HOLDINGS = "staging.in.holdings";
+    
+    /**
+     * Name of the hidden staging directory created inside the holdings 
+     * volume.
+     */
+    public static final String HOLDINGS_STAGING_DIR = ".staging";
+    
+    /**
+     * Suffix applied to files while they are being downloaded.
+     */
+    public static final String PARTIAL_FILE_SUFFIX = ".part";
+    
     /**
      * Default user agent for the HTTP Get request.
      */
     public static String DEFAULT_USER_AGENT = "Mozilla/5.0";
-    
+
+    /**
+     * Maximum number of pooled HTTP connections shared across all routes.
+     */
+    public static final String HTTP_MAX_TOTAL_CONNECTIONS =
+            "http.pool.max.total";
+
+    /**
+     * Maximum number of pooled HTTP connections to any single route
+     * (i.e. the Leidos host).
+     */
+    public static final String HTTP_MAX_CONNECTIONS_PER_ROUTE =
+            "http.pool.max.per.route";
+
+    /**
+     * Amount of time (in milliseconds) an idle pooled connection is kept
+     * alive when the server does not supply a Keep-Alive header.
+     */
+    public static final String HTTP_KEEP_ALIVE_MILLIS = "http.keep.alive.ms";
+
+    /**
+     * Default value for the maximum number of pooled HTTP connections.
+     */
+    public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 20;
+
+    /**
+     * Default value for the maximum number of pooled HTTP connections per
+     * route.
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 10;
+
+    /**
+     * Default keep-alive period (in milliseconds) for pooled connections.
+     */
+    public static final long DEFAULT_KEEP_ALIVE_MILLIS = 30 * 1000;
+
+    /**
+     * Size (in bytes) of the buffers used to copy downloaded products to
+     * disk.
+     */
+    public static final String DOWNLOAD_BUFFER_SIZE = "download.buffer.size";
+
+    /**
+     * Maximum number of idle download buffers retained for re-use.
+     */
+    public static final String DOWNLOAD_BUFFER_POOL_SIZE =
+            "download.buffer.pool.size";
+
+    /**
+     * Default size (in bytes) of the download buffers.
+     */
+    public static final int DEFAULT_DOWNLOAD_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Default maximum number of idle download buffers retained for re-use.
+     */
+    public static final int DEFAULT_DOWNLOAD_BUFFER_POOL_SIZE = 16;
+
     /**
      * Property containing the Oracle driver class (varies by Oracle client 
      * version)
@@ -4,6 +4,7 @@ import javax.ejb.Remote;
 
 import mil.nga.aero.upg.exceptions.UPGDataException;
 import mil.nga.aero.upg.model.RawUPGData;
+import mil.nga.aero.upg.model.SourceCatalog;
 
 /**
  * Interface implemented by classes designed to obtain information on 
@@ -23,4 +24,26 @@ public interface AeroDataServiceI {
      * raw data from the source.
      */
     public RawUPGData getRawData() throws UPGDataException;
+    
+    /**
+     * Retrieve the UPG/JEPP source catalog, parsing the JSON directly from
+     * the HTTP response stream.  The catalog is flagged as unchanged if 
+     * nothing has been published since the last accepted run.
+     * 
+     * @return The source catalog.
+     * @throws UPGDataException Thrown if there are problems retrieving the
+     * source holdings.
+     */
+    public SourceCatalog getSourceCatalog() throws UPGDataException;
+
+    /**
+     * Retrieve the UPG/JEPP source catalog as above, but rather than
+     * returning the holdings, write them to a spool file sorted by UUID.
+     * The caller is responsible for deleting the spool file.
+     *
+     * @return The source catalog.
+     * @throws UPGDataException Thrown if there are problems retrieving the
+     * source holdings.
+     */
+    public SourceCatalog getSortedSourceCatalog() throws UPGDataException;
 }
@@ -1,11 +1,16 @@
 package mil.nga.aero.interfaces;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.ejb.Remote;
 
+import mil.nga.aero.upg.model.IntermediateUPGData;
+import mil.nga.aero.upg.model.StagedDelta;
 import mil.nga.aero.upg.model.UPGData;
+import mil.nga.aero.upg.model.UpsertResult;
 
 /**
  * Interface documenting the methods required to keep the back-end data
@@ -26,6 +31,15 @@ public interface AeroDataStoreI {
      */
     public void deleteData(String uuid);
     
+    /**
+     * Delete all records that match any of the input UUIDs.  The deletes 
+     * are issued in batches.
+     * 
+     * @param uuids The UUIDs to be deleted.
+     * @return The number of records deleted.
+     */
+    public int deleteData(Collection<String> uuids);
+    
     /**
      * Select a UPGData record from the target data store based on the input 
      * UUID.
@@ -43,7 +57,66 @@ public interface AeroDataStoreI {
      * UPGData POJO.
      */
     public Map<String, UPGData> getData();
-    
+
+    /**
+     * Get a single page of UPGData records from the data store in UUID
+     * order.  Used to walk the local holdings without loading the entire
+     * table into memory.
+     *
+     * @param afterUUID Only records with a UUID greater than this value
+     * are returned.  If null, the first page is returned.
+     * @param limit The maximum number of records to return.
+     * @return The records ordered by UUID.  Empty once the end of the
+     * data store has been reached.  Null if the page could not be read.
+     */
+    public List<UPGData> getData(String afterUUID, int limit);
+
+    /**
+     * Get a single page of the UPGData records that failed to download 
+     * in UUID order.  Only the failed records are read (via an index) so 
+     * the cost does not depend on the size of the data store.
+     *
+     * @param afterUUID Only records with a UUID greater than this value
+     * are returned.  If null, the first page is returned.
+     * @param limit The maximum number of records to return.
+     * @return The failed records ordered by UUID.  Empty once the last 
+     * failed record has been reached, null if the page could not be read.
+     */
+    public List<UPGData> getFailedData(String afterUUID, int limit);
+
+    /**
+     * Get a snapshot of the local holdings containing only the attributes 
+     * required to calculate the differences against the source catalog.  
+     * The records are not sorted and the display-only attributes (i.e. 
+     * the local LINK) are not populated.
+     *
+     * @param fetchSize The number of rows retrieved per round trip.
+     * @return A Map containing the local holdings keyed by UUID.
+     */
+    public Map<String, UPGData> getSyncSnapshot(int fetchSize);
+
+    /**
+     * Remove all products from the staging table used by the database
+     * diff engine.
+     */
+    public void clearStaging();
+
+    /**
+     * Bulk-load a set of source catalog products into the staging table.
+     *
+     * @param data The source catalog products to stage.
+     * @return The number of products staged (0 if the insert failed).
+     */
+    public int stageData(List<IntermediateUPGData> data);
+
+    /**
+     * Calculate the products to add, update and remove by comparing the
+     * staging table against the local holdings within the data store.
+     *
+     * @return The differences, or null if they could not be calculated.
+     */
+    public StagedDelta getStagedDelta();
+
     /**
      * Retrieve a complete list of unique TYPE fields from the data store.
      * @return A list of TYPEs
@@ -84,6 +157,15 @@ public interface AeroDataStoreI {
      * information.
      */
     public void insertData(UPGData data);
+    
+    /**
+     * Persist (insert) all of the input UPGData objects.  The inserts are 
+     * issued in batches.
+     * 
+     * @param data The UPGData objects to insert.
+     * @return The number of records inserted.
+     */
+    public int insertData(Collection<UPGData> data);
 
     
     /**
@@ -95,4 +177,39 @@ public interface AeroDataStoreI {
      */
     public int updateData(UPGData data);
     
+    /**
+     * Persist (update) all of the input UPGData objects.  The updates are 
+     * issued in batches.
+     * 
+     * @param data The UPGData objects to update.
+     * @return The number of records updated.
+     */
+    public int updateData(Collection<UPGData> data);
+    
+    /**
+     * Persist (insert or update) the information associated with the input
+     * UPGData object.  The operation is idempotent: the record is inserted 
+     * if the UUID does not exist and updated otherwise.
+     * 
+     * @param data UPGData object containing updated state 
+     * information.
+     * @param expectExisting True if the record is expected to already 
+     * exist (the upsert does not report which branch was taken).
+     * @return Whether the record was inserted, updated or failed.
+     */
+    public UpsertResult upsertData(UPGData data, boolean expectExisting);
+    
+    /**
+     * Persist (insert or update) all of the input UPGData objects.  The 
+     * upserts are issued in batches.
+     * 
+     * @param data The UPGData objects to upsert.
+     * @param existing The UUIDs of the objects expected to already exist 
+     * (may be null if all of the objects are new).
+     * @return The number of records inserted, updated and failed.
+     */
+    public UpsertResult upsertData(
+            Collection<UPGData> data, 
+            Set<String>         existing);
+    
 }
@@ -1,10 +1,14 @@
 package mil.nga.aero.interfaces;
 
+import java.util.Collection;
+
 import javax.ejb.Remote;
 
 import mil.nga.aero.upg.exceptions.UPGDataException;
 import mil.nga.aero.upg.model.IntermediateUPGData;
+import mil.nga.aero.upg.model.RetrievedProduct;
 import mil.nga.aero.upg.model.UPGData;
+import mil.nga.types.DownloadStatus;
 
 /**
  * Interface defining the methods that will need to be implemented by session
@@ -21,8 +25,10 @@ public interface AeroDataUpdateServiceI {
      * 
      * @param product Object representing the product to add to local 
      * holdings.
+     * @return The outcome of the product download.
      */
-    public void add(IntermediateUPGData product) throws UPGDataException;
+    public DownloadStatus add(IntermediateUPGData product) 
+            throws UPGDataException;
     
     /**
      * Remove the identified product from the local holdings.
@@ -32,13 +38,76 @@ public interface AeroDataUpdateServiceI {
      */
     public void remove(UPGData product) throws UPGDataException;
     
+    /**
+     * Remove a set of products from the local holdings.  The on-disk files
+     * are removed individually and the database records are deleted in
+     * batches.
+     * 
+     * @param products The products to remove.
+     * @return The number of database records deleted.
+     * @throws UPGDataException Thrown if there are problems removing the
+     * products.
+     */
+    public int remove(Collection<UPGData> products) throws UPGDataException;
+    
     /**
      * Update the identified product in the local holdings.
      * 
      * @param product Object representing the product to update in local 
      * holdings.
+     * @return The outcome of the product download.
+     */
+    public DownloadStatus update(IntermediateUPGData product) 
+            throws UPGDataException;
+    
+    /**
+     * Update the identified product in the local holdings.  If the content
+     * of the source product is unchanged (i.e. the source hash matches the 
+     * stored or calculated hash of the file already on disk) only the 
+     * metadata is updated.
+     * 
+     * @param product Object representing the product to update in local 
+     * holdings.
+     * @param localHolding The current local holdings record for the product 
+     * (may be null).
+     * @return The outcome of the product update.
+     */
+    public DownloadStatus update(
+            IntermediateUPGData product, 
+            UPGData             localHolding) throws UPGDataException;
+    
+    /**
+     * Retrieve the identified product from the source holdings without 
+     * persisting it.  The caller is responsible for writing the returned 
+     * record to the data store.
+     * 
+     * @param product Object representing the product to retrieve.
+     * @param localHolding The current local holdings record for the product 
+     * (null if the product is new).
+     * @return The record to persist and the outcome of the retrieval.
+     */
+    public RetrievedProduct retrieve(
+            IntermediateUPGData product, 
+            UPGData             localHolding) throws UPGDataException;
+    
+    /**
+     * Re-attempt the download of a product that previously failed using 
+     * only its local holdings record.  The download failed flag is 
+     * cleared if the download succeeds.
+     * 
+     * @param failed The local holdings record of the failed product.
+     * @return The outcome of the retry.
+     */
+    public DownloadStatus retry(UPGData failed) throws UPGDataException;
+    
+    /**
+     * Determine whether a failed product can be re-tried from its local 
+     * holdings record alone (i.e. it holds the source link and hash).
+     * 
+     * @param failed The local holdings record of the failed product.
+     * @return True if the product can be re-tried.
      */
-    public void update(IntermediateUPGData product) throws UPGDataException;
+    public boolean isRetryable(UPGData failed);
     
     /**
      * Method to determine whether or not the local holdings need to be
@@ -1,6 +1,5 @@
 package mil.nga.aero.jepp;
 
-import java.text.SimpleDateFormat;
 import java.util.Date;
 
 import javax.ejb.EJB;
@@ -12,6 +11,7 @@ import mil.nga.aero.DataSyncService;
 import mil.nga.aero.EJBClientUtilities;
 import mil.nga.aero.upg.exceptions.UPGDataException;
 import mil.nga.types.AeroDataType;
+import mil.nga.util.DateUtils;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,18 +33,6 @@ public class JEPPDataUpdateTimer {
     private static final Logger LOGGER = LoggerFactory.getLogger(
             JEPPDataUpdateTimer.class);
     
-    /** 
-     * Format associated with dates incoming from the target UPG data source.
-     */
-    private static final String DATE_FORMAT_STRING = "yyyy-MM-dd HH:mm:ss";
-            
-    /**
-     * DateFormat object used to convert the String based last-update date 
-     * retrieved from the target data store.
-     */
-    private static final SimpleDateFormat formatter = 
-                new SimpleDateFormat(DATE_FORMAT_STRING);
-    
     /**
      * Container-injected reference to the UPGDataService session bean.
      */
@@ -86,12 +74,12 @@ public class JEPPDataUpdateTimer {
     private void scheduledTimeout(final Timer t) {
         
         LOGGER.info("JEPP data synchronization service launched at [ "
-                + formatter.format(new Date(System.currentTimeMillis()))
+                + DateUtils.format(new Date(System.currentTimeMillis()))
                 + " ].");
         
         try {
             if (getDataSyncService() != null) {
-                getDataSyncService().synchronize(AeroDataType.JEPP);
+                getDataSyncService().synchronize(AeroDataType.JEPP, "timer");
             }
             else {
                 LOGGER.error("Application error encountered!  Container " 
@@ -0,0 +1,134 @@
+package mil.nga.aero.jepp;
+
+import java.util.Date;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.EJB;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.Timeout;
+import javax.ejb.Timer;
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+
+import mil.nga.aero.DataSyncService;
+import mil.nga.aero.EJBClientUtilities;
+import mil.nga.aero.RetryLane;
+import mil.nga.aero.upg.exceptions.UPGDataException;
+import mil.nga.types.AeroDataType;
+import mil.nga.util.DateUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Timer driving the retry lane for JEPP data.  Products that failed to
+ * download are re-tried far more frequently than the full synchronization
+ * runs, without retrieving the source catalog.  This is a separate class
+ * from the <code>JEPPDataUpdateTimer</code> so that the retry timer is not
+ * blocked by the (singleton) lock held while a full synchronization runs.
+ *
+ * Unlike the synchronization timers the interval is configurable
+ * (<code>retry.interval.ms</code>) because it has to be tuned together
+ * with the retry backoff, so the timer is created programmatically at
+ * start-up rather than through <code>@Schedule</code>.
+ *
+ * @author L. Craig Carpenter
+ *
+ */
+@Singleton
+@Startup
+public class JEPPRetryTimer {
+
+    /**
+     * Set up the logging system for use throughout the class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+            JEPPRetryTimer.class);
+
+    /**
+     * Container-injected reference to the DataSyncService session bean.
+     */
+    @EJB
+    DataSyncService dataSyncService;
+
+    /**
+     * Container-injected timer service used to create the interval timer.
+     */
+    @Resource
+    TimerService timerService;
+
+    /**
+     * Default constructor.
+     */
+    public JEPPRetryTimer() { }
+
+    /**
+     * Private method used to obtain a reference to the target EJB.
+     *
+     * @return Reference to the DataSyncService EJB.
+     */
+    private DataSyncService getDataSyncService() {
+        if (dataSyncService == null) {
+
+            LOGGER.warn("Application container failed to inject the "
+                    + "reference to the DataSyncService.  Attempting to "
+                    + "look it up via JNDI.");
+            dataSyncService = EJBClientUtilities
+                    .getInstance()
+                    .getDataSyncService();
+
+        }
+        return dataSyncService;
+    }
+
+    /**
+     * Create the (non-persistent) interval timer driving the retry lane.
+     */
+    @PostConstruct
+    public void initialize() {
+        long interval = RetryLane.getInstance().getInterval();
+        timerService.createIntervalTimer(
+                interval,
+                interval,
+                new TimerConfig("JEPPRetryTimer", false));
+        LOGGER.info("JEPP retry lane scheduled every [ "
+                + interval
+                + " ] ms.");
+    }
+
+    /**
+     * Entry point called by the application container to invoke the
+     * JEPP retry lane.
+     *
+     * @param t Container injected Timer object.
+     */
+    @Timeout
+    private void scheduledTimeout(final Timer t) {
+
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("JEPP retry lane launched at [ "
+                    + DateUtils.format(new Date(System.currentTimeMillis()))
+                    + " ].");
+        }
+
+        try {
+            if (getDataSyncService() != null) {
+                getDataSyncService().retryFailed(AeroDataType.JEPP);
+            }
+            else {
+                LOGGER.error("Application error encountered!  Container "
+                        + "failed to inject the required EJB references.");
+            }
+        }
+        catch (UPGDataException ude) {
+            LOGGER.error("JEPP retry pass failed.  Error message [ "
+                    + ude.getMessageText()
+                    + " ].");
+        }
+
+    }
+
+}
@@ -4,18 +4,29 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Resource;
 import javax.ejb.LocalBean;
 import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
 import javax.sql.DataSource;
 
+import mil.nga.aero.BatchWriter;
+import mil.nga.aero.UnitOfWork;
 import mil.nga.aero.interfaces.AeroDataStoreI;
+import mil.nga.aero.upg.model.IntermediateUPGData;
+import mil.nga.aero.upg.model.StagedDelta;
+import mil.nga.aero.upg.model.StagedDelta.StagedDeltaBuilder;
 import mil.nga.aero.upg.model.UPGData;
+import mil.nga.aero.upg.model.UpsertResult;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,6 +38,49 @@ import org.slf4j.LoggerFactory;
 @LocalBean
 public class JDBCJEPPDataService implements AeroDataStoreI {
 
+    /*
+     Staging table used by the database diff engine.  The column types 
+     should match those of AEROBROWSER_JEPP.
+     
+     CREATE TABLE AEROBROWSER_JEPP_STAGE (
+         UUID               VARCHAR2(100) NOT NULL PRIMARY KEY,
+         ICAO               VARCHAR2(10),
+         DATE_LAST_MODIFIED DATE NOT NULL,
+         LINK               VARCHAR2(1000),
+         HASH               VARCHAR2(100),
+         PSEUDONAME         VARCHAR2(255),
+         TYPE               VARCHAR2(50)
+     )
+     
+     Index used by the retry lane to select the products that failed to 
+     download without scanning the entire table.
+     
+     CREATE INDEX AEROBROWSER_JEPP_FAILED_IX 
+         ON AEROBROWSER_JEPP (SUCCESS_DL, UUID)
+     */
+    
+    /**
+     * The name of the staging table used by the database diff engine.
+     */
+    private static final String STAGE_TABLE = "AEROBROWSER_JEPP_STAGE";
+    
+    /**
+     * Columns of the staging table selected by the diff queries.
+     */
+    private static final String STAGE_COLUMNS = "s.UUID S_UUID, "
+            + "s.ICAO S_ICAO, s.DATE_LAST_MODIFIED S_DATE_LAST_MODIFIED, "
+            + "s.LINK S_LINK, s.HASH S_HASH, s.PSEUDONAME S_PSEUDONAME, "
+            + "s.TYPE S_TYPE";
+    
+    /**
+     * Columns of the holdings table selected by the diff queries.
+     */
+    private static final String LOCAL_COLUMNS = "m.UUID M_UUID, "
+            + "m.ICAO M_ICAO, m.DATE_LAST_MODIFIED M_DATE_LAST_MODIFIED, "
+            + "m.LINK M_LINK, m.FILENAME M_FILENAME, "
+            + "m.SUCCESS_DL M_SUCCESS_DL, m.PSEUDONAME M_PSEUDONAME, "
+            + "m.TYPE M_TYPE, m.LEIDOS_LINK M_LEIDOS_LINK, m.HASH M_HASH";
+    
     /**
      * Set up the logging system for use throughout the class
      */        
@@ -61,8 +115,8 @@ public class JDBCJEPPDataService implements AeroDataStoreI {
             if ((uuid != null) && (!uuid.isEmpty())) {
                 
                 try { 
-                    conn = datasource.getConnection();
-                    stmt = conn.prepareStatement(sql);
+                    conn = UnitOfWork.getConnection(datasource);
+                    stmt = UnitOfWork.prepare(conn, sql);
                     stmt.setString(1, uuid);
                     stmt.executeUpdate();
                 }
@@ -76,12 +130,8 @@ public class JDBCJEPPDataService implements AeroDataStoreI {
                             + " ].");
                 }
                 finally {
-                    try { 
-                        if (stmt != null) { stmt.close(); } 
-                    } catch (Exception e) {} 
-                    try { 
-                        if (conn != null) { conn.close(); } 
-                    } catch (Exception e) {}
+                    UnitOfWork.release(stmt);
+                    UnitOfWork.release(conn);
                 }
             }
             else {
@@ -118,8 +168,8 @@ public class JDBCJEPPDataService implements AeroDataStoreI {
         if (datasource != null) {
             
             try {
-                conn = datasource.getConnection();
-                stmt = conn.prepareStatement(sql);
+                conn = UnitOfWork.getConnection(datasource);
+                stmt = UnitOfWork.prepare(conn, sql);
                 rs   = stmt.executeQuery();
                 while (rs.next()) {
                     icaos.add(rs.getString("ICAO"));
@@ -138,12 +188,8 @@ public class JDBCJEPPDataService implements AeroDataStoreI {
                 try { 
                     if (rs != null) { rs.close(); } 
                 } catch (Exception e) {}
-                try { 
-                    if (stmt != null) { stmt.close(); } 
-                } catch (Exception e) {}
-                try { 
-                    if (conn != null) { conn.close(); } 
-                } catch (Exception e) {}
+                UnitOfWork.release(stmt);
+                UnitOfWork.release(conn);
             }
         }
         else {
@@ -181,8 +227,8 @@ public class JDBCJEPPDataService implements AeroDataStoreI {
         if (datasource != null) {
             
             try {
-                conn = datasource.getConnection();
-                stmt = conn.prepareStatement(sql);
+                conn = UnitOfWork.getConnection(datasource);
+                stmt = UnitOfWork.prepare(conn, sql);
                 rs   = stmt.executeQuery();
                 while (rs.next()) {
                     types.add(rs.getString("TYPE"));
@@ -201,12 +247,8 @@ public class JDBCJEPPDataService implements AeroDataStoreI {
                 try { 
                     if (rs != null) { rs.close(); } 
                 } catch (Exception e) {}
-                try { 
-                    if (stmt != null) { stmt.close(); } 
-                } catch (Exception e) {}
-                try { 
-                    if (conn != null) { conn.close(); } 
-                } catch (Exception e) {}
+                UnitOfWork.release(stmt);
+                UnitOfWork.release(conn);
             }
         }
         else {
@@ -244,8 +286,8 @@ public class JDBCJEPPDataService implements AeroDataStoreI {
         if (datasource != null) {
             
             try {
-                conn = datasource.getConnection();
-                stmt = conn.prepareStatement(sql);
+                conn = UnitOfWork.getConnection(datasource);
+                stmt = UnitOfWork.prepare(conn, sql);
                 rs   = stmt.executeQuery();
                 while (rs.next()) {
                     UUIDs.add(rs.getString("UUID"));
@@ -264,12 +306,8 @@ public class JDBCJEPPDataService implements AeroDataStoreI {
                 try { 
                     if (rs != null) { rs.close(); } 
                 } catch (Exception e) {}
-                try { 
-                    if (stmt != null) { stmt.close(); } 
-                } catch (Exception e) {}
-                try { 
-                    if (conn != null) { conn.close(); } 
-                } catch (Exception e) {}
+                UnitOfWork.release(stmt);
+                UnitOfWork.release(conn);
             }
         }
         else {
@@ -313,8 +351,8 @@ public class JDBCJEPPDataService implements AeroDataStoreI {
                 
                 try { 
                     
-                    conn = datasource.getConnection();
-                    stmt = conn.prepareStatement(sql);
+                    conn = UnitOfWork.getConnection(datasource);
+                    stmt = UnitOfWork.prepare(conn, sql);
                     stmt.setString(1, uuid);
                     rs   = stmt.executeQuery();
                     
@@ -323,7 +361,7 @@ public class JDBCJEPPDataService implements AeroDataStoreI {
                         upg = new UPGData.UPGDataBuilder()
                                 .uuid(rs.getString("UUID"))
                                 .icao(rs.getString("ICAO"))
-                                .dateLastModified(rs.getDate("DATE_LAST_MODIFIED"))
+                                .dateLastModified(rs.getTimestamp("DATE_LAST_MODIFIED"))
                                 .link(rs.getString("LINK"))
                                 .filename(rs.getString("FILENAME"))
                                 .success(rs.getLong("SUCCESS_DL"))
@@ -355,12 +393,8 @@ public class JDBCJEPPDataService implements AeroDataStoreI {
                     try { 
                         if (rs != null) { rs.close(); }
                     } catch (Exception e) {}
-                    try { 
-                        if (stmt != null) { stmt.close(); } 
-                    } catch (Exception e) {}
-                    try { 
-                        if (conn != null) { conn.close(); } 
-                    } catch (Exception e) {}
+                    UnitOfWork.release(stmt);
+                    UnitOfWork.release(conn);
                 }
                 
             }
@@ -401,8 +435,8 @@ public class JDBCJEPPDataService implements AeroDataStoreI {
         
         if (datasource != null) {
             try { 
-                conn = datasource.getConnection();
-                stmt = conn.prepareStatement(sql);
+                conn = UnitOfWork.getConnection(datasource);
+                stmt = UnitOfWork.prepare(conn, sql);
                 stmt.setLong(1, 0);
                 rs   = stmt.executeQuery();
                 if (rs.next()) {
@@ -421,12 +455,8 @@ public class JDBCJEPPDataService implements AeroDataStoreI {
                 try { 
                     if (rs != null) { rs.close(); }
                 } catch (Exception e) {}
-                try { 
-                    if (stmt != null) { stmt.close(); } 
-                } catch (Exception e) {}
-                try { 
-                    if (conn != null) { conn.close(); } 
-                } catch (Exception e) {}
+                UnitOfWork.release(stmt);
+                UnitOfWork.release(conn);
             } 
         }
         else {
@@ -462,8 +492,8 @@ public class JDBCJEPPDataService implements AeroDataStoreI {
                 
             try { 
                 
-                conn = datasource.getConnection();
-                stmt = conn.prepareStatement(sql);
+                conn = UnitOfWork.getConnection(datasource);
+                stmt = UnitOfWork.prepare(conn, sql);
                 rs   = stmt.executeQuery();
                 
                 if (rs.next()) {
@@ -481,12 +511,8 @@ public class JDBCJEPPDataService implements AeroDataStoreI {
                 try { 
                     if (rs != null) { rs.close(); }
                 } catch (Exception e) {}
-                try { 
-                    if (stmt != null) { stmt.close(); } 
-                } catch (Exception e) {}
-                try { 
-                    if (conn != null) { conn.close(); } 
-                } catch (Exception e) {}
+                UnitOfWork.release(stmt);
+                UnitOfWork.release(conn);
             }
                 
         }
@@ -521,15 +547,14 @@ public class JDBCJEPPDataService implements AeroDataStoreI {
         String               uuid     = null;
         String               sql      = "select UUID, ICAO, "
                 + "DATE_LAST_MODIFIED, LINK, FILENAME, SUCCESS_DL, "
-                + "PSEUDONAME, TYPE, LEIDOS_LINK, HASH from AEROBROWSER_JEPP "
-                + "order by DATE_LAST_MODIFIED desc";
+                + "PSEUDONAME, TYPE, LEIDOS_LINK, HASH from AEROBROWSER_JEPP";
         
         if (datasource != null) {
                 
             try { 
                 
-                conn = datasource.getConnection();
-                stmt = conn.prepareStatement(sql);
+                conn = UnitOfWork.getConnection(datasource);
+                stmt = UnitOfWork.prepare(conn, sql);
                 rs   = stmt.executeQuery();
                 
                 while (rs.next()) {
@@ -537,7 +562,7 @@ public class JDBCJEPPDataService implements AeroDataStoreI {
                     UPGData upg = new UPGData.UPGDataBuilder()
                             .uuid(uuid)
                             .icao(rs.getString("ICAO"))
-                            .dateLastModified(rs.getDate("DATE_LAST_MODIFIED"))
+                            .dateLastModified(rs.getTimestamp("DATE_LAST_MODIFIED"))
                             .link(rs.getString("LINK"))
                             .filename(rs.getString("FILENAME"))
                             .success(rs.getLong("SUCCESS_DL"))
@@ -561,12 +586,8 @@ public class JDBCJEPPDataService implements AeroDataStoreI {
                 try { 
                     if (rs != null) { rs.close(); }
                 } catch (Exception e) {}
-                try { 
-                    if (stmt != null) { stmt.close(); } 
-                } catch (Exception e) {}
-                try { 
-                    if (conn != null) { conn.close(); } 
-                } catch (Exception e) {}
+                UnitOfWork.release(stmt);
+                UnitOfWork.release(conn);
             }
         }
         else {
@@ -583,6 +604,805 @@ public class JDBCJEPPDataService implements AeroDataStoreI {
         }
         return upgData;
     }
+
+    /**
+     * Get a snapshot of the <code>AEROBROWSER_JEPP</code> table containing only the 
+     * columns required by the synchronization diff.  Unlike 
+     * <code>getData()</code> the LINK column is not selected, no sort is 
+     * requested, and the fetch size is raised so that the table is read 
+     * in a small number of round trips.  Each row is built directly into 
+     * the compact UPGData representation.
+     * 
+     * @param fetchSize The number of rows retrieved per round trip.
+     * @return The local holdings keyed by UUID.
+     */
+    public Map<String, UPGData> getSyncSnapshot(int fetchSize) {
+        
+        Map<String, UPGData> snapshot = new HashMap<String, UPGData>();
+        Connection           conn     = null;
+        PreparedStatement    stmt     = null;
+        ResultSet            rs       = null;
+        long                 start    = System.currentTimeMillis();
+        String               sql      = "select UUID, ICAO, "
+                + "DATE_LAST_MODIFIED, FILENAME, SUCCESS_DL, "
+                + "PSEUDONAME, TYPE, LEIDOS_LINK, HASH from AEROBROWSER_JEPP";
+        
+        if (datasource != null) {
+                
+            try { 
+                
+                conn = UnitOfWork.getConnection(datasource);
+                stmt = UnitOfWork.prepare(conn, sql);
+                stmt.setFetchSize(Math.max(1, fetchSize));
+                rs   = stmt.executeQuery();
+                rs.setFetchSize(Math.max(1, fetchSize));
+                
+                while (rs.next()) {
+                    String uuid = rs.getString(1);
+                    snapshot.put(uuid, new UPGData.UPGDataBuilder()
+                            .uuid(uuid)
+                            .icao(rs.getString(2))
+                            .dateLastModified(rs.getTimestamp(3))
+                            .filename(rs.getString(4))
+                            .success(rs.getLong(5))
+                            .psuedoName(rs.getString(6))
+                            .type(rs.getString(7))
+                            .sourceLink(rs.getString(8))
+                            .hash(rs.getString(9))
+                            .build());
+                }
+            }
+            catch (SQLException se) {
+                LOGGER.error("An unexpected SQLException was raised while "
+                        + "attempting to retrieve the snapshot of "
+                        + "AEROBROWSER_JEPP records from the target data source.  "
+                        + "Error message [ "
+                        + se.getMessage() 
+                        + " ].");
+            }
+            finally {
+                try { 
+                    if (rs != null) { rs.close(); }
+                } catch (Exception e) {}
+                UnitOfWork.release(stmt);
+                UnitOfWork.release(conn);
+            }
+        }
+        else {
+            LOGGER.error("DataSource object not injected by the container.  "
+                    + "An empty Map will be returned to the caller.");
+        }
+        
+        LOGGER.info("Snapshot of [ " 
+                + snapshot.size()
+                + " ] AEROBROWSER_JEPP records selected in [ "
+                + (System.currentTimeMillis() - start) 
+                + " ] ms.");
+        return snapshot;
+    }
+    
+    /**
+     * Retrieve a single page of records from the data store in 
+     * <code>UUID</code> order.  This supports walking the local holdings 
+     * with bounded memory (keyset pagination) rather than selecting the 
+     * entire table with <code>getData()</code>.  The comparison relies on 
+     * the database using a binary sort order for the <code>UUID</code> 
+     * column (the Oracle default).
+     * 
+     * @param afterUUID Only records with a UUID greater than this value 
+     * are returned.  If null, the first page is returned.
+     * @param limit The maximum number of records to return.
+     * @return The records ordered by UUID.  An empty list is returned once 
+     * the end of the table has been reached.  Null is returned if the page 
+     * could not be read, so that the caller does not mistake a database 
+     * error for the end of the table.
+     */
+    public List<UPGData> getData(String afterUUID, int limit) {
+        
+        List<UPGData>     page   = new ArrayList<UPGData>();
+        Connection        conn   = null;
+        PreparedStatement stmt   = null;
+        ResultSet         rs     = null;
+        long              start  = System.currentTimeMillis();
+        String            sql    = "select UUID, ICAO, "
+                + "DATE_LAST_MODIFIED, LINK, FILENAME, SUCCESS_DL, "
+                + "PSEUDONAME, TYPE, LEIDOS_LINK, HASH from AEROBROWSER_JEPP ";
+        
+        if (afterUUID != null) {
+            sql = sql + "where UUID > ? ";
+        }
+        sql = sql + "order by UUID";
+        
+        if (datasource != null) {
+                
+            try { 
+                
+                conn = UnitOfWork.getConnection(datasource);
+                stmt = UnitOfWork.prepare(conn, sql);
+                stmt.setMaxRows(limit);
+                stmt.setFetchSize(limit);
+                if (afterUUID != null) {
+                    stmt.setString(1, afterUUID);
+                }
+                rs   = stmt.executeQuery();
+                
+                while (rs.next()) {
+                    page.add(new UPGData.UPGDataBuilder()
+                            .uuid(rs.getString("UUID"))
+                            .icao(rs.getString("ICAO"))
+                            .dateLastModified(rs.getTimestamp("DATE_LAST_MODIFIED"))
+                            .link(rs.getString("LINK"))
+                            .filename(rs.getString("FILENAME"))
+                            .success(rs.getLong("SUCCESS_DL"))
+                            .psuedoName(rs.getString("PSEUDONAME"))
+                            .type(rs.getString("TYPE"))
+                            .sourceLink(rs.getString("LEIDOS_LINK"))
+                            .hash(rs.getString("HASH"))
+                            .build());
+                }
+            }
+            catch (SQLException se) {
+                LOGGER.error("An unexpected SQLException was raised while "
+                        + "attempting to retrieve a page of AEROBROWSER_JEPP "
+                        + "records from the target data source.  Error "
+                        + "message [ "
+                        + se.getMessage() 
+                        + " ].");
+                page = null;
+            }
+            finally {
+                try { 
+                    if (rs != null) { rs.close(); }
+                } catch (Exception e) {}
+                UnitOfWork.release(stmt);
+                UnitOfWork.release(conn);
+            }
+        }
+        else {
+            LOGGER.error("DataSource object not injected by the container.  "
+                    + "A null page will be returned to the caller.");
+            page = null;
+        }
+        
+        if ((page != null) && (LOGGER.isDebugEnabled())) {
+            LOGGER.debug("[ " 
+                    + page.size()
+                    + " ] AEROBROWSER_JEPP records selected after UUID [ "
+                    + afterUUID
+                    + " ] in [ "
+                    + (System.currentTimeMillis() - start) 
+                    + " ] ms.");
+        }
+        return page;
+    }
+    
+    /**
+     * Retrieve a single page of the records that failed to download 
+     * (<code>SUCCESS_DL = 0</code>) in <code>UUID</code> order.  Used by 
+     * the retry lane, which re-attempts failed products without retrieving 
+     * the source catalog.  The query is expected to be satisfied by the 
+     * <code>AEROBROWSER_JEPP_FAILED_IX</code> index so the cost is proportional 
+     * to the number of failed products rather than the size of the table.
+     * 
+     * @param afterUUID Only records with a UUID greater than this value 
+     * are returned.  If null, the first page is returned.
+     * @param limit The maximum number of records to return.
+     * @return The failed records ordered by UUID.  An empty list is 
+     * returned once the last failed record has been reached.  Null is 
+     * returned if the page could not be read, so that the caller does not 
+     * mistake a database error for the end of the failed records.
+     */
+    public List<UPGData> getFailedData(String afterUUID, int limit) {
+        
+        List<UPGData>     page   = new ArrayList<UPGData>();
+        Connection        conn   = null;
+        PreparedStatement stmt   = null;
+        ResultSet         rs     = null;
+        long              start  = System.currentTimeMillis();
+        String            sql    = "select UUID, ICAO, "
+                + "DATE_LAST_MODIFIED, LINK, FILENAME, SUCCESS_DL, "
+                + "PSEUDONAME, TYPE, LEIDOS_LINK, HASH from AEROBROWSER_JEPP "
+                + "where SUCCESS_DL = ? ";
+        
+        if (afterUUID != null) {
+            sql = sql + "and UUID > ? ";
+        }
+        sql = sql + "order by UUID";
+        
+        if (datasource != null) {
+                
+            try { 
+                
+                conn = UnitOfWork.getConnection(datasource);
+                stmt = UnitOfWork.prepare(conn, sql);
+                stmt.setMaxRows(limit);
+                stmt.setFetchSize(limit);
+                stmt.setLong(1, 0);
+                if (afterUUID != null) {
+                    stmt.setString(2, afterUUID);
+                }
+                rs   = stmt.executeQuery();
+                
+                while (rs.next()) {
+                    page.add(new UPGData.UPGDataBuilder()
+                            .uuid(rs.getString("UUID"))
+                            .icao(rs.getString("ICAO"))
+                            .dateLastModified(rs.getTimestamp("DATE_LAST_MODIFIED"))
+                            .link(rs.getString("LINK"))
+                            .filename(rs.getString("FILENAME"))
+                            .success(rs.getLong("SUCCESS_DL"))
+                            .psuedoName(rs.getString("PSEUDONAME"))
+                            .type(rs.getString("TYPE"))
+                            .sourceLink(rs.getString("LEIDOS_LINK"))
+                            .hash(rs.getString("HASH"))
+                            .build());
+                }
+            }
+            catch (SQLException se) {
+                LOGGER.error("An unexpected SQLException was raised while "
+                        + "attempting to retrieve a page of failed AEROBROWSER_JEPP "
+                        + "records from the target data source.  Error "
+                        + "message [ "
+                        + se.getMessage() 
+                        + " ].");
+                page = null;
+            }
+            finally {
+                try { 
+                    if (rs != null) { rs.close(); }
+                } catch (Exception e) {}
+                UnitOfWork.release(stmt);
+                UnitOfWork.release(conn);
+            }
+        }
+        else {
+            LOGGER.error("DataSource object not injected by the container.  "
+                    + "A null page will be returned to the caller.");
+            page = null;
+        }
+        
+        if ((page != null) && (LOGGER.isDebugEnabled())) {
+            LOGGER.debug("[ " 
+                    + page.size()
+                    + " ] failed AEROBROWSER_JEPP records selected after UUID [ "
+                    + afterUUID
+                    + " ] in [ "
+                    + (System.currentTimeMillis() - start) 
+                    + " ] ms.");
+        }
+        return page;
+    }
+
+    /**
+     * Remove all rows from the <code>AEROBROWSER_JEPP_STAGE</code> staging table.
+     */
+    public void clearStaging() {
+        
+        Connection        conn   = null;
+        PreparedStatement stmt   = null;
+        long              start  = System.currentTimeMillis();
+        int               rows   = 0;
+        String            sql    = "delete from " + STAGE_TABLE;
+        
+        if (datasource != null) {
+            try {
+                
+                conn = UnitOfWork.getConnection(datasource);
+                stmt = UnitOfWork.prepare(conn, sql);
+                rows = stmt.executeUpdate();
+                
+            }
+            catch (SQLException se) {
+                LOGGER.error("An unexpected SQLException was raised while "
+                        + "attempting to clear the "
+                        + STAGE_TABLE
+                        + " table.  Error message [ "
+                        + se.getMessage() 
+                        + " ].");
+            }
+            finally {
+                UnitOfWork.release(stmt);
+                UnitOfWork.release(conn);
+            }
+        }
+        else {
+            LOGGER.error("DataSource object not injected by the container.  "
+                    + "Staging table not cleared.");
+        }
+        
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("[ " 
+                    + rows
+                    + " ] "
+                    + STAGE_TABLE
+                    + " records deleted in [ "
+                    + (System.currentTimeMillis() - start) 
+                    + " ] ms.");
+        }
+    }
+    
+    /**
+     * Bulk-load (batch insert) a set of source catalog products into the 
+     * <code>AEROBROWSER_JEPP_STAGE</code> staging table.
+     * 
+     * @param data The source catalog products to stage.
+     * @return The number of rows inserted as reported by the driver (0 if
+     * the insert failed).
+     */
+    public int stageData(List<IntermediateUPGData> data) {
+        
+        Connection        conn   = null;
+        PreparedStatement stmt   = null;
+        long              start  = System.currentTimeMillis();
+        int               rows   = 0;
+        String            sql    = "insert into " + STAGE_TABLE + " ("
+                + "UUID, ICAO, DATE_LAST_MODIFIED, LINK, HASH, PSEUDONAME, "
+                + "TYPE) values (?, ?, ?, ?, ?, ?, ?)";
+        
+        if (datasource != null) {
+            if ((data != null) && (data.size() > 0)) {
+                try {
+                    
+                    conn = UnitOfWork.getConnection(datasource);
+                    stmt = UnitOfWork.prepare(conn, sql);
+                    
+                    for (IntermediateUPGData product : data) {
+                        stmt.setString(   1, product.getUUID());
+                        stmt.setString(   2, product.getICAO());
+                        stmt.setTimestamp(3, product.getDateLastModified());
+                        stmt.setString(   4, product.getLink());
+                        stmt.setString(   5, product.getHash());
+                        stmt.setString(   6, product.getPsuedoName());
+                        stmt.setString(   7, product.getType());
+                        stmt.addBatch();
+                    }
+                    
+                    // Count the rows actually inserted so that the caller 
+                    // can detect a partially staged batch (some drivers 
+                    // report EXECUTE_FAILED rather than throwing).
+                    int[] counts = stmt.executeBatch();
+                    for (int count : counts) {
+                        if (count >= 0) {
+                            rows += count;
+                        }
+                        else if (count == Statement.SUCCESS_NO_INFO) {
+                            // Some drivers do not report per-statement counts.
+                            rows++;
+                        }
+                    }
+                    
+                }
+                catch (SQLException se) {
+                    LOGGER.error("An unexpected SQLException was raised while "
+                            + "attempting to stage [ "
+                            + data.size()
+                            + " ] products in the "
+                            + STAGE_TABLE
+                            + " table.  Error message [ "
+                            + se.getMessage() 
+                            + " ].");
+                }
+                finally {
+                    UnitOfWork.release(stmt);
+                    UnitOfWork.release(conn);
+                }
+            }
+            else {
+                LOGGER.warn("The input list of products to stage is null "
+                        + "or empty.");
+            }
+        }
+        else {
+            LOGGER.error("DataSource object not injected by the container.  "
+                    + "Products not staged.");
+        }
+        
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("[ " 
+                    + rows
+                    + " ] "
+                    + STAGE_TABLE
+                    + " records inserted in [ "
+                    + (System.currentTimeMillis() - start) 
+                    + " ] ms.");
+        }
+        return rows;
+    }
+    
+    /**
+     * Calculate the differences between the staged source catalog and the 
+     * <code>AEROBROWSER_JEPP</code> table using set-based SQL (anti-joins on UUID).
+     * A product is updated if the last download failed, the source link 
+     * is not set, or the staged DATE_LAST_MODIFIED is newer.  These are 
+     * the same rules applied by <code>isUpdateRequired()</code> with the 
+     * exception of the check for a missing on-disk file, which cannot be 
+     * made by the database.
+     * 
+     * @return The differences, or null if they could not be calculated.
+     */
+    public StagedDelta getStagedDelta() {
+        
+        Connection         conn    = null;
+        PreparedStatement  stmt    = null;
+        ResultSet          rs      = null;
+        long               start   = System.currentTimeMillis();
+        StagedDelta        delta   = null;
+        StagedDeltaBuilder builder = new StagedDeltaBuilder();
+        String addSql = "select " + STAGE_COLUMNS + " from " 
+                + STAGE_TABLE + " s where not exists (select 1 from "
+                + "AEROBROWSER_JEPP m where m.UUID = s.UUID)";
+        String removeSql = "select " + LOCAL_COLUMNS + " from "
+                + "AEROBROWSER_JEPP m where not exists (select 1 from " 
+                + STAGE_TABLE + " s where s.UUID = m.UUID)";
+        String updateSql = "select " + STAGE_COLUMNS + ", " 
+                + LOCAL_COLUMNS + " from " + STAGE_TABLE + " s join "
+                + "AEROBROWSER_JEPP m on m.UUID = s.UUID where m.SUCCESS_DL = 0 "
+                + "or m.LEIDOS_LINK is null or m.DATE_LAST_MODIFIED is null "
+                + "or s.DATE_LAST_MODIFIED > m.DATE_LAST_MODIFIED";
+        String countSql = "select count(*) from " + STAGE_TABLE 
+                + " s join AEROBROWSER_JEPP m on m.UUID = s.UUID";
+        
+        if (datasource != null) {
+            try {
+                
+                conn = UnitOfWork.getConnection(datasource);
+                
+                stmt = UnitOfWork.prepare(conn, addSql);
+                rs   = stmt.executeQuery();
+                while (rs.next()) {
+                    builder.addition(getStagedProduct(rs));
+                }
+                rs.close();
+                UnitOfWork.release(stmt);
+                
+                stmt = UnitOfWork.prepare(conn, removeSql);
+                rs   = stmt.executeQuery();
+                while (rs.next()) {
+                    builder.removal(getLocalProduct(rs));
+                }
+                rs.close();
+                UnitOfWork.release(stmt);
+                
+                stmt = UnitOfWork.prepare(conn, updateSql);
+                rs   = stmt.executeQuery();
+                while (rs.next()) {
+                    builder.update(getStagedProduct(rs), getLocalProduct(rs));
+                }
+                rs.close();
+                UnitOfWork.release(stmt);
+                
+                stmt = UnitOfWork.prepare(conn, countSql);
+                rs   = stmt.executeQuery();
+                if (rs.next()) {
+                    builder.intersection(rs.getLong(1));
+                }
+                
+                delta = builder.build();
+            }
+            catch (SQLException se) {
+                LOGGER.error("An unexpected SQLException was raised while "
+                        + "attempting to calculate the differences between "
+                        + "the "
+                        + STAGE_TABLE
+                        + " and AEROBROWSER_JEPP tables.  Error message [ "
+                        + se.getMessage() 
+                        + " ].");
+            }
+            catch (IllegalStateException ise) {
+                LOGGER.error("Unable to construct the delta between the "
+                        + STAGE_TABLE
+                        + " and AEROBROWSER_JEPP tables.  Error message [ "
+                        + ise.getMessage() 
+                        + " ].");
+            }
+            finally {
+                try { 
+                    if (rs != null) { rs.close(); }
+                } catch (Exception e) {}
+                UnitOfWork.release(stmt);
+                UnitOfWork.release(conn);
+            }
+        }
+        else {
+            LOGGER.error("DataSource object not injected by the container.  "
+                    + "Differences not calculated.");
+        }
+        
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Delta [ " 
+                    + delta
+                    + " ] calculated in [ "
+                    + (System.currentTimeMillis() - start) 
+                    + " ] ms.");
+        }
+        return delta;
+    }
+    
+    /**
+     * Construct a source product from the staging table columns 
+     * (prefixed with <code>S_</code>) of the current row.
+     * 
+     * @param rs The result set positioned on the current row.
+     * @return The staged product.
+     * @throws SQLException Thrown if the columns cannot be read.
+     */
+    private IntermediateUPGData getStagedProduct(ResultSet rs) 
+            throws SQLException {
+        return new IntermediateUPGData.IntermediateUPGDataBuilder()
+                .uuid(rs.getString("S_UUID"))
+                .icao(rs.getString("S_ICAO"))
+                .dateLastModified(
+                        rs.getTimestamp("S_DATE_LAST_MODIFIED").getTime())
+                .link(rs.getString("S_LINK"))
+                .hash(rs.getString("S_HASH"))
+                .psuedoName(rs.getString("S_PSEUDONAME"))
+                .type(rs.getString("S_TYPE"))
+                .build();
+    }
+    
+    /**
+     * Construct a local product from the holdings table columns 
+     * (prefixed with <code>M_</code>) of the current row.
+     * 
+     * @param rs The result set positioned on the current row.
+     * @return The local product.
+     * @throws SQLException Thrown if the columns cannot be read.
+     */
+    private UPGData getLocalProduct(ResultSet rs) throws SQLException {
+        return new UPGData.UPGDataBuilder()
+                .uuid(rs.getString("M_UUID"))
+                .icao(rs.getString("M_ICAO"))
+                .dateLastModified(rs.getTimestamp("M_DATE_LAST_MODIFIED"))
+                .link(rs.getString("M_LINK"))
+                .filename(rs.getString("M_FILENAME"))
+                .success(rs.getLong("M_SUCCESS_DL"))
+                .psuedoName(rs.getString("M_PSEUDONAME"))
+                .type(rs.getString("M_TYPE"))
+                .sourceLink(rs.getString("M_LEIDOS_LINK"))
+                .hash(rs.getString("M_HASH"))
+                .build();
+    }
+    
+    /**
+     * Delete the records associated with all of the input UUIDs.  The 
+     * deletes are sent to the database in batches of 
+     * <code>jdbc.batch.size</code>, each committed in its own transaction.
+     * 
+     * @param uuids The UUIDs to be deleted.
+     * @return The number of records deleted.
+     */
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public int deleteData(Collection<String> uuids) {
+        return BatchWriter.getInstance().execute(
+                datasource, 
+                "AEROBROWSER_JEPP", 
+                "delete from AEROBROWSER_JEPP where UUID = ?", 
+                uuids, 
+                new BatchWriter.Binder<String>() {
+                    @Override
+                    public void bind(PreparedStatement stmt, String uuid) 
+                            throws SQLException {
+                        stmt.setString(1, uuid);
+                    }
+                });
+    }
+    
+    /**
+     * Persist (insert) all of the input <code>AEROBROWSER_JEPP</code> objects.  
+     * The inserts are sent to the database in batches of 
+     * <code>jdbc.batch.size</code>, each committed in its own transaction.
+     * 
+     * @param data The objects to insert.
+     * @return The number of records inserted.
+     */
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public int insertData(Collection<UPGData> data) {
+        return BatchWriter.getInstance().execute(
+                datasource, 
+                "AEROBROWSER_JEPP", 
+                "insert into AEROBROWSER_JEPP ("
+                + "UUID, ICAO, DATE_LAST_MODIFIED, LINK, FILENAME, "
+                + "SUCCESS_DL, PSEUDONAME, TYPE, LEIDOS_LINK, HASH) values "
+                + "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", 
+                data, 
+                new BatchWriter.Binder<UPGData>() {
+                    @Override
+                    public void bind(PreparedStatement stmt, UPGData data) 
+                            throws SQLException {
+                        stmt.setString( 1, data.getUUID());
+                        stmt.setString( 2, data.getICAO());
+                        stmt.setTimestamp(   3, data.getDateLastModified());
+                        stmt.setString( 4, data.getLink());
+                        stmt.setString( 5, data.getFilename());
+                        stmt.setLong(   6, data.getDownloadSuccess());
+                        stmt.setString( 7, data.getPsuedoName());
+                        stmt.setString( 8, data.getType());
+                        stmt.setString( 9, data.getSourceLink());
+                        stmt.setString(10, data.getHash());
+                    }
+                });
+    }
+    
+    /**
+     * Persist (update) all of the input <code>AEROBROWSER_JEPP</code> objects.  
+     * The updates are sent to the database in batches of 
+     * <code>jdbc.batch.size</code>, each committed in its own transaction.
+     * 
+     * @param data The objects to update.
+     * @return The number of records updated.
+     */
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public int updateData(Collection<UPGData> data) {
+        return BatchWriter.getInstance().execute(
+                datasource, 
+                "AEROBROWSER_JEPP", 
+                "update AEROBROWSER_JEPP set "
+                + "ICAO = ?, DATE_LAST_MODIFIED = ?, LINK = ?, "
+                + "FILENAME = ? , SUCCESS_DL = ?, PSEUDONAME = ?, "
+                + "TYPE = ?, LEIDOS_LINK = ?, HASH = ? where UUID = ?", 
+                data, 
+                new BatchWriter.Binder<UPGData>() {
+                    @Override
+                    public void bind(PreparedStatement stmt, UPGData data) 
+                            throws SQLException {
+                        stmt.setString( 1, data.getICAO());
+                        stmt.setTimestamp(   2, data.getDateLastModified());
+                        stmt.setString( 3, data.getLink());
+                        stmt.setString( 4, data.getFilename());
+                        stmt.setLong(   5, data.getDownloadSuccess());
+                        stmt.setString( 6, data.getPsuedoName());
+                        stmt.setString( 7, data.getType());
+                        stmt.setString( 8, data.getSourceLink());
+                        stmt.setString( 9, data.getHash());
+                        stmt.setString(10, data.getUUID());
+                    }
+                });
+    }
+    
+    /**
+     * Idempotent insert-or-update of a single <code>AEROBROWSER_JEPP</code> 
+     * record.  Uses the Oracle <code>MERGE</code> statement so that a 
+     * product is inserted if the UUID does not exist and updated otherwise.
+     */
+    private static final String UPSERT_SQL = 
+            "merge into AEROBROWSER_JEPP t using (select "
+            + "? UUID, ? ICAO, ? DATE_LAST_MODIFIED, ? LINK, "
+            + "? FILENAME, ? SUCCESS_DL, ? PSEUDONAME, ? TYPE, "
+            + "? LEIDOS_LINK, ? HASH "
+            + "from dual) s on (t.UUID = s.UUID) "
+            + "when matched then update set "
+            + "t.ICAO = s.ICAO, "
+            + "t.DATE_LAST_MODIFIED = s.DATE_LAST_MODIFIED, "
+            + "t.LINK = s.LINK, t.FILENAME = s.FILENAME, "
+            + "t.SUCCESS_DL = s.SUCCESS_DL, "
+            + "t.PSEUDONAME = s.PSEUDONAME, t.TYPE = s.TYPE, "
+            + "t.LEIDOS_LINK = s.LEIDOS_LINK, t.HASH = s.HASH "
+            + "when not matched then insert ("
+            + "UUID, ICAO, DATE_LAST_MODIFIED, LINK, FILENAME, "
+            + "SUCCESS_DL, PSEUDONAME, TYPE, LEIDOS_LINK, HASH) "
+            + "values (s.UUID, s.ICAO, s.DATE_LAST_MODIFIED, s.LINK, "
+            + "s.FILENAME, s.SUCCESS_DL, s.PSEUDONAME, s.TYPE, s.LEIDOS_LINK, s.HASH)";
+
+    /**
+     * Binds a UPGData object to the parameters of the 
+     * <code>UPSERT_SQL</code> statement.
+     */
+    private static final BatchWriter.Binder<UPGData> UPSERT_BINDER = 
+            new BatchWriter.Binder<UPGData>() {
+                    @Override
+                    public void bind(PreparedStatement stmt, UPGData data) 
+                            throws SQLException {
+                        stmt.setString( 1, data.getUUID());
+                        stmt.setString( 2, data.getICAO());
+                        stmt.setTimestamp( 3, data.getDateLastModified());
+                        stmt.setString( 4, data.getLink());
+                        stmt.setString( 5, data.getFilename());
+                        stmt.setLong(   6, data.getDownloadSuccess());
+                        stmt.setString( 7, data.getPsuedoName());
+                        stmt.setString( 8, data.getType());
+                        stmt.setString( 9, data.getSourceLink());
+                        stmt.setString(10, data.getHash());
+                    }
+                };
+    
+    /**
+     * Extracts the UUID from a UPGData object.
+     */
+    private static final BatchWriter.KeyExtractor<UPGData> UUID_KEY = 
+            new BatchWriter.KeyExtractor<UPGData>() {
+                    @Override
+                    public String getKey(UPGData data) {
+                        return data.getUUID();
+                    }
+                };
+    
+    /**
+     * Persist (insert or update) all of the input <code>AEROBROWSER_JEPP</code> 
+     * objects.  The <code>MERGE</code> statements are sent to the database 
+     * in batches of <code>jdbc.batch.size</code>, each committed in its own 
+     * transaction, so re-running the same set of records is harmless.
+     * 
+     * @param data The objects to upsert.
+     * @param existing The UUIDs of the objects expected to already exist 
+     * (used to split the records written into inserts and updates).
+     * @return The number of records inserted, updated and failed.
+     */
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public UpsertResult upsertData(
+            Collection<UPGData> data, 
+            Set<String>         existing) {
+        return BatchWriter.getInstance().upsert(
+                datasource, 
+                "AEROBROWSER_JEPP", 
+                UPSERT_SQL, 
+                data, 
+                UPSERT_BINDER, 
+                UUID_KEY,
+                existing);
+    }
+    
+    /**
+     * Persist (insert or update) the information associated with the input 
+     * <code>AEROBROWSER_JEPP</code> object.  A single <code>MERGE</code> is 
+     * executed on the connection of the current unit of work (if any).  
+     * The statement does not report which branch was taken, so the record 
+     * is counted as an update or an insert according to 
+     * <code>expectExisting</code>.
+     * 
+     * @param data <code>AEROBROWSER_JEPP</code> object containing updated state 
+     * information.
+     * @param expectExisting True if the record is expected to already 
+     * exist.
+     * @return Whether the record was inserted, updated or failed.
+     */
+    public UpsertResult upsertData(UPGData data, boolean expectExisting) {
+        
+        int               numRecords = 0;
+        Connection        conn       = null;
+        PreparedStatement stmt       = null;
+        long              start      = System.currentTimeMillis();
+        
+        if (datasource != null) {
+            if (data != null) {
+                try { 
+                    conn = UnitOfWork.getConnection(datasource);
+                    stmt = UnitOfWork.prepare(conn, UPSERT_SQL);
+                    UPSERT_BINDER.bind(stmt, data);
+                    numRecords = stmt.executeUpdate();
+                }
+                catch (SQLException se) {
+                    LOGGER.error("An unexpected SQLException was raised while "
+                            + "attempting to upsert AEROBROWSER_JEPP object with "
+                            + "UUID [ "
+                            + data.getUUID()
+                            + " ].  Error message [ "
+                            + se.getMessage() 
+                            + " ].");
+                }
+                finally {
+                    UnitOfWork.release(stmt);
+                    UnitOfWork.release(conn);
+                }
+            }
+        }
+        else {
+            LOGGER.warn("DataSource object not injected by the container.  "
+                    + "Upsert not executed.");
+        }
+        
+        if ((LOGGER.isDebugEnabled()) && (data != null)) {
+            LOGGER.debug("Upsert of AEROBROWSER_JEPP record with UUID [ "
+                    + data.getUUID()
+                    + " ] completed in [ "
+                    + (System.currentTimeMillis() - start) 
+                    + " ] ms.");
+        }
+        return new UpsertResult.UpsertResultBuilder()
+                .inserted(((numRecords > 0) && (!expectExisting)) ? 1 : 0)
+                .updated(((numRecords > 0) && expectExisting) ? 1 : 0)
+                .failed(((numRecords > 0) || (data == null)) ? 0 : 1)
+                .build();
+    }
     
     /**
      * Persist (insert) the information associated with the input 
@@ -606,12 +1426,12 @@ public class JDBCJEPPDataService implements AeroDataStoreI {
                     
                 try { 
                     
-                    conn = datasource.getConnection();
-                    stmt = conn.prepareStatement(sql);
+                    conn = UnitOfWork.getConnection(datasource);
+                    stmt = UnitOfWork.prepare(conn, sql);
                     
                     stmt.setString( 1, data.getUUID());
                     stmt.setString( 2, data.getICAO());
-                    stmt.setDate(   3, data.getDateLastModified());
+                    stmt.setTimestamp(   3, data.getDateLastModified());
                     stmt.setString( 4, data.getLink());
                     stmt.setString( 5, data.getFilename());
                     stmt.setLong(   6, data.getDownloadSuccess());
@@ -630,12 +1450,8 @@ public class JDBCJEPPDataService implements AeroDataStoreI {
                             + " ].");
                 }
                 finally {
-                    try { 
-                        if (stmt != null) { stmt.close(); } 
-                    } catch (Exception e) {}
-                    try { 
-                        if (conn != null) { conn.close(); } 
-                    } catch (Exception e) {}
+                    UnitOfWork.release(stmt);
+                    UnitOfWork.release(conn);
                 }
             }
         }
@@ -679,10 +1495,10 @@ public class JDBCJEPPDataService implements AeroDataStoreI {
                             + " ].");
                 }
                 try { 
-                    conn = datasource.getConnection();
-                    stmt = conn.prepareStatement(sql);
+                    conn = UnitOfWork.getConnection(datasource);
+                    stmt = UnitOfWork.prepare(conn, sql);
                     stmt.setString( 1, data.getICAO());
-                    stmt.setDate(   2, data.getDateLastModified());
+                    stmt.setTimestamp(   2, data.getDateLastModified());
                     stmt.setString( 3, data.getLink());
                     stmt.setString( 4, data.getFilename());
                     stmt.setLong(   5, data.getDownloadSuccess());
@@ -703,12 +1519,8 @@ public class JDBCJEPPDataService implements AeroDataStoreI {
                             + " ].");
                 }
                 finally {
-                    try { 
-                        if (stmt != null) { stmt.close(); } 
-                    } catch (Exception e) {}
-                    try { 
-                        if (conn != null) { conn.close(); } 
-                    } catch (Exception e) {}
+                    UnitOfWork.release(stmt);
+                    UnitOfWork.release(conn);
                 }
             }
         }
@@ -14,6 +14,7 @@ import javax.ejb.LocalBean;
 import javax.ejb.Stateless;
 import javax.sql.DataSource;
 
+import mil.nga.aero.UnitOfWork;
 import mil.nga.aero.interfaces.AeroDataMetricsStoreI;
 import mil.nga.aero.upg.model.Metrics;
 
@@ -99,8 +100,8 @@ public class JDBCJEPPMetricsService
                     
                 try { 
                     
-                    conn = datasource.getConnection();
-                    stmt = conn.prepareStatement(sql);
+                    conn = UnitOfWork.getConnection(datasource);
+                    stmt = UnitOfWork.prepare(conn, sql);
                     
                     stmt.setTimestamp(1,  new Timestamp(metrics.getExecutionTime().getTime()));
                     stmt.setLong(     2,  metrics.getSourceHoldings());
@@ -125,12 +126,8 @@ public class JDBCJEPPMetricsService
                             + " ].");
                 }
                 finally {
-                    try { 
-                        if (stmt != null) { stmt.close(); } 
-                    } catch (Exception e) {}
-                    try { 
-                        if (conn != null) { conn.close(); } 
-                    } catch (Exception e) {}
+                    UnitOfWork.release(stmt);
+                    UnitOfWork.release(conn);
                 }
             }
         }
@@ -169,8 +166,8 @@ public class JDBCJEPPMetricsService
         if (datasource != null) {
             try {
                 
-                conn = datasource.getConnection();
-                stmt = conn.prepareStatement(sql);
+                conn = UnitOfWork.getConnection(datasource);
+                stmt = UnitOfWork.prepare(conn, sql);
                 rs   = stmt.executeQuery();
                 
                 while (rs.next()) {
@@ -200,12 +197,8 @@ public class JDBCJEPPMetricsService
                 try { 
                     if (rs != null) { rs.close(); } 
                 } catch (Exception e) {}
-                try { 
-                    if (stmt != null) { stmt.close(); } 
-                } catch (Exception e) {}
-                try { 
-                    if (conn != null) { conn.close(); } 
-                } catch (Exception e) {}
+                UnitOfWork.release(stmt);
+                UnitOfWork.release(conn);
             }
         }
         else {
@@ -270,8 +263,8 @@ public class JDBCJEPPMetricsService
         if (datasource != null) {
             try {
                 
-                conn = datasource.getConnection();
-                stmt = conn.prepareStatement(sql);
+                conn = UnitOfWork.getConnection(datasource);
+                stmt = UnitOfWork.prepare(conn, sql);
                 stmt.setTimestamp(1, new Timestamp(start));
                 stmt.setTimestamp(2, new Timestamp(end));
                 rs   = stmt.executeQuery();
@@ -303,12 +296,8 @@ public class JDBCJEPPMetricsService
                 try { 
                     if (rs != null) { rs.close(); } 
                 } catch (Exception e) {}
-                try { 
-                    if (stmt != null) { stmt.close(); } 
-                } catch (Exception e) {}
-                try { 
-                    if (conn != null) { conn.close(); } 
-                } catch (Exception e) {}
+                UnitOfWork.release(stmt);
+                UnitOfWork.release(conn);
             }
         }
         else {
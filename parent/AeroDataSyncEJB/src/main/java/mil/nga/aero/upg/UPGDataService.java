@@ -14,6 +14,7 @@ import mil.nga.aero.interfaces.AeroDataServiceI;
 import mil.nga.aero.upg.exceptions.ErrorCodes;
 import mil.nga.aero.upg.exceptions.UPGDataException;
 import mil.nga.aero.upg.model.RawUPGData;
+import mil.nga.aero.upg.model.SourceCatalog;
 
 /**
  * Session Bean implementation class UPGDataService
@@ -62,4 +63,50 @@ public class UPGDataService
         return deserialize(getRawData(targetURL));
     }
     
+    /**
+     * Retrieve the UPG source catalog, parsing the JSON directly from the 
+     * HTTP response stream.
+     * 
+     * @return The source catalog.
+     * @throws UPGDataException Thrown if there are problems retrieving the
+     * source holdings.
+     */
+    public SourceCatalog getSourceCatalog() throws UPGDataException {
+        
+        String targetURL = super.getTargetURL(
+                AeroDataConstants.UPG_TARGET_URL);
+        
+        if ((targetURL == null) || (targetURL.isEmpty())) {
+            LOGGER.error("Unable to retreive the target URL associated with "
+                    + "UPG data.  This is an issue with the properties "
+                    + "file.");
+            throw new UPGDataException(ErrorCodes.PROPERTIES_NOT_LOADED);
+        }
+        
+        return getSourceCatalog(targetURL);
+    }
+    
+    /**
+     * Retrieve the UPG source catalog, spooling it to disk sorted by UUID 
+     * rather than holding it in memory.
+     * 
+     * @return The source catalog.
+     * @throws UPGDataException Thrown if there are problems retrieving the
+     * source holdings.
+     */
+    public SourceCatalog getSortedSourceCatalog() throws UPGDataException {
+        
+        String targetURL = super.getTargetURL(
+                AeroDataConstants.UPG_TARGET_URL);
+        
+        if ((targetURL == null) || (targetURL.isEmpty())) {
+            LOGGER.error("Unable to retreive the target URL associated with "
+                    + "UPG data.  This is an issue with the properties "
+                    + "file.");
+            throw new UPGDataException(ErrorCodes.PROPERTIES_NOT_LOADED);
+        }
+        
+        return getSourceCatalog(targetURL, true);
+    }
+    
 }
@@ -1,6 +1,5 @@
 package mil.nga.aero.upg;
 
-import java.text.SimpleDateFormat;
 import java.util.Date;
 
 import javax.ejb.EJB;
@@ -26,18 +25,6 @@ public class UPGDataUpdateTimer {
     private static final Logger LOGGER = LoggerFactory.getLogger(
             UPGDataUpdateTimer.class);
     
-    /** 
-     * Format associated with dates incoming from the target UPG data source.
-     */
-    private static final String DATE_FORMAT_STRING = "yyyy-MM-dd HH:mm:ss";
-            
-    /**
-     * DateFormat object used to convert the String based last-update date 
-     * retrieved from the target data store.
-     */
-    private static final SimpleDateFormat formatter = 
-                new SimpleDateFormat(DATE_FORMAT_STRING);
-    
     /**
      * Container-injected reference to the UPGDataService session bean.
      */
@@ -87,7 +74,7 @@ public class UPGDataUpdateTimer {
     			+ "synchronization process has been disabled due "
     			+ "due to changes at the data provider (Leidos).");
 //        LOGGER.info("UPG data synchronization service launched at [ "
-//                + formatter.format(new Date(System.currentTimeMillis()))
+//                + DateUtils.format(new Date(System.currentTimeMillis()))
 //                + " ].");
 //        
 //        try {
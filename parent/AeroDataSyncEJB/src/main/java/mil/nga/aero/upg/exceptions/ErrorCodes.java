@@ -57,7 +57,10 @@ public enum ErrorCodes {
     DATA_SOURCE_EXCEPTION (
             1070,
             "An exception was raised while attempting to interact with the "
-            + "back end data store.");
+            + "back end data store."),
+    SYNC_CANCELLED (
+            1075,
+            "The synchronization run was cancelled before it completed.");
     
     /**
      * Error code ID
@@ -1,14 +1,16 @@
 package mil.nga.aero.upg.model;
 
 import java.io.Serializable;
-import java.sql.Date;
+import java.sql.Timestamp;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import mil.nga.util.DateUtils;
+import mil.nga.util.StringPool;
+
 /**
  * Simple POJO holding the data associated with a single array element 
  * retrieved from the UPG data source.  This will hold the data associated 
@@ -21,6 +23,13 @@ import org.slf4j.LoggerFactory;
  * Added a dump of the instanted object if the validation algorithm fails.  
  * This is to troubleshoot issues with incoming data from Leidos.
  * 
+ * The complete source catalog is held in memory during a synchronization 
+ * so the internal representation is kept compact.  The low-cardinality 
+ * ICAO and TYPE attributes are pooled, the directory portion of the LINK 
+ * is pooled and stored separately from the file name, and the 
+ * DATE_LAST_MODIFIED is held as a primitive.
+ * @see mil.nga.util.StringPool
+ * 
  * @author L. Craig Carpenter
  */
 public class IntermediateUPGData implements Serializable {
@@ -36,22 +45,11 @@ public class IntermediateUPGData implements Serializable {
     private static final Logger LOGGER = LoggerFactory.getLogger(
             IntermediateUPGData.class);
     
-    /** 
-     * Format associated with dates incoming from the target UPG data source.
-     */
-    private static final String DATE_FORMAT_STRING = "yyyy-MM-dd HH:mm:ss";
-            
-    /**
-     * DateFormat object used to convert the String based last-update date 
-     * retrieved from the target data store.
-     */
-    private static final SimpleDateFormat formatter = 
-                new SimpleDateFormat(DATE_FORMAT_STRING);
-    
     private final String uuid;
     private final String icao;
-    private final Date   dateLastModified;
-    private final String link;
+    private final long   dateLastModified;
+    private final String linkPrefix;
+    private final String linkName;
     private final String hash;
     private final String psuedoName;
     private final String type;
@@ -65,7 +63,8 @@ public class IntermediateUPGData implements Serializable {
         this.uuid             = builder.uuid;
         this.icao             = builder.icao;
         this.dateLastModified = builder.dateLastModified;
-        this.link             = builder.link;
+        this.linkPrefix       = StringPool.prefix(builder.link);
+        this.linkName         = StringPool.suffix(builder.link);
         this.hash             = builder.hash;
         this.psuedoName       = builder.psuedoName;
         this.type             = builder.type;
@@ -75,7 +74,16 @@ public class IntermediateUPGData implements Serializable {
      * Getter method for the DLM (date last modified) attribute.
      * @return The DLM attribute.
      */
-    public Date getDateLastModified() {
+    public Timestamp getDateLastModified() {
+        return new Timestamp(dateLastModified);
+    }
+    
+    /**
+     * Getter method for the DLM (date last modified) attribute.  Used for 
+     * comparisons to avoid allocating a Timestamp object.
+     * @return The DLM attribute (in milliseconds from the epoch).
+     */
+    public long getDateLastModifiedMillis() {
         return dateLastModified;
     }
     
@@ -84,7 +92,7 @@ public class IntermediateUPGData implements Serializable {
      * @return The DLM attribute.
      */
     public String getDateLastModifiedString() {
-        return formatter.format(dateLastModified);
+        return DateUtils.format(getDateLastModified());
     }
     
     /**
@@ -116,7 +124,7 @@ public class IntermediateUPGData implements Serializable {
      * @return The URL attribute.
      */
     public String getLink() {
-        return link;
+        return StringPool.join(linkPrefix, linkName);
     }
     
     /**
@@ -173,7 +181,7 @@ public class IntermediateUPGData implements Serializable {
         
         private String uuid;
         private String icao;
-        private Date   dateLastModified;
+        private long dateLastModified;
         private String link;
         private String hash;
         private String psuedoName;
@@ -191,11 +199,10 @@ public class IntermediateUPGData implements Serializable {
          * @param date String representation of the date.
          * @return The formatted date.
          * @throws ParseException Thrown if the input date string cannot be
-         * converted into a Date object.
+         * converted into a Timestamp object.
          */
-        private Date getDate(String date) throws ParseException {
-            java.util.Date parsed = formatter.parse(date);
-            return new java.sql.Date(parsed.getTime());
+        private long getDate(String date) throws ParseException {
+            return DateUtils.parseTimestamp(date).getTime();
         }
         
         /**
@@ -257,6 +264,16 @@ public class IntermediateUPGData implements Serializable {
             return this;
         }
         
+        /**
+         * Setter method for the DATE_LAST_MODIFIED attribute.
+         * @param value The DATE_LAST_MODIFIED attribute (in milliseconds 
+         * from the epoch).
+         */
+        public IntermediateUPGDataBuilder dateLastModified(long value) {
+            dateLastModified = value;
+            return this;
+        }
+        
         /**
          * Setter method for the Hash attribute.  This attribute is provided by the 
          * target, but it is not persisted in the back-end database.
@@ -275,7 +292,7 @@ public class IntermediateUPGData implements Serializable {
          */
         public IntermediateUPGDataBuilder icao(String value) {
             if (value != null) {
-                icao = value.trim();
+                icao = StringPool.intern(value.trim());
             }
             return this;
         }
@@ -297,7 +314,7 @@ public class IntermediateUPGData implements Serializable {
          */
         public IntermediateUPGDataBuilder type(String value) {
             if (value != null) {
-                type = value.trim();
+                type = StringPool.intern(value.trim());
             }
             return this;
         }
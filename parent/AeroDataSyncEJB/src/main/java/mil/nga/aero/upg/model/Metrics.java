@@ -2,7 +2,8 @@ package mil.nga.aero.upg.model;
 
 import java.io.Serializable;
 import java.util.Date;
-import java.text.SimpleDateFormat;
+
+import mil.nga.util.DateUtils;
 
 /**
  * Simple POJO holding metrics associated with the execution of a single
@@ -18,24 +19,26 @@ public class Metrics implements Serializable {
      */
     private static final long serialVersionUID = 7910132497216831765L;
     
-    /** 
-     * Format associated with dates incoming from the target UPG data source.
-     */
-    private static final String DATE_FORMAT_STRING = "yyyy-MM-dd HH:mm:ss";
-            
-    /**
-     * DateFormat object used to convert the String based last-update date 
-     * retrieved from the target data store.
-     */
-    private static final SimpleDateFormat formatter = 
-                new SimpleDateFormat(DATE_FORMAT_STRING);
-    
     private final Date   executionTime;
     private final long   sourceHoldings;
     private final long   added;
     private final long   updated;
     private final long   removed;
     private final long   failedDownloads;
+    private final long   downloadsAvoided;
+    private final long   metadataOnlyUpdates;
+    private final long   contentDownloads;
+    private final long   retryAttempts;
+    private final long   retryRecoveries;
+    private final long   catalogParseTime;
+    private final long   catalogPeakHeap;
+    private final long   catalogRejected;
+    private final boolean catalogUnchanged;
+    private final long   holdingsScanTime;
+    private final long   poolWaitTime;
+    private final long   connectionsAcquired;
+    private final long   statementsPrepared;
+    private final long   statementsReused;
     private final long   elapsedTime;
     private final long   localHoldings;
     private final String hostName;
@@ -53,6 +56,20 @@ public class Metrics implements Serializable {
         this.updated         = builder.updated;
         this.removed         = builder.removed;
         this.failedDownloads = builder.failedDownloads;
+        this.downloadsAvoided = builder.downloadsAvoided;
+        this.metadataOnlyUpdates = builder.metadataOnlyUpdates;
+        this.contentDownloads = builder.contentDownloads;
+        this.retryAttempts = builder.retryAttempts;
+        this.retryRecoveries = builder.retryRecoveries;
+        this.catalogParseTime = builder.catalogParseTime;
+        this.catalogPeakHeap = builder.catalogPeakHeap;
+        this.catalogRejected = builder.catalogRejected;
+        this.catalogUnchanged = builder.catalogUnchanged;
+        this.holdingsScanTime = builder.holdingsScanTime;
+        this.poolWaitTime = builder.poolWaitTime;
+        this.connectionsAcquired = builder.connectionsAcquired;
+        this.statementsPrepared = builder.statementsPrepared;
+        this.statementsReused = builder.statementsReused;
         this.elapsedTime     = builder.elapsedTime;
         this.localHoldings   = builder.localHoldings;
         this.hostName        = builder.hostName;
@@ -81,7 +98,7 @@ public class Metrics implements Serializable {
      * execution.
      */
     public String getExecutionTimeString() {
-        return formatter.format(executionTime);
+        return DateUtils.format(executionTime);
     }
     
     /**
@@ -92,6 +109,132 @@ public class Metrics implements Serializable {
         return failedDownloads;
     }
     
+    /**
+     * Getter method for the number of products that exist in both the 
+     * source and local holdings but did not need to be downloaded.
+     * @return The number of downloads avoided.
+     */
+    public long getNumDownloadsAvoided() {
+        return downloadsAvoided;
+    }
+    
+    /**
+     * Getter method for the number of updated products whose content was
+     * unchanged and therefore only required a metadata update.
+     * @return The number of metadata-only updates.
+     */
+    public long getNumMetadataOnlyUpdates() {
+        return metadataOnlyUpdates;
+    }
+    
+    /**
+     * Getter method for the number of products actually downloaded from 
+     * the source (i.e. added or updated).
+     * @return The number of content downloads.
+     */
+    public long getNumContentDownloads() {
+        return contentDownloads;
+    }
+    
+    /**
+     * Getter method for the number of failed products re-attempted by the 
+     * retry lane.
+     * @return The number of retry attempts.
+     */
+    public long getNumRetryAttempts() {
+        return retryAttempts;
+    }
+    
+    /**
+     * Getter method for the number of failed products successfully 
+     * downloaded by the retry lane.
+     * @return The number of retry recoveries.
+     */
+    public long getNumRetryRecoveries() {
+        return retryRecoveries;
+    }
+    
+    /**
+     * Getter method for the time required to retrieve and parse the 
+     * source catalog.
+     * @return The catalog parse time in milliseconds.
+     */
+    public long getCatalogParseTime() {
+        return catalogParseTime;
+    }
+    
+    /**
+     * Getter method for the time required to read the local holdings 
+     * snapshot used by the in-memory diff.
+     * @return The holdings scan time in milliseconds.
+     */
+    public long getHoldingsScanTime() {
+        return holdingsScanTime;
+    }
+    
+    /**
+     * Getter method for the number of database connections acquired from 
+     * the pool during the run.
+     * @return The number of connections acquired.
+     */
+    public long getConnectionsAcquired() {
+        return connectionsAcquired;
+    }
+    
+    /**
+     * Getter method for the time spent waiting on the database connection 
+     * pool during the run.
+     * @return The pool wait time in milliseconds.
+     */
+    public long getPoolWaitTime() {
+        return poolWaitTime;
+    }
+    
+    /**
+     * Getter method for the number of SQL statements prepared during the 
+     * run.
+     * @return The number of statements prepared.
+     */
+    public long getStatementsPrepared() {
+        return statementsPrepared;
+    }
+    
+    /**
+     * Getter method for the number of prepared statements served from the 
+     * statement cache during the run.
+     * @return The number of statements reused.
+     */
+    public long getStatementsReused() {
+        return statementsReused;
+    }
+    
+    /**
+     * Getter method for the peak heap usage observed while the source 
+     * catalog was being retrieved and parsed.
+     * @return The peak heap usage in bytes.
+     */
+    public long getCatalogPeakHeap() {
+        return catalogPeakHeap;
+    }
+    
+    /**
+     * Getter method for the number of source catalog rows that could not 
+     * be converted.
+     * @return The number of rejected catalog rows.
+     */
+    public long getCatalogRejected() {
+        return catalogRejected;
+    }
+    
+    /**
+     * Determine whether the run was skipped because the source catalog 
+     * was unchanged since the last run.
+     * @return True if the catalog was unchanged.
+     */
+    public boolean isCatalogUnchanged() {
+        return catalogUnchanged;
+    }
+    
     /**
      * Return the number of products held locally.
      * @return The number of products held locally.
@@ -157,7 +300,7 @@ public class Metrics implements Serializable {
         sb.append("------------------------------------------");
         sb.append(newLine);
         sb.append("Execution Time   : ");
-        sb.append(formatter.format(getExecutionTime()));
+        sb.append(DateUtils.format(getExecutionTime()));
         sb.append(newLine);
         sb.append("Elapsed Time     : ");
         sb.append(getElapsedTime());
@@ -175,6 +318,51 @@ public class Metrics implements Serializable {
         sb.append("Failed Downloads : ");
         sb.append(getNumFailedDownloads());
         sb.append(newLine);
+        sb.append("Downloads Avoided: ");
+        sb.append(getNumDownloadsAvoided());
+        sb.append(newLine);
+        sb.append("Metadata Only    : ");
+        sb.append(getNumMetadataOnlyUpdates());
+        sb.append(newLine);
+        sb.append("Content Downloads: ");
+        sb.append(getNumContentDownloads());
+        sb.append(newLine);
+        sb.append("Retry Attempts   : ");
+        sb.append(getNumRetryAttempts());
+        sb.append(newLine);
+        sb.append("Retry Recoveries : ");
+        sb.append(getNumRetryRecoveries());
+        sb.append(newLine);
+        sb.append("Catalog Parse    : ");
+        sb.append(getCatalogParseTime());
+        sb.append(" ms");
+        sb.append(newLine);
+        sb.append("Catalog Peak Heap: ");
+        sb.append(getCatalogPeakHeap() / (1024 * 1024));
+        sb.append(" MB");
+        sb.append(newLine);
+        sb.append("Catalog Rejected : ");
+        sb.append(getCatalogRejected());
+        sb.append(newLine);
+        sb.append("Catalog Unchanged: ");
+        sb.append(isCatalogUnchanged());
+        sb.append(newLine);
+        sb.append("Holdings Scan    : ");
+        sb.append(getHoldingsScanTime());
+        sb.append(" ms");
+        sb.append(newLine);
+        sb.append("Pool Wait        : ");
+        sb.append(getPoolWaitTime());
+        sb.append(" ms (");
+        sb.append(getConnectionsAcquired());
+        sb.append(" connections)");
+        sb.append(newLine);
+        sb.append("Stmts Prepared   : ");
+        sb.append(getStatementsPrepared());
+        sb.append(" (");
+        sb.append(getStatementsReused());
+        sb.append(" reused)");
+        sb.append(newLine);
         sb.append("Source Holdings  : ");
         sb.append(getSourceHoldings());
         sb.append(newLine);
@@ -206,6 +394,20 @@ public class Metrics implements Serializable {
         private long   updated         = 0;
         private long   removed         = 0;
         private long   failedDownloads = 0;
+        private long   downloadsAvoided = 0;
+        private long   metadataOnlyUpdates = 0;
+        private long   contentDownloads = 0;
+        private long   retryAttempts = 0;
+        private long   retryRecoveries = 0;
+        private long   catalogParseTime = 0;
+        private long   catalogPeakHeap = 0;
+        private long   catalogRejected = 0;
+        private boolean catalogUnchanged = false;
+        private long   holdingsScanTime = 0;
+        private long   poolWaitTime = 0;
+        private long   connectionsAcquired = 0;
+        private long   statementsPrepared = 0;
+        private long   statementsReused = 0;
         private long   elapsedTime     = 0;
         private long   localHoldings   = 0;
         private String hostName        = "";
@@ -231,6 +433,20 @@ public class Metrics implements Serializable {
             updated         = 0;
             removed         = 0;
             failedDownloads = 0;
+            downloadsAvoided = 0;
+            metadataOnlyUpdates = 0;
+            contentDownloads = 0;
+            retryAttempts = 0;
+            retryRecoveries = 0;
+            catalogParseTime = 0;
+            catalogPeakHeap = 0;
+            catalogRejected = 0;
+            catalogUnchanged = false;
+            holdingsScanTime = 0;
+            poolWaitTime = 0;
+            connectionsAcquired = 0;
+            statementsPrepared = 0;
+            statementsReused = 0;
             elapsedTime     = 0;
             localHoldings   = 0;
             hostName        = "";
@@ -263,6 +479,132 @@ public class Metrics implements Serializable {
             return this;
         }
         
+        /**
+         * Setter method for the number of downloads avoided.
+         * @param value The number of downloads avoided.
+         */
+        public MetricsBuilder downloadsAvoided (long value) {
+            downloadsAvoided = value;
+            return this;
+        }
+        
+        /**
+         * Setter method for the number of metadata-only updates.
+         * @param value The number of metadata-only updates.
+         */
+        public MetricsBuilder metadataOnlyUpdates (long value) {
+            metadataOnlyUpdates = value;
+            return this;
+        }
+        
+        /**
+         * Setter method for the number of content downloads.
+         * @param value The number of content downloads.
+         */
+        public MetricsBuilder contentDownloads (long value) {
+            contentDownloads = value;
+            return this;
+        }
+        
+        /**
+         * Setter method for the number of retry attempts.
+         * @param value The number of retry attempts.
+         */
+        public MetricsBuilder retryAttempts (long value) {
+            retryAttempts = value;
+            return this;
+        }
+        
+        /**
+         * Setter method for the number of retry recoveries.
+         * @param value The number of retry recoveries.
+         */
+        public MetricsBuilder retryRecoveries (long value) {
+            retryRecoveries = value;
+            return this;
+        }
+        
+        /**
+         * Setter method for the number of pooled connections acquired.
+         * @param value The number of connections acquired.
+         */
+        public MetricsBuilder connectionsAcquired (long value) {
+            connectionsAcquired = value;
+            return this;
+        }
+        
+        /**
+         * Setter method for the time spent waiting on the connection pool.
+         * @param value The pool wait time in milliseconds.
+         */
+        public MetricsBuilder poolWaitTime (long value) {
+            poolWaitTime = value;
+            return this;
+        }
+        
+        /**
+         * Setter method for the number of statements prepared.
+         * @param value The number of statements prepared.
+         */
+        public MetricsBuilder statementsPrepared (long value) {
+            statementsPrepared = value;
+            return this;
+        }
+        
+        /**
+         * Setter method for the number of cached statements reused.
+         * @param value The number of statements reused.
+         */
+        public MetricsBuilder statementsReused (long value) {
+            statementsReused = value;
+            return this;
+        }
+        
+        /**
+         * Setter method for the local holdings scan time.
+         * @param value The holdings scan time in milliseconds.
+         */
+        public MetricsBuilder holdingsScanTime (long value) {
+            holdingsScanTime = value;
+            return this;
+        }
+        
+        /**
+         * Setter method for the catalog parse time.
+         * @param value The catalog parse time in milliseconds.
+         */
+        public MetricsBuilder catalogParseTime (long value) {
+            catalogParseTime = value;
+            return this;
+        }
+        
+        /**
+         * Setter method for the peak heap usage while parsing the catalog.
+         * @param value The peak heap usage in bytes.
+         */
+        public MetricsBuilder catalogPeakHeap (long value) {
+            catalogPeakHeap = value;
+            return this;
+        }
+        
+        /**
+         * Setter method for the number of rejected catalog rows.
+         * @param value The number of rejected catalog rows.
+         */
+        public MetricsBuilder catalogRejected (long value) {
+            catalogRejected = value;
+            return this;
+        }
+        
+        /**
+         * Setter method for the unchanged catalog flag.
+         * @param value True if the catalog was unchanged.
+         */
+        public MetricsBuilder catalogUnchanged (boolean value) {
+            catalogUnchanged = value;
+            return this;
+        }
+        
         /**
          * Setter method for the NUM_PRODUCTS_REMOVED attribute.
          * @param value The NUM_PRODUCTS_REMOVED attribute.
@@ -377,6 +719,13 @@ public class Metrics implements Serializable {
                         + " ].  FAILED_DOWNLOADS must be greater than or "
                         + "equal to 0.");
             }
+            if (object.getNumDownloadsAvoided() < 0) {
+                throw new IllegalStateException("Invalid value for "
+                        + "DOWNLOADS_AVOIDED [ "
+                        + object.getNumDownloadsAvoided()
+                        + " ].  DOWNLOADS_AVOIDED must be greater than or "
+                        + "equal to 0.");
+            }
             if (object.getLocalHoldings() < 0) {
                 throw new IllegalStateException("Invalid value for "
                         + "LOCAL_HOLDINGS [ "
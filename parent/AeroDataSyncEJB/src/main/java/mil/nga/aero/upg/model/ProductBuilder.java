@@ -6,6 +6,12 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
 
 import mil.nga.PropertyLoader;
 import mil.nga.aero.interfaces.AeroDataConstants;
@@ -33,11 +39,22 @@ public class ProductBuilder
     private static final Logger LOGGER = LoggerFactory.getLogger(
             ProductBuilder.class);
     
+    /**
+     * Partitions smaller than this are not worth handing to another thread.
+     */
+    private static final int MIN_ROWS_PER_PARTITION = 1000;
+    
     /**
      * The base URL that will be used when constructing the local URL data.
      */
     private final String baseURL;
     
+    /**
+     * Number of rows rejected by the most recent call to 
+     * <code>buildMap()</code>.
+     */
+    private final LongAdder rejected = new LongAdder();
+    
     /**
      * The base URL that will be used when constructing the local URL data.
      */
@@ -242,6 +259,62 @@ public class ProductBuilder
         return object;
     }
     
+    /**
+     * Getter method for the number of rows rejected by the most recent 
+     * call to <code>buildMap()</code>.
+     * 
+     * @return The number of rejected rows.
+     */
+    public long getNumRejected() {
+        return rejected.sum();
+    }
+    
+    /**
+     * Convert a single row of raw UPG data into an 
+     * <code>IntermediateUPGData</code> object and add it to the output map.
+     * Rows that cannot be converted are logged and counted.  This method 
+     * is safe to call from multiple threads provided the output map is.
+     * 
+     * @param list A single row of raw UPG data.
+     * @param upgData The output map.
+     */
+    private void convert(
+            List<String>                     list, 
+            Map<String, IntermediateUPGData> upgData) {
+        if ((list != null) && (list.size() == 7)) {
+            try {
+                upgData.put(
+                        list.get(0),
+                        new IntermediateUPGData.IntermediateUPGDataBuilder()
+                            .attributes(list)
+                            .build());
+            }
+            catch (ParseException pe) {
+                LOGGER.warn("An unexpected ParseException was raised "
+                        + "while attempting to parse the date field "
+                        + "associated with UUID [ "
+                        + list.get(0)
+                        + " ].  Bad date data [ "
+                        + list.get(2)
+                        + " ].");
+                rejected.increment();
+            }
+            catch (IllegalStateException ile) {
+                LOGGER.warn("Error encountered processing incoming "
+                        + "JSON data.  IllegalStateException "
+                        + "encountered.  Error message [ "
+                        + ile.getMessage()
+                        + " ].");
+                rejected.increment();
+            }
+        }
+        else {
+            LOGGER.warn("Encountered a JSON array with the incorrect "
+                    + "number of elements.");
+            rejected.increment();
+        }
+    }
+    
     /**
      * Construct a Map object (i.e. key/value pair) containing the  
      * <code>IntermediateUPGData</code> downloaded from the target UPG data 
@@ -255,39 +328,94 @@ public class ProductBuilder
         Map<String, IntermediateUPGData> upgData = 
                 new HashMap<String, IntermediateUPGData>();
         
+        rejected.reset();
         if ((rawData != null) && (rawData.getData() != null)) {
             for (ArrayList<String> list : rawData.getData()) {
-                if (list.size() == 7) {
-                    try {
-                        upgData.put(
-                                list.get(0),
-                                new IntermediateUPGData.IntermediateUPGDataBuilder()
-                                    .attributes(list)
-                                    .build());
-                    }
-                    catch (ParseException pe) {
-                        LOGGER.warn("An unexpected ParseException was raised "
-                                + "while attempting to parse the date field "
-                                + "associated with UUID [ "
-                                + list.get(0)
-                                + " ].  Bad date data [ "
-                                + list.get(2)
-                                + " ].");
-                    }
-                    catch (IllegalStateException ile) {
-                        LOGGER.warn("Error encountered processing incoming "
-                                + "JSON data.  IllegalStateException "
-                                + "encountered.  Error message [ "
-                                + ile.getMessage()
-                                + " ].");
+                convert(list, upgData);
+            }
+        }
+        return upgData;
+    }
+    
+    /**
+     * Construct a Map object containing the <code>IntermediateUPGData</code>
+     * downloaded from the target UPG data source, splitting the conversion 
+     * across the input executor.  The raw rows are divided into one 
+     * contiguous partition per thread and each partition is converted 
+     * into a pre-sized concurrent map.  If no executor is supplied, the 
+     * number of threads is 1, or there are too few rows to be worth 
+     * splitting, the rows are converted on the calling thread.
+     * 
+     * @param rawData The raw UPG data retrieved from the source.
+     * @param executor The executor that will convert the partitions.
+     * @param threads The number of partitions to create.
+     * @return A Map object containing the IntermediateUPGData
+     */
+    public Map<String, IntermediateUPGData> buildMap(
+            RawUPGData      rawData, 
+            ExecutorService executor, 
+            int             threads) {
+        
+        if ((rawData == null) || (rawData.getData() == null) || 
+                (executor == null) || (threads <= 1) || 
+                (rawData.getData().size() < (threads * MIN_ROWS_PER_PARTITION))) {
+            return buildMap(rawData);
+        }
+        
+        final List<ArrayList<String>> rows = rawData.getData();
+        final Map<String, IntermediateUPGData> upgData = 
+                new ConcurrentHashMap<String, IntermediateUPGData>(
+                        (int)(rows.size() / 0.75f) + 1, 
+                        0.75f, 
+                        threads);
+        List<Future<Void>> futures   = new ArrayList<Future<Void>>(threads);
+        int                partition = (rows.size() + threads - 1) / threads;
+        long               start     = System.currentTimeMillis();
+        
+        rejected.reset();
+        for (int i = 0; i < rows.size(); i += partition) {
+            final List<ArrayList<String>> subList = rows.subList(
+                    i, 
+                    Math.min(i + partition, rows.size()));
+            futures.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (ArrayList<String> list : subList) {
+                        convert(list, upgData);
                     }
+                    return null;
                 }
-                else {
-                    LOGGER.warn("Encountered a JSON array with the incorrect "
-                            + "number of elements.");
-                }
+            }));
+        }
+        try {
+            for (Future<Void> future : futures) {
+                future.get();
             }
         }
+        catch (InterruptedException ie) {
+            LOGGER.warn("Interrupted while building the source holdings "
+                    + "map.");
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException ee) {
+            LOGGER.error("Unexpected exception raised while building the "
+                    + "source holdings map.  Exception message [ "
+                    + (ee.getCause() != null ? 
+                            ee.getCause().getMessage() : ee.getMessage())
+                    + " ].");
+        }
+        
+        LOGGER.info("Converted [ "
+                + rows.size()
+                + " ] rows into [ "
+                + upgData.size()
+                + " ] products using [ "
+                + futures.size()
+                + " ] partitions in [ "
+                + (System.currentTimeMillis() - start)
+                + " ] ms.  Rows rejected [ "
+                + getNumRejected()
+                + " ].");
         return upgData;
     }
         
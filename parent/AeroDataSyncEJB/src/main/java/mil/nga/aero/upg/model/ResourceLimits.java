@@ -0,0 +1,185 @@
+package mil.nga.aero.upg.model;
+
+import java.io.Serializable;
+
+import mil.nga.types.AeroDataType;
+
+/**
+ * Simple POJO holding the resources a single data type may consume while
+ * it is being synchronized.  Each data type has its own limits so that
+ * the UPG and JEPP synchronizations can run at the same time without one
+ * starving the other.
+ *
+ * @author L. Craig Carpenter
+ */
+public class ResourceLimits implements Serializable {
+
+    /**
+     * Eclipse-generated serialVersionUID
+     */
+    private static final long serialVersionUID = -6124471358290327115L;
+
+    private final AeroDataType type;
+    private final int          downloadThreads;
+    private final int          maxConnections;
+    private final long         bandwidth;
+
+    /**
+     * Constructor used to set all of the required internal members.
+     *
+     * @param builder Populated builder object.
+     */
+    private ResourceLimits (ResourceLimitsBuilder builder) {
+        this.type            = builder.type;
+        this.downloadThreads = builder.downloadThreads;
+        this.maxConnections  = builder.maxConnections;
+        this.bandwidth       = builder.bandwidth;
+    }
+
+    /**
+     * Getter method for the maximum download rate.
+     * @return The maximum download rate in bytes per second (0 if the
+     * rate is not limited).
+     */
+    public long getBandwidth() {
+        return bandwidth;
+    }
+
+    /**
+     * Getter method for the number of products downloaded concurrently.
+     * @return The number of download threads.
+     */
+    public int getDownloadThreads() {
+        return downloadThreads;
+    }
+
+    /**
+     * Getter method for the maximum number of HTTP connections used to
+     * download products concurrently.
+     * @return The maximum number of connections.
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Getter method for the data type to which the limits apply.
+     * @return The data type.
+     */
+    public AeroDataType getType() {
+        return type;
+    }
+
+    /**
+     * Convert to a human-readable String.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("ResourceLimits : Type => [ ");
+        sb.append(getType().getText());
+        sb.append(" ], Download Threads => [ ");
+        sb.append(getDownloadThreads());
+        sb.append(" ], Max Connections => [ ");
+        sb.append(getMaxConnections());
+        sb.append(" ], Bandwidth => [ ");
+        if (getBandwidth() > 0) {
+            sb.append(getBandwidth());
+            sb.append(" bytes/s");
+        }
+        else {
+            sb.append("unlimited");
+        }
+        sb.append(" ].");
+        return sb.toString();
+    }
+
+    /**
+     * Class implementing the Builder creation pattern for new
+     * ResourceLimits objects.
+     *
+     * @author L. Craig Carpenter
+     */
+    public static class ResourceLimitsBuilder {
+
+        private AeroDataType type            = null;
+        private int          downloadThreads = 1;
+        private int          maxConnections  = 1;
+        private long         bandwidth       = 0;
+
+        /**
+         * Method used to actually construct the ResourceLimits object.
+         * @return A constructed and validated ResourceLimits object.
+         */
+        public ResourceLimits build() throws IllegalStateException {
+            ResourceLimits object = new ResourceLimits(this);
+            validateResourceLimitsObject(object);
+            return object;
+        }
+
+        /**
+         * Setter method for the maximum download rate.
+         * @param value The maximum download rate in bytes per second (0 if
+         * the rate is not limited).
+         */
+        public ResourceLimitsBuilder bandwidth(long value) {
+            bandwidth = value;
+            return this;
+        }
+
+        /**
+         * Setter method for the number of products downloaded
+         * concurrently.
+         * @param value The number of download threads.
+         */
+        public ResourceLimitsBuilder downloadThreads(int value) {
+            downloadThreads = value;
+            return this;
+        }
+
+        /**
+         * Setter method for the maximum number of HTTP connections.
+         * @param value The maximum number of connections.
+         */
+        public ResourceLimitsBuilder maxConnections(int value) {
+            maxConnections = value;
+            return this;
+        }
+
+        /**
+         * Setter method for the data type to which the limits apply.
+         * @param value The data type.
+         */
+        public ResourceLimitsBuilder type(AeroDataType value) {
+            type = value;
+            return this;
+        }
+
+        /**
+         * Validate that all of the required fields are populated.
+         *
+         * @param object The ResourceLimits object to validate.
+         * @throws IllegalStateException Thrown if any of the required
+         * fields are not populated or are out of range.
+         */
+        private void validateResourceLimitsObject(ResourceLimits object)
+                throws IllegalStateException {
+            if (object.getType() == null) {
+                throw new IllegalStateException("Attempted to build "
+                        + "ResourceLimits object but the data type was "
+                        + "null.");
+            }
+            if ((object.getDownloadThreads() < 1) ||
+                    (object.getMaxConnections() < 1)) {
+                throw new IllegalStateException("Attempted to build "
+                        + "ResourceLimits object with fewer than one "
+                        + "download thread or connection.");
+            }
+            if (object.getBandwidth() < 0) {
+                throw new IllegalStateException("Attempted to build "
+                        + "ResourceLimits object with a negative "
+                        + "bandwidth.");
+            }
+        }
+    }
+}
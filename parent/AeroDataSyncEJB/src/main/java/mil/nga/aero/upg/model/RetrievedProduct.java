@@ -0,0 +1,149 @@
+package mil.nga.aero.upg.model;
+
+import java.io.Serializable;
+
+import mil.nga.types.DownloadStatus;
+
+/**
+ * Simple POJO holding the outcome of retrieving a single product from the
+ * source holdings without persisting it.  The record is handed to the
+ * persistence stage of the synchronization pipeline, which writes it to
+ * the data store along with other retrieved products.
+ *
+ * @author L. Craig Carpenter
+ */
+public class RetrievedProduct implements Serializable {
+
+    /**
+     * Eclipse-generated serialVersionUID
+     */
+    private static final long serialVersionUID = 2291438826571050377L;
+
+    private final UPGData        data;
+    private final DownloadStatus status;
+    private final boolean        existing;
+
+    /**
+     * Constructor used to set all of the required internal members.
+     *
+     * @param builder Populated builder object.
+     */
+    private RetrievedProduct(RetrievedProductBuilder builder) {
+        this.data     = builder.data;
+        this.status   = builder.status;
+        this.existing = builder.existing;
+    }
+
+    /**
+     * Getter method for the record to persist.  The download success flag
+     * reflects the outcome of the retrieval.
+     * @return The record to persist.
+     */
+    public UPGData getData() {
+        return data;
+    }
+
+    /**
+     * Getter method for the outcome of the retrieval.
+     * @return The outcome of the retrieval.
+     */
+    public DownloadStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Getter method indicating whether the product already existed in the
+     * local holdings (i.e. it was updated rather than added).
+     * @return True if the product already existed.
+     */
+    public boolean isExisting() {
+        return existing;
+    }
+
+    /**
+     * Convert to a human-readable String.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("RetrievedProduct : UUID => [ ");
+        sb.append(getData().getUUID());
+        sb.append(" ], Status => [ ");
+        sb.append(getStatus());
+        sb.append(" ], Existing => [ ");
+        sb.append(isExisting());
+        sb.append(" ].");
+        return sb.toString();
+    }
+
+    /**
+     * Class implementing the Builder creation pattern for new
+     * RetrievedProduct objects.
+     *
+     * @author L. Craig Carpenter
+     */
+    public static class RetrievedProductBuilder {
+
+        private UPGData        data     = null;
+        private DownloadStatus status   = DownloadStatus.FAILED;
+        private boolean        existing = false;
+
+        /**
+         * Method used to actually construct the RetrievedProduct object.
+         * @return A constructed and validated RetrievedProduct object.
+         */
+        public RetrievedProduct build() throws IllegalStateException {
+            RetrievedProduct object = new RetrievedProduct(this);
+            validateRetrievedProductObject(object);
+            return object;
+        }
+
+        /**
+         * Setter method for the record to persist.
+         * @param value The record to persist.
+         */
+        public RetrievedProductBuilder data(UPGData value) {
+            data = value;
+            return this;
+        }
+
+        /**
+         * Setter method for the existing flag.
+         * @param value True if the product already existed.
+         */
+        public RetrievedProductBuilder existing(boolean value) {
+            existing = value;
+            return this;
+        }
+
+        /**
+         * Setter method for the outcome of the retrieval.
+         * @param value The outcome of the retrieval.
+         */
+        public RetrievedProductBuilder status(DownloadStatus value) {
+            status = value;
+            return this;
+        }
+
+        /**
+         * Validate that all of the required fields are populated.
+         *
+         * @param object The RetrievedProduct object to validate.
+         * @throws IllegalStateException Thrown if any of the required
+         * fields are not populated.
+         */
+        private void validateRetrievedProductObject(RetrievedProduct object)
+                throws IllegalStateException {
+            if (object.getData() == null) {
+                throw new IllegalStateException("Attempted to build "
+                        + "RetrievedProduct object but the record to "
+                        + "persist was null.");
+            }
+            if (object.getStatus() == null) {
+                throw new IllegalStateException("Attempted to build "
+                        + "RetrievedProduct object but the status was "
+                        + "null.");
+            }
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package mil.nga.aero.upg.model;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * Simple POJO holding the result of a single retrieval of the source
+ * catalog.  In addition to the source holdings it carries the HTTP
+ * validators (<code>ETag</code> and <code>Last-Modified</code>) returned
+ * by the provider and a fingerprint (MD5) of the catalog content so that
+ * subsequent runs can determine whether anything has changed.
+ *
+ * If the catalog is unchanged since the last accepted run the holdings
+ * may be null.
+ * 
+ * When the streaming diff is enabled the holdings are not held in memory.
+ * Instead the catalog is written to a spool file sorted by UUID and only 
+ * the path to that file is carried.
+ * 
+ * When the synchronization pipeline is used the rows are handed to the 
+ * pipeline as they are parsed and neither the holdings nor a spool file 
+ * are carried.
+ *
+ * @author L. Craig Carpenter
+ */
+public class SourceCatalog implements Serializable {
+
+    /**
+     * Eclipse-generated serialVersionUID
+     */
+    private static final long serialVersionUID = -4902301858773046645L;
+
+    private final String                           source;
+    private final Map<String, IntermediateUPGData> holdings;
+    private final boolean                          unchanged;
+    private final String                           eTag;
+    private final String                           lastModified;
+    private final String                           fingerprint;
+    private final long                             rejected;
+    private final String                           spool;
+    private final long                             size;
+    private final boolean                          streamed;
+
+    /**
+     * Constructor used to set all of the required internal members.
+     *
+     * @param builder Populated builder object.
+     */
+    private SourceCatalog (SourceCatalogBuilder builder) {
+        this.source       = builder.source;
+        this.holdings     = builder.holdings;
+        this.unchanged    = builder.unchanged;
+        this.eTag         = builder.eTag;
+        this.lastModified = builder.lastModified;
+        this.fingerprint  = builder.fingerprint;
+        this.rejected     = builder.rejected;
+        this.spool        = builder.spool;
+        this.streamed     = builder.streamed;
+        this.size         = (builder.holdings != null ? 
+                builder.holdings.size() : builder.size);
+    }
+
+    /**
+     * Getter method for the <code>ETag</code> returned by the provider.
+     * @return The ETag (may be null).
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Getter method for the MD5 fingerprint of the catalog content.
+     * @return The fingerprint (may be null).
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Getter method for the source holdings keyed by UUID.
+     * @return The source holdings (null if the catalog was not
+     * re-downloaded).
+     */
+    public Map<String, IntermediateUPGData> getHoldings() {
+        return holdings;
+    }
+
+    /**
+     * Getter method for the <code>Last-Modified</code> header returned by
+     * the provider.
+     * @return The Last-Modified header (may be null).
+     */
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Getter method for the number of catalog rows that were rejected.
+     * @return The number of rejected rows.
+     */
+    public long getNumRejected() {
+        return rejected;
+    }
+
+    /**
+     * Getter method for the number of products in the catalog.
+     * @return The number of products (0 if the catalog was not 
+     * re-downloaded).
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Getter method for the path to the spool file containing the catalog
+     * sorted by UUID.
+     * @return The spool file (null if the holdings are held in memory or 
+     * the catalog was not re-downloaded).
+     */
+    public String getSpool() {
+        return spool;
+    }
+
+    /**
+     * Getter method for the URL from which the catalog was retrieved.
+     * @return The source URL.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Determine whether the catalog content was actually retrieved (i.e.
+     * the provider did not respond with <code>304</code>).
+     * @return True if either the holdings or the spool file are available, 
+     * or the rows were streamed to a handler.
+     */
+    public boolean isRetrieved() {
+        return (holdings != null) || (spool != null) || streamed;
+    }
+    
+    /**
+     * Determine whether the catalog rows were handed to a handler as they
+     * were parsed rather than retained.
+     * @return True if the catalog rows were streamed.
+     */
+    public boolean isStreamed() {
+        return streamed;
+    }
+
+    /**
+     * Determine whether the catalog is unchanged since the last accepted
+     * run.
+     * @return True if the catalog is unchanged.
+     */
+    public boolean isUnchanged() {
+        return unchanged;
+    }
+
+    /**
+     * Convert to a human-readable String.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("SourceCatalog : Source => [ ");
+        sb.append(getSource());
+        sb.append(" ], Products => [ ");
+        sb.append(getSize());
+        sb.append(" ], Unchanged => [ ");
+        sb.append(isUnchanged());
+        sb.append(" ], ETag => [ ");
+        sb.append(getETag());
+        sb.append(" ], Last-Modified => [ ");
+        sb.append(getLastModified());
+        sb.append(" ], Fingerprint => [ ");
+        sb.append(getFingerprint());
+        if (getSpool() != null) {
+            sb.append(" ], Spool => [ ");
+            sb.append(getSpool());
+        }
+        sb.append(" ].");
+        return sb.toString();
+    }
+
+    /**
+     * Class implementing the Builder creation pattern for new
+     * SourceCatalog objects.
+     *
+     * @author L. Craig Carpenter
+     */
+    public static class SourceCatalogBuilder {
+
+        private String                           source;
+        private Map<String, IntermediateUPGData> holdings;
+        private boolean                          unchanged    = false;
+        private String                           eTag;
+        private String                           lastModified;
+        private String                           fingerprint;
+        private long                             rejected     = 0;
+        private String                           spool;
+        private long                             size         = 0;
+        private boolean                          streamed     = false;
+
+        /**
+         * Method used to actually construct the SourceCatalog object.
+         * @return A constructed and validated SourceCatalog object.
+         */
+        public SourceCatalog build() throws IllegalStateException {
+            SourceCatalog object = new SourceCatalog(this);
+            validateSourceCatalogObject(object);
+            return object;
+        }
+
+        /**
+         * Setter method for the ETag.
+         * @param value The ETag.
+         */
+        public SourceCatalogBuilder eTag(String value) {
+            eTag = value;
+            return this;
+        }
+
+        /**
+         * Setter method for the catalog fingerprint.
+         * @param value The fingerprint.
+         */
+        public SourceCatalogBuilder fingerprint(String value) {
+            fingerprint = value;
+            return this;
+        }
+
+        /**
+         * Setter method for the source holdings.
+         * @param value The source holdings keyed by UUID.
+         */
+        public SourceCatalogBuilder holdings(
+                Map<String, IntermediateUPGData> value) {
+            holdings = value;
+            return this;
+        }
+
+        /**
+         * Setter method for the Last-Modified header.
+         * @param value The Last-Modified header.
+         */
+        public SourceCatalogBuilder lastModified(String value) {
+            lastModified = value;
+            return this;
+        }
+
+        /**
+         * Setter method for the number of rejected rows.
+         * @param value The number of rejected rows.
+         */
+        public SourceCatalogBuilder rejected(long value) {
+            rejected = value;
+            return this;
+        }
+
+        /**
+         * Setter method for the number of products in the spool file.  
+         * Ignored if the holdings are supplied.
+         * @param value The number of products.
+         */
+        public SourceCatalogBuilder size(long value) {
+            size = value;
+            return this;
+        }
+
+        /**
+         * Setter method for the streamed flag.
+         * @param value True if the rows were handed to a handler.
+         */
+        public SourceCatalogBuilder streamed(boolean value) {
+            streamed = value;
+            return this;
+        }
+
+        /**
+         * Setter method for the spool file.
+         * @param value Path to the catalog sorted by UUID.
+         */
+        public SourceCatalogBuilder spool(String value) {
+            spool = value;
+            return this;
+        }
+
+        /**
+         * Setter method for the source URL.
+         * @param value The source URL.
+         */
+        public SourceCatalogBuilder source(String value) {
+            source = value;
+            return this;
+        }
+
+        /**
+         * Setter method for the unchanged flag.
+         * @param value True if the catalog is unchanged.
+         */
+        public SourceCatalogBuilder unchanged(boolean value) {
+            unchanged = value;
+            return this;
+        }
+
+        /**
+         * Validate that all required fields are populated.
+         *
+         * @param object The SourceCatalog object to validate.
+         * @throws IllegalStateException Thrown if any of the required fields
+         * are not populated with acceptable values.
+         */
+        private void validateSourceCatalogObject(SourceCatalog object)
+                throws IllegalStateException {
+            if ((object.getSource() == null) ||
+                    (object.getSource().isEmpty())) {
+                throw new IllegalStateException("Attempted to build "
+                        + "SourceCatalog object but the value for "
+                        + "SOURCE was null.");
+            }
+            if ((!object.isUnchanged()) && (!object.isRetrieved())) {
+                throw new IllegalStateException("Attempted to build "
+                        + "SourceCatalog object but the holdings and spool "
+                        + "were null and the catalog was not flagged as "
+                        + "unchanged.");
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package mil.nga.aero.upg.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Simple POJO holding the differences between a source catalog that has
+ * been loaded into the staging table and the local holdings, as
+ * calculated by the database.  Only the products that differ are carried,
+ * so the size of this object is proportional to the amount of change
+ * rather than the size of the holdings.
+ *
+ * @author L. Craig Carpenter
+ */
+public class StagedDelta implements Serializable {
+
+    /**
+     * Eclipse-generated serialVersionUID
+     */
+    private static final long serialVersionUID = -3385012290496405817L;
+
+    private final Map<String, IntermediateUPGData> additions;
+    private final Map<String, IntermediateUPGData> updateSource;
+    private final Map<String, UPGData>             updateLocal;
+    private final Map<String, UPGData>             removals;
+    private final long                             intersection;
+
+    /**
+     * Constructor used to set all of the required internal members.
+     *
+     * @param builder Populated builder object.
+     */
+    private StagedDelta(StagedDeltaBuilder builder) {
+        this.additions    = builder.additions;
+        this.updateSource = builder.updateSource;
+        this.updateLocal  = builder.updateLocal;
+        this.removals     = builder.removals;
+        this.intersection = builder.intersection;
+    }
+
+    /**
+     * Getter method for the staged products that do not exist in the
+     * local holdings.
+     * @return The products to add keyed by UUID.
+     */
+    public Map<String, IntermediateUPGData> getAdditions() {
+        return additions;
+    }
+
+    /**
+     * Getter method for the number of products that exist in both the
+     * staging table and the local holdings.
+     * @return The size of the intersection.
+     */
+    public long getIntersection() {
+        return intersection;
+    }
+
+    /**
+     * Getter method for the local products that no longer exist in the
+     * staging table.
+     * @return The products to remove keyed by UUID.
+     */
+    public Map<String, UPGData> getRemovals() {
+        return removals;
+    }
+
+    /**
+     * Getter method for the local holdings of the products that need to
+     * be updated.
+     * @return The local products to update keyed by UUID.
+     */
+    public Map<String, UPGData> getUpdateLocal() {
+        return updateLocal;
+    }
+
+    /**
+     * Getter method for the staged (source) version of the products that
+     * need to be updated.
+     * @return The source products to update keyed by UUID.
+     */
+    public Map<String, IntermediateUPGData> getUpdateSource() {
+        return updateSource;
+    }
+
+    /**
+     * Convert the delta into the plan executed by the synchronization
+     * process.
+     * @return The products to add, update and remove.
+     */
+    public SyncPlan getPlan() {
+        return new SyncPlan(
+                new ArrayList<String>(additions.keySet()),
+                new ArrayList<String>(updateSource.keySet()),
+                new ArrayList<String>(removals.keySet()),
+                Math.max(0, intersection - updateSource.size()));
+    }
+
+    /**
+     * Convert to a human-readable String.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("StagedDelta : Add => [ ");
+        sb.append(additions.size());
+        sb.append(" ], Update => [ ");
+        sb.append(updateSource.size());
+        sb.append(" ], Remove => [ ");
+        sb.append(removals.size());
+        sb.append(" ], Intersection => [ ");
+        sb.append(intersection);
+        sb.append(" ].");
+        return sb.toString();
+    }
+
+    /**
+     * Class implementing the Builder creation pattern for new
+     * StagedDelta objects.
+     *
+     * @author L. Craig Carpenter
+     */
+    public static class StagedDeltaBuilder {
+
+        private Map<String, IntermediateUPGData> additions    =
+                new HashMap<String, IntermediateUPGData>();
+        private Map<String, IntermediateUPGData> updateSource =
+                new HashMap<String, IntermediateUPGData>();
+        private Map<String, UPGData>             updateLocal  =
+                new HashMap<String, UPGData>();
+        private Map<String, UPGData>             removals     =
+                new HashMap<String, UPGData>();
+        private long                             intersection = 0;
+
+        /**
+         * Method used to actually construct the StagedDelta object.
+         * @return A constructed and validated StagedDelta object.
+         */
+        public StagedDelta build() throws IllegalStateException {
+            StagedDelta object = new StagedDelta(this);
+            validateStagedDeltaObject(object);
+            return object;
+        }
+
+        /**
+         * Add a staged product that does not exist in the local holdings.
+         * @param value The staged product.
+         */
+        public StagedDeltaBuilder addition(IntermediateUPGData value) {
+            additions.put(value.getUUID(), value);
+            return this;
+        }
+
+        /**
+         * Setter method for the size of the intersection.
+         * @param value The number of products in both holdings.
+         */
+        public StagedDeltaBuilder intersection(long value) {
+            intersection = value;
+            return this;
+        }
+
+        /**
+         * Add a local product that no longer exists in the staging table.
+         * @param value The local product.
+         */
+        public StagedDeltaBuilder removal(UPGData value) {
+            removals.put(value.getUUID(), value);
+            return this;
+        }
+
+        /**
+         * Add a product that needs to be updated.
+         * @param source The staged version of the product.
+         * @param local The local version of the product.
+         */
+        public StagedDeltaBuilder update(
+                IntermediateUPGData source,
+                UPGData             local) {
+            updateSource.put(source.getUUID(), source);
+            updateLocal.put(local.getUUID(), local);
+            return this;
+        }
+
+        /**
+         * Validate that the delta is internally consistent.
+         *
+         * @param object The StagedDelta object to validate.
+         * @throws IllegalStateException Thrown if the delta is not
+         * consistent.
+         */
+        private void validateStagedDeltaObject(StagedDelta object)
+                throws IllegalStateException {
+            if (object.getUpdateSource().size() !=
+                    object.getUpdateLocal().size()) {
+                throw new IllegalStateException("Attempted to build "
+                        + "StagedDelta object but the number of source and "
+                        + "local products to update differ.");
+            }
+            if (object.getIntersection() < object.getUpdateSource().size()) {
+                throw new IllegalStateException("Attempted to build "
+                        + "StagedDelta object but the intersection is "
+                        + "smaller than the number of products to update.");
+            }
+        }
+    }
+}
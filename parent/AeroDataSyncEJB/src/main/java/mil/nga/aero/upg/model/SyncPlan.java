@@ -0,0 +1,107 @@
+package mil.nga.aero.upg.model;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Simple POJO holding the output of the comparison between the source
+ * holdings and the local holdings.  It identifies the products that need
+ * to be added, updated and removed in order to bring the local holdings
+ * in sync with the source.
+ *
+ * @author L. Craig Carpenter
+ */
+public class SyncPlan implements Serializable {
+
+    /**
+     * Eclipse-generated serialVersionUID
+     */
+    private static final long serialVersionUID = 2215463818207710448L;
+
+    private final List<String> add;
+    private final List<String> update;
+    private final List<String> remove;
+    private final long         unchanged;
+
+    /**
+     * Constructor used to set all of the required internal members.
+     *
+     * @param add UUIDs of the products to add.
+     * @param update UUIDs of the products to update.
+     * @param remove UUIDs of the products to remove.
+     * @param unchanged Number of products in both holdings that do not
+     * need to be updated.
+     */
+    SyncPlan(
+            List<String> add,
+            List<String> update,
+            List<String> remove,
+            long         unchanged) {
+        this.add       = add;
+        this.update    = update;
+        this.remove    = remove;
+        this.unchanged = unchanged;
+    }
+
+    /**
+     * Getter method for the products that exist in the source holdings but
+     * not the local holdings.
+     * @return The UUIDs of the products to add.
+     */
+    public List<String> getProductsToAdd() {
+        return add;
+    }
+
+    /**
+     * Getter method for the products that exist in the local holdings but
+     * no longer exist in the source holdings.
+     * @return The UUIDs of the products to remove.
+     */
+    public List<String> getProductsToRemove() {
+        return remove;
+    }
+
+    /**
+     * Getter method for the products that exist in both holdings but are
+     * out of date locally.
+     * @return The UUIDs of the products to update.
+     */
+    public List<String> getProductsToUpdate() {
+        return update;
+    }
+
+    /**
+     * Getter method for the number of products that exist in both holdings.
+     * @return The size of the intersection of the two holdings.
+     */
+    public long getIntersection() {
+        return update.size() + unchanged;
+    }
+
+    /**
+     * Getter method for the number of products that exist in both holdings
+     * and are already up to date.
+     * @return The number of unchanged products.
+     */
+    public long getUnchanged() {
+        return unchanged;
+    }
+
+    /**
+     * Convert to a human-readable String.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("SyncPlan : Add => [ ");
+        sb.append(getProductsToAdd().size());
+        sb.append(" ], Update => [ ");
+        sb.append(getProductsToUpdate().size());
+        sb.append(" ], Remove => [ ");
+        sb.append(getProductsToRemove().size());
+        sb.append(" ], Unchanged => [ ");
+        sb.append(getUnchanged());
+        sb.append(" ].");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,196 @@
+package mil.nga.aero.upg.model;
+
+import java.io.Serializable;
+
+/**
+ * Simple POJO holding the statistics associated with the transfer of a
+ * single product file from the data source to the local file system.
+ *
+ * @author L. Craig Carpenter
+ */
+public class TransferResult implements Serializable {
+
+    /**
+     * Eclipse-generated serialVersionUID
+     */
+    private static final long serialVersionUID = -3360587231934563172L;
+
+    /**
+     * Number of bytes in a megabyte.
+     */
+    private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+
+    private final String destination;
+    private final long   bytes;
+    private final long   elapsedTime;
+    private final String hash;
+
+    /**
+     * Constructor used to set all of the required internal members.
+     *
+     * @param builder Populated builder object.
+     */
+    private TransferResult (TransferResultBuilder builder) {
+        this.destination = builder.destination;
+        this.bytes       = builder.bytes;
+        this.elapsedTime = builder.elapsedTime;
+        this.hash        = builder.hash;
+    }
+
+    /**
+     * Getter method for the number of bytes transferred.
+     * @return The number of bytes transferred.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Getter method for the on-disk location of the transferred file.
+     * @return The on-disk location of the transferred file.
+     */
+    public String getDestination() {
+        return destination;
+    }
+
+    /**
+     * Getter method for the amount of time (in milliseconds) required to
+     * complete the transfer.
+     * @return The elapsed time in milliseconds.
+     */
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * Getter method for the hash calculated while the file was being 
+     * transferred.  This will be null if no hash was requested.
+     * @return The hex-encoded hash of the transferred bytes.
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * Calculate the throughput of the transfer in megabytes per second.
+     * Transfers that complete in less than one millisecond are treated as
+     * having taken one millisecond.
+     *
+     * @return The throughput of the transfer in MB/s.
+     */
+    public double getThroughput() {
+        return (bytes / BYTES_PER_MB) / (Math.max(elapsedTime, 1) / 1000.0);
+    }
+
+    /**
+     * Convert to a human-readable String.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("TransferResult : Destination => [ ");
+        sb.append(getDestination());
+        sb.append(" ], Bytes => [ ");
+        sb.append(getBytes());
+        sb.append(" ], Elapsed Time => [ ");
+        sb.append(getElapsedTime());
+        sb.append(" ] ms, Throughput => [ ");
+        sb.append(String.format("%.2f", getThroughput()));
+        sb.append(" ] MB/s, Hash => [ ");
+        sb.append(getHash());
+        sb.append(" ].");
+        return sb.toString();
+    }
+
+    /**
+     * Class implementing the Builder creation pattern for new
+     * TransferResult objects.
+     *
+     * @author L. Craig Carpenter
+     */
+    public static class TransferResultBuilder {
+
+        private String destination = null;
+        private long   bytes       = 0;
+        private long   elapsedTime = 0;
+        private String hash        = null;
+
+        /**
+         * Method used to actually construct the TransferResult object.
+         * @return A constructed and validated TransferResult object.
+         */
+        public TransferResult build() throws IllegalStateException {
+            TransferResult object = new TransferResult(this);
+            validateTransferResultObject(object);
+            return object;
+        }
+
+        /**
+         * Setter method for the number of bytes transferred.
+         * @param value The number of bytes transferred.
+         */
+        public TransferResultBuilder bytes (long value) {
+            bytes = value;
+            return this;
+        }
+
+        /**
+         * Setter method for the destination file.
+         * @param value The destination file.
+         */
+        public TransferResultBuilder destination (String value) {
+            if (value != null) {
+                destination = value.trim();
+            }
+            return this;
+        }
+
+        /**
+         * Setter method for the elapsed time of the transfer.
+         * @param value The elapsed time in milliseconds.
+         */
+        public TransferResultBuilder elapsedTime (long value) {
+            elapsedTime = value;
+            return this;
+        }
+
+        /**
+         * Setter method for the hash calculated during the transfer.
+         * @param value The hex-encoded hash.
+         */
+        public TransferResultBuilder hash (String value) {
+            hash = value;
+            return this;
+        }
+
+        /**
+         * Validate that all fields are populated.
+         *
+         * @param object The TransferResult object to validate.
+         * @throws IllegalStateException Thrown if any of the required fields
+         * are not populated with acceptable values.
+         */
+        private void validateTransferResultObject(TransferResult object)
+                throws IllegalStateException {
+            if ((object.getDestination() == null) ||
+                    (object.getDestination().isEmpty())) {
+                throw new IllegalStateException("Attempted to build "
+                        + "TransferResult object but the value for "
+                        + "destination was null.");
+            }
+            if (object.getBytes() < 0) {
+                throw new IllegalStateException("Invalid value for "
+                        + "bytes [ "
+                        + object.getBytes()
+                        + " ].  Bytes must be greater than or equal to 0.");
+            }
+            if (object.getElapsedTime() < 0) {
+                throw new IllegalStateException("Invalid value for "
+                        + "elapsed time [ "
+                        + object.getElapsedTime()
+                        + " ].  Elapsed time must be greater than or "
+                        + "equal to 0.");
+            }
+        }
+    }
+}
@@ -2,8 +2,10 @@ package mil.nga.aero.upg.model;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
-import java.sql.Date;
-import java.text.SimpleDateFormat;
+import java.sql.Timestamp;
+
+import mil.nga.util.DateUtils;
+import mil.nga.util.StringPool;
 
 
 /**
@@ -11,6 +13,13 @@ import java.text.SimpleDateFormat;
  * This class sorts the raw JSON array retrieved from the target UPG data 
  * source into named fields.
  * 
+ * The complete local holdings are held in memory during a synchronization 
+ * so the internal representation is kept compact.  The low-cardinality 
+ * ICAO and TYPE attributes are pooled, the directory portion of the local 
+ * and source URLs is pooled and stored separately from the file name, and 
+ * the DATE_LAST_MODIFIED is held as a primitive.
+ * @see mil.nga.util.StringPool
+ * 
  * @author L. Craig Carpenter
  */
 public class UPGData implements Serializable {
@@ -20,27 +29,23 @@ public class UPGData implements Serializable {
      */
     private static final long serialVersionUID = -9148483257243638693L;
     
-    /** 
-     * Format associated with dates incoming from the target UPG data source.
-     */
-    private static final String DATE_FORMAT_STRING = "yyyy-MM-dd HH:mm:ss";
-            
     /**
-     * DateFormat object used to convert the String based last-update date 
-     * retrieved from the target data store.
+     * Value of the internal DATE_LAST_MODIFIED if it was not supplied.  This
+     * compares as older than any real date.
      */
-    private static final SimpleDateFormat formatter = 
-                new SimpleDateFormat(DATE_FORMAT_STRING);
+    public static final long NO_DATE = Long.MIN_VALUE;
     
     private final String     uuid;
     private final String     icao;
-    private final Date       dateLastModified;
-    private       String     link;
+    private final long       dateLastModified;
+    private       String     linkPrefix;
+    private       String     linkName;
     private final String     filename;
     private       long       success; // 0 or 1 (1 represents success).
     private final String     psuedoName;
     private final String     type;
-    private final String     sourceLink; // Source holdings link.
+    private final String     sourceLinkPrefix; // Source holdings link.
+    private final String     sourceLinkName;
     private final String     hash;       // Included for JEPP data but not UPG.
     
     /**
@@ -51,13 +56,16 @@ public class UPGData implements Serializable {
     private UPGData(UPGDataBuilder builder) {
         this.uuid             = builder.uuid;
         this.icao             = builder.icao;
-        this.dateLastModified = builder.dateLastModified;
-        this.link             = builder.link;
+        this.dateLastModified = (builder.dateLastModified != null ?
+                builder.dateLastModified.getTime() : NO_DATE);
+        this.linkPrefix       = StringPool.prefix(builder.link);
+        this.linkName         = StringPool.suffix(builder.link);
         this.filename         = builder.filename;
         this.hash             = builder.hash;
         this.success          = builder.success;
         this.psuedoName       = builder.psuedoName;
-        this.sourceLink       = builder.sourceLink;
+        this.sourceLinkPrefix = StringPool.prefix(builder.sourceLink);
+        this.sourceLinkName   = StringPool.suffix(builder.sourceLink);
         this.type             = builder.type;
     }
     
@@ -65,7 +73,21 @@ public class UPGData implements Serializable {
      * Getter method for the DLM (date last modified) attribute.
      * @return The DLM attribute.
      */
-    public Date getDateLastModified() {
+    public Timestamp getDateLastModified() {
+        Timestamp date = null;
+        if (dateLastModified != NO_DATE) {
+            date = new Timestamp(dateLastModified);
+        }
+        return date;
+    }
+    
+    /**
+     * Getter method for the DLM (date last modified) attribute.  Used for 
+     * comparisons to avoid allocating a Timestamp object.
+     * @return The DLM attribute (in milliseconds from the epoch) or 
+     * <code>NO_DATE</code> if it was not supplied.
+     */
+    public long getDateLastModifiedMillis() {
         return dateLastModified;
     }
     
@@ -74,7 +96,7 @@ public class UPGData implements Serializable {
      * @return The DLM attribute.
      */
     public String getDateLastModifiedString() {
-        return formatter.format(dateLastModified);
+        return DateUtils.format(getDateLastModified());
     }
     
     /**
@@ -122,7 +144,7 @@ public class UPGData implements Serializable {
      * @return The URL of the source data.
      */
     public String getSourceLink() {
-        return sourceLink;
+        return StringPool.join(sourceLinkPrefix, sourceLinkName);
     }
     
     /**
@@ -138,7 +160,7 @@ public class UPGData implements Serializable {
      * @return The URL attribute.
      */
     public String getLink() {
-        return link;
+        return StringPool.join(linkPrefix, linkName);
     }
     
     /**
@@ -164,7 +186,8 @@ public class UPGData implements Serializable {
      * @return The URL attribute.
      */
     public void setLink(String value) {
-        link = value;
+        linkPrefix = StringPool.prefix(value);
+        linkName   = StringPool.suffix(value);
     }
     
     /**
@@ -212,7 +235,7 @@ public class UPGData implements Serializable {
         
         private String uuid;
         private String icao;
-        private Date   dateLastModified;
+        private Timestamp dateLastModified;
         private String link;
         private String filename;
         private String hash;   // Included for JEPP data but not UPG.
@@ -235,7 +258,7 @@ public class UPGData implements Serializable {
          * Setter method for the DATE_LAST_MODIFIED attribute.
          * @param value The DATE_LAST_MODIFIED attribute.
          */
-        public UPGDataBuilder dateLastModified(Date value) {
+        public UPGDataBuilder dateLastModified(Timestamp value) {
             dateLastModified = value;
             return this;
         }
@@ -273,7 +296,7 @@ public class UPGData implements Serializable {
          * @param value The ICAO attribute.
          */
         public UPGDataBuilder icao(String value) {
-            icao = value;
+            icao = StringPool.intern(value);
             return this;
         }
         
@@ -309,7 +332,7 @@ public class UPGData implements Serializable {
          * @param value The TYPE attribute.
          */
         public UPGDataBuilder type(String value) {
-            type = value;
+            type = StringPool.intern(value);
             return this;
         }
         
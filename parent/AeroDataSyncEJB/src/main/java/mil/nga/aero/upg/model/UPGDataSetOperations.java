@@ -12,6 +12,68 @@ import org.slf4j.LoggerFactory;
 
 public class UPGDataSetOperations {
 
+    /**
+     * Callback used by <code>diff()</code> to decide whether a product 
+     * that exists in both holdings needs to be updated.
+     *
+     * @param <S> The type of the source holdings.
+     * @param <L> The type of the local holdings.
+     */
+    public interface UpdateCheck<S, L> {
+        
+        /**
+         * Determine whether the local product is out of date.
+         * 
+         * @param source The product from the source holdings.
+         * @param local The product from the local holdings.
+         * @return True if the local product needs to be updated.
+         */
+        public boolean isUpdateRequired(S source, L local);
+    }
+    
+    /**
+     * Calculate the products to add, update, and remove in a single pass 
+     * over each of the holdings.  This is a hash join over the UUID keys: 
+     * every source entry is probed against the local map exactly once 
+     * (yielding the add and update sets) and every local key is probed 
+     * against the source map exactly once (yielding the remove set).  
+     * Nothing is allocated other than the three output lists.
+     * 
+     * @param source The source holdings keyed by UUID.
+     * @param local The local holdings keyed by UUID.
+     * @param check Callback deciding whether a product in both holdings
+     * needs to be updated.
+     * @return The products to add, update, and remove.
+     */
+    public <S, L> SyncPlan diff(
+            Map<String, S>      source, 
+            Map<String, L>      local, 
+            UpdateCheck<S, L>   check) {
+        
+        List<String> add       = new ArrayList<String>();
+        List<String> update    = new ArrayList<String>();
+        List<String> remove    = new ArrayList<String>();
+        long         unchanged = 0;
+        
+        for (Map.Entry<String, S> entry : source.entrySet()) {
+            L localHolding = local.get(entry.getKey());
+            if (localHolding == null) {
+                add.add(entry.getKey());
+            }
+            else if (check.isUpdateRequired(entry.getValue(), localHolding)) {
+                update.add(entry.getKey());
+            }
+            else {
+                unchanged++;
+            }
+        }
+        for (String uuid : local.keySet()) {
+            if (!source.containsKey(uuid)) {
+                remove.add(uuid);
+            }
+        }
+        return new SyncPlan(add, update, remove, unchanged);
+    }
     
     /**
      * Subtract elements in Set B from Set A.
@@ -21,8 +83,12 @@ public class UPGDataSetOperations {
      * @return
      */
     public List<String> subtract(Set<String> a, Set<String> b) {
-        List<String> notPresent = new ArrayList<String>(a);
-        notPresent.removeAll(b);
+        List<String> notPresent = new ArrayList<String>();
+        for (String id : a) {
+            if (!b.contains(id)) {
+                notPresent.add(id);
+            }
+        }
         return notPresent;
     }
     
@@ -34,8 +100,13 @@ public class UPGDataSetOperations {
      * @return
      */
     public List<String> subtract(List<String> a, List<String> b) {
-        List<String> notPresent = new ArrayList<String>(a);
-        notPresent.removeAll(b);
+        Set<String>  exclude    = new HashSet<String>(b);
+        List<String> notPresent = new ArrayList<String>();
+        for (String id : a) {
+            if (!exclude.contains(id)) {
+                notPresent.add(id);
+            }
+        }
         return notPresent;
     }
 
@@ -66,9 +137,10 @@ public class UPGDataSetOperations {
      * @return The intersection of the two Lists
      */
     public List<String> intersection(List<String> a, List<String> b) {
+        Set<String>  include      = new HashSet<String>(b);
         List<String> intersection = new ArrayList<String>();
         for (String id : a) {
-            if (b.contains(id)) {
+            if (include.contains(id)) {
                 intersection.add(id);
             }
         }
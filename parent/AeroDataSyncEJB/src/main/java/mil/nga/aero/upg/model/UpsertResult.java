@@ -0,0 +1,138 @@
+package mil.nga.aero.upg.model;
+
+import java.io.Serializable;
+
+/**
+ * Simple POJO holding the outcome of an upsert (<code>MERGE</code>) of one
+ * or more records into the local holdings.
+ *
+ * @author L. Craig Carpenter
+ */
+public class UpsertResult implements Serializable {
+
+    /**
+     * Eclipse-generated serialVersionUID
+     */
+    private static final long serialVersionUID = 7410925638462211846L;
+
+    private final long inserted;
+    private final long updated;
+    private final long failed;
+
+    /**
+     * Constructor used to set all of the required internal members.
+     *
+     * @param builder Populated builder object.
+     */
+    private UpsertResult (UpsertResultBuilder builder) {
+        this.inserted = builder.inserted;
+        this.updated  = builder.updated;
+        this.failed   = builder.failed;
+    }
+
+    /**
+     * Getter method for the number of records that could not be written.
+     * @return The number of records that failed.
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Getter method for the number of records inserted.
+     * @return The number of records inserted.
+     */
+    public long getInserted() {
+        return inserted;
+    }
+
+    /**
+     * Getter method for the number of existing records updated.
+     * @return The number of records updated.
+     */
+    public long getUpdated() {
+        return updated;
+    }
+
+    /**
+     * Convert to a human-readable String.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("UpsertResult : Inserted => [ ");
+        sb.append(getInserted());
+        sb.append(" ], Updated => [ ");
+        sb.append(getUpdated());
+        sb.append(" ], Failed => [ ");
+        sb.append(getFailed());
+        sb.append(" ].");
+        return sb.toString();
+    }
+
+    /**
+     * Class implementing the Builder creation pattern for new
+     * UpsertResult objects.
+     *
+     * @author L. Craig Carpenter
+     */
+    public static class UpsertResultBuilder {
+
+        private long inserted = 0;
+        private long updated  = 0;
+        private long failed   = 0;
+
+        /**
+         * Method used to actually construct the UpsertResult object.
+         * @return A constructed and validated UpsertResult object.
+         */
+        public UpsertResult build() throws IllegalStateException {
+            UpsertResult object = new UpsertResult(this);
+            validateUpsertResultObject(object);
+            return object;
+        }
+
+        /**
+         * Setter method for the number of records that failed.
+         * @param value The number of records that failed.
+         */
+        public UpsertResultBuilder failed(long value) {
+            failed = value;
+            return this;
+        }
+
+        /**
+         * Setter method for the number of records inserted.
+         * @param value The number of records inserted.
+         */
+        public UpsertResultBuilder inserted(long value) {
+            inserted = value;
+            return this;
+        }
+
+        /**
+         * Setter method for the number of records updated.
+         * @param value The number of records updated.
+         */
+        public UpsertResultBuilder updated(long value) {
+            updated = value;
+            return this;
+        }
+
+        /**
+         * Validate that all of the counts are non-negative.
+         *
+         * @param object The UpsertResult object to validate.
+         * @throws IllegalStateException Thrown if any of the counts are
+         * negative.
+         */
+        private void validateUpsertResultObject(UpsertResult object)
+                throws IllegalStateException {
+            if ((object.getInserted() < 0) || (object.getUpdated() < 0) ||
+                    (object.getFailed() < 0)) {
+                throw new IllegalStateException("Attempted to build "
+                        + "UpsertResult object with a negative count.");
+            }
+        }
+    }
+}
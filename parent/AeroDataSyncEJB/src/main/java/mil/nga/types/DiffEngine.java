@@ -0,0 +1,68 @@
+package mil.nga.types;
+
+/**
+ * Enumeration type identifying the algorithm used to compare the source
+ * holdings against the local holdings.
+ *
+ * <ul>
+ * <li>MEMORY - Both holdings are loaded into memory and compared with a
+ * hash join.</li>
+ * <li>MERGE - The catalog is sorted on disk and walked in step with the
+ * local holdings (read a page at a time) in UUID order.</li>
+ * <li>DATABASE - The catalog is bulk-loaded into a staging table and the
+ * comparison is performed by the database.  Only the differences are
+ * returned to the application server.</li>
+ * <li>PIPELINE - The catalog is streamed through a staged pipeline.  New and
+ * changed products are downloaded while the catalog is still being parsed
+ * and are written to the data store in batches.</li>
+ * </ul>
+ *
+ * @author L. Craig Carpenter
+ */
+public enum DiffEngine {
+    MEMORY("memory"),
+    MERGE("merge"),
+    DATABASE("database"),
+    PIPELINE("pipeline");
+
+    /**
+     * The text field.
+     */
+    private final String text;
+
+    /**
+     * Default constructor.
+     *
+     * @param text Text associated with the enumeration value.
+     */
+    private DiffEngine(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Getter method for the text associated with the enumeration value.
+     *
+     * @return The text associated with the instanced enumeration type.
+     */
+    public String getText() {
+        return this.text;
+    }
+
+    /**
+     * Convert an input String to it's associated enumeration type.  If the
+     * input String is null or unknown, MEMORY is returned.
+     *
+     * @param text Input text information
+     * @return The appropriate DiffEngine enum value.
+     */
+    public static DiffEngine fromString(String text) {
+        if (text != null) {
+            for (DiffEngine engine : DiffEngine.values()) {
+                if (text.trim().equalsIgnoreCase(engine.getText())) {
+                    return engine;
+                }
+            }
+        }
+        return MEMORY;
+    }
+}
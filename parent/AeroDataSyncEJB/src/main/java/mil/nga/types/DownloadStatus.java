@@ -0,0 +1,47 @@
+package mil.nga.types;
+
+/**
+ * Enumeration type identifying the outcome of an attempt to retrieve a 
+ * single product from the source holdings.
+ * 
+ * @author L. Craig Carpenter
+ */
+public enum DownloadStatus {
+    SUCCESS("success"),
+    METADATA_ONLY("metadata_only"),
+    FAILED("failed");
+    
+    /**
+     * The text field.
+     */
+    private final String text;
+    
+    /**
+     * Default constructor.
+     * 
+     * @param text Text associated with the enumeration value.
+     */
+    private DownloadStatus(String text) {
+        this.text = text;
+    }
+    
+    /**
+     * Getter method for the text associated with the enumeration value.
+     * 
+     * @return The text associated with the instanced enumeration type.
+     */
+    public String getText() {
+        return this.text;
+    }
+    
+    /**
+     * Convert the value of the SUCCESS_DL column to the associated 
+     * enumeration type.
+     * 
+     * @param value The value of the SUCCESS_DL column.
+     * @return The appropriate DownloadStatus enum value.
+     */
+    public static DownloadStatus fromFlag(int value) {
+        return (value == 0 ? FAILED : SUCCESS);
+    }
+}
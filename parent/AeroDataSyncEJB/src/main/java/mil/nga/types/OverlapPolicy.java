@@ -0,0 +1,60 @@
+package mil.nga.types;
+
+/**
+ * Enumeration type identifying what happens when a synchronization is 
+ * triggered for a data type that is already being synchronized.
+ * 
+ * <ul>
+ * <li>SKIP - The new trigger is ignored.</li>
+ * <li>QUEUE - A single follow-up run is started as soon as the active run 
+ * finishes (even if it failed).  Further triggers received in the meantime
+ * are folded into the queued run.</li>
+ * </ul>
+ *
+ * @author L. Craig Carpenter
+ */
+public enum OverlapPolicy {
+    SKIP("skip"),
+    QUEUE("queue");
+
+    /**
+     * The text field.
+     */
+    private final String text;
+
+    /**
+     * Default constructor.
+     *
+     * @param text Text associated with the enumeration value.
+     */
+    private OverlapPolicy(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Getter method for the text associated with the enumeration value.
+     *
+     * @return The text associated with the instanced enumeration type.
+     */
+    public String getText() {
+        return this.text;
+    }
+
+    /**
+     * Convert an input String to it's associated enumeration type.  If the
+     * input String is null or unknown, SKIP is returned.
+     *
+     * @param text Input text information
+     * @return The appropriate OverlapPolicy enum value.
+     */
+    public static OverlapPolicy fromString(String text) {
+        if (text != null) {
+            for (OverlapPolicy policy : OverlapPolicy.values()) {
+                if (text.trim().equalsIgnoreCase(policy.getText())) {
+                    return policy;
+                }
+            }
+        }
+        return SKIP;
+    }
+}
@@ -0,0 +1,84 @@
+package mil.nga.util;
+
+import java.sql.Timestamp;
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+
+/**
+ * Collection of utility methods used to convert dates to and from the
+ * <code>yyyy-MM-dd HH:mm:ss</code> format used by the UPG/JEPP data
+ * sources.
+ *
+ * These replace the static <code>SimpleDateFormat</code> objects that were
+ * previously shared by the model classes and timers.
+ * <code>SimpleDateFormat</code> is not thread safe whereas the
+ * <code>java.time</code> formatters are immutable, so these methods can
+ * safely be called from any number of threads.
+ *
+ * @author L. Craig Carpenter
+ */
+public class DateUtils {
+
+    /**
+     * Format associated with dates incoming from the target UPG data source.
+     */
+    public static final String DATE_FORMAT_STRING = "yyyy-MM-dd HH:mm:ss";
+
+    /**
+     * Formatter used to convert dates to Strings.
+     */
+    private static final DateTimeFormatter FORMATTER =
+            DateTimeFormatter.ofPattern(DATE_FORMAT_STRING);
+
+    /**
+     * Formatter used to parse dates.  Like the SimpleDateFormat it replaces,
+     * it accepts single digit fields.
+     */
+    private static final DateTimeFormatter PARSER =
+            DateTimeFormatter.ofPattern("u-M-d H:m:s");
+
+    /**
+     * Convert the input date to a String.
+     *
+     * @param date The date to format.
+     * @return The formatted date, or null if the input date is null.
+     */
+    public static String format(Date date) {
+        String value = null;
+        if (date != null) {
+            value = FORMATTER.format(LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(date.getTime()),
+                    ZoneId.systemDefault()));
+        }
+        return value;
+    }
+
+    /**
+     * Convert the input String to a Timestamp.  As with
+     * <code>SimpleDateFormat.parse()</code> any text following the date
+     * (e.g. fractional seconds) is ignored.
+     *
+     * @param date String representation of the date.
+     * @return The parsed Timestamp.
+     * @throws ParseException Thrown if the input String cannot be parsed.
+     */
+    public static Timestamp parseTimestamp(String date)
+            throws ParseException {
+        if (date == null) {
+            throw new ParseException("Input date is null.", 0);
+        }
+        try {
+            return Timestamp.valueOf(LocalDateTime.from(
+                    PARSER.parse(date.trim(), new ParsePosition(0))));
+        }
+        catch (DateTimeException dte) {
+            throw new ParseException(dte.getMessage(), 0);
+        }
+    }
+}
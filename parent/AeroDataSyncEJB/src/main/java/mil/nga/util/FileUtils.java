@@ -4,6 +4,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -145,6 +146,38 @@ public class FileUtils {
         
     }
     
+    /**
+     * Publish a file by renaming it to its target location with an atomic 
+     * move.  Readers of the target location will see either the old file 
+     * or the new file, never a partially written one.  If the source and 
+     * target are on different file systems (or the file system does not 
+     * support atomic moves) this falls back to a regular move with 
+     * overwrite.
+     * 
+     * @param fromFile  Source file for move.
+     * @param toFile Target location.
+     * @return True if the file was moved atomically, false if the method
+     * fell back to a regular move.
+     * @throws IOException Raised if there are issues performing the move.
+     */
+    public static boolean atomicMove(
+            String fromFile, 
+            String toFile) throws IOException {
+        
+        boolean atomic = true;
+        Path    from   = Paths.get(fromFile);
+        Path    to     = Paths.get(toFile);
+        
+        try {
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException amnse) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+            atomic = false;
+        }
+        return atomic;
+    }
+    
     /**
      * Set the permissions on the target file.
      * 
@@ -0,0 +1,114 @@
+package mil.nga.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Collection of utility methods used to reduce the memory footprint of the
+ * in-memory catalogs.  A single synchronization holds hundreds of thousands
+ * of products in both the source and local holdings maps and many of the
+ * String attributes (ICAO, TYPE, the directory portion of the URLs) have
+ * very low cardinality.  These methods return a canonical instance of such
+ * values so each distinct value is stored only once.
+ *
+ * Values are pooled in an application-wide map (rather than via
+ * <code>String.intern()</code>) so the size of the pool can be bounded.
+ * Once the pool is full, values are returned as-is.
+ *
+ * @author L. Craig Carpenter
+ */
+public class StringPool {
+
+    /**
+     * Maximum number of distinct values retained by the pool.
+     */
+    public static final int MAX_POOL_SIZE = 100000;
+
+    /**
+     * The canonical instances.
+     */
+    private static final ConcurrentMap<String, String> pool =
+            new ConcurrentHashMap<String, String>();
+
+    /**
+     * Return the canonical instance of the input value.
+     *
+     * @param value The value to pool (may be null).
+     * @return The canonical instance of the value.
+     */
+    public static String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String canonical = pool.get(value);
+        if (canonical == null) {
+            if (pool.size() >= MAX_POOL_SIZE) {
+                return value;
+            }
+            canonical = pool.putIfAbsent(value, value);
+            if (canonical == null) {
+                canonical = value;
+            }
+        }
+        return canonical;
+    }
+
+    /**
+     * Extract and pool the prefix of a URL or path (i.e. everything up to
+     * and including the last <code>/</code>).  Products in the same ICAO
+     * and TYPE share the same prefix, so storing the prefix via this method
+     * and the remainder via <code>suffix()</code> means the (long) shared
+     * portion of the URL is stored once.
+     *
+     * @param value The URL or path (may be null).
+     * @return The canonical prefix, or null if the value contains no
+     * <code>/</code>.
+     */
+    public static String prefix(String value) {
+        String prefix = null;
+        if (value != null) {
+            int index = value.lastIndexOf('/');
+            if (index >= 0) {
+                prefix = intern(value.substring(0, index + 1));
+            }
+        }
+        return prefix;
+    }
+
+    /**
+     * Extract the portion of a URL or path following the last
+     * <code>/</code>.
+     *
+     * @param value The URL or path (may be null).
+     * @return The suffix, or the input value if it contains no
+     * <code>/</code>.
+     */
+    public static String suffix(String value) {
+        String suffix = value;
+        if (value != null) {
+            int index = value.lastIndexOf('/');
+            if (index >= 0) {
+                suffix = value.substring(index + 1);
+            }
+        }
+        return suffix;
+    }
+
+    /**
+     * Re-assemble a value that was split with <code>prefix()</code> and
+     * <code>suffix()</code>.
+     *
+     * @param prefix The prefix (may be null).
+     * @param suffix The suffix (may be null).
+     * @return The complete value.
+     */
+    public static String join(String prefix, String suffix) {
+        if (prefix == null) {
+            return suffix;
+        }
+        if (suffix == null) {
+            return prefix;
+        }
+        return prefix + suffix;
+    }
+}
@@ -0,0 +1,174 @@
+package mil.nga.aero;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.Random;
+
+import org.apache.commons.codec.binary.Hex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.aero.upg.model.TransferResult;
+import mil.nga.types.HashType;
+
+/**
+ * Tests of the <code>DownloadSink</code>.  The benchmark compares the
+ * throughput of the sink against the byte-at-a-time copy loop it replaced
+ * (<code>DataService.getProductFile</code>).  It only logs the MB/s of
+ * each approach; timings are not asserted as they depend on the host.
+ *
+ * @author L. Craig Carpenter
+ */
+public class DownloadSinkTest {
+
+    /**
+     * Set up the LogBack system for use throughout the class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+            DownloadSinkTest.class);
+
+    /**
+     * Size of the payload used by the benchmark (32 MB).
+     */
+    private static final int BENCHMARK_SIZE = 32 * 1024 * 1024;
+
+    /**
+     * Number of timed iterations of each approach.
+     */
+    private static final int ITERATIONS = 5;
+
+    /**
+     * The payload copied by each test.
+     */
+    private byte[] payload;
+
+    /**
+     * The target file.
+     */
+    private File target;
+
+    @Before
+    public void setUp() throws IOException {
+        payload = new byte[BENCHMARK_SIZE];
+        new Random(42).nextBytes(payload);
+        target = File.createTempFile("download-sink", ".pdf");
+    }
+
+    @After
+    public void tearDown() {
+        target.delete();
+    }
+
+    /**
+     * Calculate the MD5 hash of the input bytes.
+     */
+    private String md5(byte[] data) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("MD5");
+        return Hex.encodeHexString(digest.digest(data));
+    }
+
+    /**
+     * The byte-at-a-time copy loop used prior to the sink.
+     */
+    private long copyBytewise(InputStream input, File file)
+            throws IOException {
+        long         bytes  = 0;
+        InputStream  in     = new BufferedInputStream(input);
+        OutputStream output = null;
+        try {
+            output = new BufferedOutputStream(new FileOutputStream(file));
+            int inByte;
+            while ((inByte = in.read()) != -1) {
+                output.write(inByte);
+                bytes++;
+            }
+        }
+        finally {
+            if (output != null) {
+                try { output.close(); } catch (Exception e) {}
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Convert bytes copied in the given number of nanoseconds to MB/s.
+     */
+    private double throughput(long bytes, long nanos) {
+        return (bytes / (1024.0 * 1024.0)) / (nanos / 1000000000.0);
+    }
+
+    @Test
+    public void transferWritesContentAndHash() throws Exception {
+        TransferResult result = DownloadSink.getInstance().transfer(
+                new ByteArrayInputStream(payload),
+                target.getAbsolutePath(),
+                HashType.MD5);
+        assertEquals(payload.length, result.getBytes());
+        assertEquals(payload.length, target.length());
+        assertEquals(md5(payload), result.getHash());
+        assertEquals(md5(payload), HashGeneratorService.getInstance()
+                .getHash(target.getAbsolutePath(), HashType.MD5));
+    }
+
+    @Test
+    public void transferTruncatesExistingFile() throws Exception {
+        DownloadSink.getInstance().transfer(
+                new ByteArrayInputStream(payload),
+                target.getAbsolutePath());
+        byte[] small = new byte[] { 1, 2, 3 };
+        TransferResult result = DownloadSink.getInstance().transfer(
+                new ByteArrayInputStream(small),
+                target.getAbsolutePath(),
+                HashType.MD5);
+        assertEquals(3, result.getBytes());
+        assertEquals(3, target.length());
+        assertEquals(md5(small), result.getHash());
+    }
+
+    @Test
+    public void benchmarkAgainstBytewiseCopy() throws Exception {
+
+        // Warm up both paths before timing them.
+        copyBytewise(new ByteArrayInputStream(payload), target);
+        DownloadSink.getInstance().transfer(
+                new ByteArrayInputStream(payload),
+                target.getAbsolutePath(),
+                HashType.MD5);
+
+        long bytewise = Long.MAX_VALUE;
+        long sink     = Long.MAX_VALUE;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            assertEquals(payload.length, copyBytewise(
+                    new ByteArrayInputStream(payload),
+                    target));
+            bytewise = Math.min(bytewise, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            TransferResult result = DownloadSink.getInstance().transfer(
+                    new ByteArrayInputStream(payload),
+                    target.getAbsolutePath(),
+                    HashType.MD5);
+            sink = Math.min(sink, System.nanoTime() - start);
+            assertEquals(payload.length, result.getBytes());
+        }
+        LOGGER.info("Byte-at-a-time copy [ "
+                + String.format("%.1f", throughput(payload.length, bytewise))
+                + " ] MB/s, download sink with MD5 [ "
+                + String.format("%.1f", throughput(payload.length, sink))
+                + " ] MB/s.");
+    }
+}
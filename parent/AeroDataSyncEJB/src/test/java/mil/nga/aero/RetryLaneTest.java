@@ -0,0 +1,150 @@
+package mil.nga.aero;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import mil.nga.types.AeroDataType;
+
+/**
+ * Tests of the <code>RetryLane</code> backoff schedule.  The test
+ * <code>config.properties</code> sets an initial backoff of 1 s and a
+ * maximum of 16 s.  The delay is only observable through
+ * <code>isDue()</code>, so each failure is bracketed by the clock and the
+ * product is checked just before and at the end of the window.
+ *
+ * @author L. Craig Carpenter
+ */
+public class RetryLaneTest {
+
+    /**
+     * The data type used by the tests.
+     */
+    private static final AeroDataType TYPE = AeroDataType.JEPP;
+
+    /**
+     * Initial backoff configured for the tests.
+     */
+    private static final long INITIAL = 1000;
+
+    /**
+     * Maximum backoff configured for the tests.
+     */
+    private static final long MAX = 16000;
+
+    /**
+     * The lane under test.
+     */
+    private RetryLane lane;
+
+    @Before
+    public void setUp() {
+        lane = RetryLane.getInstance();
+        lane.retain(TYPE, Collections.<String>emptySet());
+        lane.drain(TYPE);
+    }
+
+    @After
+    public void tearDown() {
+        lane.retain(TYPE, Collections.<String>emptySet());
+        lane.drain(TYPE);
+    }
+
+    /**
+     * Record a failure and assert that the product becomes due exactly
+     * <code>delay</code> ms later.
+     */
+    private void assertFailureDelay(String uuid, long delay) {
+        long before = System.currentTimeMillis();
+        lane.recordFailure(TYPE, uuid);
+        long after = System.currentTimeMillis();
+        assertFalse(lane.isDue(TYPE, uuid, before + delay - 1));
+        assertTrue(lane.isDue(TYPE, uuid, after + delay));
+    }
+
+    @Test
+    public void configuration() {
+        assertEquals(60000, lane.getInterval());
+        assertEquals(10, lane.getPageSize());
+    }
+
+    @Test
+    public void firstSightingSeedsSchedule() {
+        long now = System.currentTimeMillis();
+        assertFalse(lane.isDue(TYPE, "failed", now));
+        assertEquals(1, lane.getScheduled(TYPE));
+
+        // Seeding again does not push the retry back.
+        assertFalse(lane.isDue(TYPE, "failed", now + INITIAL - 1));
+        assertTrue(lane.isDue(TYPE, "failed", now + INITIAL));
+        assertTrue(lane.isDue(TYPE, "failed", now + INITIAL + 1));
+    }
+
+    @Test
+    public void delayDoublesUpToMaximum() {
+        lane.isDue(TYPE, "failed", System.currentTimeMillis());
+        assertFailureDelay("failed", 2 * INITIAL);
+        assertFailureDelay("failed", 4 * INITIAL);
+        assertFailureDelay("failed", 8 * INITIAL);
+        assertFailureDelay("failed", MAX);
+        assertFailureDelay("failed", MAX);
+        assertFailureDelay("failed", MAX);
+    }
+
+    @Test
+    public void failureOfUnscheduledProductCountsAsFirst() {
+        assertFailureDelay("unseen", INITIAL);
+        assertFailureDelay("unseen", 2 * INITIAL);
+    }
+
+    @Test
+    public void recoveryClearsSchedule() {
+        lane.isDue(TYPE, "failed", System.currentTimeMillis());
+        lane.recordFailure(TYPE, "failed");
+        lane.recordRecovery(TYPE, "failed");
+        assertEquals(0, lane.getScheduled(TYPE));
+
+        long[] counters = lane.drain(TYPE);
+        assertEquals(2, counters[0]);
+        assertEquals(1, counters[1]);
+
+        counters = lane.drain(TYPE);
+        assertEquals(0, counters[0]);
+        assertEquals(0, counters[1]);
+
+        // A later failure starts from the initial delay again.
+        long now = System.currentTimeMillis();
+        assertFalse(lane.isDue(TYPE, "failed", now));
+        assertTrue(lane.isDue(TYPE, "failed", now + INITIAL));
+    }
+
+    @Test
+    public void deferralUsesMaximumWithoutCountingAttempt() {
+        long before = System.currentTimeMillis();
+        lane.defer(TYPE, "no-hash");
+        long after = System.currentTimeMillis();
+        assertFalse(lane.isDue(TYPE, "no-hash", before + MAX - 1));
+        assertTrue(lane.isDue(TYPE, "no-hash", after + MAX));
+        assertEquals(0, lane.drain(TYPE)[0]);
+    }
+
+    @Test
+    public void retainDropsProductsNoLongerFailed() {
+        long now = System.currentTimeMillis();
+        lane.isDue(TYPE, "a", now);
+        lane.isDue(TYPE, "b", now);
+        lane.isDue(TYPE, "c", now);
+        lane.retain(TYPE, new HashSet<String>(Arrays.asList("b", "d")));
+        assertEquals(1, lane.getScheduled(TYPE));
+        assertTrue(lane.isDue(TYPE, "b", now + INITIAL));
+        assertEquals(0, lane.getScheduled(AeroDataType.UPG));
+    }
+}
@@ -0,0 +1,176 @@
+package mil.nga.aero;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import mil.nga.aero.interfaces.AeroDataConstants;
+import mil.nga.types.AeroDataType;
+
+/**
+ * Tests of the <code>SyncCoordinator</code>: skipping and queueing of
+ * overlapping triggers, precedence of a full synchronization over the
+ * retry lane, cancellation and the hand-off to the queued run.  The
+ * coordinator is a singleton, so every test starts and ends with no run
+ * active.
+ *
+ * @author L. Craig Carpenter
+ */
+public class SyncCoordinatorTest implements AeroDataConstants {
+
+    /**
+     * The data type used by the tests.
+     */
+    private static final AeroDataType TYPE = AeroDataType.JEPP;
+
+    /**
+     * The coordinator under test.
+     */
+    private SyncCoordinator coordinator;
+
+    @Before
+    public void setUp() throws Exception {
+        coordinator = SyncCoordinator.getInstance();
+        setPolicy("skip");
+        drain();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        drain();
+        setPolicy("skip");
+    }
+
+    /**
+     * Change the overlap policy (the coordinator reads it on every
+     * trigger).
+     */
+    private void setPolicy(String policy) throws Exception {
+        coordinator.getProperties().setProperty(SYNC_OVERLAP_POLICY, policy);
+    }
+
+    /**
+     * Cancel and finish anything active or queued.
+     */
+    private void drain() {
+        coordinator.cancel(TYPE);
+        SyncProgress current = coordinator.getProgress(TYPE);
+        while (current != null) {
+            coordinator.finish(current);
+            current = coordinator.getProgress(TYPE);
+        }
+    }
+
+    @Test
+    public void beginRegistersRun() {
+        SyncProgress run = coordinator.begin(TYPE, "timer");
+        assertNotNull(run);
+        assertSame(run, coordinator.getProgress(TYPE));
+        assertSame(run, coordinator.getJob(run.getJobId()));
+        assertFalse(coordinator.isQueued(TYPE));
+    }
+
+    @Test
+    public void overlappingTriggerSkipped() {
+        SyncProgress run = coordinator.begin(TYPE, "timer");
+        assertNull(coordinator.begin(TYPE, "rest"));
+        assertFalse(coordinator.isQueued(TYPE));
+        assertSame(run, coordinator.getProgress(TYPE));
+        assertFalse(run.isCancelled());
+
+        assertNull(coordinator.finish(run));
+        assertNull(coordinator.getProgress(TYPE));
+        assertSame(run, coordinator.getLastRun(TYPE));
+        assertTrue(run.isFinished());
+    }
+
+    @Test
+    public void overlappingTriggersQueuedOnce() throws Exception {
+        setPolicy("queue");
+        SyncProgress run = coordinator.begin(TYPE, "timer");
+        assertNull(coordinator.begin(TYPE, "rest"));
+        SyncProgress queued = coordinator.getQueued(TYPE);
+        assertNotNull(queued);
+        assertEquals("rest", queued.getTrigger());
+        assertSame(queued, coordinator.getJob(queued.getJobId()));
+
+        // Further triggers are folded into the queued run.
+        assertNull(coordinator.begin(TYPE, "timer"));
+        assertSame(queued, coordinator.getQueued(TYPE));
+
+        // The queued run starts when the active run finishes.
+        assertSame(queued, coordinator.finish(run));
+        assertSame(queued, coordinator.getProgress(TYPE));
+        assertFalse(coordinator.isQueued(TYPE));
+        assertSame(run, coordinator.getLastRun(TYPE));
+    }
+
+    @Test
+    public void queuedRunStartsAfterFailedRun() throws Exception {
+        setPolicy("queue");
+        SyncProgress run = coordinator.begin(TYPE, "timer");
+        coordinator.begin(TYPE, "rest");
+        SyncProgress queued = coordinator.getQueued(TYPE);
+
+        run.fail("Source catalog unavailable.");
+        assertSame(queued, coordinator.finish(run));
+        assertEquals("failed", run.getPhase());
+        assertSame(queued, coordinator.getProgress(TYPE));
+    }
+
+    @Test
+    public void retryPassSkippedWhileRunActive() throws Exception {
+        setPolicy("queue");
+        SyncProgress run = coordinator.begin(TYPE, "timer");
+        assertNull(coordinator.begin(TYPE, SyncProgress.RETRY_TRIGGER));
+        assertFalse(coordinator.isQueued(TYPE));
+        assertFalse(run.isCancelled());
+    }
+
+    @Test
+    public void fullSynchronizationCancelsRetryPass() {
+        SyncProgress retry = coordinator.begin(
+                TYPE, SyncProgress.RETRY_TRIGGER);
+        assertTrue(retry.isRetry());
+
+        // Queued regardless of the (skip) policy.
+        assertNull(coordinator.begin(TYPE, "timer"));
+        assertTrue(retry.isCancelled());
+        SyncProgress queued = coordinator.getQueued(TYPE);
+        assertNotNull(queued);
+        assertFalse(queued.isRetry());
+
+        assertSame(queued, coordinator.finish(retry));
+        assertSame(queued, coordinator.getProgress(TYPE));
+        assertEquals("cancelled", retry.getPhase());
+    }
+
+    @Test
+    public void cancelDiscardsQueuedRun() throws Exception {
+        setPolicy("queue");
+        SyncProgress run = coordinator.begin(TYPE, "timer");
+        coordinator.begin(TYPE, "rest");
+        SyncProgress queued = coordinator.getQueued(TYPE);
+
+        assertTrue(coordinator.cancel(TYPE));
+        assertTrue(run.isCancelled());
+        assertFalse(coordinator.isQueued(TYPE));
+        assertTrue(queued.isCancelled());
+        assertTrue(queued.isFinished());
+
+        assertNull(coordinator.finish(run));
+        assertNull(coordinator.getProgress(TYPE));
+    }
+
+    @Test
+    public void cancelWithoutActiveRun() {
+        assertFalse(coordinator.cancel(TYPE));
+    }
+}
@@ -0,0 +1,351 @@
+package mil.nga.aero.jepp.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import mil.nga.aero.jepp.JEPPDataUpdateService;
+import mil.nga.aero.upg.model.IntermediateUPGData;
+import mil.nga.aero.upg.model.StagedDelta;
+import mil.nga.aero.upg.model.SyncPlan;
+import mil.nga.aero.upg.model.UPGData;
+import mil.nga.aero.upg.model.UPGDataSetOperations;
+
+/**
+ * Tests of the database diff engine (<code>stageData()</code> and 
+ * <code>getStagedDelta()</code>) against an in-memory H2 database running
+ * in Oracle compatibility mode.  The delta calculated by the database is 
+ * compared with the plan calculated by the in-memory engine 
+ * (<code>UPGDataSetOperations.diff()</code> using 
+ * <code>isUpdateRequired()</code>) over the same fixture.
+ *
+ * @author L. Craig Carpenter
+ */
+public class JDBCJEPPDataServiceTest {
+
+    /**
+     * Timestamp used for products that have not changed.
+     */
+    private static final long BASE = Timestamp.valueOf(
+            "2019-04-26 13:45:12.0").getTime();
+    
+    /**
+     * One day in milliseconds.
+     */
+    private static final long DAY = 24L * 60L * 60L * 1000L;
+    
+    /**
+     * The database.
+     */
+    private JdbcDataSource datasource;
+    
+    /**
+     * The store under test.
+     */
+    private JDBCJEPPDataService store;
+    
+    /**
+     * Update service supplying <code>isUpdateRequired()</code>.
+     */
+    private JEPPDataUpdateService updateService;
+    
+    /**
+     * Directory holding the on-disk products.
+     */
+    private File baseDir;
+    
+    /**
+     * The source catalog keyed by UUID.
+     */
+    private Map<String, IntermediateUPGData> source;
+    
+    /**
+     * The local holdings keyed by UUID.
+     */
+    private Map<String, UPGData> local;
+    
+    @Before
+    public void setUp() throws Exception {
+        
+        datasource = new JdbcDataSource();
+        datasource.setURL("jdbc:h2:mem:jepp;MODE=Oracle;DB_CLOSE_DELAY=-1");
+        execute("create table AEROBROWSER_JEPP ("
+                + "UUID varchar2(64) primary key, ICAO varchar2(8), "
+                + "DATE_LAST_MODIFIED timestamp, LINK varchar2(512), "
+                + "FILENAME varchar2(256), SUCCESS_DL number(1), "
+                + "PSEUDONAME varchar2(256), TYPE varchar2(32), "
+                + "LEIDOS_LINK varchar2(512), HASH varchar2(64))");
+        execute("create table AEROBROWSER_JEPP_STAGE ("
+                + "UUID varchar2(64) primary key, ICAO varchar2(8), "
+                + "DATE_LAST_MODIFIED timestamp, LINK varchar2(512), "
+                + "HASH varchar2(64), PSEUDONAME varchar2(256), "
+                + "TYPE varchar2(32))");
+        
+        store = new JDBCJEPPDataService();
+        store.datasource = datasource;
+        
+        baseDir = File.createTempFile("jepp", "");
+        baseDir.delete();
+        baseDir.mkdirs();
+        updateService = new JEPPDataUpdateService();
+        updateService.setBaseDirectory(baseDir.getAbsolutePath());
+        
+        source = new HashMap<String, IntermediateUPGData>();
+        local  = new HashMap<String, UPGData>();
+        
+        // Unchanged.
+        holding("unchanged", BASE, 1, "http://leidos/unchanged.pdf");
+        catalog("unchanged", BASE);
+        
+        // Source newer than the local holdings (including a change of 
+        // less than one day).
+        holding("newer", BASE, 1, "http://leidos/newer.pdf");
+        catalog("newer", BASE + DAY);
+        holding("newer-intraday", BASE, 1, "http://leidos/intraday.pdf");
+        catalog("newer-intraday", BASE + 1000L);
+        
+        // Source older than the local holdings.
+        holding("older", BASE, 1, "http://leidos/older.pdf");
+        catalog("older", BASE - DAY);
+        
+        // Last download failed.
+        holding("failed", BASE, 0, "http://leidos/failed.pdf");
+        catalog("failed", BASE);
+        
+        // Source link not set by the legacy code.
+        holding("no-source-link", BASE, 1, null);
+        catalog("no-source-link", BASE);
+        
+        // No local date.
+        holding("no-date", UPGData.NO_DATE, 1, "http://leidos/no-date.pdf");
+        catalog("no-date", BASE);
+        
+        // Removed from the source.
+        holding("removed-1", BASE, 1, "http://leidos/removed-1.pdf");
+        holding("removed-2", BASE, 1, "http://leidos/removed-2.pdf");
+        
+        // New in the source.
+        catalog("added-1", BASE);
+        catalog("added-2", BASE + DAY);
+    }
+    
+    @After
+    public void tearDown() throws Exception {
+        execute("drop all objects");
+        delete(baseDir);
+    }
+    
+    /**
+     * Execute a DDL statement.
+     */
+    private void execute(String sql) throws SQLException {
+        Connection conn = datasource.getConnection();
+        try {
+            Statement stmt = conn.createStatement();
+            stmt.execute(sql);
+            stmt.close();
+        }
+        finally {
+            try { conn.close(); } catch (Exception e) {}
+        }
+    }
+    
+    /**
+     * Recursively delete a file or directory.
+     */
+    private void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+    
+    /**
+     * Add a product to the local holdings (both the table and the map)
+     * and create its on-disk file.
+     */
+    private void holding(String uuid, long date, long success, 
+            String sourceLink) throws Exception {
+        
+        UPGData data = new UPGData.UPGDataBuilder()
+                .uuid(uuid)
+                .icao("KDCA")
+                .dateLastModified(date == UPGData.NO_DATE ? 
+                        null : new Timestamp(date))
+                .link("/aero/jepp/KDCA/" + uuid + ".pdf")
+                .filename(uuid + ".pdf")
+                .success(success)
+                .psuedoName(uuid)
+                .type("APD")
+                .sourceLink(sourceLink)
+                .hash("hash-" + uuid)
+                .build();
+        local.put(uuid, data);
+        
+        Connection conn = datasource.getConnection();
+        try {
+            PreparedStatement stmt = conn.prepareStatement(
+                    "insert into AEROBROWSER_JEPP (UUID, ICAO, "
+                    + "DATE_LAST_MODIFIED, LINK, FILENAME, SUCCESS_DL, "
+                    + "PSEUDONAME, TYPE, LEIDOS_LINK, HASH) values "
+                    + "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+            stmt.setString(   1, data.getUUID());
+            stmt.setString(   2, data.getICAO());
+            stmt.setTimestamp(3, data.getDateLastModified());
+            stmt.setString(   4, data.getLink());
+            stmt.setString(   5, data.getFilename());
+            stmt.setLong(     6, data.getDownloadSuccess());
+            stmt.setString(   7, data.getPsuedoName());
+            stmt.setString(   8, data.getType());
+            stmt.setString(   9, data.getSourceLink());
+            stmt.setString(  10, data.getHash());
+            stmt.executeUpdate();
+            stmt.close();
+        }
+        finally {
+            try { conn.close(); } catch (Exception e) {}
+        }
+        
+        File dir = new File(baseDir, "KDCA" + File.separator + "APD");
+        dir.mkdirs();
+        new File(dir, data.getFilename()).createNewFile();
+    }
+    
+    /**
+     * Add a product to the source catalog.
+     */
+    private void catalog(String uuid, long date) {
+        source.put(uuid, new IntermediateUPGData.IntermediateUPGDataBuilder()
+                .uuid(uuid)
+                .icao("KDCA")
+                .dateLastModified(date)
+                .link("http://leidos/" + uuid + ".pdf")
+                .hash("hash-" + uuid)
+                .psuedoName(uuid)
+                .type("APD")
+                .build());
+    }
+    
+    /**
+     * Calculate the plan using the in-memory engine.
+     */
+    private SyncPlan inMemoryPlan() {
+        return UPGDataSetOperations.getInstance().diff(
+                source, 
+                local, 
+                new UPGDataSetOperations.UpdateCheck<
+                        IntermediateUPGData, UPGData>() {
+                    @Override
+                    public boolean isUpdateRequired(
+                            IntermediateUPGData source, 
+                            UPGData             local) {
+                        return updateService.isUpdateRequired(source, local);
+                    }
+                });
+    }
+    
+    /**
+     * Stage the source catalog and calculate the delta in the database.
+     */
+    private StagedDelta stagedDelta() {
+        List<IntermediateUPGData> batch = 
+                new ArrayList<IntermediateUPGData>(source.values());
+        assertEquals(batch.size(), store.stageData(batch));
+        StagedDelta delta = store.getStagedDelta();
+        store.clearStaging();
+        assertNotNull(delta);
+        return delta;
+    }
+    
+    /**
+     * Sort a list of UUIDs so that plans can be compared.
+     */
+    private List<String> sorted(List<String> uuids) {
+        List<String> copy = new ArrayList<String>(uuids);
+        Collections.sort(copy);
+        return copy;
+    }
+    
+    @Test
+    public void stagedDeltaMatchesInMemoryDiff() {
+        
+        SyncPlan    expected = inMemoryPlan();
+        StagedDelta delta    = stagedDelta();
+        SyncPlan    actual   = delta.getPlan();
+        
+        assertEquals(sorted(expected.getProductsToAdd()), 
+                sorted(actual.getProductsToAdd()));
+        assertEquals(sorted(expected.getProductsToUpdate()), 
+                sorted(actual.getProductsToUpdate()));
+        assertEquals(sorted(expected.getProductsToRemove()), 
+                sorted(actual.getProductsToRemove()));
+        assertEquals(expected.getUnchanged(), actual.getUnchanged());
+        
+        // Sanity check the fixture itself.
+        assertEquals(2, actual.getProductsToAdd().size());
+        assertEquals(5, actual.getProductsToUpdate().size());
+        assertEquals(2, actual.getProductsToRemove().size());
+        assertEquals(2, actual.getUnchanged());
+        
+        // The products handed to the add/update/remove steps must carry 
+        // the same content as those used by the in-memory engine.
+        for (String uuid : actual.getProductsToAdd()) {
+            assertEquals(source.get(uuid).getDateLastModifiedMillis(), 
+                    delta.getAdditions().get(uuid)
+                            .getDateLastModifiedMillis());
+            assertEquals(source.get(uuid).getLink(), 
+                    delta.getAdditions().get(uuid).getLink());
+        }
+        for (String uuid : actual.getProductsToUpdate()) {
+            assertEquals(source.get(uuid).getDateLastModifiedMillis(), 
+                    delta.getUpdateSource().get(uuid)
+                            .getDateLastModifiedMillis());
+            assertEquals(local.get(uuid).getFilename(), 
+                    delta.getUpdateLocal().get(uuid).getFilename());
+            assertEquals(local.get(uuid).getSourceLink(), 
+                    delta.getUpdateLocal().get(uuid).getSourceLink());
+        }
+        for (String uuid : actual.getProductsToRemove()) {
+            assertEquals(local.get(uuid).getFilename(), 
+                    delta.getRemovals().get(uuid).getFilename());
+        }
+    }
+    
+    /**
+     * The one documented difference between the engines: the database 
+     * cannot see that an on-disk file has been removed.
+     */
+    @Test
+    public void missingFileOnlyDetectedInMemory() {
+        
+        new File(baseDir, "KDCA" + File.separator + "APD" 
+                + File.separator + "unchanged.pdf").delete();
+        
+        SyncPlan expected = inMemoryPlan();
+        SyncPlan actual   = stagedDelta().getPlan();
+        
+        assertTrue(expected.getProductsToUpdate().contains("unchanged"));
+        assertFalse(actual.getProductsToUpdate().contains("unchanged"));
+    }
+}
@@ -0,0 +1,260 @@
+package mil.nga.aero.upg.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures the retained heap per product of the compact catalog model
+ * (pooled ICAO/TYPE values, pooled link prefixes and primitive dates)
+ * against the representation it replaced (one independent String per
+ * field and a <code>Date</code> per product).  The legacy classes below
+ * mirror the fields of <code>IntermediateUPGData</code> and
+ * <code>UPGData</code> prior to the change.  Every field value is a new
+ * String, as it is when the catalog is parsed.  The bytes per product
+ * are logged; only the ordering is asserted as the absolute values
+ * depend on the JVM (compressed oops, alignment).
+ *
+ * @author L. Craig Carpenter
+ */
+public class CompactModelFootprintTest {
+
+    /**
+     * Set up the LogBack system for use throughout the class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+            CompactModelFootprintTest.class);
+
+    /**
+     * Number of products held by each measurement.
+     */
+    private static final int PRODUCTS = 200000;
+
+    /**
+     * Number of distinct airports in the synthetic catalog.
+     */
+    private static final int AIRPORTS = 2000;
+
+    /**
+     * Product types found in the catalog.
+     */
+    private static final String[] TYPES = { "IAP", "DEP", "ARR", "APD" };
+
+    /**
+     * Source URL prefix.
+     */
+    private static final String SOURCE_URL =
+            "https://aerodata.example.com/upg/charts/";
+
+    /**
+     * Local URL prefix.
+     */
+    private static final String LOCAL_URL =
+            "https://aerobrowser.example.mil/aero/upg/";
+
+    /**
+     * The source catalog product prior to the compact model.
+     */
+    @SuppressWarnings("unused")
+    private static class LegacyIntermediateUPGData {
+        private final String uuid;
+        private final String icao;
+        private final Date   dateLastModified;
+        private final String link;
+        private final String hash;
+        private final String psuedoName;
+        private final String type;
+
+        LegacyIntermediateUPGData(String uuid, String icao, long date,
+                String link, String hash, String psuedoName, String type) {
+            this.uuid             = uuid;
+            this.icao             = icao;
+            this.dateLastModified = new Timestamp(date);
+            this.link             = link;
+            this.hash             = hash;
+            this.psuedoName       = psuedoName;
+            this.type             = type;
+        }
+    }
+
+    /**
+     * The local holdings product prior to the compact model.
+     */
+    @SuppressWarnings("unused")
+    private static class LegacyUPGData {
+        private final String uuid;
+        private final String icao;
+        private final Date   dateLastModified;
+        private       String link;
+        private final String filename;
+        private       long   success;
+        private final String psuedoName;
+        private final String type;
+        private final String sourceLink;
+        private final String hash;
+
+        LegacyUPGData(String uuid, String icao, long date, String link,
+                String filename, long success, String psuedoName,
+                String type, String sourceLink, String hash) {
+            this.uuid             = uuid;
+            this.icao             = icao;
+            this.dateLastModified = new Timestamp(date);
+            this.link             = link;
+            this.filename         = filename;
+            this.success          = success;
+            this.psuedoName       = psuedoName;
+            this.type             = type;
+            this.sourceLink       = sourceLink;
+            this.hash             = hash;
+        }
+    }
+
+    /**
+     * Synthetic field values of one product.  Each instance holds new
+     * String objects, as produced by the catalog parser.
+     */
+    private static class Fields {
+        final String uuid;
+        final String icao;
+        final long   date;
+        final String filename;
+        final String hash;
+        final String psuedoName;
+        final String type;
+        final String sourceLink;
+        final String link;
+
+        Fields(Random random, int index) {
+            uuid       = new UUID(random.nextLong(), random.nextLong())
+                    .toString();
+            icao       = "K" + (100 + random.nextInt(AIRPORTS));
+            date       = 1556286312000L + random.nextInt(1000000) * 1000L;
+            filename   = uuid + ".pdf";
+            hash       = Long.toHexString(random.nextLong())
+                    + Long.toHexString(random.nextLong());
+            psuedoName = icao + "_" + index + "_CHART";
+            type       = new String(TYPES[random.nextInt(TYPES.length)]);
+            sourceLink = SOURCE_URL + icao + "/" + filename;
+            link       = LOCAL_URL + icao + "/" + type + "/" + filename;
+        }
+    }
+
+    /**
+     * Bytes currently in use on the heap after forcing collections.
+     */
+    private long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        long    used    = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(50);
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    /**
+     * Fill the holder with products of the requested model and return
+     * the retained bytes per product.
+     */
+    private double measure(Object[] holder, boolean compact, boolean local)
+            throws Exception {
+        Random random = new Random(42);
+        long   before = usedHeap();
+        for (int i = 0; i < holder.length; i++) {
+            Fields f = new Fields(random, i);
+            if (local && compact) {
+                holder[i] = new UPGData.UPGDataBuilder()
+                        .uuid(f.uuid)
+                        .icao(f.icao)
+                        .dateLastModified(new Timestamp(f.date))
+                        .link(f.link)
+                        .filename(f.filename)
+                        .success(1)
+                        .psuedoName(f.psuedoName)
+                        .type(f.type)
+                        .sourceLink(f.sourceLink)
+                        .hash(f.hash)
+                        .build();
+            }
+            else if (local) {
+                holder[i] = new LegacyUPGData(f.uuid, f.icao, f.date,
+                        f.link, f.filename, 1, f.psuedoName, f.type,
+                        f.sourceLink, f.hash);
+            }
+            else if (compact) {
+                holder[i] = new IntermediateUPGData
+                        .IntermediateUPGDataBuilder()
+                        .uuid(f.uuid)
+                        .icao(f.icao)
+                        .dateLastModified(f.date)
+                        .link(f.sourceLink)
+                        .hash(f.hash)
+                        .psuedoName(f.psuedoName)
+                        .type(f.type)
+                        .build();
+            }
+            else {
+                holder[i] = new LegacyIntermediateUPGData(f.uuid, f.icao,
+                        f.date, f.sourceLink, f.hash, f.psuedoName, f.type);
+            }
+        }
+        long after = usedHeap();
+        assertEquals(holder.length, count(holder));
+        return (after - before) / (double)holder.length;
+    }
+
+    /**
+     * Count the populated entries.  Also keeps the holder reachable until
+     * the measurement completes.
+     */
+    private int count(Object[] holder) {
+        int count = 0;
+        for (Object o : holder) {
+            if (o != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Measure both models and log the result.
+     */
+    private void compare(String name, boolean local) throws Exception {
+
+        // Warm up the pool and the builders.
+        measure(new Object[PRODUCTS / 10], true, local);
+
+        double legacy  = measure(new Object[PRODUCTS], false, local);
+        double compact = measure(new Object[PRODUCTS], true, local);
+
+        LOGGER.info(name
+                + " bytes per product: legacy [ "
+                + String.format("%.1f", legacy)
+                + " ], compact [ "
+                + String.format("%.1f", compact)
+                + " ], saved [ "
+                + String.format("%.1f", (1.0 - compact / legacy) * 100.0)
+                + " ] %.");
+        assertTrue(compact < legacy);
+    }
+
+    @Test
+    public void sourceCatalogFootprint() throws Exception {
+        compare("IntermediateUPGData", false);
+    }
+
+    @Test
+    public void localHoldingsFootprint() throws Exception {
+        compare("UPGData", true);
+    }
+}
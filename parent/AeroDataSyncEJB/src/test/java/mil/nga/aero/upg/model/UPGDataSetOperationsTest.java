@@ -0,0 +1,220 @@
+package mil.nga.aero.upg.model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests of <code>UPGDataSetOperations</code>.  The hash-join
+ * <code>diff()</code> and the HashSet-backed list operations are compared
+ * against the nested-loop implementations they replaced
+ * (<code>ArrayList.removeAll()</code> and <code>List.contains()</code>
+ * followed by a per-UUID update check over the intersection).
+ *
+ * @author L. Craig Carpenter
+ */
+public class UPGDataSetOperationsTest {
+
+    /**
+     * Update check used by the fixtures: a product is updated when the
+     * source version is newer than the local version.
+     */
+    private static final UPGDataSetOperations.UpdateCheck<Integer, Integer>
+            NEWER = new UPGDataSetOperations.UpdateCheck<Integer, Integer>() {
+                @Override
+                public boolean isUpdateRequired(Integer source, Integer local) {
+                    return source > local;
+                }
+            };
+
+    /**
+     * Products to add as calculated prior to <code>diff()</code>.
+     */
+    private List<String> legacyAdd(
+            Map<String, Integer> source,
+            Map<String, Integer> local) {
+        List<String> add = new ArrayList<String>(source.keySet());
+        add.removeAll(local.keySet());
+        return add;
+    }
+
+    /**
+     * Products to remove as calculated prior to <code>diff()</code>.
+     */
+    private List<String> legacyRemove(
+            Map<String, Integer> source,
+            Map<String, Integer> local) {
+        List<String> remove = new ArrayList<String>(local.keySet());
+        remove.removeAll(source.keySet());
+        return remove;
+    }
+
+    /**
+     * Products to update as calculated prior to <code>diff()</code>.
+     */
+    private List<String> legacyUpdate(
+            Map<String, Integer> source,
+            Map<String, Integer> local) {
+        List<String> update = new ArrayList<String>();
+        for (String uuid : source.keySet()) {
+            if (local.keySet().contains(uuid)) {
+                if (NEWER.isUpdateRequired(source.get(uuid), local.get(uuid))) {
+                    update.add(uuid);
+                }
+            }
+        }
+        return update;
+    }
+
+    /**
+     * Number of unchanged products as calculated prior to
+     * <code>diff()</code>.
+     */
+    private long legacyUnchanged(
+            Map<String, Integer> source,
+            Map<String, Integer> local) {
+        long unchanged = 0;
+        for (String uuid : source.keySet()) {
+            if (local.keySet().contains(uuid) &&
+                    !NEWER.isUpdateRequired(source.get(uuid), local.get(uuid))) {
+                unchanged++;
+            }
+        }
+        return unchanged;
+    }
+
+    /**
+     * Load (UUID, version) pairs into a map the way the holdings are
+     * loaded: a repeated UUID replaces the earlier entry.
+     */
+    private Map<String, Integer> holdings(Object... pairs) {
+        Map<String, Integer> map = new LinkedHashMap<String, Integer>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            map.put((String)pairs[i], (Integer)pairs[i + 1]);
+        }
+        return map;
+    }
+
+    /**
+     * Sort a list of UUIDs so that results can be compared regardless
+     * of iteration order.
+     */
+    private List<String> sorted(List<String> uuids) {
+        List<String> copy = new ArrayList<String>(uuids);
+        Collections.sort(copy);
+        return copy;
+    }
+
+    /**
+     * Assert that <code>diff()</code> matches the nested-loop results.
+     */
+    private void assertMatchesLegacy(
+            Map<String, Integer> source,
+            Map<String, Integer> local) {
+        SyncPlan plan = UPGDataSetOperations.getInstance().diff(
+                source, local, NEWER);
+        assertEquals(sorted(legacyAdd(source, local)),
+                sorted(plan.getProductsToAdd()));
+        assertEquals(sorted(legacyUpdate(source, local)),
+                sorted(plan.getProductsToUpdate()));
+        assertEquals(sorted(legacyRemove(source, local)),
+                sorted(plan.getProductsToRemove()));
+        assertEquals(legacyUnchanged(source, local), plan.getUnchanged());
+    }
+
+    @Test
+    public void diffMatchesNestedLoopOnFixture() {
+
+        Map<String, Integer> source = holdings(
+                "unchanged", 1,
+                "updated",   2,
+                "older",     1,
+                "dup-src",   1,
+                "added-1",   1,
+                "dup-src",   3,      // Duplicate UUID, replaces version 1.
+                "added-2",   1);
+        Map<String, Integer> local = holdings(
+                "unchanged", 1,
+                "updated",   1,
+                "older",     2,
+                "dup-src",   2,
+                "dup-local", 1,
+                "removed-1", 1,
+                "dup-local", 2,      // Duplicate UUID, replaces version 1.
+                "removed-2", 1);
+
+        assertMatchesLegacy(source, local);
+
+        SyncPlan plan = UPGDataSetOperations.getInstance().diff(
+                source, local, NEWER);
+        assertEquals(Arrays.asList("added-1", "added-2"),
+                sorted(plan.getProductsToAdd()));
+        assertEquals(Arrays.asList("dup-src", "updated"),
+                sorted(plan.getProductsToUpdate()));
+        assertEquals(Arrays.asList("dup-local", "removed-1", "removed-2"),
+                sorted(plan.getProductsToRemove()));
+        assertEquals(2, plan.getUnchanged());
+    }
+
+    @Test
+    public void diffMatchesNestedLoopOnEmptyHoldings() {
+        Map<String, Integer> empty = holdings();
+        Map<String, Integer> some  = holdings("a", 1, "b", 2);
+        assertMatchesLegacy(empty, empty);
+        assertMatchesLegacy(some, empty);
+        assertMatchesLegacy(empty, some);
+    }
+
+    @Test
+    public void diffMatchesNestedLoopOnRandomHoldings() {
+        Random random = new Random(42);
+        for (int run = 0; run < 20; run++) {
+            Map<String, Integer> source = holdings();
+            Map<String, Integer> local  = holdings();
+            for (int i = 0; i < 500; i++) {
+                String uuid = "uuid-" + random.nextInt(400);
+                if (random.nextBoolean()) {
+                    source.put(uuid, random.nextInt(3));
+                }
+                if (random.nextBoolean()) {
+                    local.put(uuid, random.nextInt(3));
+                }
+            }
+            assertMatchesLegacy(source, local);
+        }
+    }
+
+    @Test
+    public void listOperationsMatchNestedLoopWithDuplicates() {
+
+        List<String> a = Arrays.asList("a", "b", "b", "c", "d", "d", "e");
+        List<String> b = Arrays.asList("b", "d", "d", "f", "f");
+
+        List<String> subtract = new ArrayList<String>(a);
+        subtract.removeAll(b);
+        assertEquals(subtract,
+                UPGDataSetOperations.getInstance().subtract(a, b));
+
+        List<String> intersection = new ArrayList<String>();
+        for (String id : a) {
+            if (b.contains(id)) {
+                intersection.add(id);
+            }
+        }
+        assertEquals(intersection,
+                UPGDataSetOperations.getInstance().intersection(a, b));
+
+        assertEquals(sorted(subtract), sorted(UPGDataSetOperations
+                .getInstance().subtract(
+                        new HashSet<String>(a), new HashSet<String>(b))));
+    }
+}
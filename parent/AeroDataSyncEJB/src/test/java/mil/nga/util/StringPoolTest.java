@@ -0,0 +1,54 @@
+package mil.nga.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/**
+ * Tests of the <code>StringPool</code>.
+ *
+ * @author L. Craig Carpenter
+ */
+public class StringPoolTest {
+
+    @Test
+    public void internReturnsCanonicalInstance() {
+        String first  = new String("KDCA-pool-test");
+        String second = new String("KDCA-pool-test");
+        assertSame(StringPool.intern(first), StringPool.intern(second));
+        assertSame(first, StringPool.intern(second));
+        assertNull(StringPool.intern(null));
+    }
+
+    @Test
+    public void splitAndJoinRoundTrip() {
+        String[] values = {
+                "https://aerodata.example.com/upg/charts/KDCA/a.pdf",
+                "/aero/jepp/KDCA/",
+                "no-slash.pdf",
+                "/",
+                "" };
+        for (String value : values) {
+            assertEquals(value, StringPool.join(
+                    StringPool.prefix(value),
+                    StringPool.suffix(value)));
+        }
+        assertNull(StringPool.join(
+                StringPool.prefix(null),
+                StringPool.suffix(null)));
+    }
+
+    @Test
+    public void prefixIsShared() {
+        String a = new String("https://aerodata.example.com/KDCA/a.pdf");
+        String b = new String("https://aerodata.example.com/KDCA/b.pdf");
+        assertSame(StringPool.prefix(a), StringPool.prefix(b));
+        assertEquals("https://aerodata.example.com/KDCA/",
+                StringPool.prefix(a));
+        assertEquals("a.pdf", StringPool.suffix(a));
+        assertNull(StringPool.prefix("no-slash.pdf"));
+        assertEquals("no-slash.pdf", StringPool.suffix("no-slash.pdf"));
+    }
+}
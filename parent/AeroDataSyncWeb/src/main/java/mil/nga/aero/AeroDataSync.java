@@ -2,16 +2,24 @@ package mil.nga.aero;
 
 import javax.ejb.EJB;
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import mil.nga.aero.upg.exceptions.UPGDataException;
+import mil.nga.exceptions.UnknownAeroDataTypeException;
 import mil.nga.types.AeroDataType;
 import mil.nga.util.FileUtils;
 
@@ -28,6 +36,12 @@ public class AeroDataSync {
      */
     public static final String APPLICATION_NAME = "UPGDownload";
     
+    /**
+     * Used to convert job status and metrics to JSON (thread-safe once 
+     * configured).
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
     @EJB
     DataSyncService syncService;
     
@@ -49,6 +63,31 @@ public class AeroDataSync {
         return syncService;
     }
     
+    /**
+     * Convert the input object to a JSON response with the input status.
+     * 
+     * @param status The HTTP status of the response.
+     * @param obj The object to convert.
+     * @return The response.
+     */
+    private Response toJSON(Status status, Object obj) {
+        try {
+            return Response.status(status)
+                    .type(MediaType.APPLICATION_JSON)
+                    .entity(MAPPER.writeValueAsString(obj))
+                    .build();
+        }
+        catch (JsonProcessingException jpe) {
+            LOGGER.error("Unexpected JsonProcessingException raised while "
+                    + "serializing the response.  Error message [ "
+                    + jpe.getMessage()
+                    + " ].");
+            return Response.status(Status.INTERNAL_SERVER_ERROR)
+                    .entity(jpe.getMessage())
+                    .build();
+        }
+    }
+    
     /**
      * Simple method used to determine whether or not the bundler 
      * application is responding to requests.
@@ -70,6 +109,35 @@ public class AeroDataSync {
             
     }
     
+    /**
+     * Simple method used to report on the saturation of the shared HTTP
+     * connection pool (e.g. while a synchronization run is in progress).
+     */
+    @GET
+    @Path("/httpPoolStats")
+    public Response httpPoolStats(@Context HttpHeaders headers) {
+        return Response.status(Status.OK)
+                .entity(HttpTransport.getInstance().getPoolStatsString())
+                .build();
+    }
+
+    /**
+     * Simple method used to report on the synchronization runs of each 
+     * data type (active run progress, queued triggers and the last run).
+     */
+    @GET
+    @Path("/syncStatus")
+    public Response syncStatus(@Context HttpHeaders headers) {
+        return Response.status(Status.OK)
+                .entity(SyncCoordinator.getInstance().getStatusString())
+                .build();
+    }
+    
+    /**
+     * Start a JEPP synchronization run in the background.  The run 
+     * executes on a container-managed thread so the request returns 
+     * immediately with the job ID (see <code>/jobs/{jobId}</code>).
+     */
     @GET
     @Path("/startJEPP")
     public String startSyncJEPP() {
@@ -77,7 +145,17 @@ public class AeroDataSync {
         try {
             if (getSyncService() != null) {
                 
-                getSyncService().synchronize(AeroDataType.JEPP);
+                SyncProgress job = getSyncService().submit(
+                        AeroDataType.JEPP, 
+                        "rest");
+                if (job == null) {
+                    return "Synchronization already in progress!  " 
+                            + SyncCoordinator.getInstance()
+                                .getProgress(AeroDataType.JEPP);
+                }
+                return "Synchronization job [ " 
+                        + job.getJobId()
+                        + " ] submitted.";
                 
             }
             else {
@@ -87,10 +165,124 @@ public class AeroDataSync {
         catch (UPGDataException ude) {
             return ude.getMessageText();
         }
-        return "Done!";
         
     }
     
+    /**
+     * Start a synchronization run of the input data type in the 
+     * background.  Returns 202 (Accepted) with the status of the new job 
+     * (or of the queued job if a run was already active and overlapping 
+     * triggers are queued) or 409 (Conflict) with the status of the 
+     * active job if the trigger was skipped.  If the active job finished 
+     * in the meantime the 409 carries the status of the last run instead.
+     * 
+     * @param type The data type to synchronize (e.g. jepp).
+     */
+    @POST
+    @Path("/jobs/{type}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response submitJob(@PathParam("type") String type) {
+        
+        AeroDataType dataType = null;
+        try {
+            dataType = AeroDataType.fromString(type);
+        }
+        catch (UnknownAeroDataTypeException uadte) {
+            return Response.status(Status.BAD_REQUEST)
+                    .entity(uadte.getMessage())
+                    .build();
+        }
+        if (getSyncService() == null) {
+            return Response.status(Status.SERVICE_UNAVAILABLE)
+                    .entity("Unable to look up sync service!")
+                    .build();
+        }
+        
+        try {
+            SyncProgress job = getSyncService().submit(dataType, "rest");
+            if (job == null) {
+                SyncProgress current = 
+                        SyncCoordinator.getInstance().getProgress(dataType);
+                if (current == null) {
+                    current = 
+                        SyncCoordinator.getInstance().getLastRun(dataType);
+                }
+                if (current == null) {
+                    return Response.status(Status.CONFLICT)
+                            .entity("Synchronization of type [ " 
+                                    + dataType.getText()
+                                    + " ] already in progress.")
+                            .build();
+                }
+                return toJSON(Status.CONFLICT, current);
+            }
+            return toJSON(Status.ACCEPTED, job);
+        }
+        catch (UPGDataException ude) {
+            return Response.status(Status.INTERNAL_SERVER_ERROR)
+                    .entity(ude.getMessageText())
+                    .build();
+        }
+    }
+    
+    /**
+     * Report the phase, counters and timings of a synchronization job.
+     * 
+     * @param jobId The job ID returned when the job was submitted.
+     */
+    @GET
+    @Path("/jobs/{jobId}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response jobStatus(@PathParam("jobId") String jobId) {
+        SyncProgress job = SyncCoordinator.getInstance().getJob(jobId);
+        if (job == null) {
+            return Response.status(Status.NOT_FOUND)
+                    .entity("Unknown job ID [ " + jobId + " ].")
+                    .build();
+        }
+        return toJSON(Status.OK, job);
+    }
+    
+    /**
+     * Retrieve the metrics of a finished synchronization job.  Returns 202 
+     * (Accepted) with the status of the job if it is still running, or 
+     * 404 (Not Found) with the status of the job if it finished without 
+     * storing metrics (e.g. it failed or was cancelled).
+     * 
+     * @param jobId The job ID returned when the job was submitted.
+     */
+    @GET
+    @Path("/jobs/{jobId}/result")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response jobResult(@PathParam("jobId") String jobId) {
+        SyncProgress job = SyncCoordinator.getInstance().getJob(jobId);
+        if (job == null) {
+            return Response.status(Status.NOT_FOUND)
+                    .entity("Unknown job ID [ " + jobId + " ].")
+                    .build();
+        }
+        if (!job.isFinished()) {
+            return toJSON(Status.ACCEPTED, job);
+        }
+        if (job.getResult() == null) {
+            return toJSON(Status.NOT_FOUND, job);
+        }
+        return toJSON(Status.OK, job.getResult());
+    }
+    
+    /**
+     * Request that the active JEPP synchronization run stop at its next 
+     * checkpoint.
+     */
+    @GET
+    @Path("/cancelJEPP")
+    public String cancelSyncJEPP() {
+        if (SyncCoordinator.getInstance().cancel(AeroDataType.JEPP)) {
+            return "Cancellation requested.";
+        }
+        return "No synchronization in progress.";
+    }
+    
 //    @GET
 //    @Path("/startUPG")
 //    public String startSyncUPG() {